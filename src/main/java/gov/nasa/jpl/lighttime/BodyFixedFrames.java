@@ -0,0 +1,187 @@
+package gov.nasa.jpl.lighttime;
+
+import gov.nasa.jpl.time.TextKernel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rotates positions from the frames SPK segments are written in into J2000. Besides J2000 itself, that is
+ * ECLIPJ2000 and the built-in IAU body-fixed frames of the Sun, the planets and the Moon, whose orientation comes
+ * from the pole and prime meridian models in text PCKs like pck00010.tpc, the same way SPICE's BODEUL computes it.
+ * Landing site SPKs are written in the body-fixed frame of the body the spacecraft is on.
+ */
+final class BodyFixedFrames {
+    static final int J2000 = 1;
+    static final int ECLIPJ2000 = 17;
+
+    // obliquity of the ecliptic at J2000 SPICE uses for ECLIPJ2000
+    private static final double OBLIQUITY = Math.toRadians(84381.448 / 3600.0);
+    private static final double SECONDS_PER_DAY = 86400.0;
+    private static final double SECONDS_PER_CENTURY = SECONDS_PER_DAY * 36525.0;
+
+    private static final Map<Integer, Integer> IAU_FRAME_BODIES = new HashMap<>();
+    static {
+        int[] bodies = {10, 199, 299, 399, 499, 599, 699, 799, 899, 999, 301};
+        for(int i = 0; i < bodies.length; i++){
+            IAU_FRAME_BODIES.put(10010 + i, bodies[i]);
+        }
+    }
+
+    private final List<TextKernel> kernels = new ArrayList<>();
+    // built from the kernels the first time each body is rotated, possibly by several querying threads at once
+    private final Map<Integer, Orientation> orientations = new ConcurrentHashMap<>();
+
+    // the pole and prime meridian model of one body, in degrees
+    private static final class Orientation {
+        private final double[] ra;
+        private final double[] dec;
+        private final double[] pm;
+        private final double[] nutPrecRa;
+        private final double[] nutPrecDec;
+        private final double[] nutPrecPm;
+        private final double[] angles;
+        private final int angleDegree;
+
+        private Orientation(double[] ra, double[] dec, double[] pm, double[] nutPrecRa, double[] nutPrecDec, double[] nutPrecPm, double[] angles, int angleDegree){
+            this.ra = ra;
+            this.dec = dec;
+            this.pm = pm;
+            this.nutPrecRa = nutPrecRa;
+            this.nutPrecDec = nutPrecDec;
+            this.nutPrecPm = nutPrecPm;
+            this.angles = angles;
+            this.angleDegree = angleDegree;
+        }
+    }
+
+    /**
+     * Adds the constants of a text PCK, which take precedence over ones with the same names added before
+     */
+    void add(TextKernel kernel){
+        kernels.add(kernel);
+        orientations.clear();
+    }
+
+    /**
+     * @param frame SPICE frame ID of the position
+     * @param et ephemeris time of the position, which sets the orientation of body-fixed frames
+     * @param position rotated in place into J2000
+     */
+    void rotateToJ2000(int frame, double et, double[] position){
+        if(frame == J2000){
+            return;
+        }
+        if(frame == ECLIPJ2000){
+            rotateX(position, OBLIQUITY);
+            return;
+        }
+        Integer body = IAU_FRAME_BODIES.get(frame);
+        if(body == null){
+            throw new RuntimeException("SPK segments in frame " + frame + " can't be read without SPICE, only J2000, ECLIPJ2000 and the IAU body-fixed frames are supported");
+        }
+
+        Orientation orientation = getOrientation(body);
+        double t = et / SECONDS_PER_CENTURY;
+        double d = et / SECONDS_PER_DAY;
+        double ra = polynomial(orientation.ra, t);
+        double dec = polynomial(orientation.dec, t);
+        double w = polynomial(orientation.pm, d);
+        if(orientation.angles != null){
+            int stride = orientation.angleDegree + 1;
+            for(int i = 0; i < orientation.angles.length / stride; i++){
+                double theta = 0;
+                for(int k = orientation.angleDegree; k >= 0; k--){
+                    theta = theta * t + orientation.angles[i * stride + k];
+                }
+                theta = Math.toRadians(theta);
+                ra += coefficient(orientation.nutPrecRa, i) * Math.sin(theta);
+                dec += coefficient(orientation.nutPrecDec, i) * Math.cos(theta);
+                w += coefficient(orientation.nutPrecPm, i) * Math.sin(theta);
+            }
+        }
+
+        // body-fixed is [W]3 [pi/2 - dec]1 [pi/2 + ra]3 from J2000, so apply the transposes in reverse order
+        rotateZ(position, Math.toRadians(w));
+        rotateX(position, Math.PI / 2 - Math.toRadians(dec));
+        rotateZ(position, Math.PI / 2 + Math.toRadians(ra));
+    }
+
+    private Orientation getOrientation(int body){
+        Orientation orientation = orientations.get(body);
+        if(orientation == null){
+            String prefix = "BODY" + body + "_";
+            if(find(prefix + "POLE_RA") == null){
+                throw new RuntimeException("No orientation constants for body " + body + " have been loaded, load a text PCK with " + prefix + "POLE_RA, " + prefix + "POLE_DEC and " + prefix + "PM");
+            }
+            double[] refFrame = find(prefix + "CONSTANTS_REF_FRAME");
+            if(refFrame != null && refFrame[0] != J2000){
+                throw new RuntimeException("Orientation constants for body " + body + " are relative to frame " + (int) refFrame[0] + ", only J2000 is supported");
+            }
+
+            double[] angles = null;
+            int angleDegree = 1;
+            double[] nutPrecRa = find(prefix + "NUT_PREC_RA");
+            double[] nutPrecDec = find(prefix + "NUT_PREC_DEC");
+            double[] nutPrecPm = find(prefix + "NUT_PREC_PM");
+            if(nutPrecRa != null || nutPrecDec != null || nutPrecPm != null){
+                int barycenter = body > 100 ? body / 100 : body;
+                angles = find("BODY" + barycenter + "_NUT_PREC_ANGLES");
+                if(angles == null){
+                    throw new RuntimeException("Orientation constants for body " + body + " have nutation precession terms, but BODY" + barycenter + "_NUT_PREC_ANGLES is not loaded");
+                }
+                double[] maxPhaseDegree = find("BODY" + barycenter + "_MAX_PHASE_DEGREE");
+                if(maxPhaseDegree != null){
+                    angleDegree = (int) maxPhaseDegree[0];
+                }
+            }
+            orientation = new Orientation(find(prefix + "POLE_RA"), find(prefix + "POLE_DEC"), find(prefix + "PM"), nutPrecRa, nutPrecDec, nutPrecPm, angles, angleDegree);
+            orientations.put(body, orientation);
+        }
+        return orientation;
+    }
+
+    // the value from the last kernel that has the variable, or null
+    private double[] find(String name){
+        for(int i = kernels.size() - 1; i >= 0; i--){
+            if(kernels.get(i).containsKey(name)){
+                return kernels.get(i).getDoubles(name);
+            }
+        }
+        return null;
+    }
+
+    private static double polynomial(double[] coefficients, double x){
+        double result = 0;
+        for(int k = coefficients.length - 1; k >= 0; k--){
+            result = result * x + coefficients[k];
+        }
+        return result;
+    }
+
+    private static double coefficient(double[] coefficients, int i){
+        return coefficients == null || i >= coefficients.length ? 0 : coefficients[i];
+    }
+
+    // transposes of SPICE's frame rotations [angle]3 and [angle]1
+    private static void rotateZ(double[] v, double angle){
+        double c = Math.cos(angle);
+        double s = Math.sin(angle);
+        double x = c * v[0] - s * v[1];
+        double y = s * v[0] + c * v[1];
+        v[0] = x;
+        v[1] = y;
+    }
+
+    private static void rotateX(double[] v, double angle){
+        double c = Math.cos(angle);
+        double s = Math.sin(angle);
+        double y = c * v[1] - s * v[2];
+        double z = s * v[1] + c * v[2];
+        v[1] = y;
+        v[2] = z;
+    }
+}
@@ -0,0 +1,286 @@
+package gov.nasa.jpl.lighttime;
+
+import gov.nasa.jpl.time.Duration;
+import gov.nasa.jpl.time.LeapSecondsKernel;
+import gov.nasa.jpl.time.Time;
+import gov.nasa.jpl.time.TimeContext;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * Wraps another LightTimeProvider, like SPKLightTimeProvider, and answers from polynomial fits of the light times it
+ * returns, so converting many nearby times costs a handful of calls to the wrapped provider per segment instead of
+ * one per conversion. Each combination of spacecraft, body, time reference and leg gets its own curve, which is
+ * split into segments of a fixed length that are fit the first time they are queried. A fit samples the wrapped
+ * provider at Chebyshev nodes and is checked against it halfway between them; if it misses by more than the
+ * accuracy asked for, the segment is split in two and each half is fit when it is first needed, down to a minimum
+ * length below which the wrapped provider is simply called directly.
+ *
+ * Instances can be shared between threads if the wrapped provider can. Fit segments never change once they are made,
+ * and when two threads need the same one at once both fit it and the first one published is kept.
+ */
+public class InterpolatingLightTimeProvider implements LightTimeProvider {
+    private static final int NUMBER_OF_NODES = 13;
+    private static final int MAX_SPLITS = 12;
+    private static final Duration DEFAULT_SEGMENT_LENGTH = new Duration("1T00:00:00");
+
+    private final LightTimeProvider provider;
+    private final double maxErrorSeconds;
+    private final long segmentLength;
+    private final ConcurrentMap<CurveKey, Curve> curves = new ConcurrentHashMap<>();
+
+    // the same tics are different instants with and without SPICE math or with another leap second table, so
+    // those are part of what a curve is for as well as the legs
+    private static final class CurveKey {
+        private final int sc_id;
+        private final int body_id;
+        private final String time_reference;
+        private final boolean upleg;
+        private final boolean useSpiceForMath;
+        private final LeapSecondsKernel leapSecondsKernel;
+
+        private CurveKey(int sc_id, int body_id, String time_reference, boolean upleg, TimeContext context){
+            this.sc_id = sc_id;
+            this.body_id = body_id;
+            this.time_reference = time_reference;
+            this.upleg = upleg;
+            this.useSpiceForMath = context.getUseSpiceForMath();
+            this.leapSecondsKernel = context.getLeapSecondsKernel();
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof CurveKey)){
+                return false;
+            }
+            CurveKey other = (CurveKey) o;
+            return sc_id == other.sc_id && body_id == other.body_id && upleg == other.upleg && time_reference.equals(other.time_reference)
+                    && useSpiceForMath == other.useSpiceForMath && leapSecondsKernel == other.leapSecondsKernel;
+        }
+
+        @Override
+        public int hashCode(){
+            return (((sc_id * 31 + body_id) * 31 + time_reference.hashCode()) * 2 + (upleg ? 1 : 0)) * 2 + (useSpiceForMath ? 1 : 0);
+        }
+    }
+
+    // top level segments of one curve, keyed by their index from tics 0
+    private static final class Curve {
+        private final ConcurrentMap<Long, Segment> segments = new ConcurrentHashMap<>();
+    }
+
+    // a fit piece of a curve: coefficients if the fit was good enough, otherwise its halves, which are fit when they
+    // are first needed, or neither if the wrapped provider has to be called directly
+    private static final class Segment {
+        private final long start;
+        private final long length;
+        private final int splits;
+        private final double[] coefficients;
+        private final AtomicReferenceArray<Segment> halves;
+
+        private Segment(long start, long length, int splits, double[] coefficients, boolean split){
+            this.start = start;
+            this.length = length;
+            this.splits = splits;
+            this.coefficients = coefficients;
+            this.halves = split ? new AtomicReferenceArray<>(2) : null;
+        }
+
+        private boolean contains(long tics){
+            return tics >= start && tics - start < length;
+        }
+
+        private long firstHalfLength(){
+            return length / 2;
+        }
+    }
+
+    /**
+     * Fits segments of one day to within a microsecond of the wrapped provider
+     * @param provider Where light times come from, for example a new SPKLightTimeProvider()
+     */
+    public InterpolatingLightTimeProvider(LightTimeProvider provider){
+        this(provider, MICROSECOND_DURATION, DEFAULT_SEGMENT_LENGTH);
+    }
+
+    /**
+     * @param provider Where light times come from, for example a new SPKLightTimeProvider()
+     * @param maxError How far the interpolated light times may be from the wrapped provider's at the check points.
+     *                 Should be more than a tic, which is the resolution of the light times being fit.
+     * @param segmentLength Length of the segments curves are split into before any splitting for accuracy
+     */
+    public InterpolatingLightTimeProvider(LightTimeProvider provider, Duration maxError, Duration segmentLength){
+        if(segmentLength.getTics() <= 0){
+            throw new RuntimeException("Light time interpolation segment length must be positive, but was " + segmentLength);
+        }
+        this.provider = provider;
+        this.maxErrorSeconds = maxError.totalSeconds();
+        this.segmentLength = segmentLength.getTics();
+    }
+
+    @Override
+    public Duration downleg(Time t, int sc_id, int body_id, String time_reference){
+        return downleg(t, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    @Override
+    public Duration downleg(Time t, int sc_id, int body_id, String time_reference, TimeContext context){
+        return Duration.fromSeconds(getLightTime(t.getTics(), sc_id, body_id, time_reference, false, context));
+    }
+
+    @Override
+    public Duration upleg(Time t, int sc_id, int body_id, String time_reference){
+        return upleg(t, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    @Override
+    public Duration upleg(Time t, int sc_id, int body_id, String time_reference, TimeContext context){
+        return Duration.fromSeconds(getLightTime(t.getTics(), sc_id, body_id, time_reference, true, context));
+    }
+
+    /**
+     * Evaluates one curve for every time, which for sorted times stays in each segment until the times leave it
+     */
+    @Override
+    public void getDownlegTics(long[] tics, int sc_id, int body_id, String time_reference, long[] dest, TimeContext context){
+        getLightTimeTics(tics, sc_id, body_id, time_reference, false, dest, context);
+    }
+
+    /**
+     * Evaluates one curve for every time, which for sorted times stays in each segment until the times leave it
+     */
+    @Override
+    public void getUplegTics(long[] tics, int sc_id, int body_id, String time_reference, long[] dest, TimeContext context){
+        getLightTimeTics(tics, sc_id, body_id, time_reference, true, dest, context);
+    }
+
+    /**
+     * Forgets all fits, for example after different kernels are loaded into the wrapped provider
+     */
+    public void clear(){
+        curves.clear();
+    }
+
+    private double getLightTime(long tics, int sc_id, int body_id, String time_reference, boolean upleg, TimeContext context){
+        Curve curve = getCurve(sc_id, body_id, time_reference, upleg, context);
+        return getLightTime(tics, findSegment(curve, tics, sc_id, body_id, time_reference, upleg, context), sc_id, body_id, time_reference, upleg, context);
+    }
+
+    private void getLightTimeTics(long[] tics, int sc_id, int body_id, String time_reference, boolean upleg, long[] dest, TimeContext context){
+        Curve curve = getCurve(sc_id, body_id, time_reference, upleg, context);
+        // the segment the last time was in is local to this call, so other threads can query the same curve
+        Segment segment = null;
+        for(int i = 0; i < tics.length; i++){
+            if(segment == null || !segment.contains(tics[i])){
+                segment = findSegment(curve, tics[i], sc_id, body_id, time_reference, upleg, context);
+            }
+            dest[i] = Math.round(getLightTime(tics[i], segment, sc_id, body_id, time_reference, upleg, context) * ONE_SECOND);
+        }
+    }
+
+    private double getLightTime(long tics, Segment segment, int sc_id, int body_id, String time_reference, boolean upleg, TimeContext context){
+        if(segment.coefficients == null){
+            return sample(tics, sc_id, body_id, time_reference, upleg, context);
+        }
+        return evaluate(segment, tics);
+    }
+
+    private Curve getCurve(int sc_id, int body_id, String time_reference, boolean upleg, TimeContext context){
+        return curves.computeIfAbsent(new CurveKey(sc_id, body_id, time_reference, upleg, context), key -> new Curve());
+    }
+
+    // descends to the piece of the curve that holds the time, fitting pieces the first time they are used
+    private Segment findSegment(Curve curve, long tics, int sc_id, int body_id, String time_reference, boolean upleg, TimeContext context){
+        long index = Math.floorDiv(tics, segmentLength);
+        Segment segment = curve.segments.get(index);
+        if(segment == null){
+            segment = fit(index * segmentLength, segmentLength, 0, sc_id, body_id, time_reference, upleg, context);
+            Segment published = curve.segments.putIfAbsent(index, segment);
+            if(published != null){
+                segment = published;
+            }
+        }
+
+        while(segment.halves != null){
+            long firstHalf = segment.firstHalfLength();
+            int half = tics - segment.start < firstHalf ? 0 : 1;
+            Segment piece = segment.halves.get(half);
+            if(piece == null){
+                long start = half == 0 ? segment.start : segment.start + firstHalf;
+                long length = half == 0 ? firstHalf : segment.length - firstHalf;
+                piece = fit(start, length, segment.splits + 1, sc_id, body_id, time_reference, upleg, context);
+                if(!segment.halves.compareAndSet(half, null, piece)){
+                    piece = segment.halves.get(half);
+                }
+            }
+            segment = piece;
+        }
+        return segment;
+    }
+
+    private Segment fit(long start, long length, int splits, int sc_id, int body_id, String time_reference, boolean upleg, TimeContext context){
+        double halfLength = length / 2.0;
+        double mid = start + halfLength;
+        double[] values = new double[NUMBER_OF_NODES];
+        for(int k = 0; k < NUMBER_OF_NODES; k++){
+            // rounding the nodes to tics moves them by far less than light time changes over a tic
+            long nodeTics = Math.round(mid + halfLength * Math.cos(Math.PI * (k + 0.5) / NUMBER_OF_NODES));
+            values[k] = sample(nodeTics, sc_id, body_id, time_reference, upleg, context);
+        }
+        Segment fit = new Segment(start, length, splits, chebyshevCoefficients(values), false);
+
+        // check halfway between each pair of nodes and at the ends
+        boolean accurate = true;
+        for(int k = 0; k <= NUMBER_OF_NODES && accurate; k++){
+            double x = k == 0 ? 1 : k == NUMBER_OF_NODES ? -1 : Math.cos(Math.PI * k / NUMBER_OF_NODES);
+            long checkTics = Math.min(Math.round(mid + halfLength * x), start + length - 1);
+            double error = evaluate(fit, checkTics) - sample(checkTics, sc_id, body_id, time_reference, upleg, context);
+            accurate = Math.abs(error) <= maxErrorSeconds;
+        }
+        if(accurate){
+            return fit;
+        }
+
+        // too short to split further means the wrapped provider is called directly
+        boolean split = splits < MAX_SPLITS && length >= 2;
+        return new Segment(start, length, splits, null, split);
+    }
+
+    // the polynomial through values sampled at the Chebyshev nodes, as coefficients of Chebyshev polynomials
+    private static double[] chebyshevCoefficients(double[] values){
+        int n = values.length;
+        double[] coefficients = new double[n];
+        for(int j = 0; j < n; j++){
+            double sum = 0;
+            for(int k = 0; k < n; k++){
+                sum += values[k] * Math.cos(Math.PI * j * (k + 0.5) / n);
+            }
+            coefficients[j] = 2 * sum / n;
+        }
+        return coefficients;
+    }
+
+    private static double evaluate(Segment segment, long tics){
+        double halfLength = segment.length / 2.0;
+        double x = (tics - segment.start - halfLength) / halfLength;
+        double[] coefficients = segment.coefficients;
+        double b1 = 0;
+        double b2 = 0;
+        for(int j = coefficients.length - 1; j > 0; j--){
+            double b0 = 2 * x * b1 - b2 + coefficients[j];
+            b2 = b1;
+            b1 = b0;
+        }
+        return x * b1 - b2 + coefficients[0] / 2;
+    }
+
+    private double sample(long tics, int sc_id, int body_id, String time_reference, boolean upleg, TimeContext context){
+        Time t = Time.fromTics(tics);
+        Duration lightTime = upleg ? provider.upleg(t, sc_id, body_id, time_reference, context) : provider.downleg(t, sc_id, body_id, time_reference, context);
+        return lightTime.totalSeconds();
+    }
+}
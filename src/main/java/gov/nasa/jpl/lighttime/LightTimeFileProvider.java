@@ -0,0 +1,382 @@
+package gov.nasa.jpl.lighttime;
+
+import gov.nasa.jpl.time.Duration;
+import gov.nasa.jpl.time.Time;
+import gov.nasa.jpl.time.TimeContext;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * A LightTimeProvider that reads one-way light times from a table instead of computing them from ephemerides, so
+ * frame conversions don't need SPICE at all. SEQGEN-style light time files are text, so they are converted once with
+ * convert() into a compact binary table that open() memory-maps. Lookups are a binary search over the mapped table
+ * and a linear interpolation between the two neighboring records, without creating any objects besides the
+ * returned Duration, or none at all with getDownlegTics and getUplegTics.
+ *
+ * The text file may start with header lines, which are everything up to a line starting with $$EOH if there is one,
+ * and any line that doesn't start with a digit is skipped. Each record is a UTC time and the downleg one-way light
+ * time, optionally followed by the upleg one-way light time, separated by whitespace or commas. Light times can be
+ * in seconds (754.123456) or HH:MM:SS.ffffff. If there is no upleg column the downleg is used for both.
+ *
+ * Record times are in either spacecraft event time (SCET) or Earth time (ERT for downlegs and ETT for uplegs), and
+ * queries in the other frame are solved for the record time whose light reaches or leaves the query time.
+ */
+public class LightTimeFileProvider implements LightTimeProvider {
+    private static final byte[] MAGIC = "JPLLTF01".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 32;
+    private static final int LIGHT_TIME_ITERATIONS = 4;
+    // how far a bulk lookup walks from the record the last one ended at before binary searching instead
+    private static final int MAX_CURSOR_STEPS = 8;
+
+    private final String fileName;
+    private final int sc_id;
+    private final int body_id;
+    private final boolean spacecraftTimes;
+    private final boolean spiceTics;
+    private final int count;
+    private final MappedByteBuffer table;
+    private final int downlegOffset;
+    private final int uplegOffset;
+
+    private LightTimeFileProvider(String fileName, MappedByteBuffer table){
+        this.fileName = fileName;
+        this.table = table;
+        for(int i = 0; i < MAGIC.length; i++){
+            if(table.get(i) != MAGIC[i]){
+                throw new RuntimeException("File " + fileName + " is not a binary light time table made by LightTimeFileProvider.convert");
+            }
+        }
+        sc_id = table.getInt(8);
+        body_id = table.getInt(12);
+        spacecraftTimes = table.get(16) != 0;
+        spiceTics = table.get(17) != 0;
+        count = table.getInt(20);
+        if(count < 2 || table.capacity() < HEADER_SIZE + 24L * count){
+            throw new RuntimeException("Binary light time table " + fileName + " is truncated or has fewer than two records");
+        }
+        downlegOffset = HEADER_SIZE + 8 * count;
+        uplegOffset = HEADER_SIZE + 16 * count;
+    }
+
+    /**
+     * Converts a SEQGEN-style light time file into the binary table open() reads, parsing record times with the
+     * default context
+     * @param lightTimeFile path to the text light time file
+     * @param binaryFile path to write the binary table to
+     * @param sc_id The SPICE ID of the spacecraft the light times are for
+     * @param body_id The SPICE ID of the other end of the light times, usually 399 for Earth
+     * @param time_reference SCET if record times are spacecraft event times, ERT or ETT if they are Earth times
+     */
+    public static void convert(String lightTimeFile, String binaryFile, int sc_id, int body_id, String time_reference) throws IOException {
+        convert(lightTimeFile, binaryFile, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts a SEQGEN-style light time file into the binary table open() reads. Record times are parsed with the
+     * given context, so the table can only be queried with contexts in the same math mode.
+     * @param lightTimeFile path to the text light time file
+     * @param binaryFile path to write the binary table to
+     * @param sc_id The SPICE ID of the spacecraft the light times are for
+     * @param body_id The SPICE ID of the other end of the light times, usually 399 for Earth
+     * @param time_reference SCET if record times are spacecraft event times, ERT or ETT if they are Earth times
+     * @param context The settings to parse record times with
+     */
+    public static void convert(String lightTimeFile, String binaryFile, int sc_id, int body_id, String time_reference, TimeContext context) throws IOException {
+        boolean spacecraftTimes = isSpacecraftTime(time_reference);
+        List<long[]> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(lightTimeFile), StandardCharsets.US_ASCII))) {
+            List<String> lines = new ArrayList<>();
+            String line;
+            while((line = reader.readLine()) != null){
+                if(line.startsWith("$$EOH")){
+                    lines.clear();
+                }
+                else{
+                    lines.add(line);
+                }
+            }
+
+            for(String record : lines){
+                String trimmed = record.trim();
+                if(trimmed.isEmpty() || !Character.isDigit(trimmed.charAt(0))){
+                    continue;
+                }
+                String[] fields = trimmed.split("[\\s,]+");
+                if(fields.length < 2){
+                    throw new RuntimeException("Light time file " + lightTimeFile + " has a record without a light time: " + record);
+                }
+                long tics = Time.parseUTC(fields[0], context);
+                long downleg = parseLightTime(fields[1], record);
+                long upleg = fields.length > 2 ? parseLightTime(fields[2], record) : downleg;
+                if(!records.isEmpty() && tics <= records.get(records.size() - 1)[0]){
+                    throw new RuntimeException("Light time file " + lightTimeFile + " records must be in increasing time order, but " + fields[0] + " is not");
+                }
+                records.add(new long[]{tics, downleg, upleg});
+            }
+        }
+        if(records.size() < 2){
+            throw new RuntimeException("Light time file " + lightTimeFile + " must have at least two records to interpolate between");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryFile)))) {
+            out.write(MAGIC);
+            out.writeInt(sc_id);
+            out.writeInt(body_id);
+            out.writeByte(spacecraftTimes ? 1 : 0);
+            out.writeByte(context.getUseSpiceForMath() ? 1 : 0);
+            out.writeShort(0);
+            out.writeInt(records.size());
+            out.write(new byte[HEADER_SIZE - 24]);
+            for(int column = 0; column < 3; column++){
+                for(long[] record : records){
+                    out.writeLong(record[column]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Memory-maps a binary table written by convert()
+     * @param binaryFile path to the binary table
+     * @return A new LightTimeFileProvider
+     */
+    public static LightTimeFileProvider open(String binaryFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(binaryFile), StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new RuntimeException("Binary light time table " + binaryFile + " is too large to map");
+            }
+            return new LightTimeFileProvider(binaryFile, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    @Override
+    public Duration downleg(Time t, int sc_id, int body_id, String time_reference){
+        return downleg(t, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    @Override
+    public Duration downleg(Time t, int sc_id, int body_id, String time_reference, TimeContext context){
+        return Duration.fromTics(getDownlegTics(t.getTics(), sc_id, body_id, time_reference, context));
+    }
+
+    @Override
+    public Duration upleg(Time t, int sc_id, int body_id, String time_reference){
+        return upleg(t, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    @Override
+    public Duration upleg(Time t, int sc_id, int body_id, String time_reference, TimeContext context){
+        return Duration.fromTics(getUplegTics(t.getTics(), sc_id, body_id, time_reference, context));
+    }
+
+    /**
+     * The same as downleg, without creating any objects, for a time made with the default context
+     * @param tics The time at which the light time is desired, as returned by Time.getTics()
+     * @param sc_id The SPICE ID of the spacecraft
+     * @param body_id The SPICE ID where one wants the downleg to
+     * @param time_reference Either 'ETT', 'ERT', or 'SCET', depending on the desired frame
+     * @return The downleg light time in tics
+     */
+    public long getDownlegTics(long tics, int sc_id, int body_id, String time_reference){
+        return getDownlegTics(tics, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    /**
+     * The same as downleg, without creating any objects
+     * @param tics The time at which the light time is desired, as returned by Time.getTics()
+     * @param sc_id The SPICE ID of the spacecraft
+     * @param body_id The SPICE ID where one wants the downleg to
+     * @param time_reference Either 'ETT', 'ERT', or 'SCET', depending on the desired frame
+     * @param context The settings the time was made with, which must use the same math as the table was made with
+     * @return The downleg light time in tics
+     */
+    public long getDownlegTics(long tics, int sc_id, int body_id, String time_reference, TimeContext context){
+        checkQuery(sc_id, body_id, context);
+        return getLightTime(tics, downlegOffset, isSpacecraftTime(time_reference), spacecraftTimes ? -1 : 1, null);
+    }
+
+    /**
+     * Looks up the downleg at each time, continuing each search from the record the last one ended at, so a sorted
+     * column of times costs one pass over the table instead of a binary search per time. Times more than a few
+     * records from the last one are binary searched, so unsorted columns cost no more than separate lookups.
+     */
+    @Override
+    public void getDownlegTics(long[] tics, int sc_id, int body_id, String time_reference, long[] dest, TimeContext context){
+        checkQuery(sc_id, body_id, context);
+        boolean spacecraftQuery = isSpacecraftTime(time_reference);
+        int[] cursor = {-1};
+        for(int i = 0; i < tics.length; i++){
+            dest[i] = getLightTime(tics[i], downlegOffset, spacecraftQuery, spacecraftTimes ? -1 : 1, cursor);
+        }
+    }
+
+    /**
+     * The same as upleg, without creating any objects, for a time made with the default context
+     * @param tics The time at which the light time is desired, as returned by Time.getTics()
+     * @param sc_id The SPICE ID of the spacecraft
+     * @param body_id The SPICE ID where one wants the downleg to
+     * @param time_reference Either 'ETT', 'ERT', or 'SCET', depending on the desired frame
+     * @return The upleg light time in tics
+     */
+    public long getUplegTics(long tics, int sc_id, int body_id, String time_reference){
+        return getUplegTics(tics, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    /**
+     * The same as upleg, without creating any objects
+     * @param tics The time at which the light time is desired, as returned by Time.getTics()
+     * @param sc_id The SPICE ID of the spacecraft
+     * @param body_id The SPICE ID where one wants the downleg to
+     * @param time_reference Either 'ETT', 'ERT', or 'SCET', depending on the desired frame
+     * @param context The settings the time was made with, which must use the same math as the table was made with
+     * @return The upleg light time in tics
+     */
+    public long getUplegTics(long tics, int sc_id, int body_id, String time_reference, TimeContext context){
+        checkQuery(sc_id, body_id, context);
+        return getLightTime(tics, uplegOffset, isSpacecraftTime(time_reference), spacecraftTimes ? 1 : -1, null);
+    }
+
+    /**
+     * Looks up the upleg at each time, walking the table in order like getDownlegTics(long[], ...)
+     */
+    @Override
+    public void getUplegTics(long[] tics, int sc_id, int body_id, String time_reference, long[] dest, TimeContext context){
+        checkQuery(sc_id, body_id, context);
+        boolean spacecraftQuery = isSpacecraftTime(time_reference);
+        int[] cursor = {-1};
+        for(int i = 0; i < tics.length; i++){
+            dest[i] = getLightTime(tics[i], uplegOffset, spacecraftQuery, spacecraftTimes ? 1 : -1, cursor);
+        }
+    }
+
+    /**
+     * @return The first time in the table
+     */
+    public Time getStartTime(){
+        return Time.fromTics(getRecordTics(0));
+    }
+
+    /**
+     * @return The last time in the table
+     */
+    public Time getEndTime(){
+        return Time.fromTics(getRecordTics(count - 1));
+    }
+
+    // spacecraftQuery says whether the query time is in SCET; when that isn't the frame of the records, light leaving
+    // or arriving at the record time reaches the query time, which sign says the direction of for this leg
+    private long getLightTime(long tics, int columnOffset, boolean spacecraftQuery, long sign, int[] cursor){
+        if(spacecraftQuery == spacecraftTimes){
+            return interpolate(tics, columnOffset, cursor);
+        }
+        long lightTime = interpolate(tics, columnOffset, cursor);
+        for(int i = 0; i < LIGHT_TIME_ITERATIONS; i++){
+            lightTime = interpolate(tics + sign * lightTime, columnOffset, cursor);
+        }
+        return lightTime;
+    }
+
+    // cursor holds the index of the record the last lookup started from, and is null or -1 to binary search for it
+    private long interpolate(long tics, int columnOffset, int[] cursor){
+        long first = getRecordTics(0);
+        long last = getRecordTics(count - 1);
+        if(tics < first || tics > last){
+            throw new RuntimeException("Time " + Time.fromTics(tics) + " is outside of light time table " + fileName + ", which covers " + Time.fromTics(first) + " to " + Time.fromTics(last));
+        }
+
+        // last record at or before the time, but not the last record so there is one after it to interpolate to
+        int low = cursor == null ? -1 : walk(cursor[0], tics);
+        if(low < 0){
+            low = 0;
+            int high = count - 1;
+            while(low < high){
+                int mid = (low + high + 1) >>> 1;
+                if(getRecordTics(mid) <= tics){
+                    low = mid;
+                }
+                else{
+                    high = mid - 1;
+                }
+            }
+        }
+        if(low == count - 1){
+            low--;
+        }
+        if(cursor != null){
+            cursor[0] = low;
+        }
+
+        long t0 = getRecordTics(low);
+        long t1 = getRecordTics(low + 1);
+        long v0 = table.getLong(columnOffset + 8 * low);
+        long v1 = table.getLong(columnOffset + 8 * (low + 1));
+        return v0 + Math.round((v1 - v0) * ((tics - t0) / (double) (t1 - t0)));
+    }
+
+    // the last record at or before the time, if it is within a few records of start, otherwise -1 so a jump across
+    // the table, like between unsorted times, costs a binary search rather than a walk over every record in between
+    private int walk(int start, long tics){
+        if(start < 0){
+            return -1;
+        }
+        int low = start;
+        for(int steps = 0; getRecordTics(low) > tics; steps++){
+            if(steps == MAX_CURSOR_STEPS){
+                return -1;
+            }
+            low--;
+        }
+        for(int steps = 0; low < count - 1 && getRecordTics(low + 1) <= tics; steps++){
+            if(steps == MAX_CURSOR_STEPS){
+                return -1;
+            }
+            low++;
+        }
+        return low;
+    }
+
+    private long getRecordTics(int index){
+        return table.getLong(HEADER_SIZE + 8 * index);
+    }
+
+    private void checkQuery(int sc_id, int body_id, TimeContext context){
+        if(sc_id != this.sc_id || body_id != this.body_id){
+            throw new RuntimeException("Light time table " + fileName + " is for spacecraft " + this.sc_id + " and body " + this.body_id + ", not spacecraft " + sc_id + " and body " + body_id);
+        }
+        if(spiceTics != context.getUseSpiceForMath()){
+            throw new RuntimeException("Light time table " + fileName + " was converted with useSpiceForMath " + spiceTics + ", so it can only be used with contexts in that mode");
+        }
+    }
+
+    private static boolean isSpacecraftTime(String time_reference){
+        if(time_reference.equals("SCET")){
+            return true;
+        }
+        else if(time_reference.equals("ETT") || time_reference.equals("ERT")){
+            return false;
+        }
+        else{
+            throw new RuntimeException("Unknown time reference " + time_reference + ". This value must be either SCET, ERT, or ETT.");
+        }
+    }
+
+    private static long parseLightTime(String field, String record){
+        try {
+            if(field.indexOf(':') >= 0){
+                return Duration.parseTics(field);
+            }
+            return Math.round(Double.parseDouble(field) * ONE_SECOND);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Could not parse light time " + field + " in light time file record: " + record);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package gov.nasa.jpl.lighttime;
 
 import gov.nasa.jpl.time.Duration;
 import gov.nasa.jpl.time.Time;
+import gov.nasa.jpl.time.TimeContext;
 
 /**
  * This interface provides a downleg and upleg duration given a time, the two objects, and which frame the duration
@@ -26,4 +27,66 @@ public interface LightTimeProvider {
      * @return The time it takes light to travel from the body_id to the spacecraft
      */
     Duration upleg  (Time t, int sc_id, int body_id, String time_reference);
+
+    /**
+     * The same as downleg(t, sc_id, body_id, time_reference), for a time made with the given context. Providers that
+     * convert t to ET or TAI override this to do it in that context, since the same tics mean different instants
+     * with and without SPICE math; by default this ignores the context.
+     * @param t The time at which the light time is desired
+     * @param sc_id The SPICE ID of the spacecraft
+     * @param body_id The SPICE ID where one wants the downleg to
+     * @param time_reference Either 'ETT', 'ERT', or 'SCET', depending on the desired frame
+     * @param context The settings t was made with
+     * @return The time it takes light to travel from the spacecraft to the body_id
+     */
+    default Duration downleg(Time t, int sc_id, int body_id, String time_reference, TimeContext context){
+        return downleg(t, sc_id, body_id, time_reference);
+    }
+
+    /**
+     * The same as upleg(t, sc_id, body_id, time_reference), for a time made with the given context, which is
+     * ignored unless the provider overrides this as for downleg
+     * @param t The time at which the light time is desired
+     * @param sc_id The SPICE ID of the spacecraft
+     * @param body_id The SPICE ID where one wants the downleg to
+     * @param time_reference Either 'ETT', 'ERT', or 'SCET', depending on the desired frame
+     * @param context The settings t was made with
+     * @return The time it takes light to travel from the body_id to the spacecraft
+     */
+    default Duration upleg(Time t, int sc_id, int body_id, String time_reference, TimeContext context){
+        return upleg(t, sc_id, body_id, time_reference);
+    }
+
+    /**
+     * Writes the downleg at each time into dest, the same as calling downleg for each one. Providers that look light
+     * times up in tables or segments override this to walk them in order when the times are sorted, instead of
+     * searching for every time, so sorted input is fastest but any order gives the same light times.
+     * @param tics The times at which the light times are desired, as returned by Time.getTics()
+     * @param sc_id The SPICE ID of the spacecraft
+     * @param body_id The SPICE ID where one wants the downleg to
+     * @param time_reference Either 'ETT', 'ERT', or 'SCET', depending on the desired frame
+     * @param dest Where to write the light times in tics, the same length as tics
+     * @param context The settings the times were made with
+     */
+    default void getDownlegTics(long[] tics, int sc_id, int body_id, String time_reference, long[] dest, TimeContext context){
+        for(int i = 0; i < tics.length; i++){
+            dest[i] = downleg(Time.fromTics(tics[i]), sc_id, body_id, time_reference, context).getTics();
+        }
+    }
+
+    /**
+     * Writes the upleg at each time into dest, the same as calling upleg for each one. Sorted input is fastest for
+     * the same reason as in getDownlegTics.
+     * @param tics The times at which the light times are desired, as returned by Time.getTics()
+     * @param sc_id The SPICE ID of the spacecraft
+     * @param body_id The SPICE ID where one wants the upleg from
+     * @param time_reference Either 'ETT', 'ERT', or 'SCET', depending on the desired frame
+     * @param dest Where to write the light times in tics, the same length as tics
+     * @param context The settings the times were made with
+     */
+    default void getUplegTics(long[] tics, int sc_id, int body_id, String time_reference, long[] dest, TimeContext context){
+        for(int i = 0; i < tics.length; i++){
+            dest[i] = upleg(Time.fromTics(tics[i]), sc_id, body_id, time_reference, context).getTics();
+        }
+    }
 }
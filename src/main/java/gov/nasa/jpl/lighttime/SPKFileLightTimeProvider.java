@@ -0,0 +1,259 @@
+package gov.nasa.jpl.lighttime;
+
+import gov.nasa.jpl.time.Duration;
+import gov.nasa.jpl.time.TextKernel;
+import gov.nasa.jpl.time.Time;
+import gov.nasa.jpl.time.TimeColumns;
+import gov.nasa.jpl.time.TimeContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static gov.nasa.jpl.time.Duration.ONE_SECOND;
+
+/**
+ * Computes light times the same way as SPKLightTimeProvider, but reads the SPK files itself instead of calling
+ * CSPICE's ltime through JNI, so light time doesn't need SPICE's kernel pool or its lock. SPK files are
+ * memory-mapped and positions are evaluated in Java from segments of types 2, 3, 8, 9 and 13, which covers the
+ * planetary ephemerides and the spacecraft and landing site SPKs the time conversions are used with. Segments
+ * written in a body-fixed frame, like landing sites, also need a text PCK with the body's orientation loaded.
+ *
+ * As with SPICE, files loaded later take precedence over ones loaded earlier, and later segments in a file over
+ * earlier ones. Once the files are loaded, several threads can query an instance at once, since each query or bulk
+ * loop has its own scratch arrays; loading more files while queries run is not safe. Converting times to ET still
+ * needs a leapseconds kernel, which the context the times were made with can hold to avoid SPICE altogether.
+ */
+public class SPKFileLightTimeProvider implements LightTimeProvider {
+    private static final double SPEED_OF_LIGHT_KM_PER_SECOND = 299792.458;
+    private static final int MAX_LIGHT_TIME_ITERATIONS = 10;
+    private static final int MAX_CHAIN_LENGTH = 100;
+
+    private final Map<Integer, List<SpkSegment>> segmentsByBody = new HashMap<>();
+    private final BodyFixedFrames frames = new BodyFixedFrames();
+
+    /**
+     * @param spkFiles paths to binary SPK files, loaded in order
+     */
+    public SPKFileLightTimeProvider(String... spkFiles) throws IOException {
+        for(String spkFile : spkFiles){
+            loadSpk(spkFile);
+        }
+    }
+
+    /**
+     * Memory-maps a binary SPK file, whose segments take precedence over those of files loaded before it
+     * @param spkFile path to the SPK file
+     */
+    public void loadSpk(String spkFile) throws IOException {
+        for(SpkSegment segment : SpkFile.open(spkFile).getSegments()){
+            List<SpkSegment> segments = segmentsByBody.get(segment.target);
+            if(segments == null){
+                segments = new ArrayList<>();
+                segmentsByBody.put(segment.target, segments);
+            }
+            segments.add(segment);
+        }
+    }
+
+    /**
+     * Reads body orientation constants from a text PCK, like pck00010.tpc, for segments in IAU body-fixed frames
+     * @param pckFile path to the text PCK
+     */
+    public void loadPlanetaryConstants(String pckFile) throws IOException {
+        frames.add(TextKernel.read(pckFile));
+    }
+
+    /**
+     * Gets the upleg duration to a spacecraft represented by sc_id from a body represented by body_id at the specified Time t,
+     * the same way as SPKLightTimeProvider.upleg
+     * @param t
+     * @param sc_id
+     * @param body_id
+     * @param time_reference
+     * @return A new Duration object
+     */
+    @Override
+    public Duration upleg(Time t, int sc_id, int body_id, String time_reference){
+        return upleg(t, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    /**
+     * The same as upleg(t, sc_id, body_id, time_reference), converting t to ET in the given context
+     * @param t
+     * @param sc_id
+     * @param body_id
+     * @param time_reference
+     * @param context The settings t was made with
+     * @return A new Duration object
+     */
+    @Override
+    public Duration upleg(Time t, int sc_id, int body_id, String time_reference, TimeContext context){
+        if(time_reference.equals("SCET")){
+            return Duration.fromSeconds(getLightTime(t.toET(context), sc_id, "<-", body_id));
+        }
+        else if(time_reference.equals("ETT") || time_reference.equals("ERT")){
+            return Duration.fromSeconds(getLightTime(t.toET(context), body_id, "->", sc_id));
+        }
+        else{
+            throw new RuntimeException("Error calculating upleg with input time_reference " + time_reference + ". This value must be either SCET, ERT, or ETT.");
+        }
+    }
+
+    /**
+     * Gets the downleg duration from a spacecraft represented by sc_id to a body represented by body_id at the specified Time t,
+     * the same way as SPKLightTimeProvider.downleg
+     * @param t
+     * @param sc_id
+     * @param body_id
+     * @param time_reference
+     * @return A new Duration object
+     */
+    @Override
+    public Duration downleg(Time t, int sc_id, int body_id, String time_reference){
+        return downleg(t, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    /**
+     * The same as downleg(t, sc_id, body_id, time_reference), converting t to ET in the given context
+     * @param t
+     * @param sc_id
+     * @param body_id
+     * @param time_reference
+     * @param context The settings t was made with
+     * @return A new Duration object
+     */
+    @Override
+    public Duration downleg(Time t, int sc_id, int body_id, String time_reference, TimeContext context){
+        if(time_reference.equals("SCET")){
+            return Duration.fromSeconds(getLightTime(t.toET(context), sc_id, "->", body_id));
+        }
+        else if(time_reference.equals("ETT") || time_reference.equals("ERT")){
+            return Duration.fromSeconds(getLightTime(t.toET(context), body_id, "<-", sc_id));
+        }
+        else{
+            throw new RuntimeException("Error calculating downleg with input time_reference " + time_reference + ". This value must be either SCET, ERT, or ETT.");
+        }
+    }
+
+    /**
+     * Finds the ET of all the times in one pass, then the downleg at each
+     */
+    @Override
+    public void getDownlegTics(long[] tics, int sc_id, int body_id, String time_reference, long[] dest, TimeContext context){
+        getLightTimes(tics, sc_id, body_id, time_reference, false, dest, context);
+    }
+
+    /**
+     * Finds the ET of all the times in one pass, then the upleg at each
+     */
+    @Override
+    public void getUplegTics(long[] tics, int sc_id, int body_id, String time_reference, long[] dest, TimeContext context){
+        getLightTimes(tics, sc_id, body_id, time_reference, true, dest, context);
+    }
+
+    /**
+     * The equivalent of CSPICE's ltime: the one-way Newtonian light time between an observer at et and a target,
+     * which receives the signal at et plus the light time if arrow is "->" or sent it at et minus the light time if "<-"
+     * @param et ephemeris time at the observer
+     * @param observerID SPICE ID of the observer
+     * @param arrow "->" or "<-"
+     * @param targetID SPICE ID of the target
+     * @return one-way light time in seconds
+     */
+    public double getLightTime(double et, int observerID, String arrow, int targetID){
+        return getLightTime(et, observerID, arrow, targetID, new SpkSegment.Scratch());
+    }
+
+    private double getLightTime(double et, int observerID, String arrow, int targetID, SpkSegment.Scratch scratch){
+        double direction;
+        if(arrow.equals("->")){
+            direction = 1;
+        }
+        else if(arrow.equals("<-")){
+            direction = -1;
+        }
+        else{
+            throw new RuntimeException("Light time direction must be -> or <-, but was " + arrow);
+        }
+
+        double[] observerPosition = scratch.observerPosition;
+        double[] targetPosition = scratch.targetPosition;
+        barycentricPosition(observerID, et, observerPosition, scratch);
+        barycentricPosition(targetID, et, targetPosition, scratch);
+        double lightTime = distance(observerPosition, targetPosition) / SPEED_OF_LIGHT_KM_PER_SECOND;
+        for(int i = 0; i < MAX_LIGHT_TIME_ITERATIONS; i++){
+            barycentricPosition(targetID, et + direction * lightTime, targetPosition, scratch);
+            double next = distance(observerPosition, targetPosition) / SPEED_OF_LIGHT_KM_PER_SECOND;
+            if(next == lightTime){
+                break;
+            }
+            lightTime = next;
+        }
+        return lightTime;
+    }
+
+    private void getLightTimes(long[] tics, int sc_id, int body_id, String time_reference, boolean upleg, long[] dest, TimeContext context){
+        boolean spacecraftTime;
+        if(time_reference.equals("SCET")){
+            spacecraftTime = true;
+        }
+        else if(time_reference.equals("ETT") || time_reference.equals("ERT")){
+            spacecraftTime = false;
+        }
+        else{
+            throw new RuntimeException("Error calculating " + (upleg ? "upleg" : "downleg") + " with input time_reference " + time_reference + ". This value must be either SCET, ERT, or ETT.");
+        }
+        // same observers and directions as upleg and downleg
+        int observer = spacecraftTime ? sc_id : body_id;
+        int target = spacecraftTime ? body_id : sc_id;
+        String arrow = upleg == spacecraftTime ? "<-" : "->";
+
+        double[] ets = TimeColumns.toET(tics, new double[tics.length], context);
+        SpkSegment.Scratch scratch = new SpkSegment.Scratch();
+        for(int i = 0; i < tics.length; i++){
+            dest[i] = Math.round(getLightTime(ets[i], observer, arrow, target, scratch) * ONE_SECOND);
+        }
+    }
+
+    // position relative to the solar system barycenter in J2000, following segment centers down to it
+    private void barycentricPosition(int body, double et, double[] position, SpkSegment.Scratch scratch){
+        position[0] = 0;
+        position[1] = 0;
+        position[2] = 0;
+        for(int i = 0; body != 0; i++){
+            if(i == MAX_CHAIN_LENGTH){
+                throw new RuntimeException("SPK segments for body " + body + " never lead back to the solar system barycenter");
+            }
+            SpkSegment segment = findSegment(body, et);
+            double[] segmentPosition = scratch.segmentPosition;
+            segment.position(et, segmentPosition, scratch);
+            frames.rotateToJ2000(segment.frame, et, segmentPosition);
+            position[0] += segmentPosition[0];
+            position[1] += segmentPosition[1];
+            position[2] += segmentPosition[2];
+            body = segment.center;
+        }
+    }
+
+    private SpkSegment findSegment(int body, double et){
+        List<SpkSegment> segments = segmentsByBody.get(body);
+        if(segments != null){
+            for(int i = segments.size() - 1; i >= 0; i--){
+                if(segments.get(i).covers(et)){
+                    return segments.get(i);
+                }
+            }
+        }
+        throw new RuntimeException("Insufficient ephemeris data has been loaded to compute the position of body " + body + " at et: " + et);
+    }
+
+    private static double distance(double[] a, double[] b){
+        double x = a[0] - b[0];
+        double y = a[1] - b[1];
+        double z = a[2] - b[2];
+        return Math.sqrt(x * x + y * y + z * z);
+    }
+}
@@ -2,6 +2,7 @@ package gov.nasa.jpl.lighttime;
 
 import gov.nasa.jpl.time.Duration;
 import gov.nasa.jpl.time.Time;
+import gov.nasa.jpl.time.TimeContext;
 import spice.basic.CSPICE;
 import spice.basic.SpiceErrorException;
 
@@ -17,11 +18,25 @@ public class SPKLightTimeProvider implements LightTimeProvider{
      * @return A new Duration object
      */
     public Duration upleg(Time t, int sc_id, int body_id, String time_reference){
+        return upleg(t, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    /**
+     * The same as upleg(t, sc_id, body_id, time_reference), converting t to ET in the given context
+     * @param t
+     * @param sc_id
+     * @param body_id
+     * @param time_reference
+     * @param context The settings t was made with
+     * @return A new Duration object
+     */
+    @Override
+    public Duration upleg(Time t, int sc_id, int body_id, String time_reference, TimeContext context){
         if(time_reference.equals("SCET")){
-            return Duration.fromSeconds(getLightTime(t.toET(), sc_id, "<-", body_id));
+            return Duration.fromSeconds(getLightTime(t.toET(context), sc_id, "<-", body_id));
         }
         else if(time_reference.equals("ETT") || time_reference.equals("ERT")){
-            return Duration.fromSeconds(getLightTime(t.toET(), body_id, "->", sc_id));
+            return Duration.fromSeconds(getLightTime(t.toET(context), body_id, "->", sc_id));
         }
         else{
             throw new RuntimeException("Error calculating upleg with input time_reference " + time_reference + ". This value must be either SCET, ERT, or ETT.");
@@ -38,11 +53,25 @@ public class SPKLightTimeProvider implements LightTimeProvider{
      * @return A new Duration object
      */
     public Duration downleg(Time t, int sc_id, int body_id, String time_reference){
+        return downleg(t, sc_id, body_id, time_reference, Time.getDefaultContext());
+    }
+
+    /**
+     * The same as downleg(t, sc_id, body_id, time_reference), converting t to ET in the given context
+     * @param t
+     * @param sc_id
+     * @param body_id
+     * @param time_reference
+     * @param context The settings t was made with
+     * @return A new Duration object
+     */
+    @Override
+    public Duration downleg(Time t, int sc_id, int body_id, String time_reference, TimeContext context){
         if(time_reference.equals("SCET")){
-            return Duration.fromSeconds(getLightTime(t.toET(), sc_id, "->", body_id));
+            return Duration.fromSeconds(getLightTime(t.toET(context), sc_id, "->", body_id));
         }
         else if(time_reference.equals("ETT") || time_reference.equals("ERT")){
-            return Duration.fromSeconds(getLightTime(t.toET(), body_id, "<-", sc_id));
+            return Duration.fromSeconds(getLightTime(t.toET(context), body_id, "<-", sc_id));
         }
         else{
             throw new RuntimeException("Error calculating downleg with input time_reference " + time_reference + ". This value must be either SCET, ERT, or ETT.");
@@ -0,0 +1,89 @@
+package gov.nasa.jpl.lighttime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A memory-mapped SPK file, read through the DAF layout NAIF documents in the DAF and SPK required reading.
+ * Segment data is not copied out of the file; each segment reads its coefficients or states from the mapping
+ * when it is evaluated.
+ */
+final class SpkFile {
+    private static final int RECORD_BYTES = 1024;
+    private static final int SPK_DOUBLES = 2;
+    private static final int SPK_INTEGERS = 6;
+
+    private final List<SpkSegment> segments;
+
+    private SpkFile(List<SpkSegment> segments){
+        this.segments = segments;
+    }
+
+    /**
+     * @param fileName path to a binary SPK file in either byte order
+     * @return the file with its segments in the order they appear in it
+     */
+    static SpkFile open(String fileName) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new RuntimeException("SPK file " + fileName + " is too large to map");
+            }
+            if(channel.size() < RECORD_BYTES){
+                throw new RuntimeException("File " + fileName + " is too short to be an SPK file");
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        byte[] idWord = new byte[8];
+        data.get(idWord);
+        String id = new String(idWord, StandardCharsets.US_ASCII);
+        if(!id.equals("DAF/SPK ") && !id.equals("NAIF/DAF")){
+            throw new RuntimeException("File " + fileName + " is not a binary SPK file, its ID word is '" + id.trim() + "'");
+        }
+
+        // the file record doesn't always name its byte order, but the number of doubles per summary is always 2 for an SPK
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        if(data.getInt(8) != SPK_DOUBLES){
+            data.order(ByteOrder.BIG_ENDIAN);
+        }
+        if(data.getInt(8) != SPK_DOUBLES || data.getInt(12) != SPK_INTEGERS){
+            throw new RuntimeException("SPK file " + fileName + " does not have 2 doubles and 6 integers per summary");
+        }
+
+        int summaryDoubles = SPK_DOUBLES + (SPK_INTEGERS + 1) / 2;
+        List<SpkSegment> segments = new ArrayList<>();
+        int record = data.getInt(76);
+        while(record > 0){
+            int recordStart = (record - 1) * RECORD_BYTES;
+            int nSummaries = (int) data.getDouble(recordStart + 16);
+            for(int i = 0; i < nSummaries; i++){
+                int summary = recordStart + 24 + i * summaryDoubles * 8;
+                double startEt = data.getDouble(summary);
+                double endEt = data.getDouble(summary + 8);
+                int integers = summary + SPK_DOUBLES * 8;
+                int target = data.getInt(integers);
+                int center = data.getInt(integers + 4);
+                int frame = data.getInt(integers + 8);
+                int type = data.getInt(integers + 12);
+                int beginAddress = data.getInt(integers + 16);
+                int endAddress = data.getInt(integers + 20);
+                segments.add(SpkSegment.create(fileName, data, target, center, frame, type, startEt, endEt, beginAddress, endAddress));
+            }
+            record = (int) data.getDouble(recordStart);
+        }
+        return new SpkFile(Collections.unmodifiableList(segments));
+    }
+
+    List<SpkSegment> getSegments(){
+        return segments;
+    }
+}
@@ -0,0 +1,350 @@
+package gov.nasa.jpl.lighttime;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One segment of an SPK file, which gives the position of a target body relative to a center body in some frame
+ * over a span of ephemeris time. Subclasses evaluate the data types light time needs: Chebyshev position (type 2)
+ * and position and velocity (type 3) coefficients, Lagrange interpolation of equally (type 8) and unequally (type 9)
+ * spaced states, and Hermite interpolation of unequally spaced states (type 13). Landing sites are written as
+ * Lagrange segments whose states never change, and those are kept as a fixed offset instead of being interpolated.
+ *
+ * Segments never change once created, and evaluate into scratch arrays the caller passes in, so threads that each
+ * have their own Scratch can share them.
+ */
+abstract class SpkSegment {
+    // the largest data set scanned for a landing site's constant state
+    private static final int MAX_FIXED_OFFSET_STATES = 64;
+
+    final int target;
+    final int center;
+    final int frame;
+    final int type;
+    final double startEt;
+    final double endEt;
+
+    SpkSegment(int target, int center, int frame, int type, double startEt, double endEt){
+        this.target = target;
+        this.center = center;
+        this.frame = frame;
+        this.type = type;
+        this.startEt = startEt;
+        this.endEt = endEt;
+    }
+
+    boolean covers(double et){
+        return et >= startEt && et <= endEt;
+    }
+
+    /**
+     * Working arrays for evaluating segments and chaining them together, which grow to fit the largest interpolation
+     * window they are used for. One is made per light time query, or per bulk loop, and never shared.
+     */
+    static final class Scratch {
+        final double[] observerPosition = new double[3];
+        final double[] targetPosition = new double[3];
+        final double[] segmentPosition = new double[3];
+        private double[] epochs = new double[0];
+        private double[] values = new double[0];
+        private double[] derivatives = new double[0];
+        private double[] nodes = new double[0];
+        private double[] differences = new double[0];
+
+        private void fit(int windowSize){
+            if(epochs.length < windowSize){
+                epochs = new double[windowSize];
+                values = new double[windowSize];
+                derivatives = new double[windowSize];
+                nodes = new double[2 * windowSize];
+                differences = new double[2 * windowSize];
+            }
+        }
+    }
+
+    /**
+     * @param et ephemeris time, which must be covered by the segment
+     * @param position where to write the target's position relative to the center in kilometers, in the segment's frame
+     * @param scratch working arrays for interpolation
+     */
+    abstract void position(double et, double[] position, Scratch scratch);
+
+    /**
+     * @param fileName the file the segment is in, for error messages
+     * @param data the whole file, in its byte order
+     * @param beginAddress DAF address of the first double of the segment's data, counting from 1
+     * @param endAddress DAF address of the last double of the segment's data
+     * @return an evaluator for the segment, which throws if asked for a position from an unsupported data type
+     */
+    static SpkSegment create(String fileName, ByteBuffer data, int target, int center, int frame, int type, double startEt, double endEt, int beginAddress, int endAddress){
+        int begin = (beginAddress - 1) * 8;
+        int end = (endAddress - 1) * 8;
+        switch(type){
+            case 2:
+            case 3:
+                return new Chebyshev(data, target, center, frame, type, startEt, endEt, begin, end);
+            case 8:
+            case 9:
+            case 13:
+                int n = (int) data.getDouble(end);
+                double[] fixed = constantState(data, begin, n);
+                if(fixed != null){
+                    return new FixedOffset(target, center, frame, type, startEt, endEt, fixed);
+                }
+                if(type == 8){
+                    return new EquallySpacedLagrange(data, target, center, frame, startEt, endEt, begin, end);
+                }
+                return new UnequallySpacedStates(data, target, center, frame, type, startEt, endEt, begin, end);
+            default:
+                return new Unsupported(fileName, target, center, frame, type, startEt, endEt);
+        }
+    }
+
+    // the one state of a segment whose states are all the same, or null
+    private static double[] constantState(ByteBuffer data, int begin, int n){
+        if(n < 1 || n > MAX_FIXED_OFFSET_STATES){
+            return null;
+        }
+        double[] state = new double[3];
+        for(int i = 0; i < 3; i++){
+            state[i] = data.getDouble(begin + 8 * i);
+        }
+        for(int record = 1; record < n; record++){
+            for(int i = 0; i < 6; i++){
+                if(data.getDouble(begin + 8 * (6 * record + i)) != data.getDouble(begin + 8 * i)){
+                    return null;
+                }
+            }
+        }
+        return state;
+    }
+
+    // types 2 and 3, fixed length records of Chebyshev coefficients for x, y and z (and their velocities for type 3)
+    private static final class Chebyshev extends SpkSegment {
+        private final ByteBuffer data;
+        private final int recordsStart;
+        private final double init;
+        private final double intervalLength;
+        private final int recordSize;
+        private final int nRecords;
+        private final int nCoefficients;
+
+        private Chebyshev(ByteBuffer data, int target, int center, int frame, int type, double startEt, double endEt, int begin, int end){
+            super(target, center, frame, type, startEt, endEt);
+            this.data = data;
+            this.recordsStart = begin;
+            this.init = data.getDouble(end - 24);
+            this.intervalLength = data.getDouble(end - 16);
+            this.recordSize = (int) data.getDouble(end - 8);
+            this.nRecords = (int) data.getDouble(end);
+            this.nCoefficients = (recordSize - 2) / (type == 2 ? 3 : 6);
+        }
+
+        @Override
+        void position(double et, double[] position, Scratch scratch){
+            int record = (int) Math.floor((et - init) / intervalLength);
+            record = Math.max(0, Math.min(nRecords - 1, record));
+            int offset = recordsStart + 8 * recordSize * record;
+            double mid = data.getDouble(offset);
+            double radius = data.getDouble(offset + 8);
+            double x = (et - mid) / radius;
+            for(int component = 0; component < 3; component++){
+                int coefficients = offset + 16 + 8 * nCoefficients * component;
+                // Clenshaw recurrence for the sum of c_j T_j(x)
+                double b1 = 0;
+                double b2 = 0;
+                for(int j = nCoefficients - 1; j > 0; j--){
+                    double b0 = 2 * x * b1 - b2 + data.getDouble(coefficients + 8 * j);
+                    b2 = b1;
+                    b1 = b0;
+                }
+                position[component] = x * b1 - b2 + data.getDouble(coefficients);
+            }
+        }
+    }
+
+    // types 8 and 9 whose states don't change, which is how landing sites are written
+    private static final class FixedOffset extends SpkSegment {
+        private final double[] offset;
+
+        private FixedOffset(int target, int center, int frame, int type, double startEt, double endEt, double[] offset){
+            super(target, center, frame, type, startEt, endEt);
+            this.offset = offset;
+        }
+
+        @Override
+        void position(double et, double[] position, Scratch scratch){
+            System.arraycopy(offset, 0, position, 0, 3);
+        }
+    }
+
+    // type 8, states at a fixed step followed by the first epoch, the step, the degree and the number of states
+    private static final class EquallySpacedLagrange extends SpkSegment {
+        private final ByteBuffer data;
+        private final int states;
+        private final double firstEpoch;
+        private final double step;
+        private final int windowSize;
+        private final int nStates;
+
+        private EquallySpacedLagrange(ByteBuffer data, int target, int center, int frame, double startEt, double endEt, int begin, int end){
+            super(target, center, frame, 8, startEt, endEt);
+            this.data = data;
+            this.states = begin;
+            this.firstEpoch = data.getDouble(end - 24);
+            this.step = data.getDouble(end - 16);
+            this.nStates = (int) data.getDouble(end);
+            this.windowSize = Math.min(nStates, (int) data.getDouble(end - 8) + 1);
+        }
+
+        @Override
+        void position(double et, double[] position, Scratch scratch){
+            // center the window on the nearest state if it has an odd size, or between the states around et if even
+            double index = (et - firstEpoch) / step;
+            int first = (windowSize % 2 == 1 ? (int) Math.round(index) : (int) Math.floor(index)) - (windowSize - 1) / 2;
+            first = Math.max(0, Math.min(nStates - windowSize, first));
+            scratch.fit(windowSize);
+            double[] epochs = scratch.epochs;
+            double[] values = scratch.values;
+            for(int i = 0; i < windowSize; i++){
+                epochs[i] = firstEpoch + step * (first + i);
+            }
+            for(int component = 0; component < 3; component++){
+                for(int i = 0; i < windowSize; i++){
+                    values[i] = data.getDouble(states + 8 * (6 * (first + i) + component));
+                }
+                position[component] = lagrange(epochs, values, windowSize, et);
+            }
+        }
+    }
+
+    /*
+     * types 9 and 13, states then their epochs then a directory of every 100th epoch, followed by the degree (type 9)
+     * or the window size minus one (type 13) and the number of states
+     */
+    private static final class UnequallySpacedStates extends SpkSegment {
+        private final ByteBuffer data;
+        private final int states;
+        private final int epochsStart;
+        private final int windowSize;
+        private final int nStates;
+
+        private UnequallySpacedStates(ByteBuffer data, int target, int center, int frame, int type, double startEt, double endEt, int begin, int end){
+            super(target, center, frame, type, startEt, endEt);
+            this.data = data;
+            this.states = begin;
+            this.nStates = (int) data.getDouble(end);
+            this.epochsStart = begin + 8 * 6 * nStates;
+            this.windowSize = Math.min(nStates, (int) data.getDouble(end - 8) + 1);
+        }
+
+        @Override
+        void position(double et, double[] position, Scratch scratch){
+            // index of the last epoch before et
+            int low = -1;
+            int high = nStates - 1;
+            while(low < high){
+                int mid = (low + high + 1) >> 1;
+                if(getEpoch(mid) < et){
+                    low = mid;
+                }
+                else{
+                    high = mid - 1;
+                }
+            }
+            // center the window on the nearest state if it has an odd size, or between the states around et if even
+            int first;
+            if(windowSize % 2 == 1){
+                int nearest = low;
+                if(low < 0 || (low + 1 < nStates && getEpoch(low + 1) - et < et - getEpoch(low))){
+                    nearest = low + 1;
+                }
+                first = nearest - windowSize / 2;
+            }
+            else{
+                first = low - windowSize / 2 + 1;
+            }
+            first = Math.max(0, Math.min(nStates - windowSize, first));
+
+            scratch.fit(windowSize);
+            double[] epochs = scratch.epochs;
+            double[] values = scratch.values;
+            double[] derivatives = scratch.derivatives;
+            for(int i = 0; i < windowSize; i++){
+                epochs[i] = getEpoch(first + i);
+            }
+            for(int component = 0; component < 3; component++){
+                for(int i = 0; i < windowSize; i++){
+                    values[i] = data.getDouble(states + 8 * (6 * (first + i) + component));
+                }
+                if(type == 9){
+                    position[component] = lagrange(epochs, values, windowSize, et);
+                }
+                else{
+                    for(int i = 0; i < windowSize; i++){
+                        derivatives[i] = data.getDouble(states + 8 * (6 * (first + i) + component + 3));
+                    }
+                    position[component] = hermite(epochs, values, derivatives, windowSize, et, scratch.nodes, scratch.differences);
+                }
+            }
+        }
+
+        private double getEpoch(int index){
+            return data.getDouble(epochsStart + 8 * index);
+        }
+    }
+
+    private static final class Unsupported extends SpkSegment {
+        private final String fileName;
+
+        private Unsupported(String fileName, int target, int center, int frame, int type, double startEt, double endEt){
+            super(target, center, frame, type, startEt, endEt);
+            this.fileName = fileName;
+        }
+
+        @Override
+        void position(double et, double[] position, Scratch scratch){
+            throw new RuntimeException("SPK segment for body " + target + " in " + fileName + " is data type " + type + ", but only types 2, 3, 8, 9 and 13 can be read without SPICE");
+        }
+    }
+
+    // Neville's algorithm for the polynomial through the points, which overwrites values
+    private static double lagrange(double[] epochs, double[] values, int n, double et){
+        for(int level = 1; level < n; level++){
+            for(int i = 0; i < n - level; i++){
+                double left = epochs[i];
+                double right = epochs[i + level];
+                values[i] = ((et - right) * values[i] + (left - et) * values[i + 1]) / (left - right);
+            }
+        }
+        return values[0];
+    }
+
+    // the polynomial through the points matching their derivatives, from divided differences over doubled epochs
+    private static double hermite(double[] epochs, double[] values, double[] derivatives, int n, double et, double[] nodes, double[] differences){
+        for(int i = 0; i < n; i++){
+            nodes[2 * i] = epochs[i];
+            nodes[2 * i + 1] = epochs[i];
+            differences[2 * i] = values[i];
+            differences[2 * i + 1] = values[i];
+        }
+        // first differences are the derivatives at doubled epochs
+        for(int i = 2 * n - 1; i >= 1; i--){
+            if(i % 2 == 1){
+                differences[i] = derivatives[i / 2];
+            }
+            else{
+                differences[i] = (differences[i] - differences[i - 1]) / (nodes[i] - nodes[i - 1]);
+            }
+        }
+        for(int level = 2; level < 2 * n; level++){
+            for(int i = 2 * n - 1; i >= level; i--){
+                differences[i] = (differences[i] - differences[i - 1]) / (nodes[i] - nodes[i - level]);
+            }
+        }
+        double result = differences[2 * n - 1];
+        for(int i = 2 * n - 2; i >= 0; i--){
+            result = result * (et - nodes[i]) + differences[i];
+        }
+        return result;
+    }
+}
@@ -1,5 +1,8 @@
 package gov.nasa.jpl.time;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.regex.Matcher;
@@ -233,8 +236,8 @@ public class Duration implements Comparable<Duration>, ConvertableFromString {
 
         long hours = Long.parseLong(durationMatcher.group("hours"));
         long minutes = Long.parseLong(durationMatcher.group("minutes"));
-        double seconds = Double.parseDouble(durationMatcher.group("fullSeconds"));
-        toReturn = days * ONE_DAY + hours * ONE_HOUR + minutes * ONE_MINUTE + Math.round(seconds * ONE_SECOND);
+        // seconds are converted with integer math so long durations don't pick up floating point error
+        toReturn = days * ONE_DAY + hours * ONE_HOUR + minutes * ONE_MINUTE + DurationParser.secondsToTics(durationMatcher.group("fullSeconds"));
         toReturn = toReturn * negativeMultiplier;
         return toReturn;
     }
@@ -581,79 +584,73 @@ public class Duration implements Comparable<Duration>, ConvertableFromString {
      * @return A string representation of the duration
      */
     public String toString(int numDecimalPlaces){
-        if(numDecimalPlaces > numberDecimalDigits){
-            numDecimalPlaces = numberDecimalDigits;
-        }
-
-        // Duration output formats
-        String formatForLessThanOneDay;
-        if(numDecimalPlaces == 0) {
-            formatForLessThanOneDay = "%02d:%02d:%02d";
-        }
-        else{
-            formatForLessThanOneDay = "%02d:%02d:%02d.%0" + numDecimalPlaces + "d";
-        }
-
-        String formatForGreaterThanOneDay = "%dT" + formatForLessThanOneDay;
+        char[] buffer = DurationFormatter.getBuffer();
+        return new String(buffer, 0, DurationFormatter.format(tics, numDecimalPlaces, 'T', false, buffer, 0));
+    }
 
-        long ticsRounder = 1;
-        for(int i = 0; i<(numberDecimalDigits-numDecimalPlaces); i++){
-            ticsRounder *= 10;
-        }
+    /**
+     * Appends the same string as toString(numDecimalPlaces) without creating it, for writing many durations to
+     * one output
+     * @param sb The StringBuilder to append to
+     * @param numDecimalPlaces The number of places to print subseconds to
+     * @return sb
+     */
+    public StringBuilder appendTo(StringBuilder sb, int numDecimalPlaces){
+        char[] buffer = DurationFormatter.getBuffer();
+        return sb.append(buffer, 0, DurationFormatter.format(tics, numDecimalPlaces, 'T', false, buffer, 0));
+    }
 
-        long roundedTics = Math.round(((double) tics) / ticsRounder)*ticsRounder;
-
-        long remainder;
-        long days = Math.abs(roundedTics) / ONE_DAY;
-        remainder = Math.abs(roundedTics) % ONE_DAY;
-        long hours = remainder / ONE_HOUR;
-        remainder = remainder % ONE_HOUR;
-        long minutes = remainder / ONE_MINUTE;
-        remainder = remainder % ONE_MINUTE;
-        long seconds = remainder / ONE_SECOND;
-        long onlyTics = remainder % ONE_SECOND;
-        long subseconds = onlyTics / ticsRounder;
-
-        // need to add a - to negative durations
-        String sign = "";
-        if (roundedTics < 0) {
-            sign = "-";
+    /**
+     * Appends the same string as toString(numDecimalPlaces) without creating it, for writing many durations to
+     * a Writer or other output
+     * @param out Where to append to
+     * @param numDecimalPlaces The number of places to print subseconds to
+     * @return out
+     * @throws IOException If out throws on append
+     */
+    public Appendable appendTo(Appendable out, int numDecimalPlaces) throws IOException {
+        char[] buffer = DurationFormatter.getBuffer();
+        int length = DurationFormatter.format(tics, numDecimalPlaces, 'T', false, buffer, 0);
+        // Appendable has no way to take a char array, so hand the whole string over in one call by the widest one
+        // out offers
+        if(out instanceof StringBuilder){
+            ((StringBuilder) out).append(buffer, 0, length);
         }
-
-        if (Math.abs(roundedTics) >= ONE_DAY) {
-            return sign + String.format(formatForGreaterThanOneDay, days, hours, minutes, seconds, subseconds);
+        else if(out instanceof Writer){
+            ((Writer) out).write(buffer, 0, length);
         }
-        else {
-            return sign + String.format(formatForLessThanOneDay, hours, minutes, seconds, subseconds);
+        else{
+            out.append(CharBuffer.wrap(buffer, 0, length));
         }
-
-
+        return out;
     }
 
-
     /**
      * Returns a string representing the duration as a mars duration.
      * @param numberDecimalDigits
      * @return
      */
     public String toMarsDurString(int numberDecimalDigits) {
-        Duration marsDur = divide(MARS_TIME_SCALE); // create a fake duration to use the normal formatter
-        String earthDurString = marsDur.toString(numberDecimalDigits);
-        Matcher dayMatcher = durationPattern.matcher(earthDurString);
+        char[] buffer = DurationFormatter.getBuffer();
+        return new String(buffer, 0, formatMarsDur(numberDecimalDigits, buffer));
+    }
 
-        // if there are days in the regex then these represent sols, so just replace the T with an M
-        if (dayMatcher.find() && dayMatcher.group("days") != null) {
-            return earthDurString.replace("T", "M");
-        }
-        // if there aren't any days then add an M in front if positive, otherwise add after the negative sign
-        else {
-            if (marsDur.getTics() >= 0) {
-                return "M" + earthDurString;
-            }
-            else {
-                return "-M" + earthDurString.substring(1);
-            }
-        }
+    /**
+     * Appends the same string as toMarsDurString(numDecimalPlaces) without creating it
+     * @param sb The StringBuilder to append to
+     * @param numDecimalPlaces The number of places to print subseconds to
+     * @return sb
+     */
+    public StringBuilder appendMarsDurTo(StringBuilder sb, int numDecimalPlaces){
+        char[] buffer = DurationFormatter.getBuffer();
+        return sb.append(buffer, 0, formatMarsDur(numDecimalPlaces, buffer));
+    }
+
+    // formats the duration scaled to Mars seconds, where whole days are sols and come before an M instead of a T,
+    // and durations shorter than a sol still get the M in front of them (after the sign if negative)
+    private int formatMarsDur(int numDecimalPlaces, char[] buffer){
+        Duration marsDur = divide(MARS_TIME_SCALE);
+        return DurationFormatter.format(marsDur.tics, numDecimalPlaces, 'M', true, buffer, 0);
     }
 
     /**
@@ -681,15 +678,21 @@ public class Duration implements Comparable<Duration>, ConvertableFromString {
      */
     @Override
     public void valueOf(String s) {
-        // Create Matcher objects
-        Matcher durationMatcher = durationPattern.matcher(s);
+        tics = parseTics(s);
+    }
 
-        if (durationMatcher.find()) {
-            tics = computeTicsFromMatcher(durationMatcher);
-        }
-        else {
+    /**
+     * Parses a duration string into tics, which is the same as new Duration(s).getTics() but does not allocate.
+     * Accepts exactly what durationPattern.matcher(s).find() would.
+     * @param s A string in format [-][DDDT]HH:MM:SS.ssssss
+     * @return The tics that back the equivalent Duration
+     */
+    public static long parseTics(CharSequence s) {
+        long parsedTics = DurationParser.parse(s);
+        if (parsedTics == DurationParser.NOT_PARSED) {
             throw new RuntimeException("Cannot cast " + s + " to Duration - does not match expected format");
         }
+        return parsedTics;
     }
     //</editor-fold>
 
@@ -0,0 +1,394 @@
+package gov.nasa.jpl.time;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A fixed-length column of Durations stored as a long[] of tics, the Duration counterpart of TimeArray. It holds a
+ * million Durations in 8 MB instead of a List of objects, and does its math in plain loops over the array that the
+ * JIT can vectorize. Like a Java array it is mutable and not thread-safe; the bulk math methods return new arrays and
+ * leave this one alone, while set() and sort() change it in place.
+ */
+public final class DurationArray {
+    private final long[] tics;
+
+    /**
+     * Creates an array of the input length with every Duration zero.
+     * @param length
+     */
+    public DurationArray(int length) {
+        this(new long[length]);
+    }
+
+    private DurationArray(long[] tics) {
+        this.tics = tics;
+    }
+
+    //<editor-fold desc="views and copies">
+
+    /**
+     * Returns a DurationArray backed by the input tics without copying them, so changes to either show up in both.
+     * @param tics
+     * @return A DurationArray
+     */
+    public static DurationArray wrap(long[] tics) {
+        if(tics == null){
+            throw new RuntimeException("Can not wrap a null array of tics in a DurationArray");
+        }
+        return new DurationArray(tics);
+    }
+
+    /**
+     * Copies the input Durations into a new DurationArray.
+     * @param durations
+     * @return A DurationArray
+     */
+    public static DurationArray of(Duration... durations) {
+        long[] tics = new long[durations.length];
+        for(int i = 0; i < tics.length; i++){
+            tics[i] = durations[i].getTics();
+        }
+        return new DurationArray(tics);
+    }
+
+    /**
+     * Copies the input Durations into a new DurationArray, in iteration order.
+     * @param durations
+     * @return A DurationArray
+     */
+    public static DurationArray of(Collection<? extends Duration> durations) {
+        long[] tics = new long[durations.size()];
+        int i = 0;
+        for(Duration d : durations){
+            tics[i++] = d.getTics();
+        }
+        return new DurationArray(tics);
+    }
+
+    /**
+     * Returns the backing array of tics, not a copy.
+     * @return A long[]
+     */
+    public long[] ticsArray() {
+        return tics;
+    }
+
+    /**
+     * Returns a List view of the array. Durations are created as elements are read, and set() writes through.
+     * @return A List of Durations
+     */
+    public List<Duration> asList() {
+        return new DurationList();
+    }
+
+    /**
+     * Creates a Duration object for every element.
+     * @return A new Duration[]
+     */
+    public Duration[] toDurations() {
+        Duration[] durations = new Duration[tics.length];
+        for(int i = 0; i < tics.length; i++){
+            durations[i] = Duration.fromTics(tics[i]);
+        }
+        return durations;
+    }
+
+    /**
+     * @return A new DurationArray with the same values
+     */
+    public DurationArray copy() {
+        return new DurationArray(tics.clone());
+    }
+
+    /**
+     * @param from inclusive
+     * @param to exclusive
+     * @return A new DurationArray with the values from index from up to to
+     */
+    public DurationArray copyOfRange(int from, int to) {
+        return new DurationArray(Arrays.copyOfRange(tics, from, to));
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="element access">
+
+    public int length() {
+        return tics.length;
+    }
+
+    public Duration get(int index) {
+        return Duration.fromTics(tics[index]);
+    }
+
+    public long getTics(int index) {
+        return tics[index];
+    }
+
+    public void set(int index, Duration d) {
+        tics[index] = d.getTics();
+    }
+
+    public void setTics(int index, long value) {
+        tics[index] = value;
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="math">
+
+    /**
+     * @param d
+     * @return A new DurationArray with d added to every element
+     */
+    public DurationArray add(Duration d) {
+        long offset = d.getTics();
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = tics[i] + offset;
+        }
+        return new DurationArray(result);
+    }
+
+    /**
+     * @param other the same length as this array
+     * @return A new DurationArray with the elementwise sums
+     */
+    public DurationArray add(DurationArray other) {
+        checkLength(tics.length, other.tics.length);
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = tics[i] + other.tics[i];
+        }
+        return new DurationArray(result);
+    }
+
+    /**
+     * @param d
+     * @return A new DurationArray with d subtracted from every element
+     */
+    public DurationArray subtract(Duration d) {
+        return add(Duration.fromTics(-d.getTics()));
+    }
+
+    /**
+     * @param other the same length as this array
+     * @return A new DurationArray with the elementwise differences
+     */
+    public DurationArray subtract(DurationArray other) {
+        checkLength(tics.length, other.tics.length);
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = tics[i] - other.tics[i];
+        }
+        return new DurationArray(result);
+    }
+
+    /**
+     * Multiplies every element like Duration.multiply(double), rounding each to the nearest tic.
+     * @param multiplyBy
+     * @return A new DurationArray
+     */
+    public DurationArray multiply(double multiplyBy) {
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = Math.round(tics[i] * multiplyBy);
+        }
+        return new DurationArray(result);
+    }
+
+    /**
+     * @return The sum of every element, ZERO_DURATION if the array is empty
+     */
+    public Duration sum() {
+        long sum = 0;
+        for(long t : tics){
+            sum += t;
+        }
+        return Duration.fromTics(sum);
+    }
+
+    /**
+     * @return The shortest element
+     */
+    public Duration min() {
+        return Duration.fromTics(minTics(tics, "DurationArray"));
+    }
+
+    /**
+     * @return The longest element
+     */
+    public Duration max() {
+        return Duration.fromTics(maxTics(tics, "DurationArray"));
+    }
+
+    /**
+     * Rounds every element to the nearest multiple of the resolution, with halves rounded up as Duration.round() does.
+     * @param resolution
+     * @return A new DurationArray
+     */
+    public DurationArray round(Duration resolution) {
+        long res = checkResolution(resolution);
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = roundTics(tics[i], res);
+        }
+        return new DurationArray(result);
+    }
+
+    /**
+     * Rounds every element up to a multiple of the resolution.
+     * @param resolution
+     * @return A new DurationArray
+     */
+    public DurationArray ceil(Duration resolution) {
+        long res = checkResolution(resolution);
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = ceilTics(tics[i], res);
+        }
+        return new DurationArray(result);
+    }
+
+    /**
+     * Rounds every element down to a multiple of the resolution.
+     * @param resolution
+     * @return A new DurationArray
+     */
+    public DurationArray floor(Duration resolution) {
+        long res = checkResolution(resolution);
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = floorTics(tics[i], res);
+        }
+        return new DurationArray(result);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="ordering">
+
+    /**
+     * Sorts the array in place, shortest first.
+     */
+    public void sort() {
+        Arrays.parallelSort(tics);
+    }
+
+    /**
+     * @return true if no element is shorter than the one before it
+     */
+    public boolean isSorted() {
+        return isSorted(tics);
+    }
+
+    /**
+     * Searches a sorted array for the input Duration, with the same return value as Arrays.binarySearch().
+     * @param d
+     * @return The index of d if it is in the array, otherwise (-(insertion point) - 1)
+     */
+    public int binarySearch(Duration d) {
+        return Arrays.binarySearch(tics, d.getTics());
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="helpers shared with TimeArray">
+
+    // these use exact integer division so they stay correct for offsets too large for a double to hold to the tic
+    static long floorTics(long tics, long resolution) {
+        return Math.floorDiv(tics, resolution) * resolution;
+    }
+
+    static long ceilTics(long tics, long resolution) {
+        return -Math.floorDiv(-tics, resolution) * resolution;
+    }
+
+    static long roundTics(long tics, long resolution) {
+        long floor = floorTics(tics, resolution);
+        return tics - floor >= resolution - (tics - floor) ? floor + resolution : floor;
+    }
+
+    static long checkResolution(Duration resolution) {
+        if(resolution.getTics() <= 0){
+            throw new RuntimeException("Can not round to a resolution of " + resolution + ", which is not positive");
+        }
+        return resolution.getTics();
+    }
+
+    static void checkLength(int length, int otherLength) {
+        if(length != otherLength){
+            throw new RuntimeException("Can not combine arrays of different lengths " + length + " and " + otherLength);
+        }
+    }
+
+    static long minTics(long[] tics, String name) {
+        if(tics.length == 0){
+            throw new RuntimeException("Can not take the minimum of an empty " + name);
+        }
+        long min = tics[0];
+        for(int i = 1; i < tics.length; i++){
+            min = Math.min(min, tics[i]);
+        }
+        return min;
+    }
+
+    static long maxTics(long[] tics, String name) {
+        if(tics.length == 0){
+            throw new RuntimeException("Can not take the maximum of an empty " + name);
+        }
+        long max = tics[0];
+        for(int i = 1; i < tics.length; i++){
+            max = Math.max(max, tics[i]);
+        }
+        return max;
+    }
+
+    static boolean isSorted(long[] tics) {
+        for(int i = 1; i < tics.length; i++){
+            if(tics[i] < tics[i - 1]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //</editor-fold>
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof DurationArray)) {
+            return false;
+        }
+        else {
+            return Arrays.equals(tics, ((DurationArray) other).tics);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(tics);
+    }
+
+    private class DurationList extends AbstractList<Duration> implements RandomAccess {
+        @Override
+        public Duration get(int index) {
+            return DurationArray.this.get(index);
+        }
+
+        @Override
+        public Duration set(int index, Duration d) {
+            Duration previous = DurationArray.this.get(index);
+            DurationArray.this.set(index, d);
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return tics.length;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package gov.nasa.jpl.time;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * Writes durations as [-][DDDT]HH:MM:SS[.ffffff] into a char array with integer math, instead of building a format
+ * string for String.format and rounding through a double. Earth and Mars duration strings and LMST times of sol are
+ * all written by this one engine so they round the same way.
+ */
+final class DurationFormatter {
+    // "Sol-" or a sign, 19 digits of days, the day delimiter, HH:MM:SS, the decimal point and up to 8 decimal places
+    static final int MAX_LENGTH = 44;
+
+    private static final ThreadLocal<char[]> FORMAT_BUFFER = ThreadLocal.withInitial(() -> new char[MAX_LENGTH]);
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L};
+
+    // tens and ones digits of 0-99, so two-digit fields are table lookups instead of division
+    private static final char[] DIGIT_TENS = new char[100];
+    private static final char[] DIGIT_ONES = new char[100];
+    static {
+        for(int i = 0; i < 100; i++){
+            DIGIT_TENS[i] = (char) ('0' + i / 10);
+            DIGIT_ONES[i] = (char) ('0' + i % 10);
+        }
+    }
+
+    private DurationFormatter(){
+    }
+
+    /**
+     * @return a per-thread scratch buffer of MAX_LENGTH chars to format into before copying to the output
+     */
+    static char[] getBuffer(){
+        return FORMAT_BUFFER.get();
+    }
+
+    /**
+     * @param numDecimalPlaces requested decimal places
+     * @return the decimal places that will actually be written, between 0 and the resolution of tics
+     */
+    static int clampDecimalPlaces(int numDecimalPlaces){
+        return numDecimalPlaces > numberDecimalDigits ? numberDecimalDigits : numDecimalPlaces < 0 ? 0 : numDecimalPlaces;
+    }
+
+    /**
+     * Rounds half up (towards positive infinity) like Math.round, but without going through a double
+     * @param tics tics to round
+     * @param numDecimalPlaces decimal places of a second to keep, already clamped
+     * @return rounded tics
+     */
+    static long round(long tics, int numDecimalPlaces){
+        long ticsRounder = POWERS_OF_TEN[numberDecimalDigits - numDecimalPlaces];
+        long quotient = Math.floorDiv(tics, ticsRounder);
+        if((tics - quotient * ticsRounder) * 2 >= ticsRounder){
+            quotient++;
+        }
+        return quotient * ticsRounder;
+    }
+
+    /**
+     * Writes a duration, with days before dayDelimiter if it is at least a day long
+     * @param tics the duration
+     * @param numDecimalPlaces decimal places to write, which is clamped to the resolution of tics
+     * @param dayDelimiter 'T' for Earth durations, 'M' for Mars durations
+     * @param alwaysWriteDelimiter true to write the delimiter even for durations shorter than a day, like Mars
+     *                             durations do (M01:00:00)
+     * @param dest where to write, at least MAX_LENGTH chars past offset
+     * @param offset index in dest of the first char to write
+     * @return index in dest after the last char written
+     */
+    static int format(long tics, int numDecimalPlaces, char dayDelimiter, boolean alwaysWriteDelimiter, char[] dest, int offset){
+        numDecimalPlaces = clampDecimalPlaces(numDecimalPlaces);
+        long roundedTics = round(tics, numDecimalPlaces);
+
+        int i = offset;
+        if(roundedTics < 0){
+            dest[i++] = '-';
+        }
+        long magnitude = Math.abs(roundedTics);
+        long days = magnitude / ONE_DAY;
+        if(days > 0){
+            i = writeDigits(days, dest, i);
+            dest[i++] = dayDelimiter;
+        }
+        else if(alwaysWriteDelimiter){
+            dest[i++] = dayDelimiter;
+        }
+        return formatTimeOfDay(magnitude % ONE_DAY, numDecimalPlaces, dest, i);
+    }
+
+    /**
+     * Writes Sol-####M##:##:##.###, carrying into the next sol if the time of sol rounds up to a whole sol
+     * @param solNumber the sol
+     * @param marsTicsOfSol time elapsed in the sol, in tics of Mars seconds
+     * @param numDecimalPlaces decimal places to write, which is clamped to the resolution of tics
+     * @param dest where to write, at least MAX_LENGTH chars past offset
+     * @param offset index in dest of the first char to write
+     * @return index in dest after the last char written
+     */
+    static int formatLMST(long solNumber, long marsTicsOfSol, int numDecimalPlaces, char[] dest, int offset){
+        numDecimalPlaces = clampDecimalPlaces(numDecimalPlaces);
+        long roundedTics = round(marsTicsOfSol, numDecimalPlaces);
+
+        int i = offset;
+        dest[i++] = 'S';
+        dest[i++] = 'o';
+        dest[i++] = 'l';
+        dest[i++] = '-';
+        i = writeDigits(solNumber + roundedTics / ONE_DAY, 4, dest, i);
+        dest[i++] = 'M';
+        return formatTimeOfDay(roundedTics % ONE_DAY, numDecimalPlaces, dest, i);
+    }
+
+    /**
+     * Writes HH:MM:SS[.fff] for an already rounded, non-negative duration shorter than a day
+     * @param ticsOfDay tics since midnight, already rounded to numDecimalPlaces
+     * @param numDecimalPlaces decimal places to write, already clamped
+     * @param dest where to write
+     * @param i index in dest of the first char to write
+     * @return index in dest after the last char written
+     */
+    static int formatTimeOfDay(long ticsOfDay, int numDecimalPlaces, char[] dest, int i){
+        int secondsOfDay = (int) (ticsOfDay / ONE_SECOND);
+        i = writeTwoDigits(secondsOfDay / 3600, dest, i);
+        dest[i++] = ':';
+        i = writeTwoDigits((secondsOfDay / 60) % 60, dest, i);
+        dest[i++] = ':';
+        i = writeTwoDigits(secondsOfDay % 60, dest, i);
+
+        if(numDecimalPlaces > 0){
+            dest[i++] = '.';
+            long subseconds = (ticsOfDay % ONE_SECOND) / POWERS_OF_TEN[numberDecimalDigits - numDecimalPlaces];
+            for(int j = i + numDecimalPlaces - 1; j >= i; j--){
+                dest[j] = (char) ('0' + subseconds % 10);
+                subseconds /= 10;
+            }
+            i += numDecimalPlaces;
+        }
+        return i;
+    }
+
+    /**
+     * Writes a non-negative number with at least minDigits digits, zero-padding on the left
+     */
+    static int writeDigits(long value, int minDigits, char[] dest, int i){
+        int digits = 1;
+        for(long remaining = value / 10; remaining > 0; remaining /= 10){
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+        for(int j = i + digits - 1; j >= i; j--){
+            dest[j] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return i + digits;
+    }
+
+    private static int writeDigits(long value, char[] dest, int i){
+        return writeDigits(value, 1, dest, i);
+    }
+
+    private static int writeTwoDigits(int value, char[] dest, int i){
+        dest[i] = DIGIT_TENS[value];
+        dest[i + 1] = DIGIT_ONES[value];
+        return i + 2;
+    }
+}
@@ -0,0 +1,150 @@
+package gov.nasa.jpl.time;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * Parses duration strings into tics by hand instead of with Duration.durationPattern, without allocating. It accepts
+ * exactly what durationPattern.matcher(s).find() does, including finding the duration anywhere in the input, so
+ * Duration.valueOf behaves the same as it did with the regex. Seconds are accumulated as integers, with the digit
+ * after the tic resolution rounding half up, instead of going through Double.parseDouble.
+ */
+final class DurationParser {
+    /**
+     * Returned when there is no duration anywhere in the input
+     */
+    static final long NOT_PARSED = Long.MIN_VALUE;
+    private static final long NO_MATCH_HERE = Long.MIN_VALUE + 1;
+
+    // more digits than this could overflow the fast accumulation, so those fields go through the same parse calls as before
+    private static final int MAX_INT_DIGITS = 9;
+    private static final int MAX_LONG_DIGITS = 18;
+    // largest whole seconds that still fit in a long of tics
+    private static final int MAX_SECOND_DIGITS = 10;
+
+    private DurationParser(){
+    }
+
+    /**
+     * @param s input that contains a duration like [-][DDDT]HH:MM:SS[.ffffff]
+     * @return tics of the first duration found in the input, or NOT_PARSED
+     */
+    static long parse(CharSequence s){
+        int length = s.length();
+        // like Matcher.find(), the leftmost position a duration starts at wins
+        for(int start = 0; start < length; start++){
+            long tics = parseAt(s, start, length);
+            if(tics != NO_MATCH_HERE){
+                return tics;
+            }
+        }
+        return NOT_PARSED;
+    }
+
+    // the regex's digit runs are always followed by a non-digit so they never backtrack, which makes a match at a
+    // given start position deterministic
+    private static long parseAt(CharSequence s, int i, int length){
+        boolean negative = false;
+        if(s.charAt(i) == '-'){
+            negative = true;
+            i++;
+        }
+
+        // ((?<days>\d+)?T|T?)
+        int daysStart = i;
+        int daysEnd = skipDigits(s, i, length);
+        if(daysEnd < length && s.charAt(daysEnd) == 'T'){
+            i = daysEnd + 1;
+        }
+        else{
+            daysEnd = daysStart;
+        }
+
+        int hoursEnd = skipDigits(s, i, length);
+        if(hoursEnd == i || hoursEnd >= length || s.charAt(hoursEnd) != ':'){
+            return NO_MATCH_HERE;
+        }
+        int minutesStart = hoursEnd + 1;
+        int minutesEnd = skipDigits(s, minutesStart, length);
+        if(minutesEnd == minutesStart || minutesEnd >= length || s.charAt(minutesEnd) != ':'){
+            return NO_MATCH_HERE;
+        }
+        int secondsStart = minutesEnd + 1;
+        int secondsEnd = skipDigits(s, secondsStart, length);
+        if(secondsEnd == secondsStart){
+            return NO_MATCH_HERE;
+        }
+        // a trailing decimal point without digits after it isn't part of the match
+        if(secondsEnd + 1 < length && s.charAt(secondsEnd) == '.' && isDigit(s.charAt(secondsEnd + 1))){
+            secondsEnd = skipDigits(s, secondsEnd + 1, length);
+        }
+
+        // fields are only converted once the whole match is known, so overflowing fields of a non-match don't throw
+        long tics = parseInt(s, daysStart, daysEnd) * ONE_DAY + parseLong(s, i, hoursEnd) * ONE_HOUR
+                + parseLong(s, minutesStart, minutesEnd) * ONE_MINUTE + secondsToTics(s, secondsStart, secondsEnd);
+        return negative ? -tics : tics;
+    }
+
+    /**
+     * @param fullSeconds seconds with an optional decimal part, like the fullSeconds group of durationPattern
+     * @return the seconds converted to tics, rounding half up past the tic resolution
+     */
+    static long secondsToTics(CharSequence fullSeconds){
+        return secondsToTics(fullSeconds, 0, fullSeconds.length());
+    }
+
+    private static long secondsToTics(CharSequence s, int start, int end){
+        int wholeEnd = skipDigits(s, start, end);
+        if(wholeEnd - start > MAX_SECOND_DIGITS){
+            return Math.round(Double.parseDouble(s.subSequence(start, end).toString()) * ONE_SECOND);
+        }
+
+        long tics = parseLong(s, start, wholeEnd) * ONE_SECOND;
+        long place = ONE_SECOND / 10;
+        for(int i = wholeEnd + 1; i < end; i++){
+            int digit = s.charAt(i) - '0';
+            if(place == 0){
+                if(digit >= 5){
+                    tics++;
+                }
+                break;
+            }
+            tics += digit * place;
+            place /= 10;
+        }
+        return tics;
+    }
+
+    private static int parseInt(CharSequence s, int start, int end){
+        if(end - start > MAX_INT_DIGITS){
+            return Integer.parseInt(s.subSequence(start, end).toString());
+        }
+        int value = 0;
+        for(int i = start; i < end; i++){
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static long parseLong(CharSequence s, int start, int end){
+        if(end - start > MAX_LONG_DIGITS){
+            return Long.parseLong(s.subSequence(start, end).toString());
+        }
+        long value = 0;
+        for(int i = start; i < end; i++){
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static int skipDigits(CharSequence s, int i, int end){
+        while(i < end && isDigit(s.charAt(i))){
+            i++;
+        }
+        return i;
+    }
+
+    // \d in java regex without UNICODE_CHARACTER_CLASS is only ASCII digits
+    private static boolean isDigit(char c){
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,172 @@
+package gov.nasa.jpl.time;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * Serves TAI to ET conversions from Chebyshev fits of TDB-TDT, so SPICE mode can call toET() without a JNI call to
+ * unitim or two sines per call. TDB-TDT is a millisecond-scale term with a period of a year, so a low degree
+ * polynomial over each segment of a few days fits it to well under a nanosecond. Segments are fit the first time
+ * a time inside them is converted, and each fit is checked against the DELTET formula between its nodes, raising the
+ * degree until the error is below MAX_ERROR_SECONDS. Times outside of the coverage are left to the caller.
+ */
+final class EphemerisTimeCache {
+    static final double MAX_ERROR_SECONDS = 1e-10;
+    private static final int MIN_DEGREE = 3;
+    private static final int MAX_DEGREE = 16;
+    private static final int ET_TO_TAI_ITERATIONS = 3;
+
+    private final LeapSecondsKernel model;
+    private final double deltaTA;
+    private final long startTai;
+    private final long endTai;
+    private final long segmentTics;
+    private final Segment[] segments;
+
+    // coefficients are final so a segment fit by one thread is seen fully built by any other
+    private static final class Segment {
+        private final double midTai;
+        private final double halfLength;
+        private final double[] coefficients;
+
+        private Segment(double midTai, double halfLength, double[] coefficients){
+            this.midTai = midTai;
+            this.halfLength = halfLength;
+            this.coefficients = coefficients;
+        }
+
+        private double evaluate(double tai){
+            // Clenshaw recurrence for the sum of c_j T_j(x), with the first coefficient halved
+            double x = (tai - midTai) / halfLength;
+            double b1 = 0;
+            double b2 = 0;
+            for(int j = coefficients.length - 1; j > 0; j--){
+                double b0 = 2 * x * b1 - b2 + coefficients[j];
+                b2 = b1;
+                b1 = b0;
+            }
+            return x * b1 - b2 + coefficients[0] / 2;
+        }
+    }
+
+    /**
+     * @param model the leapseconds kernel whose DELTET constants define TDB-TDT
+     * @param startTai TAI tics at the start of the coverage
+     * @param endTai TAI tics at the end of the coverage
+     * @param segmentTics length of each fit
+     */
+    EphemerisTimeCache(LeapSecondsKernel model, long startTai, long endTai, long segmentTics){
+        if(endTai <= startTai || segmentTics <= 0){
+            throw new RuntimeException("ET cache coverage must be a non-empty range split into positive length segments");
+        }
+        this.model = model;
+        this.deltaTA = model.getDeltaTA();
+        this.startTai = startTai;
+        this.segmentTics = segmentTics;
+        long nSegments = (endTai - startTai - 1) / segmentTics + 1;
+        if(nSegments > Integer.MAX_VALUE){
+            throw new RuntimeException("ET cache coverage has too many segments, use longer segments");
+        }
+        this.endTai = startTai + nSegments * segmentTics;
+        this.segments = new Segment[(int) nSegments];
+    }
+
+    /**
+     * @return the leapseconds kernel the fits were made from
+     */
+    LeapSecondsKernel getModel(){
+        return model;
+    }
+
+    /**
+     * @param tai TAI tics
+     * @return true if taiToEt can convert the time
+     */
+    boolean covers(long tai){
+        return tai >= startTai && tai < endTai;
+    }
+
+    /**
+     * @param et ET seconds past J2000
+     * @return true if etToTai can convert the time
+     */
+    boolean coversEt(double et){
+        // TDB-TAI is always within a second of DELTA_T_A, which the segments can't tell apart at the edges
+        double tai = (et - deltaTA) * ONE_SECOND;
+        return tai >= startTai + ONE_SECOND && tai < endTai - ONE_SECOND;
+    }
+
+    /**
+     * The same as LeapSecondsKernel.taiToEt, to within MAX_ERROR_SECONDS plus the rounding of the result
+     * @param tai TAI tics, which must be covered
+     * @return ET seconds past J2000
+     */
+    double taiToEt(long tai){
+        double taiSeconds = tai / (double) ONE_SECOND;
+        double tdt = taiSeconds + deltaTA;
+        return tdt + getSegment(tai).evaluate(taiSeconds);
+    }
+
+    /**
+     * The same as LeapSecondsKernel.etToTai, to within MAX_ERROR_SECONDS plus the rounding of the result
+     * @param et ET seconds past J2000, which must be covered
+     * @return TAI seconds past J2000
+     */
+    double etToTai(double et){
+        double tdt = et;
+        for(int i = 0; i < ET_TO_TAI_ITERATIONS; i++){
+            double taiSeconds = tdt - deltaTA;
+            tdt = et - getSegment(Math.round(taiSeconds * ONE_SECOND)).evaluate(taiSeconds);
+        }
+        return tdt - deltaTA;
+    }
+
+    private Segment getSegment(long tai){
+        int index = (int) ((tai - startTai) / segmentTics);
+        Segment segment = segments[index];
+        if(segment == null){
+            segment = fit(startTai + index * segmentTics);
+            segments[index] = segment;
+        }
+        return segment;
+    }
+
+    private Segment fit(long segmentStartTai){
+        double midTai = (segmentStartTai + segmentTics / 2) / (double) ONE_SECOND;
+        double halfLength = segmentTics / (2.0 * ONE_SECOND);
+        for(int degree = MIN_DEGREE; degree <= MAX_DEGREE; degree++){
+            int n = degree + 1;
+            double[] values = new double[n];
+            for(int k = 0; k < n; k++){
+                values[k] = tdbMinusTdt(midTai + halfLength * Math.cos(Math.PI * (k + 0.5) / n));
+            }
+            double[] coefficients = new double[n];
+            for(int j = 0; j < n; j++){
+                double sum = 0;
+                for(int k = 0; k < n; k++){
+                    sum += values[k] * Math.cos(Math.PI * j * (k + 0.5) / n);
+                }
+                coefficients[j] = 2 * sum / n;
+            }
+
+            Segment segment = new Segment(midTai, halfLength, coefficients);
+            if(maxError(segment, 4 * n) < MAX_ERROR_SECONDS){
+                return segment;
+            }
+        }
+        throw new RuntimeException("Could not fit TDB-TDT to within " + MAX_ERROR_SECONDS + " seconds over segments of " + segmentTics + " tics, use shorter segments");
+    }
+
+    // largest difference from the formula over evenly spaced points, including both ends of the segment
+    private double maxError(Segment segment, int nChecks){
+        double maxError = 0;
+        for(int i = 0; i <= nChecks; i++){
+            double tai = segment.midTai + segment.halfLength * (2.0 * i / nChecks - 1);
+            maxError = Math.max(maxError, Math.abs(segment.evaluate(tai) - tdbMinusTdt(tai)));
+        }
+        return maxError;
+    }
+
+    private double tdbMinusTdt(double taiSeconds){
+        return model.getTdbMinusTdt(taiSeconds + deltaTA);
+    }
+}
@@ -17,22 +17,83 @@ import static gov.nasa.jpl.time.Duration.*;
 public class EpochRelativeTime extends Time {
     //<editor-fold desc="static fields and methods that allow epoch processing">
 
-    private static Map<String, Time> epochs = new HashMap<>();
+    // the epochs themselves are kept in Time's default context, so each mission's context can have its own. Every
+    // change makes a new immutable copy of them, so parsing never locks and always sees one version of the table
 
     /**
      * Sets a new epochs map for all new EpochRelativeTimes (does not change already existing ones)
-     * @param epochs Map that new EpochRelativeTimes will look up their string in
+     * @param epochs Map that new EpochRelativeTimes will look up their string in, which is copied
      */
     public static void setEpochs(Map<String, Time> epochs){
-        EpochRelativeTime.epochs = epochs;
+        Time.updateDefaultContext(context -> context.withEpochs(epochs));
     }
 
     /**
-     * Returns the map of epochs to times.
+     * Returns the map of epochs to times. It reads the current epochs of the default context, and putting or removing
+     * entries is the same as calling addEpoch and removeEpoch. Use snapshotEpochs for a table that doesn't change.
      * @return
      */
     public static Map<String, Time> getEpochs() {
-        return epochs;
+        return DEFAULT_EPOCHS;
+    }
+
+    private static final Map<String, Time> DEFAULT_EPOCHS = new DefaultEpochs();
+
+    // a live view of the default context's epochs, so code that changed the map getEpochs used to return still works
+    private static final class DefaultEpochs extends AbstractMap<String, Time> {
+        @Override
+        public Set<Entry<String, Time>> entrySet(){
+            return Time.getDefaultContext().getEpochs().entrySet();
+        }
+
+        @Override
+        public Time get(Object epochName){
+            return Time.getDefaultContext().getEpochs().get(epochName);
+        }
+
+        @Override
+        public boolean containsKey(Object epochName){
+            return Time.getDefaultContext().getEpochs().containsKey(epochName);
+        }
+
+        @Override
+        public int size(){
+            return Time.getDefaultContext().getEpochs().size();
+        }
+
+        @Override
+        public Time put(String epochName, Time epoch){
+            Time[] previous = new Time[1];
+            Time.updateDefaultContext(context -> {
+                previous[0] = context.getEpoch(epochName);
+                return context.withEpoch(epochName, epoch);
+            });
+            return previous[0];
+        }
+
+        @Override
+        public Time remove(Object epochName){
+            Time[] previous = new Time[1];
+            Time.updateDefaultContext(context -> {
+                previous[0] = context.getEpochs().get(epochName);
+                return previous[0] == null ? context : context.withoutEpoch((String) epochName);
+            });
+            return previous[0];
+        }
+
+        @Override
+        public void putAll(Map<? extends String, ? extends Time> newEpochs){
+            Time.updateDefaultContext(context -> {
+                Map<String, Time> merged = new HashMap<>(context.getEpochs());
+                merged.putAll(newEpochs);
+                return context.withEpochs(merged);
+            });
+        }
+
+        @Override
+        public void clear(){
+            setEpochs(Collections.<String, Time>emptyMap());
+        }
     }
 
     /**
@@ -41,7 +102,7 @@ public class EpochRelativeTime extends Time {
      * @param toInsert Absolute time
      */
     public static void addEpoch(String epochName, Time toInsert){
-        epochs.put(epochName, toInsert);
+        Time.updateDefaultContext(context -> context.withEpoch(epochName, toInsert));
     }
 
     /**
@@ -49,7 +110,39 @@ public class EpochRelativeTime extends Time {
      * @param epochName
      */
     public static void removeEpoch(String epochName){
-        epochs.remove(epochName);
+        Time.updateDefaultContext(context -> context.withoutEpoch(epochName));
+    }
+
+    /**
+     * Pins the epochs defined right now, for a job that has to parse every time against the same table while other
+     * threads add, remove or reload epochs. Pass it to the constructors that take a context.
+     * @return The current default context, which never changes
+     */
+    public static TimeContext snapshotEpochs(){
+        return Time.getDefaultContext();
+    }
+
+    /**
+     * @return A number that changes whenever the epochs do, which can be compared with the version of a snapshot
+     */
+    public static long getEpochVersion(){
+        return Time.getDefaultContext().getEpochVersion();
+    }
+
+    /**
+     * Replaces the epochs only if nobody has changed them since the given version was read, so updates made from a
+     * snapshot don't undo changes made by other threads in the meantime
+     * @param expectedVersion The version of the epochs the new ones were made from
+     * @param epochs The new epochs, which are copied
+     * @return true if the epochs were replaced, false if they had changed and the caller should try again
+     */
+    public static boolean replaceEpochs(long expectedVersion, Map<String, Time> epochs){
+        boolean[] replaced = new boolean[1];
+        Time.updateDefaultContext(context -> {
+            replaced[0] = context.getEpochVersion() == expectedVersion;
+            return replaced[0] ? context.withEpochs(epochs) : context;
+        });
+        return replaced[0];
     }
 
     /**
@@ -58,7 +151,7 @@ public class EpochRelativeTime extends Time {
      * @return
      */
     public static boolean isEpochDefined(String epochName){
-        return epochs.containsKey(epochName);
+        return getEpochs().containsKey(epochName);
     }
 
     /**
@@ -91,6 +184,31 @@ public class EpochRelativeTime extends Time {
      * Reads all epochs defined in CVF and adds them to epoch map
      */
     public static void readEpochCVF(String epochFileName) throws IOException{
+        Map<String, Time> read = readEpochCVF(epochFileName, Time.getDefaultContext());
+        Time.updateDefaultContext(context -> {
+            Map<String, Time> newEpochs = new HashMap<>(context.getEpochs());
+            newEpochs.putAll(read);
+            return context.withEpochs(newEpochs);
+        });
+    }
+
+    /**
+     * Replaces all epochs with the ones defined in a CVF in one step, so no thread ever sees a partly loaded table.
+     * The file is read before anything changes, so if it can't be read the old epochs stay.
+     * @param epochFileName
+     */
+    public static void reloadEpochCVF(String epochFileName) throws IOException{
+        setEpochs(readEpochCVF(epochFileName, Time.getDefaultContext()));
+    }
+
+    /**
+     * Reads all epochs defined in CVF without adding them anywhere, for example to give to TimeContext.withEpochs
+     * @param epochFileName
+     * @param context The settings to parse the epoch times with
+     * @return The epochs in the file
+     */
+    public static Map<String, Time> readEpochCVF(String epochFileName, TimeContext context) throws IOException{
+        Map<String, Time> epochs = new HashMap<>();
         String line;
         String nextEpochName = null;
 
@@ -105,7 +223,7 @@ public class EpochRelativeTime extends Time {
                     // epoch value begins with "const"
                     else if(clean_line.startsWith("\"const\" ")) {
                         if(nextEpochName!= null){
-                            epochs.put(nextEpochName, new Time(clean_line.substring(8)));
+                            epochs.put(nextEpochName, new Time(clean_line.substring(8), context));
                             nextEpochName = null;
                         }
                         else{
@@ -116,6 +234,7 @@ public class EpochRelativeTime extends Time {
 
             }
         }
+        return epochs;
     }
 
     /**
@@ -123,7 +242,7 @@ public class EpochRelativeTime extends Time {
      * @param epochFileName file name to write to
      */
     public static void writeEpochCVF(String epochFileName) throws IOException{
-        writeEpochCVF(epochFileName, epochs.keySet());
+        writeEpochCVF(epochFileName, getEpochs().keySet());
     }
 
     /**
@@ -160,6 +279,7 @@ public class EpochRelativeTime extends Time {
     }
 
     static String getEpochCVFString(Collection<String> epochNamesToWriteOut, String header, boolean sortByTime){
+        Map<String, Time> epochs = Time.getDefaultContext().getEpochs();
         List<Map.Entry<String, Time>> epochEntries = new ArrayList<>();
         for(String epochName : epochNamesToWriteOut){
             if(!epochs.containsKey(epochName)){
@@ -219,7 +339,16 @@ public class EpochRelativeTime extends Time {
      * @param epochPlusOffset A string containing an epoch name plus an offset like 'LAUNCH+00:05:00' or 'TEST_EPOCH - 1T00:00:00.000'
      */
     public EpochRelativeTime(String epochPlusOffset){
-        valueOf(epochPlusOffset);
+        this(epochPlusOffset, Time.getDefaultContext());
+    }
+
+    /**
+     * Constructor that looks the epoch up in the given context instead of the default one
+     * @param epochPlusOffset A string containing an epoch name plus an offset like 'LAUNCH+00:05:00'
+     * @param context The context the epoch is defined in
+     */
+    public EpochRelativeTime(String epochPlusOffset, TimeContext context){
+        parse(epochPlusOffset, context.getEpochs());
     }
 
     /**
@@ -228,7 +357,17 @@ public class EpochRelativeTime extends Time {
      * @param offset Duration object
      */
     public EpochRelativeTime(String epochName, Duration offset) {
-        super(epochs.get(epochName).add(offset));
+        this(epochName, offset, Time.getDefaultContext());
+    }
+
+    /**
+     * Constructor that takes an epoch string name and a Duration object, and looks the epoch up in the given context
+     * @param epochName epoch name, must be in the epochs of the context
+     * @param offset Duration object
+     * @param context The context the epoch is defined in
+     */
+    public EpochRelativeTime(String epochName, Duration offset, TimeContext context) {
+        super(getEpoch(epochName, context.getEpochs()).add(offset));
         this.epochName = epochName;
         this.offset = offset;
     }
@@ -240,9 +379,35 @@ public class EpochRelativeTime extends Time {
      * @param epochName The epoch name the output time will be relative to
      */
     public EpochRelativeTime(Time absoluteTime, String epochName){
+        this(absoluteTime, epochName, Time.getDefaultContext());
+    }
+
+    /**
+     * Constructor that creates an epoch-relative time equivalent to an absolute time, relative to an epoch of the given context
+     * @param absoluteTime The output time will have the same tics (evaluated time) as this parameter
+     * @param epochName The epoch name the output time will be relative to
+     * @param context The context the epoch is defined in
+     */
+    public EpochRelativeTime(Time absoluteTime, String epochName, TimeContext context){
         super(absoluteTime);
         this.epochName = epochName;
-        this.offset = absoluteTime.subtract(epochs.get(epochName));
+        this.offset = absoluteTime.subtract(getEpoch(epochName, context.getEpochs()));
+    }
+
+    // used by add and subtract for times whose epoch isn't in the default context
+    private EpochRelativeTime(String epochName, Duration offset, long tics){
+        super(Time.fromTics(tics));
+        this.epochName = epochName;
+        this.offset = offset;
+    }
+
+    private static Time getEpoch(String epochName, Map<String, Time> epochs){
+        Time epoch = epochs.get(epochName);
+        if(epoch == null){
+            throw new RuntimeException("Error creating epoch relative Time relative to " + epochName + ". Epoch name " +
+                    epochName + " was not found in map of declared epochs");
+        }
+        return epoch;
     }
 
     //</editor-fold>
@@ -257,6 +422,10 @@ public class EpochRelativeTime extends Time {
      */
     @Override
     public void valueOf(String epochPlusOffset) {
+        parse(epochPlusOffset, getEpochs());
+    }
+
+    private void parse(String epochPlusOffset, Map<String, Time> epochs) {
         Matcher relativeMatcher = EPOCH_RELATIVE_PATTERN.matcher(epochPlusOffset);
         if(relativeMatcher.find()){
             String epochNameLocal = relativeMatcher.group("epochName");
@@ -316,13 +485,15 @@ public class EpochRelativeTime extends Time {
     //<editor-fold desc="Overridden math methods so you can modify epoch relative times and keep them relative">
 
     /**
-     * Adding a duration to an epoch-relative time creates another epoch-relative time with the same base but summed durations
+     * Adding a duration to an epoch-relative time creates another epoch-relative time with the same base but summed durations.
+     * Like the constructors, it is evaluated against the epoch's current value in the default context, or if that
+     * doesn't define the epoch, for example for a time parsed with another context, this time's tics are shifted.
      * @param d
      * @return
      */
     @Override
     public EpochRelativeTime add(Duration d){
-        return new EpochRelativeTime(epochName, offset.plus(d));
+        return withOffset(offset.plus(d), tics + d.getTics());
     }
 
     /**
@@ -336,13 +507,14 @@ public class EpochRelativeTime extends Time {
     }
 
     /**
-     * Subtracting a duration from an epoch-relative time creates another epoch-relative time with the same base but subtracted durations
+     * Subtracting a duration from an epoch-relative time creates another epoch-relative time with the same base but subtracted durations.
+     * Evaluated like add().
      * @param d
      * @return
      */
     @Override
     public EpochRelativeTime subtract(Duration d){
-        return new EpochRelativeTime(epochName, offset.minus(d));
+        return withOffset(offset.minus(d), tics - d.getTics());
     }
 
     /**
@@ -355,5 +527,13 @@ public class EpochRelativeTime extends Time {
         return subtract(d);
     }
 
+    private EpochRelativeTime withOffset(Duration newOffset, long shiftedTics){
+        Time epoch = Time.getDefaultContext().getEpoch(epochName);
+        if(epoch != null){
+            return new EpochRelativeTime(epochName, newOffset, epoch.add(newOffset).tics);
+        }
+        return new EpochRelativeTime(epochName, newOffset, shiftedTics);
+    }
+
     //</editor-fold>
 }
@@ -0,0 +1,216 @@
+package gov.nasa.jpl.time;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * This class is an in-memory version of the leap second table in a SPICE leapseconds kernel (LSK) like naif0012.tls,
+ * so that UTC can be converted to and from the TAI tics backing Time objects without a JNI call to str2et or et2utc.
+ * It follows SPICE's conventions: UTC days are counted from 2000-001 (so day 0 contains J2000), each entry in
+ * DELTET/DELTA_AT takes effect at the start of its UTC day, and before the first entry TAI-UTC is one second less than
+ * the first entry's value. It also holds the rest of the DELTET constants so TAI and ET (TDB) can be converted with
+ * the same arithmetic as SPICE's unitim.
+ */
+public class LeapSecondsKernel {
+    private static final long HALF_DAY = ONE_DAY / 2;
+
+    // the UTC day number (days since 2000-001) on which each TAI-UTC value takes effect, ascending
+    private final long[] leapDays;
+    // TAI-UTC in whole seconds, starting at the matching index of leapDays
+    private final int[] deltaAt;
+    // TAI tics at the start of each UTC day in leapDays, so TAI can be binary searched directly
+    private final long[] leapTais;
+
+    // DELTET constants: TDT-TAI, amplitude of the TDB-TDT periodic term, eccentricity of the earth-moon barycenter
+    // orbit, and the mean anomaly M = M0 + M1*t of the earth-moon barycenter
+    private final double deltaTA;
+    private final double k;
+    private final double eb;
+    private final double m0;
+    private final double m1;
+
+    // unitim iterates the TDB to TDT inversion, and this many iterations reproduces its results exactly
+    private static final int ET_TO_TAI_ITERATIONS = 3;
+
+    private LeapSecondsKernel(long[] leapDays, int[] deltaAt, double deltaTA, double k, double eb, double m0, double m1) {
+        this.leapDays = leapDays;
+        this.deltaAt = deltaAt;
+        this.deltaTA = deltaTA;
+        this.k = k;
+        this.eb = eb;
+        this.m0 = m0;
+        this.m1 = m1;
+        this.leapTais = new long[leapDays.length];
+        for(int i = 0; i < leapDays.length; i++){
+            leapTais[i] = utcDayStartTics(leapDays[i]) + deltaAt[i] * ONE_SECOND;
+        }
+    }
+
+    /**
+     * Reads a leapseconds kernel from disk
+     * @param fileName path to the LSK, for example kernels/naif0012.tls
+     * @return A new LeapSecondsKernel
+     */
+    public static LeapSecondsKernel read(String fileName) throws IOException {
+        return fromTextKernel(TextKernel.read(fileName));
+    }
+
+    /**
+     * Builds the leap second table from an already-parsed text kernel
+     * @param kernel A text kernel that defines DELTET/DELTA_AT and the other DELTET constants
+     * @return A new LeapSecondsKernel
+     */
+    public static LeapSecondsKernel fromTextKernel(TextKernel kernel){
+        double[] pairs = kernel.getDoubles("DELTET/DELTA_AT");
+        if(pairs.length % 2 != 0){
+            throw new RuntimeException("DELTET/DELTA_AT must contain (TAI-UTC, date) pairs but has " + pairs.length + " values");
+        }
+
+        int n = pairs.length / 2;
+        long[] days = new long[n];
+        int[] offsets = new int[n];
+        for(int i = 0; i < n; i++){
+            offsets[i] = (int) Math.round(pairs[2 * i]);
+            days[i] = Math.floorDiv(Math.round(pairs[2 * i + 1]) + HALF_DAY / ONE_SECOND, ONE_DAY / ONE_SECOND);
+            if(i > 0 && days[i] <= days[i - 1]){
+                throw new RuntimeException("DELTET/DELTA_AT dates must be in increasing order");
+            }
+        }
+        double[] m = kernel.getDoubles("DELTET/M");
+        return new LeapSecondsKernel(days, offsets, kernel.getDouble("DELTET/DELTA_T_A"), kernel.getDouble("DELTET/K"),
+                kernel.getDouble("DELTET/EB"), m[0], m[1]);
+    }
+
+    /**
+     * Builds the leap second table from the DELTET variables already loaded into the SPICE kernel pool by furnsh
+     * @return A new LeapSecondsKernel
+     */
+    static LeapSecondsKernel fromKernelPool(){
+        return fromTextKernel(TextKernel.fromKernelPool("DELTET/DELTA_AT", "DELTET/DELTA_T_A", "DELTET/K", "DELTET/EB", "DELTET/M"));
+    }
+
+    /**
+     * @param dayNumber UTC day, counted in days since 2000-001
+     * @return TAI-UTC in seconds at the start of that day
+     */
+    public int getDeltaAt(long dayNumber){
+        int index = Arrays.binarySearch(leapDays, dayNumber);
+        if(index < 0){
+            index = -index - 2;
+        }
+        return index < 0 ? deltaAt[0] - 1 : deltaAt[index];
+    }
+
+    /**
+     * @param dayNumber UTC day, counted in days since 2000-001
+     * @return The number of tics in the UTC day, which is one second more than normal on days ending in a leap second
+     */
+    public long getDayLength(long dayNumber){
+        return ONE_DAY + (getDeltaAt(dayNumber + 1) - getDeltaAt(dayNumber)) * ONE_SECOND;
+    }
+
+    /**
+     * @param dayNumber UTC day, counted in days since 2000-001
+     * @return TAI tics (the backing representation of Time in SPICE mode) at 00:00:00 UTC on that day
+     */
+    public long getTaiAtStartOfDay(long dayNumber){
+        return utcDayStartTics(dayNumber) + getDeltaAt(dayNumber) * ONE_SECOND;
+    }
+
+    /**
+     * @param dayNumber UTC day, counted in days since 2000-001
+     * @param ticsOfDay tics elapsed since 00:00:00 UTC that day, which may go past 86400 seconds into a leap second
+     * @return The equivalent TAI tics
+     */
+    public long utcToTai(long dayNumber, long ticsOfDay){
+        return getTaiAtStartOfDay(dayNumber) + ticsOfDay;
+    }
+
+    /**
+     * @param tai TAI tics (the backing representation of Time in SPICE mode)
+     * @return The UTC day containing that instant, counted in days since 2000-001. Leap seconds belong to the day they end.
+     */
+    public long getUtcDayNumber(long tai){
+        int index = Arrays.binarySearch(leapTais, tai);
+        if(index < 0){
+            index = -index - 2;
+        }
+        int offset = index < 0 ? deltaAt[0] - 1 : deltaAt[index];
+        long day = Math.floorDiv(tai - offset * ONE_SECOND + HALF_DAY, ONE_DAY);
+
+        // inside a positive leap second the leapsecond-free day number has already rolled over
+        if(index + 1 < leapDays.length && day >= leapDays[index + 1]){
+            day = leapDays[index + 1] - 1;
+        }
+        return day;
+    }
+
+    /**
+     * @return TDT-TAI in seconds, DELTET/DELTA_T_A in the kernel
+     */
+    public double getDeltaTA(){
+        return deltaTA;
+    }
+
+    /**
+     * Converts UTC tics that don't count leap seconds, which is how Time represents instants when SPICE is not used
+     * for math, to TAI tics
+     * @param utcTics leapsecond-free UTC tics past J2000
+     * @return The equivalent TAI tics
+     */
+    public long utcTicsToTai(long utcTics){
+        long day = Math.floorDiv(utcTics + HALF_DAY, ONE_DAY);
+        return utcToTai(day, utcTics - utcDayStartTics(day));
+    }
+
+    /**
+     * The inverse of utcTicsToTai. A leap second maps onto the first second of the next day.
+     * @param tai TAI tics
+     * @return leapsecond-free UTC tics past J2000
+     */
+    public long taiToUtcTics(long tai){
+        long day = getUtcDayNumber(tai);
+        return utcDayStartTics(day) + (tai - getTaiAtStartOfDay(day));
+    }
+
+    /**
+     * Evaluates the DELTET formula the same way as unitim(tai, "TAI", "ET")
+     * @param tai TAI seconds past J2000
+     * @return ET (TDB) seconds past J2000
+     */
+    public double taiToEt(double tai){
+        double tdt = tai + deltaTA;
+        return tdt + getTdbMinusTdt(tdt);
+    }
+
+    /**
+     * @param tdt TDT seconds past J2000
+     * @return TDB-TDT in seconds, the periodic term of the DELTET formula, which stays under two milliseconds
+     */
+    double getTdbMinusTdt(double tdt){
+        double meanAnomaly = m0 + m1 * tdt;
+        double eccentricAnomaly = meanAnomaly + eb * Math.sin(meanAnomaly);
+        return k * Math.sin(eccentricAnomaly);
+    }
+
+    /**
+     * Inverts the DELTET formula the same way as unitim(et, "ET", "TAI")
+     * @param et ET (TDB) seconds past J2000
+     * @return TAI seconds past J2000
+     */
+    public double etToTai(double et){
+        double tdt = et;
+        for(int i = 0; i < ET_TO_TAI_ITERATIONS; i++){
+            double meanAnomaly = m0 + m1 * tdt;
+            tdt = et - k * Math.sin(meanAnomaly + eb * Math.sin(meanAnomaly));
+        }
+        return tdt - deltaTA;
+    }
+
+    // tics past J2000 at 00:00:00 on the day if there were no leap seconds
+    private static long utcDayStartTics(long dayNumber){
+        return dayNumber * ONE_DAY - HALF_DAY;
+    }
+}
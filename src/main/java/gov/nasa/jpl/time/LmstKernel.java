@@ -0,0 +1,157 @@
+package gov.nasa.jpl.time;
+
+import java.io.IOException;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * This class evaluates Local Mean Solar Time (LMST) for a lander directly from its LMST SCLK kernel, like
+ * m2020_lmst_dev00_v3.tsc, so sol numbers and times of sol can be computed as primitives without sce2s, scs2e or
+ * parsing LMST strings. NAIF defines LMST as a type 1 SCLK whose most significant field is the sol and whose other
+ * fields are the hours, minutes, seconds and subseconds of the sol, so this is a thin layer over SclkKernel.
+ *
+ * Times of sol are expressed in LMST tics: the same 10-nanosecond tics Durations use, but of Mars seconds, so
+ * ONE_DAY of LMST tics is one sol. Conversions from Time round to the resolution of the LMST clock the same way
+ * sce2s does, so results agree with the strings SPICE outputs.
+ */
+public class LmstKernel {
+    private final int sc_id;
+    private final SclkKernel clock;
+    private final long ticksPerSol;
+    // LMST tics in one tick of the LMST clock, 1000 for clocks that resolve 1e-5 Mars seconds
+    private final long ticsPerClockTick;
+    private final long epochTai;
+
+    private LmstKernel(int sc_id, SclkKernel clock){
+        if(!clock.isZeroBasedCounter()){
+            throw new RuntimeException("SCLK kernel for " + clock.getSpacecraftId() + " is not an LMST clock - it must have one partition starting at 0 and no field offsets");
+        }
+        ticksPerSol = clock.getTicksPerMostSignificantCount();
+        if(ONE_DAY % ticksPerSol != 0){
+            throw new RuntimeException("SCLK kernel for " + clock.getSpacecraftId() + " is not an LMST clock - its sub-sol fields must divide a sol into " + ticksPerSol + " ticks, which does not divide evenly into tics");
+        }
+        this.sc_id = sc_id;
+        this.clock = clock;
+        this.ticsPerClockTick = ONE_DAY / ticksPerSol;
+        this.epochTai = clock.ticksToTai(0);
+    }
+
+    /**
+     * Reads the LMST kernel for a lander from disk
+     * @param fileName path to the LMST SCLK kernel, for example kernels/m2020_lmst_dev00_v3.tsc
+     * @param sc_id The NAIF ID of the spacecraft, for example -168. The LMST clock ID is derived from it the same way
+     *              Time does, by multiplying by 1000 and subtracting 900
+     * @param leapSecondsKernel needed to convert between the kernel's parallel time system and TAI
+     * @return A new LmstKernel
+     */
+    public static LmstKernel read(String fileName, int sc_id, LeapSecondsKernel leapSecondsKernel) throws IOException {
+        return fromSclkKernel(sc_id, SclkKernel.read(fileName, getLmstClockId(sc_id), leapSecondsKernel));
+    }
+
+    /**
+     * @param sc_id The NAIF ID of the spacecraft
+     * @param lmstClock The already-loaded LMST pseudo-clock for the spacecraft's landing site
+     * @return A new LmstKernel
+     */
+    public static LmstKernel fromSclkKernel(int sc_id, SclkKernel lmstClock){
+        return new LmstKernel(sc_id, lmstClock);
+    }
+
+    /**
+     * @param sc_id The NAIF ID of the spacecraft, for example -168
+     * @return The NAIF unofficial standard ID of its LMST clock, for example -168900
+     */
+    public static int getLmstClockId(int sc_id){
+        return (sc_id * 1000) - 900;
+    }
+
+    /**
+     * @return The NAIF ID of the spacecraft, not the LMST clock
+     */
+    public int getSpacecraftId(){
+        return sc_id;
+    }
+
+    /**
+     * @return The LMST pseudo-clock this evaluates
+     */
+    public SclkKernel getSclkKernel(){
+        return clock;
+    }
+
+    /**
+     * @return TAI tics of Sol 0 at midnight LMST
+     */
+    public long getEpochTai(){
+        return epochTai;
+    }
+
+    /**
+     * @param tai TAI tics (the backing representation of Time in SPICE mode)
+     * @return LMST tics since midnight on Sol 0, rounded to the resolution of the LMST clock like sce2s
+     */
+    public long taiToLmstTics(long tai){
+        if(tai < epochTai){
+            throw new RuntimeException("Error converting TAI tics " + tai + " to LMST. Time is before LMST epoch " + epochTai + " for spacecraft " + sc_id + ".");
+        }
+        return clock.taiToRoundedTicks(tai) * ticsPerClockTick;
+    }
+
+    /**
+     * @param lmstTics LMST tics since midnight on Sol 0
+     * @return TAI tics of that LMST, as scs2e would convert it
+     */
+    public long lmstTicsToTai(long lmstTics){
+        return clock.ticksToTai(lmstTics / (double) ticsPerClockTick);
+    }
+
+    /**
+     * @param sol sol number
+     * @param ticsOfSol LMST tics since midnight that sol
+     * @return TAI tics of that LMST
+     */
+    public long lmstToTai(long sol, long ticsOfSol){
+        return lmstTicsToTai(sol * ONE_DAY + ticsOfSol);
+    }
+
+    /**
+     * @param sol sol number
+     * @return TAI tics of midnight LMST at the start of that sol
+     */
+    public long getSolStartTai(long sol){
+        return lmstToTai(sol, 0);
+    }
+
+    /**
+     * @param tai TAI tics
+     * @return The sol number containing that instant
+     */
+    public int toSolNumber(long tai){
+        return (int) Math.floorDiv(taiToLmstTics(tai), ONE_DAY);
+    }
+
+    /**
+     * @param tai TAI tics
+     * @return LMST tics since midnight of the sol containing that instant, in [0, ONE_DAY)
+     */
+    public long toTicsOfSol(long tai){
+        return Math.floorMod(taiToLmstTics(tai), ONE_DAY);
+    }
+
+    /**
+     * @param tai TAI tics
+     * @return Sols elapsed since midnight of Sol 0, for example 26.5 at noon on Sol 26
+     */
+    public double toFractionalSols(long tai){
+        long lmstTics = taiToLmstTics(tai);
+        return Math.floorDiv(lmstTics, ONE_DAY) + Math.floorMod(lmstTics, ONE_DAY) / (double) ONE_DAY;
+    }
+
+    /**
+     * @param tai TAI tics
+     * @return true if the instant is before noon LMST
+     */
+    public boolean isAM(long tai){
+        return toTicsOfSol(tai) < ONE_DAY / 2;
+    }
+}
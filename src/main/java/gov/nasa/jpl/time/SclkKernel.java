@@ -0,0 +1,515 @@
+package gov.nasa.jpl.time;
+
+import java.io.IOException;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * This class evaluates a type 1 SPICE spacecraft clock (SCLK) kernel in Java, so Times can be converted to and from
+ * SCLK without JNI calls to sce2s and scs2e. The kernel's partitions and coefficient records are loaded into primitive
+ * arrays and each conversion is a binary search plus a linear function, following the same rules as SPICE's SCLK
+ * type 1 routines: ticks are counts of the least significant clock field since the start of the first partition,
+ * coefficient records are (ticks, parallel time, rate) triples where rate is parallel seconds per most significant
+ * count, and the parallel time system is either TDB (ET) or TDT.
+ *
+ * LMST kernels like m2020_lmst_dev00_v3.tsc are also type 1 SCLKs, so they can be loaded with this class too.
+ */
+public class SclkKernel {
+    private static final char[] OUTPUT_DELIMITERS = {'.', ':', '-', ',', ' '};
+    private static final int TDB_TIME_SYSTEM = 1;
+    private static final int TDT_TIME_SYSTEM = 2;
+
+    private final int sc_id;
+    private final LeapSecondsKernel leapSecondsKernel;
+
+    // clock field layout
+    private final long[] moduli;
+    private final long[] offsets;
+    private final int[] fieldWidths;
+    private final char outputDelimiter;
+    private final long ticksPerMostSignificantCount;
+
+    // partitions, with the encoded tick count at which each one starts
+    private final double[] partitionStarts;
+    private final double[] partitionEnds;
+    private final double[] partitionFirstTicks;
+    private final double totalTicks;
+
+    // coefficient records
+    private final boolean parallelTimeIsTdt;
+    private final double[] recordTicks;
+    private final double[] recordParallelTimes;
+    private final double[] recordRates;
+    // TDT parallel times expressed as TAI tics so TDT clocks can be evaluated without floating point error at large epochs
+    private final long[] recordTaiTics;
+    private final long deltaTATics;
+
+    private SclkKernel(int sc_id, TextKernel kernel, LeapSecondsKernel leapSecondsKernel){
+        this.sc_id = sc_id;
+        this.leapSecondsKernel = leapSecondsKernel;
+        String suffix = "_" + Math.abs(sc_id);
+
+        if(kernel.containsKey("SCLK_DATA_TYPE" + suffix) && kernel.getDouble("SCLK_DATA_TYPE" + suffix) != 1){
+            throw new RuntimeException("SCLK kernel for spacecraft " + sc_id + " is not type 1, which is the only type supported");
+        }
+
+        int nFields = (int) kernel.getDouble("SCLK01_N_FIELDS" + suffix);
+        double[] moduliValues = kernel.getDoubles("SCLK01_MODULI" + suffix);
+        double[] offsetValues = kernel.getDoubles("SCLK01_OFFSETS" + suffix);
+        moduli = new long[nFields];
+        offsets = new long[nFields];
+        fieldWidths = new int[nFields];
+        long ticksPerCount = 1;
+        for(int i = 0; i < nFields; i++){
+            moduli[i] = Math.round(moduliValues[i]);
+            offsets[i] = Math.round(offsetValues[i]);
+            // SPICE pads each field to the number of digits in its largest value
+            fieldWidths[i] = Long.toString(moduli[i] - 1 + offsets[i]).length();
+            if(i > 0){
+                ticksPerCount *= moduli[i];
+            }
+        }
+        ticksPerMostSignificantCount = ticksPerCount;
+        outputDelimiter = OUTPUT_DELIMITERS[(int) kernel.getDouble("SCLK01_OUTPUT_DELIM" + suffix) - 1];
+
+        partitionStarts = kernel.getDoubles("SCLK_PARTITION_START" + suffix);
+        partitionEnds = kernel.getDoubles("SCLK_PARTITION_END" + suffix);
+        partitionFirstTicks = new double[partitionStarts.length];
+        double ticks = 0;
+        for(int i = 0; i < partitionStarts.length; i++){
+            partitionFirstTicks[i] = ticks;
+            ticks += partitionEnds[i] - partitionStarts[i];
+        }
+        totalTicks = ticks;
+
+        int timeSystem = kernel.containsKey("SCLK01_TIME_SYSTEM" + suffix) ? (int) kernel.getDouble("SCLK01_TIME_SYSTEM" + suffix) : TDB_TIME_SYSTEM;
+        if(timeSystem != TDB_TIME_SYSTEM && timeSystem != TDT_TIME_SYSTEM){
+            throw new RuntimeException("SCLK kernel for spacecraft " + sc_id + " has unsupported parallel time system " + timeSystem);
+        }
+        parallelTimeIsTdt = timeSystem == TDT_TIME_SYSTEM;
+
+        double[] coefficients = kernel.getDoubles("SCLK01_COEFFICIENTS" + suffix);
+        int nRecords = coefficients.length / 3;
+        recordTicks = new double[nRecords];
+        recordParallelTimes = new double[nRecords];
+        recordRates = new double[nRecords];
+        recordTaiTics = new long[nRecords];
+        deltaTATics = Math.round(leapSecondsKernel.getDeltaTA() * ONE_SECOND);
+        for(int i = 0; i < nRecords; i++){
+            recordTicks[i] = coefficients[3 * i];
+            recordParallelTimes[i] = coefficients[3 * i + 1];
+            recordRates[i] = coefficients[3 * i + 2];
+            recordTaiTics[i] = Math.round(recordParallelTimes[i] * ONE_SECOND) - deltaTATics;
+        }
+    }
+
+    /**
+     * Reads the SCLK kernel for one clock from disk
+     * @param fileName path to the SCLK kernel, for example kernels/M2020_SCLKSCET.NOMNM.tsc
+     * @param sc_id The NAIF ID of the clock, for example -168, or -168900 for the M2020 LMST clock
+     * @param leapSecondsKernel needed to convert between the kernel's parallel time system and TAI
+     * @return A new SclkKernel
+     */
+    public static SclkKernel read(String fileName, int sc_id, LeapSecondsKernel leapSecondsKernel) throws IOException {
+        return fromTextKernel(TextKernel.read(fileName), sc_id, leapSecondsKernel);
+    }
+
+    /**
+     * Builds the SCLK evaluator for one clock from an already-parsed text kernel
+     * @param kernel A text kernel defining the SCLK01 variables for the clock
+     * @param sc_id The NAIF ID of the clock
+     * @param leapSecondsKernel needed to convert between the kernel's parallel time system and TAI
+     * @return A new SclkKernel
+     */
+    public static SclkKernel fromTextKernel(TextKernel kernel, int sc_id, LeapSecondsKernel leapSecondsKernel){
+        return new SclkKernel(sc_id, kernel, leapSecondsKernel);
+    }
+
+    /**
+     * Builds the SCLK evaluator for one clock from the variables already loaded into the SPICE kernel pool by furnsh,
+     * along with the leapseconds kernel in the pool, so the clock layout can be used without reading the files again
+     * @param sc_id The NAIF ID of the clock
+     * @return A new SclkKernel
+     */
+    static SclkKernel fromKernelPool(int sc_id){
+        String suffix = "_" + Math.abs(sc_id);
+        TextKernel kernel = TextKernel.fromKernelPool("SCLK_DATA_TYPE" + suffix, "SCLK01_N_FIELDS" + suffix,
+                "SCLK01_MODULI" + suffix, "SCLK01_OFFSETS" + suffix, "SCLK01_OUTPUT_DELIM" + suffix,
+                "SCLK_PARTITION_START" + suffix, "SCLK_PARTITION_END" + suffix, "SCLK01_TIME_SYSTEM" + suffix,
+                "SCLK01_COEFFICIENTS" + suffix);
+        return new SclkKernel(sc_id, kernel, LeapSecondsKernel.fromKernelPool());
+    }
+
+    /**
+     * @return The NAIF ID of the clock this kernel evaluates
+     */
+    public int getSpacecraftId(){
+        return sc_id;
+    }
+
+    /**
+     * @return The leapseconds kernel used to convert to and from the parallel time system
+     */
+    public LeapSecondsKernel getLeapSecondsKernel(){
+        return leapSecondsKernel;
+    }
+
+    /**
+     * @param field zero-based index of the clock field
+     * @return The modulus of that field, for example 65536 for the second field of the M2020 clock
+     */
+    public long getModulus(int field){
+        return moduli[field];
+    }
+
+    /**
+     * @return The number of ticks in one count of the most significant field, which is the product of the other moduli
+     */
+    public long getTicksPerMostSignificantCount(){
+        return ticksPerMostSignificantCount;
+    }
+
+    // true if encoded ticks are a plain count from zero, so the most significant field is just ticks divided by
+    // getTicksPerMostSignificantCount(), which is how LMST pseudo-clocks are defined
+    boolean isZeroBasedCounter(){
+        for(long offset : offsets){
+            if(offset != 0){
+                return false;
+            }
+        }
+        return partitionStarts.length == 1 && partitionStarts[0] == 0;
+    }
+
+    //<editor-fold desc="conversion between TAI tics and encoded SCLK ticks">
+
+    /**
+     * Equivalent to SPICE's sce2c, but starting from TAI tics
+     * @param tai TAI tics (the backing representation of Time in SPICE mode)
+     * @return continuous (not rounded) encoded SCLK ticks
+     */
+    public double taiToTicks(long tai){
+        if(parallelTimeIsTdt){
+            int record = findRecord(recordTaiTics, tai);
+            return recordTicks[record] + ((tai - recordTaiTics[record]) / TICS_PER_SECOND_DOUBLE) * ticksPerMostSignificantCount / recordRates[record];
+        }
+        else{
+            return etToTicks(leapSecondsKernel.taiToEt(tai / TICS_PER_SECOND_DOUBLE));
+        }
+    }
+
+    /**
+     * Equivalent to SPICE's sce2t, but starting from TAI tics
+     * @param tai TAI tics
+     * @return encoded SCLK ticks rounded to the nearest tick
+     */
+    public long taiToRoundedTicks(long tai){
+        return (long) Math.floor(taiToTicks(tai) + 0.5);
+    }
+
+    /**
+     * Equivalent to SPICE's sct2e, but returning TAI tics
+     * @param ticks encoded SCLK ticks
+     * @return TAI tics
+     */
+    public long ticksToTai(double ticks){
+        checkTicks(ticks);
+        int record = findRecord(recordTicks, ticks);
+        double parallelSecondsIntoRecord = recordRates[record] * ((ticks - recordTicks[record]) / ticksPerMostSignificantCount);
+        if(parallelTimeIsTdt){
+            return recordTaiTics[record] + Math.round(parallelSecondsIntoRecord * ONE_SECOND);
+        }
+        else{
+            return Math.round(leapSecondsKernel.etToTai(recordParallelTimes[record] + parallelSecondsIntoRecord) * ONE_SECOND);
+        }
+    }
+
+    /**
+     * Equivalent to SPICE's sce2c
+     * @param et ET (TDB) seconds past J2000
+     * @return continuous encoded SCLK ticks
+     */
+    public double etToTicks(double et){
+        double parallelTime = parallelTimeIsTdt ? leapSecondsKernel.etToTai(et) + leapSecondsKernel.getDeltaTA() : et;
+        if(parallelTime < recordParallelTimes[0]){
+            throw new RuntimeException("Cannot convert ET " + et + " to SCLK for spacecraft " + sc_id + " because it is before the start of the SCLK kernel");
+        }
+        int record = findRecord(recordParallelTimes, parallelTime);
+        return recordTicks[record] + (parallelTime - recordParallelTimes[record]) * ticksPerMostSignificantCount / recordRates[record];
+    }
+
+    /**
+     * Equivalent to SPICE's sct2e
+     * @param ticks encoded SCLK ticks
+     * @return ET (TDB) seconds past J2000
+     */
+    public double ticksToEt(double ticks){
+        checkTicks(ticks);
+        int record = findRecord(recordTicks, ticks);
+        double parallelTime = recordParallelTimes[record] + recordRates[record] * ((ticks - recordTicks[record]) / ticksPerMostSignificantCount);
+        return parallelTimeIsTdt ? leapSecondsKernel.taiToEt(parallelTime - leapSecondsKernel.getDeltaTA()) : parallelTime;
+    }
+
+    // the last record starting at or before the value, or the first record if it is before all of them
+    private static int findRecord(double[] starts, double value){
+        int low = 0;
+        int high = starts.length - 1;
+        while(low < high){
+            int mid = (low + high + 1) >>> 1;
+            if(starts[mid] <= value){
+                low = mid;
+            }
+            else{
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static int findRecord(long[] starts, long value){
+        int low = 0;
+        int high = starts.length - 1;
+        while(low < high){
+            int mid = (low + high + 1) >>> 1;
+            if(starts[mid] <= value){
+                low = mid;
+            }
+            else{
+                high = mid - 1;
+            }
+        }
+        if(value < starts[low]){
+            throw new RuntimeException("Cannot convert TAI tics " + value + " to SCLK because it is before the start of the SCLK kernel");
+        }
+        return low;
+    }
+
+    private void checkTicks(double ticks){
+        if(ticks < 0 || ticks > totalTicks){
+            throw new RuntimeException("Encoded SCLK " + ticks + " is outside of the partitions of the SCLK kernel for spacecraft " + sc_id);
+        }
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="SCLK strings">
+
+    /**
+     * Equivalent to SPICE's scdecd
+     * @param ticks encoded SCLK ticks, which should be integral
+     * @return A SCLK string like 1/0694267269-12059
+     */
+    public String format(long ticks){
+        return format(ticks, new StringBuilder(32)).toString();
+    }
+
+    /**
+     * Appends the equivalent of SPICE's scdecd to the builder
+     * @param ticks encoded SCLK ticks, which should be integral
+     * @param sb builder to append to
+     * @return sb
+     */
+    public StringBuilder format(long ticks, StringBuilder sb){
+        checkTicks(ticks);
+        int partition = findPartitionOfTicks(ticks);
+        long count = Math.round(partitionStarts[partition]) + (ticks - Math.round(partitionFirstTicks[partition]));
+
+        sb.append(partition + 1).append('/');
+        int nFields = moduli.length;
+        long divisor = ticksPerMostSignificantCount;
+        for(int i = 0; i < nFields; i++){
+            long value = (i == nFields - 1) ? count : count / divisor;
+            count -= value * divisor;
+            if(i < nFields - 1){
+                divisor /= moduli[i + 1];
+            }
+            if(i > 0){
+                sb.append(outputDelimiter);
+            }
+            String digits = Long.toString(value + offsets[i]);
+            for(int j = digits.length(); j < fieldWidths[i]; j++){
+                sb.append('0');
+            }
+            sb.append(digits);
+        }
+        return sb;
+    }
+
+    /**
+     * Equivalent to SPICE's scencd. Fields may be separated by any of . : - , or spaces, and the partition number is
+     * optional - if it is missing the first partition containing the clock value is used.
+     * @param sclk A SCLK string like 1/0694267269-12059
+     * @return encoded SCLK ticks
+     */
+    public double parse(CharSequence sclk){
+        int length = sclk.length();
+        int i = skipSpaces(sclk, 0, length);
+
+        int partition = -1;
+        int slash = -1;
+        for(int j = i; j < length; j++){
+            if(sclk.charAt(j) == '/'){
+                slash = j;
+                break;
+            }
+        }
+        if(slash >= 0){
+            partition = (int) parseDigits(sclk, i, skipDigits(sclk, i, length), sclk) - 1;
+            if(partition < 0 || partition >= partitionStarts.length){
+                throw new RuntimeException("SCLK string " + sclk + " has a partition that is not in the SCLK kernel for spacecraft " + sc_id);
+            }
+            i = skipSpaces(sclk, slash + 1, length);
+        }
+
+        long count = 0;
+        int field = 0;
+        while(i < length){
+            if(field >= moduli.length){
+                throw new RuntimeException("SCLK string " + sclk + " has more fields than the " + moduli.length + " in the SCLK kernel for spacecraft " + sc_id);
+            }
+            int end = skipDigits(sclk, i, length);
+            long value = parseDigits(sclk, i, end, sclk) - offsets[field];
+            count = (field == 0 ? 0 : count * moduli[field]) + value;
+            field++;
+
+            // any single delimiter, with optional spaces around it
+            i = skipSpaces(sclk, end, length);
+            if(i < length && isDelimiter(sclk.charAt(i))){
+                i = skipSpaces(sclk, i + 1, length);
+            }
+        }
+        if(field == 0){
+            throw new RuntimeException("SCLK string " + sclk + " does not contain any clock fields");
+        }
+        // missing trailing fields are zero
+        for(; field < moduli.length; field++){
+            count *= moduli[field];
+        }
+
+        if(partition < 0){
+            partition = findPartitionOfCount(count, sclk);
+        }
+        return partitionFirstTicks[partition] + (count - partitionStarts[partition]);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="SCLK decimals">
+
+    /**
+     * Converts encoded ticks to the SCLK decimal Time.toSCLKD has always returned: the most significant field plus the
+     * second field divided by its modulus, ignoring the partition and any less significant fields. This is the number
+     * that decoding the ticks with scdecd and reading the first two fields would give.
+     * @param ticks encoded SCLK ticks, which should be integral
+     * @return The SCLK decimal, for example 694267269.18400574 for 1/0694267269-12059
+     */
+    public double ticksToSclkd(long ticks){
+        long fixedPointSclkd = ticksToFixedPointSclkd(ticks);
+        long fractionModulus = getFractionModulus();
+        return Math.floorDiv(fixedPointSclkd, fractionModulus) + Math.floorMod(fixedPointSclkd, fractionModulus) / (double) fractionModulus;
+    }
+
+    /**
+     * Converts encoded ticks to a SCLK decimal in fixed point, counted in units of the second field, which avoids any
+     * floating point error. For a clock with 65536 subseconds per second, this is the SCLK decimal times 65536.
+     * @param ticks encoded SCLK ticks, which should be integral
+     * @return most significant field times the modulus of the second field, plus the second field
+     */
+    public long ticksToFixedPointSclkd(long ticks){
+        checkTicks(ticks);
+        int partition = findPartitionOfTicks(ticks);
+        long count = Math.round(partitionStarts[partition]) + (ticks - Math.round(partitionFirstTicks[partition]));
+
+        long seconds = count / ticksPerMostSignificantCount + offsets[0];
+        if(moduli.length == 1){
+            return seconds;
+        }
+        long ticksPerFraction = ticksPerMostSignificantCount / moduli[1];
+        long fraction = (count % ticksPerMostSignificantCount) / ticksPerFraction + offsets[1];
+        return seconds * moduli[1] + fraction;
+    }
+
+    /**
+     * Converts a SCLK decimal to encoded ticks in the first partition, rounding the fractional part to the nearest
+     * count of the second field like Time.fromSCLKD always has
+     * @param sclkd The SCLK decimal, a float number of seconds
+     * @return encoded SCLK ticks
+     */
+    public double sclkdToTicks(double sclkd){
+        double seconds = Math.floor(sclkd);
+        long fractionModulus = getFractionModulus();
+        return fixedPointSclkdToTicks((long) seconds * fractionModulus + Math.round((sclkd - seconds) * fractionModulus));
+    }
+
+    /**
+     * Converts a fixed point SCLK decimal, as returned by ticksToFixedPointSclkd, to encoded ticks in the first
+     * partition
+     * @param fixedPointSclkd most significant field times the modulus of the second field, plus the second field
+     * @return encoded SCLK ticks
+     */
+    public double fixedPointSclkdToTicks(long fixedPointSclkd){
+        long count;
+        if(moduli.length == 1){
+            count = fixedPointSclkd - offsets[0];
+        }
+        else{
+            long seconds = Math.floorDiv(fixedPointSclkd, moduli[1]) - offsets[0];
+            long fraction = Math.floorMod(fixedPointSclkd, moduli[1]) - offsets[1];
+            count = seconds * ticksPerMostSignificantCount + fraction * (ticksPerMostSignificantCount / moduli[1]);
+        }
+        return partitionFirstTicks[0] + (count - partitionStarts[0]);
+    }
+
+    // the denominator of the fractional part of SCLK decimals
+    private long getFractionModulus(){
+        return moduli.length == 1 ? 1 : moduli[1];
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="helpers">
+
+    // the last partition starting at or before the ticks, so ticks at the end of a partition belong to the next one
+    private int findPartitionOfTicks(double ticks){
+        return findRecord(partitionFirstTicks, ticks);
+    }
+
+    private int findPartitionOfCount(long count, CharSequence sclk){
+        for(int p = 0; p < partitionStarts.length; p++){
+            if(count >= partitionStarts[p] && count <= partitionEnds[p]){
+                return p;
+            }
+        }
+        throw new RuntimeException("SCLK string " + sclk + " is not in any partition of the SCLK kernel for spacecraft " + sc_id);
+    }
+
+    private static boolean isDelimiter(char c){
+        return c == '.' || c == ':' || c == '-' || c == ',' || c == ' ';
+    }
+
+    private static int skipSpaces(CharSequence s, int i, int length){
+        while(i < length && s.charAt(i) == ' '){
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(CharSequence s, int i, int length){
+        while(i < length && s.charAt(i) >= '0' && s.charAt(i) <= '9'){
+            i++;
+        }
+        return i;
+    }
+
+    private static long parseDigits(CharSequence s, int start, int end, CharSequence sclk){
+        if(start == end){
+            throw new RuntimeException("Error parsing SCLK string " + sclk + ": expected a number at position " + start);
+        }
+        long value = 0;
+        for(int i = start; i < end; i++){
+            value = value * 10 + (s.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,325 @@
+package gov.nasa.jpl.time;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Runs every call that can reach CSPICE on one thread that owns SPICE, since CSPICE keeps global state like its
+ * kernel pool and error status that calls from several threads can corrupt. Conversions submitted from any thread
+ * return a CompletableFuture that completes once the owner thread has run them. Requests that pile up while the
+ * owner thread is busy are taken off the queue together and run as one batch, so under contention the hand-off
+ * costs one wakeup per batch rather than one per conversion.
+ *
+ * For confinement to mean anything, all SPICE work in the process has to go through the same executor, like the one
+ * from getDefault(), including furnishing kernels. Futures are completed on the owner thread once their batch has
+ * run, so stages chained with the non-async CompletableFuture methods also run there; use the async ones for
+ * anything slow. Work submitted from the owner thread itself runs right away instead of waiting in the queue.
+ */
+public class SpiceExecutor implements AutoCloseable {
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    private static SpiceExecutor defaultExecutor;
+
+    private final BlockingQueue<Request<?>> queue = new LinkedBlockingQueue<>();
+    private final int maxBatchSize;
+    private final Thread owner;
+    private volatile boolean closed = false;
+
+    // written only by the owner thread
+    private volatile long batchCount = 0;
+    private volatile long requestCount = 0;
+
+    private static final class Request<T> {
+        private final Callable<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private Throwable error;
+
+        private Request(Callable<T> task){
+            this.task = task;
+        }
+
+        private void run(){
+            try {
+                result = task.call();
+            } catch (Throwable e) {
+                error = e;
+            }
+        }
+
+        private void complete(){
+            if(error != null){
+                future.completeExceptionally(error);
+            }
+            else{
+                future.complete(result);
+            }
+        }
+    }
+
+    /**
+     * Starts an owner thread that runs up to 256 queued requests per batch
+     */
+    public SpiceExecutor(){
+        this(DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param maxBatchSize the most queued requests to run before completing their futures and checking the queue again
+     */
+    public SpiceExecutor(int maxBatchSize){
+        if(maxBatchSize < 1){
+            throw new RuntimeException("SpiceExecutor batch size must be at least 1, but was " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.owner = new Thread(this::runBatches, "SPICE owner");
+        this.owner.setDaemon(true);
+        this.owner.start();
+    }
+
+    /**
+     * @return A process-wide executor, started the first time it is asked for or after it was closed
+     */
+    public static synchronized SpiceExecutor getDefault(){
+        if(defaultExecutor == null || defaultExecutor.closed){
+            defaultExecutor = new SpiceExecutor();
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Runs any work that calls SPICE, like furnishing kernels or a sequence of conversions that must not be interleaved
+     * with other threads' calls
+     * @param task The work to run on the owner thread
+     * @return A future with the task's result, or completed exceptionally with whatever it threw
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task){
+        Request<T> request = new Request<>(task);
+        if(Thread.currentThread() == owner){
+            request.run();
+            request.complete();
+            return request.future;
+        }
+        // nothing can be queued behind the request close() queues to stop the owner thread
+        synchronized(queue){
+            if(closed){
+                throw new RuntimeException("SpiceExecutor has been closed and can't take more work");
+            }
+            queue.add(request);
+        }
+        return request.future;
+    }
+
+    /**
+     * Stops taking work and waits for the work already queued to run
+     */
+    @Override
+    public void close(){
+        synchronized(queue){
+            if(closed){
+                return;
+            }
+            closed = true;
+            queue.add(new Request<>(null));
+        }
+        if(Thread.currentThread() != owner){
+            try {
+                owner.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return How many batches the owner thread has run
+     */
+    public long getBatchCount(){
+        return batchCount;
+    }
+
+    /**
+     * @return How many queued requests the owner thread has run
+     */
+    public long getRequestCount(){
+        return requestCount;
+    }
+
+    //<editor-fold desc="conversions">
+
+    /**
+     * @param t The time to format
+     * @return A future of t.toUTC()
+     */
+    public CompletableFuture<String> toUTC(Time t){
+        return submit(t::toUTC);
+    }
+
+    /**
+     * @param t The time to format
+     * @param precision Number of digits after the decimal point
+     * @return A future of t.toUTC(precision)
+     */
+    public CompletableFuture<String> toUTC(Time t, int precision){
+        return submit(() -> t.toUTC(precision));
+    }
+
+    /**
+     * Formats many times as one request, so they take a single hand-off to the owner thread
+     * @param times The times to format
+     * @param precision Number of digits after the decimal point
+     * @return A future of the UTC strings, in the same order as the times
+     */
+    public CompletableFuture<String[]> toUTC(Time[] times, int precision){
+        return submit(() -> {
+            String[] toReturn = new String[times.length];
+            for(int i = 0; i < times.length; i++){
+                toReturn[i] = times[i].toUTC(precision);
+            }
+            return toReturn;
+        });
+    }
+
+    /**
+     * @param t The time to convert
+     * @return A future of t.toET()
+     */
+    public CompletableFuture<Double> toET(Time t){
+        return submit(t::toET);
+    }
+
+    /**
+     * @param ephemerisTime ET seconds past J2000
+     * @return A future of Time.fromET(ephemerisTime)
+     */
+    public CompletableFuture<Time> fromET(double ephemerisTime){
+        return submit(() -> Time.fromET(ephemerisTime));
+    }
+
+    /**
+     * @param t The time to convert
+     * @param sc_id The NAIF ID of the spacecraft whose clock to use
+     * @return A future of t.toSCLK(sc_id)
+     */
+    public CompletableFuture<String> toSCLK(Time t, int sc_id){
+        return submit(() -> t.toSCLK(sc_id));
+    }
+
+    /**
+     * @param sclk_string A spacecraft clock string
+     * @param sc_id The NAIF ID of the spacecraft whose clock it is
+     * @return A future of Time.fromSCLK(sclk_string, sc_id)
+     */
+    public CompletableFuture<Time> fromSCLK(String sclk_string, int sc_id){
+        return submit(() -> Time.fromSCLK(sclk_string, sc_id));
+    }
+
+    /**
+     * Parses many spacecraft clock strings as one request, so they take a single hand-off to the owner thread
+     * @param sclk_strings Spacecraft clock strings
+     * @param sc_id The NAIF ID of the spacecraft whose clock they are
+     * @return A future of the times, in the same order as the strings
+     */
+    public CompletableFuture<Time[]> fromSCLK(String[] sclk_strings, int sc_id){
+        return submit(() -> {
+            Time[] toReturn = new Time[sclk_strings.length];
+            for(int i = 0; i < sclk_strings.length; i++){
+                toReturn[i] = Time.fromSCLK(sclk_strings[i], sc_id);
+            }
+            return toReturn;
+        });
+    }
+
+    /**
+     * @param t The time to convert
+     * @param sc_id The NAIF ID of the lander whose local mean solar time to use
+     * @param precision Number of digits after the decimal point
+     * @return A future of t.toLMST(sc_id, precision)
+     */
+    public CompletableFuture<String> toLMST(Time t, int sc_id, int precision){
+        return submit(() -> t.toLMST(sc_id, precision));
+    }
+
+    /**
+     * @param lmst A local mean solar time string
+     * @param sc_id The NAIF ID of the lander whose local mean solar time it is
+     * @return A future of Time.fromLMST(lmst, sc_id)
+     */
+    public CompletableFuture<Time> fromLMST(String lmst, int sc_id){
+        return submit(() -> Time.fromLMST(lmst, sc_id));
+    }
+
+    /**
+     * @param SCET A Time object in SCET
+     * @param sc_id The NAIF ID of the spacecraft
+     * @return A future of Time.SCET2ERT(SCET, sc_id), using the current light time provider
+     */
+    public CompletableFuture<Time> SCET2ERT(Time SCET, int sc_id){
+        return submit(() -> Time.SCET2ERT(SCET, sc_id));
+    }
+
+    /**
+     * @param ERT A Time object in ERT
+     * @param sc_id The NAIF ID of the spacecraft
+     * @return A future of Time.ERT2SCET(ERT, sc_id), using the current light time provider
+     */
+    public CompletableFuture<Time> ERT2SCET(Time ERT, int sc_id){
+        return submit(() -> Time.ERT2SCET(ERT, sc_id));
+    }
+
+    /**
+     * @param ETT A Time object in ETT
+     * @param sc_id The NAIF ID of the spacecraft
+     * @return A future of Time.ETT2SCET(ETT, sc_id), using the current light time provider
+     */
+    public CompletableFuture<Time> ETT2SCET(Time ETT, int sc_id){
+        return submit(() -> Time.ETT2SCET(ETT, sc_id));
+    }
+
+    /**
+     * @param SCET A Time object in SCET
+     * @param sc_id The NAIF ID of the spacecraft
+     * @return A future of Time.SCET2ETT(SCET, sc_id), using the current light time provider
+     */
+    public CompletableFuture<Time> SCET2ETT(Time SCET, int sc_id){
+        return submit(() -> Time.SCET2ETT(SCET, sc_id));
+    }
+
+    //</editor-fold>
+
+    private void runBatches(){
+        List<Request<?>> batch = new ArrayList<>();
+        boolean stopping = false;
+        while(!stopping){
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // only close() ends the owner thread, anything else would strand queued futures
+                continue;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+
+            int ran = 0;
+            for(Request<?> request : batch){
+                if(request.task == null){
+                    stopping = true;
+                }
+                else{
+                    request.run();
+                    ran++;
+                }
+            }
+            requestCount += ran;
+            batchCount++;
+            for(Request<?> request : batch){
+                if(request.task != null){
+                    request.complete();
+                }
+            }
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package gov.nasa.jpl.time;
+
+import spice.basic.CSPICE;
+import spice.basic.SpiceErrorException;
+
+import java.io.*;
+
+/**
+ * The child process of a SpiceWorkerPool. It furnishes the kernels it is started with, reads the pool's TimeContext
+ * from stdin, then answers conversion requests read from stdin on stdout with that context until it is told to shut
+ * down or stdin closes because the parent went away.
+ *
+ * Every message is big-endian, as DataInputStream and DataOutputStream read and write it. A request is an op byte,
+ * the op's parameters, a count, then that many inputs, each a long of tics or a UTF string. The response is a status
+ * byte, then either that many outputs or a UTF error message. The context comes first, as TimeContext.writeTo writes
+ * it, and the worker answers it with one status byte, followed by an error message if its kernels couldn't be loaded
+ * or the context couldn't be made from them.
+ */
+final class SpiceWorker {
+    static final byte SHUTDOWN = 0;
+    static final byte PARSE_UTC = 1;    // strings -> tics
+    static final byte TO_UTC = 2;       // int precision, tics -> strings
+    static final byte TO_SCLK = 3;      // int sc_id, tics -> strings
+    static final byte FROM_SCLK = 4;    // int sc_id, strings -> tics
+    static final byte TO_LMST = 5;      // int sc_id, int precision, tics -> strings
+    static final byte FROM_LMST = 6;    // int sc_id, strings -> tics
+    static final byte TO_LST = 7;       // int sc_id, int body_id, UTF body_frame, tics -> duration tics
+    static final byte DOWNLEG = 8;      // int sc_id, int body_id, UTF time_reference, tics -> duration tics
+    static final byte UPLEG = 9;        // int sc_id, int body_id, UTF time_reference, tics -> duration tics
+
+    static final byte OK = 0;
+    static final byte FAILED = 1;
+
+    private SpiceWorker(){
+    }
+
+    /**
+     * @param args The kernels to furnish, in order
+     */
+    public static void main(String[] args) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        // stdout carries the responses, so anything else printed has to go somewhere else
+        System.setOut(System.err);
+
+        TimeContext context;
+        try {
+            System.loadLibrary("JNISpice");
+            for(String kernel : args){
+                CSPICE.furnsh(kernel);
+            }
+            context = TimeContext.readFrom(in);
+            // for anything that doesn't take a context, like the light time providers' own conversions
+            Time.updateDefaultContext(previous -> context);
+        } catch (SpiceErrorException | RuntimeException | LinkageError e) {
+            out.writeByte(FAILED);
+            writeMessage(out, e);
+            out.flush();
+            return;
+        }
+        out.writeByte(OK);
+        out.flush();
+
+        while(true){
+            byte op;
+            try {
+                op = in.readByte();
+            } catch (EOFException e) {
+                return;
+            }
+            if(op == SHUTDOWN){
+                return;
+            }
+            answer(op, in, out, context);
+            out.flush();
+        }
+    }
+
+    // reads the whole request before converting anything, so a failed conversion leaves the stream in step
+    private static void answer(byte op, DataInputStream in, DataOutputStream out, TimeContext context) throws IOException {
+        int sc_id = 0;
+        int body_id = 0;
+        int precision = 0;
+        String name = null;
+        switch(op){
+            case TO_UTC:
+                precision = in.readInt();
+                break;
+            case TO_SCLK:
+            case FROM_SCLK:
+            case FROM_LMST:
+                sc_id = in.readInt();
+                break;
+            case TO_LMST:
+                sc_id = in.readInt();
+                precision = in.readInt();
+                break;
+            case TO_LST:
+            case DOWNLEG:
+            case UPLEG:
+                sc_id = in.readInt();
+                body_id = in.readInt();
+                name = in.readUTF();
+                break;
+            case PARSE_UTC:
+                break;
+            default:
+                throw new IOException("Unknown SPICE worker request " + op);
+        }
+
+        int count = in.readInt();
+        boolean stringInputs = op == PARSE_UTC || op == FROM_SCLK || op == FROM_LMST;
+        long[] tics = stringInputs ? null : new long[count];
+        String[] strings = stringInputs ? new String[count] : null;
+        for(int i = 0; i < count; i++){
+            if(stringInputs){
+                strings[i] = in.readUTF();
+            }
+            else{
+                tics[i] = in.readLong();
+            }
+        }
+
+        long[] ticResults = new long[count];
+        String[] stringResults = new String[count];
+        try {
+            for(int i = 0; i < count; i++){
+                switch(op){
+                    case PARSE_UTC:
+                        ticResults[i] = Time.parseUTC(strings[i], context);
+                        break;
+                    case TO_UTC:
+                        stringResults[i] = Time.fromTics(tics[i]).toUTC(precision, context);
+                        break;
+                    case TO_SCLK:
+                        stringResults[i] = Time.fromTics(tics[i]).toSCLK(sc_id, context);
+                        break;
+                    case FROM_SCLK:
+                        ticResults[i] = Time.fromSCLK(strings[i], sc_id, context).getTics();
+                        break;
+                    case TO_LMST:
+                        stringResults[i] = Time.fromTics(tics[i]).toLMST(sc_id, precision, context);
+                        break;
+                    case FROM_LMST:
+                        ticResults[i] = Time.fromLMST(strings[i], sc_id, context).getTics();
+                        break;
+                    case TO_LST:
+                        ticResults[i] = Time.fromTics(tics[i]).toLST(sc_id, body_id, name, context).getTics();
+                        break;
+                    case DOWNLEG:
+                        ticResults[i] = context.getLightTimeProvider().downleg(Time.fromTics(tics[i]), sc_id, body_id, name, context).getTics();
+                        break;
+                    default:
+                        ticResults[i] = context.getLightTimeProvider().upleg(Time.fromTics(tics[i]), sc_id, body_id, name, context).getTics();
+                        break;
+                }
+            }
+        } catch (RuntimeException e) {
+            out.writeByte(FAILED);
+            writeMessage(out, e);
+            return;
+        }
+
+        out.writeByte(OK);
+        boolean stringOutputs = op == TO_UTC || op == TO_SCLK || op == TO_LMST;
+        for(int i = 0; i < count; i++){
+            if(stringOutputs){
+                out.writeUTF(stringResults[i]);
+            }
+            else{
+                out.writeLong(ticResults[i]);
+            }
+        }
+    }
+
+    private static void writeMessage(DataOutputStream out, Throwable e) throws IOException {
+        String message = String.valueOf(e.getMessage());
+        // writeUTF takes at most 64K bytes, and SPICE messages are nowhere near that long
+        out.writeUTF(message.length() > 8192 ? message.substring(0, 8192) : message);
+    }
+}
@@ -0,0 +1,449 @@
+package gov.nasa.jpl.time;
+
+import gov.nasa.jpl.lighttime.SPKLightTimeProvider;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bulk conversions that need CSPICE across several child JVMs, since CSPICE's global state confines the JNI calls
+ * of one JVM to one thread at a time. Each worker is started with the same kernels and is sent the TimeContext of the
+ * pool, and each bulk call is cut into contiguous shards that the workers convert at the same time, talking over
+ * their stdin and stdout in the binary protocol described in SpiceWorker.
+ *
+ * Conversions give what the same methods of Time give with the pool's context. Its Java kernels are made again in
+ * each worker from the kernel pool, so the kernels they were read from have to be among those the workers furnish.
+ * Light times can only come from SPKLightTimeProvider, since other providers can't be sent. Conversions that don't
+ * need SPICE, like UTC with a LeapSecondsKernel or SCLKs with a SclkKernel, are faster done in this JVM.
+ *
+ * A pool can be used from several threads, whose calls take turns with each worker. Each call starts its shards at
+ * the worker after the one the previous call started at, so calls too small to split still keep every worker busy.
+ * A worker whose connection is lost is killed and replaced by a new one, so the call it was answering fails but
+ * later ones don't.
+ */
+public class SpiceWorkerPool implements AutoCloseable {
+    // below this many conversions per worker the round trip costs more than the conversions
+    private static final int MIN_SHARD_SIZE = 64;
+    private static final long SHUTDOWN_WAIT_SECONDS = 5;
+
+    private final List<String> command;
+    private final TimeContext context;
+    private final Worker[] workers;
+    private final ExecutorService dispatcher;
+    // where the next call's shards start, so small calls from several threads don't all wait on the first worker
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    // the process behind a worker changes when it is replaced, guarded by the worker's lock, and is null until it is
+    private static final class Worker {
+        private Process process;
+        private DataOutputStream out;
+        private DataInputStream in;
+        private long requests;
+    }
+
+    // writes the op, its parameters, the count and inputs from..to of one shard
+    private interface RequestWriter {
+        void write(DataOutputStream out, int from, int to) throws IOException;
+    }
+
+    // reads the outputs of one shard into the results at from..to
+    private interface ResponseReader {
+        void read(DataInputStream in, int from, int to) throws IOException;
+    }
+
+    /**
+     * Starts the workers with the default context and waits until each has furnished its kernels
+     * @param workerCount How many child JVMs to start, for example the number of cores
+     * @param kernels The kernels each worker furnishes, in order, which should be the ones furnished in this JVM
+     */
+    public SpiceWorkerPool(int workerCount, String... kernels) throws IOException {
+        this(workerCount, Time.getDefaultContext(), kernels);
+    }
+
+    /**
+     * Starts the workers and waits until each has furnished its kernels and made the context from them
+     * @param workerCount How many child JVMs to start, for example the number of cores
+     * @param context The settings every conversion of this pool is done with
+     * @param kernels The kernels each worker furnishes, in order, which should be the ones furnished in this JVM
+     */
+    public SpiceWorkerPool(int workerCount, TimeContext context, String... kernels) throws IOException {
+        if(workerCount < 1){
+            throw new RuntimeException("SpiceWorkerPool needs at least 1 worker, but was asked for " + workerCount);
+        }
+        if(context.getLightTimeProvider().getClass() != SPKLightTimeProvider.class){
+            throw new RuntimeException("SpiceWorkerPool workers can only compute light times with SPKLightTimeProvider, " +
+                    "so it can't be given a context with a " + context.getLightTimeProvider().getClass().getName());
+        }
+        this.context = context;
+        command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Djava.library.path=" + System.getProperty("java.library.path"));
+        command.add(SpiceWorker.class.getName());
+        command.addAll(Arrays.asList(kernels));
+
+        workers = new Worker[workerCount];
+        try {
+            // start them all before waiting on any, so they load their kernels at the same time
+            for(int i = 0; i < workerCount; i++){
+                workers[i] = new Worker();
+                launch(workers[i]);
+            }
+            for(Worker worker : workers){
+                awaitReady(worker);
+            }
+        } catch (IOException | RuntimeException e) {
+            destroyWorkers();
+            throw e;
+        }
+
+        dispatcher = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "SPICE worker dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return How many child JVMs the conversions are spread across
+     */
+    public int getWorkerCount(){
+        return workers.length;
+    }
+
+    /**
+     * @return The settings every conversion of this pool is done with
+     */
+    public TimeContext getContext(){
+        return context;
+    }
+
+    /**
+     * Tells the workers to exit and waits a few seconds for them to, after which they are killed
+     */
+    @Override
+    public void close(){
+        if(closed){
+            return;
+        }
+        closed = true;
+        dispatcher.shutdown();
+        List<Process> exiting = new ArrayList<>(workers.length);
+        for(Worker worker : workers){
+            synchronized(worker){
+                if(worker.process == null){
+                    continue;
+                }
+                exiting.add(worker.process);
+                try {
+                    worker.out.writeByte(SpiceWorker.SHUTDOWN);
+                    worker.out.close();
+                } catch (IOException e) {
+                    // it is already gone
+                }
+            }
+        }
+        for(Process process : exiting){
+            try {
+                if(!process.waitFor(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)){
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    //<editor-fold desc="bulk conversions">
+
+    /**
+     * @param utcs UTC strings in any format the Time constructor accepts
+     * @return The tics of each, the same as Time.parseUTC would return
+     */
+    public long[] parseUTC(String[] utcs){
+        long[] results = new long[utcs.length];
+        run(utcs.length, (out, from, to) -> {
+            out.writeByte(SpiceWorker.PARSE_UTC);
+            writeStrings(out, utcs, from, to);
+        }, (in, from, to) -> readTics(in, results, from, to));
+        return results;
+    }
+
+    /**
+     * @param tics Times, as returned by getTics()
+     * @param precision Number of digits after the decimal point
+     * @return The UTC string of each time, the same as toUTC(precision) would return
+     */
+    public String[] toUTC(long[] tics, int precision){
+        String[] results = new String[tics.length];
+        run(tics.length, (out, from, to) -> {
+            out.writeByte(SpiceWorker.TO_UTC);
+            out.writeInt(precision);
+            writeTics(out, tics, from, to);
+        }, (in, from, to) -> readStrings(in, results, from, to));
+        return results;
+    }
+
+    /**
+     * @param tics Times, as returned by getTics()
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is
+     * @return The SCLK string of each time, the same as toSCLK(sc_id) would return
+     */
+    public String[] toSCLK(long[] tics, int sc_id){
+        String[] results = new String[tics.length];
+        run(tics.length, (out, from, to) -> {
+            out.writeByte(SpiceWorker.TO_SCLK);
+            out.writeInt(sc_id);
+            writeTics(out, tics, from, to);
+        }, (in, from, to) -> readStrings(in, results, from, to));
+        return results;
+    }
+
+    /**
+     * @param sclk_strings SCLK strings in a format that Spice scs2e can understand
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK they are
+     * @return The tics of each, the same as Time.fromSCLK(sclk_string, sc_id).getTics() would return
+     */
+    public long[] fromSCLK(String[] sclk_strings, int sc_id){
+        long[] results = new long[sclk_strings.length];
+        run(sclk_strings.length, (out, from, to) -> {
+            out.writeByte(SpiceWorker.FROM_SCLK);
+            out.writeInt(sc_id);
+            writeStrings(out, sclk_strings, from, to);
+        }, (in, from, to) -> readTics(in, results, from, to));
+        return results;
+    }
+
+    /**
+     * @param tics Times, as returned by getTics()
+     * @param sc_id The NAIF ID of the lander whose local mean solar time to use
+     * @param precision The number of decimal places that should be included in the output
+     * @return The LMST string of each time, the same as toLMST(sc_id, precision) would return
+     */
+    public String[] toLMST(long[] tics, int sc_id, int precision){
+        String[] results = new String[tics.length];
+        run(tics.length, (out, from, to) -> {
+            out.writeByte(SpiceWorker.TO_LMST);
+            out.writeInt(sc_id);
+            out.writeInt(precision);
+            writeTics(out, tics, from, to);
+        }, (in, from, to) -> readStrings(in, results, from, to));
+        return results;
+    }
+
+    /**
+     * @param lmsts LMST strings, like Sol-####M##:##:##.###
+     * @param sc_id The NAIF ID of the lander whose local mean solar time they are
+     * @return The tics of each, the same as Time.fromLMST(lmst, sc_id).getTics() would return
+     */
+    public long[] fromLMST(String[] lmsts, int sc_id){
+        long[] results = new long[lmsts.length];
+        run(lmsts.length, (out, from, to) -> {
+            out.writeByte(SpiceWorker.FROM_LMST);
+            out.writeInt(sc_id);
+            writeStrings(out, lmsts, from, to);
+        }, (in, from, to) -> readTics(in, results, from, to));
+        return results;
+    }
+
+    /**
+     * @param tics Times, as returned by getTics()
+     * @param sc_id The SC at whose position you want to know the local solar time
+     * @param body_id The NAIF ID of the body that the spacecraft is on or orbiting
+     * @param body_frame The NAIF frame string for the body the spacecraft is on or orbiting
+     * @return The tics of the local solar time of day at each time, the same as toLST(sc_id, body_id, body_frame).getTics() would return
+     */
+    public long[] toLST(long[] tics, int sc_id, int body_id, String body_frame){
+        return lightTimeOrLst(SpiceWorker.TO_LST, tics, sc_id, body_id, body_frame);
+    }
+
+    /**
+     * @param tics Times, as returned by getTics()
+     * @param sc_id The SPICE ID of the spacecraft
+     * @param body_id The SPICE ID where one wants the downleg to
+     * @param time_reference Either 'ETT', 'ERT', or 'SCET', depending on the frame of the times
+     * @return The tics of the downleg duration at each time, the same as the context's light time provider would return
+     */
+    public long[] downleg(long[] tics, int sc_id, int body_id, String time_reference){
+        return lightTimeOrLst(SpiceWorker.DOWNLEG, tics, sc_id, body_id, time_reference);
+    }
+
+    /**
+     * @param tics Times, as returned by getTics()
+     * @param sc_id The SPICE ID of the spacecraft
+     * @param body_id The SPICE ID where one wants the upleg from
+     * @param time_reference Either 'ETT', 'ERT', or 'SCET', depending on the frame of the times
+     * @return The tics of the upleg duration at each time, the same as the context's light time provider would return
+     */
+    public long[] upleg(long[] tics, int sc_id, int body_id, String time_reference){
+        return lightTimeOrLst(SpiceWorker.UPLEG, tics, sc_id, body_id, time_reference);
+    }
+
+    //</editor-fold>
+
+    private long[] lightTimeOrLst(byte op, long[] tics, int sc_id, int body_id, String name){
+        long[] results = new long[tics.length];
+        run(tics.length, (out, from, to) -> {
+            out.writeByte(op);
+            out.writeInt(sc_id);
+            out.writeInt(body_id);
+            out.writeUTF(name);
+            writeTics(out, tics, from, to);
+        }, (in, from, to) -> readTics(in, results, from, to));
+        return results;
+    }
+
+    // cuts count inputs into one contiguous shard per worker, all but the last of which are sent from other threads
+    private void run(int count, RequestWriter writer, ResponseReader reader){
+        if(closed){
+            throw new RuntimeException("SpiceWorkerPool has been closed and can't take more work");
+        }
+        if(count == 0){
+            return;
+        }
+        int shards = Math.max(1, Math.min(workers.length, count / MIN_SHARD_SIZE));
+        int first = Math.floorMod(nextWorker.getAndAdd(shards), workers.length);
+        List<Future<?>> futures = new ArrayList<>(shards - 1);
+        for(int shard = 0; shard < shards - 1; shard++){
+            int from = (int) ((long) count * shard / shards);
+            int to = (int) ((long) count * (shard + 1) / shards);
+            Worker worker = workers[(first + shard) % workers.length];
+            futures.add(dispatcher.submit(() -> {
+                convert(worker, writer, reader, from, to);
+                return null;
+            }));
+        }
+        convert(workers[(first + shards - 1) % workers.length], writer, reader, (int) ((long) count * (shards - 1) / shards), count);
+
+        for(Future<?> future : futures){
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting on SPICE workers");
+            } catch (ExecutionException e) {
+                if(e.getCause() instanceof RuntimeException){
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    private void convert(Worker worker, RequestWriter writer, ResponseReader reader, int from, int to){
+        synchronized(worker){
+            if(worker.process == null){
+                restart(worker);
+            }
+            worker.requests++;
+            try {
+                writer.write(worker.out, from, to);
+                worker.out.flush();
+                if(worker.in.readByte() != SpiceWorker.OK){
+                    throw new RuntimeException("SPICE worker failed to convert:\n" + worker.in.readUTF());
+                }
+                reader.read(worker.in, from, to);
+            } catch (IOException e) {
+                // part of a request or response may still be in the pipes, so this worker can't be talked to again
+                String message = "Lost the connection to a SPICE worker, which may have exited:\n" + e.getMessage();
+                worker.process.destroyForcibly();
+                worker.process = null;
+                try {
+                    restart(worker);
+                } catch (RuntimeException restartFailure) {
+                    message += "\nIt could not be replaced, which will be tried again on its next request:\n" + restartFailure.getMessage();
+                }
+                throw new RuntimeException(message);
+            }
+        }
+    }
+
+    // starts a new process for the worker and sends it the context, without waiting for it to load its kernels
+    private void launch(Worker worker) throws IOException {
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        worker.process = process;
+        worker.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        worker.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        context.writeTo(worker.out);
+        worker.out.flush();
+    }
+
+    private static void awaitReady(Worker worker) throws IOException {
+        if(worker.in.readByte() != SpiceWorker.OK){
+            throw new RuntimeException("SPICE worker could not be started:\n" + worker.in.readUTF());
+        }
+    }
+
+    // called with the worker's lock held, and leaves it without a process if the new one doesn't start
+    private void restart(Worker worker){
+        try {
+            launch(worker);
+            awaitReady(worker);
+        } catch (IOException | RuntimeException e) {
+            if(worker.process != null){
+                worker.process.destroyForcibly();
+                worker.process = null;
+            }
+            throw new RuntimeException("SPICE worker could not be restarted:\n" + e.getMessage());
+        }
+    }
+
+    // how many shards a worker has been sent, so tests can see how calls were spread
+    long getRequestCount(int index){
+        synchronized(workers[index]){
+            return workers[index].requests;
+        }
+    }
+
+    // the process currently behind a worker, or null if it is being replaced, so tests can make one exit
+    Process getWorkerProcess(int index){
+        synchronized(workers[index]){
+            return workers[index].process;
+        }
+    }
+
+    private static void writeTics(DataOutputStream out, long[] tics, int from, int to) throws IOException {
+        out.writeInt(to - from);
+        for(int i = from; i < to; i++){
+            out.writeLong(tics[i]);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strings, int from, int to) throws IOException {
+        out.writeInt(to - from);
+        for(int i = from; i < to; i++){
+            out.writeUTF(strings[i]);
+        }
+    }
+
+    private static void readTics(DataInputStream in, long[] dest, int from, int to) throws IOException {
+        for(int i = from; i < to; i++){
+            dest[i] = in.readLong();
+        }
+    }
+
+    private static void readStrings(DataInputStream in, String[] dest, int from, int to) throws IOException {
+        for(int i = from; i < to; i++){
+            dest[i] = in.readUTF();
+        }
+    }
+
+    private void destroyWorkers(){
+        for(Worker worker : workers){
+            if(worker != null && worker.process != null){
+                worker.process.destroyForcibly();
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package gov.nasa.jpl.time;
+
+import spice.basic.CSPICE;
+import spice.basic.KernelVarNotFoundException;
+import spice.basic.SpiceErrorException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A minimal reader for SPICE text kernels (LSKs, SCLKs, text PCKs) that loads the variable assignments in the
+ * \begindata sections into memory without going through the CSPICE kernel pool. It supports the subset of the
+ * text kernel grammar that NAIF-produced kernels use: scalar and parenthesized vector assignments with '=' and '+=',
+ * numbers with D or E exponents, single-quoted strings, and '@' dates, which are converted to seconds past J2000
+ * in the same leapsecond-free way SPICE's tparse does.
+ */
+public class TextKernel {
+    private static final String BEGIN_DATA = "\\begindata";
+    private static final String BEGIN_TEXT = "\\begintext";
+
+    private static final String[] MONTH_NAMES = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+
+    private final Map<String, List<Object>> variables = new LinkedHashMap<>();
+
+    private TextKernel(){
+    }
+
+    /**
+     * Reads a text kernel from disk
+     * @param fileName path to the kernel, for example kernels/naif0012.tls
+     * @return A new TextKernel holding all the variables assigned in the file
+     */
+    public static TextKernel read(String fileName) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(fileName), StandardCharsets.US_ASCII)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Reads a text kernel from any character source
+     * @param reader the kernel contents, which is not closed by this method
+     * @return A new TextKernel holding all the variables assigned in the input
+     */
+    public static TextKernel read(Reader reader) throws IOException {
+        BufferedReader br = new BufferedReader(reader);
+        StringBuilder data = new StringBuilder();
+        boolean inData = false;
+        String line;
+        while ((line = br.readLine()) != null) {
+            String trimmed = line.trim();
+            if(trimmed.startsWith(BEGIN_DATA)){
+                inData = true;
+            }
+            else if(trimmed.startsWith(BEGIN_TEXT)){
+                inData = false;
+            }
+            else if(inData){
+                data.append(line).append('\n');
+            }
+        }
+
+        TextKernel kernel = new TextKernel();
+        kernel.parseAssignments(data);
+        return kernel;
+    }
+
+    /**
+     * Copies variables out of the CSPICE kernel pool, for when the kernels were furnished to SPICE rather than read
+     * with this class. Variables that are not in the pool are left out.
+     * @param names The kernel variable names to copy
+     * @return A new TextKernel holding the variables that were found
+     */
+    static TextKernel fromKernelPool(String... names){
+        TextKernel kernel = new TextKernel();
+        boolean[] found = new boolean[1];
+        int[] size = new int[1];
+        String[] type = new String[1];
+        try {
+            for(String name : names){
+                CSPICE.dtpool(name, found, size, type);
+                if(!found[0]){
+                    continue;
+                }
+                List<Object> values = new ArrayList<>(size[0]);
+                if(type[0].equals("N")){
+                    for(double value : CSPICE.gdpool(name, 0, size[0])){
+                        values.add(value);
+                    }
+                }
+                else{
+                    values.addAll(Arrays.asList(CSPICE.gcpool(name, 0, size[0])));
+                }
+                kernel.variables.put(name, values);
+            }
+        } catch (SpiceErrorException | KernelVarNotFoundException e) {
+            throw new RuntimeException("Could not read kernel variables from the SPICE kernel pool - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
+        }
+        return kernel;
+    }
+
+    /**
+     * @param name The kernel variable name, like DELTET/DELTA_AT
+     * @return true if the kernel assigned the variable
+     */
+    public boolean containsKey(String name){
+        return variables.containsKey(name);
+    }
+
+    /**
+     * @return All variable names assigned in the kernel, in file order
+     */
+    public Set<String> keySet(){
+        return Collections.unmodifiableSet(variables.keySet());
+    }
+
+    /**
+     * @param name The kernel variable name
+     * @return The numeric values of the variable, with dates already converted to seconds past J2000
+     */
+    public double[] getDoubles(String name){
+        List<Object> values = getValues(name);
+        double[] toReturn = new double[values.size()];
+        for(int i = 0; i < toReturn.length; i++){
+            Object value = values.get(i);
+            if(!(value instanceof Double)){
+                throw new RuntimeException("Kernel variable " + name + " contains non-numeric value " + value);
+            }
+            toReturn[i] = (Double) value;
+        }
+        return toReturn;
+    }
+
+    /**
+     * @param name The kernel variable name
+     * @return The first numeric value of the variable
+     */
+    public double getDouble(String name){
+        return getDoubles(name)[0];
+    }
+
+    /**
+     * @param name The kernel variable name
+     * @return The string values of the variable
+     */
+    public String[] getStrings(String name){
+        List<Object> values = getValues(name);
+        String[] toReturn = new String[values.size()];
+        for(int i = 0; i < toReturn.length; i++){
+            Object value = values.get(i);
+            if(!(value instanceof String)){
+                throw new RuntimeException("Kernel variable " + name + " contains non-string value " + value);
+            }
+            toReturn[i] = (String) value;
+        }
+        return toReturn;
+    }
+
+    private List<Object> getValues(String name){
+        List<Object> values = variables.get(name);
+        if(values == null || values.isEmpty()){
+            throw new RuntimeException("Kernel variable " + name + " not found. Did you load the right kernel?");
+        }
+        return values;
+    }
+
+    //<editor-fold desc="parsing">
+
+    private void parseAssignments(CharSequence data){
+        int i = 0;
+        int length = data.length();
+        while(true){
+            i = skipSeparators(data, i);
+            if(i >= length){
+                return;
+            }
+
+            // variable name runs until whitespace or an assignment operator
+            int nameStart = i;
+            while(i < length && !Character.isWhitespace(data.charAt(i)) && data.charAt(i) != '=' && !isAppendOperator(data, i)){
+                i++;
+            }
+            String name = data.subSequence(nameStart, i).toString();
+            i = skipWhitespace(data, i);
+
+            boolean append;
+            if(i < length && data.charAt(i) == '='){
+                append = false;
+                i++;
+            }
+            else if(isAppendOperator(data, i)){
+                append = true;
+                i += 2;
+            }
+            else{
+                throw new RuntimeException("Error parsing text kernel: expected '=' or '+=' after variable name " + name);
+            }
+
+            List<Object> values = new ArrayList<>();
+            i = skipWhitespace(data, i);
+            if(i < length && data.charAt(i) == '('){
+                i++;
+                while(true){
+                    i = skipSeparators(data, i);
+                    if(i >= length){
+                        throw new RuntimeException("Error parsing text kernel: unterminated value list for variable " + name);
+                    }
+                    if(data.charAt(i) == ')'){
+                        i++;
+                        break;
+                    }
+                    i = parseValue(data, i, values, name);
+                }
+            }
+            else{
+                i = parseValue(data, i, values, name);
+            }
+
+            if(append && variables.containsKey(name)){
+                variables.get(name).addAll(values);
+            }
+            else{
+                variables.put(name, values);
+            }
+        }
+    }
+
+    private static boolean isAppendOperator(CharSequence data, int i){
+        return i + 1 < data.length() && data.charAt(i) == '+' && data.charAt(i + 1) == '=';
+    }
+
+    private static int skipWhitespace(CharSequence data, int i){
+        while(i < data.length() && Character.isWhitespace(data.charAt(i))){
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipSeparators(CharSequence data, int i){
+        while(i < data.length() && (Character.isWhitespace(data.charAt(i)) || data.charAt(i) == ',')){
+            i++;
+        }
+        return i;
+    }
+
+    // parses one value starting at i into values and returns the index after it
+    private static int parseValue(CharSequence data, int i, List<Object> values, String name){
+        int length = data.length();
+        if(data.charAt(i) == '\''){
+            StringBuilder sb = new StringBuilder();
+            i++;
+            while(true){
+                if(i >= length){
+                    throw new RuntimeException("Error parsing text kernel: unterminated string for variable " + name);
+                }
+                char c = data.charAt(i);
+                if(c == '\''){
+                    // two single quotes in a row are an escaped quote
+                    if(i + 1 < length && data.charAt(i + 1) == '\''){
+                        sb.append('\'');
+                        i += 2;
+                        continue;
+                    }
+                    i++;
+                    break;
+                }
+                sb.append(c);
+                i++;
+            }
+            values.add(sb.toString());
+            return i;
+        }
+
+        int start = i;
+        while(i < length && !Character.isWhitespace(data.charAt(i)) && data.charAt(i) != ',' && data.charAt(i) != ')'){
+            i++;
+        }
+        String token = data.subSequence(start, i).toString();
+        if(token.startsWith("@")){
+            values.add(parseDate(token.substring(1), name));
+        }
+        else{
+            try {
+                values.add(Double.parseDouble(token.replace('D', 'E').replace('d', 'e')));
+            }
+            catch(NumberFormatException e){
+                throw new RuntimeException("Error parsing text kernel: could not parse value " + token + " for variable " + name);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Converts a kernel '@' date like 1972-JAN-1, 2016-06-22/17:06:27.42 or 2016-06-22-16:17:42 into seconds past
+     * J2000 without accounting for leap seconds, which is how the kernel pool stores them.
+     */
+    static double parseDate(String date, String name){
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        for(int i = 0; i < date.length(); i++){
+            char c = date.charAt(i);
+            boolean isTimeSeparator = c == 'T' && i > 0 && Character.isDigit(date.charAt(i - 1))
+                    && i + 1 < date.length() && Character.isDigit(date.charAt(i + 1));
+            if(c == '-' || c == '/' || c == ':' || c == ' ' || isTimeSeparator){
+                if(field.length() > 0){
+                    fields.add(field.toString());
+                    field.setLength(0);
+                }
+            }
+            else{
+                field.append(c);
+            }
+        }
+        if(field.length() > 0){
+            fields.add(field.toString());
+        }
+
+        try {
+            long year = Long.parseLong(fields.get(0));
+            long day;
+            int timeIndex;
+            if(fields.size() == 2 || (fields.get(1).length() == 3 && Character.isDigit(fields.get(1).charAt(0)))){
+                day = UTCCalendar.dayNumber(year, Integer.parseInt(fields.get(1)));
+                timeIndex = 2;
+            }
+            else{
+                int month = parseMonth(fields.get(1));
+                day = UTCCalendar.dayNumber(year, month, Integer.parseInt(fields.get(2)));
+                timeIndex = 3;
+            }
+
+            double secondsOfDay = 0;
+            double[] multipliers = {3600, 60, 1};
+            for(int i = 0; i < 3 && timeIndex + i < fields.size(); i++){
+                secondsOfDay += Double.parseDouble(fields.get(timeIndex + i)) * multipliers[i];
+            }
+
+            // J2000 is noon on day 0
+            return (day * 86400.0 - 43200.0) + secondsOfDay;
+        }
+        catch(RuntimeException e){
+            throw new RuntimeException("Error parsing text kernel: could not parse date @" + date + " for variable " + name);
+        }
+    }
+
+    private static int parseMonth(String month){
+        if(Character.isDigit(month.charAt(0))){
+            return Integer.parseInt(month);
+        }
+        String prefix = month.length() > 3 ? month.substring(0, 3) : month;
+        for(int i = 0; i < MONTH_NAMES.length; i++){
+            if(MONTH_NAMES[i].equalsIgnoreCase(prefix)){
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException(month);
+    }
+
+    //</editor-fold>
+}
@@ -1,18 +1,18 @@
 package gov.nasa.jpl.time;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoField;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import gov.nasa.jpl.lighttime.LightTimeProvider;
-import gov.nasa.jpl.lighttime.SPKLightTimeProvider;
 import gov.nasa.jpl.serialization.ConvertableFromString;
 import spice.basic.CSPICE;
 import spice.basic.KernelVarNotFoundException;
@@ -36,32 +36,25 @@ public class Time implements Comparable<Time>, ConvertableFromString {
     // Each 'tic' is 10 nanoseconds, to strike a balance between precision and length of time expressible while still using a long
     protected long tics;
 
-    // this controls if SPICE or java LocalDateTime (standard but not correctly accounting for leap seconds) is used to parse time objects
-    private static boolean useSpiceForMath = false;
-
-    // this controls which implementation of the LightTimeProvider interface we're using, so methods of getting it can be swapped out
-    private static LightTimeProvider currentLightTimeProvider = new SPKLightTimeProvider();
+    // every setting that changes how times are converted, which the static setters below replace with modified copies
+    // so that threads converting with the context they read never see it half changed
+    private static volatile TimeContext defaultContext = TimeContext.defaults();
 
     // this represents the epoch for the java LocalDateTime class - we will use it for toUTC() conversions without SPICE
     private static LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 12, 0);
 
-    // UNIX epoch represented as Time object
-    private static Time UNIX_EPOCH;
-
-    // GPS epoch represented as Time object
-    private static Time GPS_EPOCH;
-
-    // this time can be used for default round behavior
-    private static Time DEFAULT_REFERENCE_TIME;
+    // UNIX epoch, GPS epoch and the default reference time for rounding, as Time objects for contexts without SPICE
+    // math, where the same UTC always has the same tics. With SPICE math they are parsed in each context instead.
+    private static final Time UNIX_EPOCH = new Time(parseUTC("1970-001T00:00:00", TimeContext.defaults()));
+    private static final Time GPS_EPOCH = new Time(parseUTC("1980-006T00:00:00", TimeContext.defaults()));
+    private static final Time DEFAULT_REFERENCE_TIME = new Time(parseUTC("2000-001T00:00:00", TimeContext.defaults()));
 
-    // these values can be used for convenience when calling methods
-    private static Integer DEFAULT_SPACECRAFT_ID;
-    private static Integer DEFAULT_LST_BODY_ID;
-    private static String DEFAULT_LST_BODY_FRAME;
-    private static int DEFAULT_OUTPUT_PRECISION = 6;
+    // the leapseconds kernel furnished to SPICE, copied out of the kernel pool the first time UTC day boundaries are needed
+    // and shared by every context, since there is only one kernel pool
+    private static volatile LeapSecondsKernel spiceLeapSecondsKernel;
 
-    // this map will speed up SCLKD calculations because GDPOOL to get the SCLK fractional part takes a while
-    private static Map<Integer, Double> SCLK_FRACTIONAL_PART_MAP = new HashMap<>();
+    // this map will speed up SCLKD calculations because GDPOOL to get the SCLK moduli and partitions takes a while.
+    // Clocks in here only supply the field layout, the conversion between ticks and time is still done by SPICE
 
     // this is just used for converting to/from UTC if SPICE is not being used
     private static final int NANOSECONDS_PER_TIC = 10;
@@ -96,7 +89,10 @@ public class Time implements Comparable<Time>, ConvertableFromString {
             .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true)
             .toFormatter();
 
-    // UTC output formatter in non-SPICE mode
+    // scratch space for formatting UTC without allocating, per thread since Times are formatted from many threads
+    private static final ThreadLocal<char[]> UTC_FORMAT_BUFFER = ThreadLocal.withInitial(() -> new char[UTCFormatter.maxLength(numberDecimalDigits)]);
+
+    // UTC output formatters for timezone conversions
     private static DateTimeFormatter[] outputUTCFormatters = new DateTimeFormatter[]{
             DateTimeFormatter.ofPattern("uuuu-DDD'T'HH:mm:ss["),
             DateTimeFormatter.ofPattern("uuuu-DDD'T'HH:mm:ss[.S]"),
@@ -146,6 +142,15 @@ public class Time implements Comparable<Time>, ConvertableFromString {
         valueOf(t);
     }
 
+    /**
+     * Parses a time string the way the given context says to instead of the default context
+     * @param t Time string, in any of the formats the single argument constructor takes
+     * @param context The settings to parse with, like whether SPICE is used for math
+     */
+    public Time(String t, TimeContext context) {
+        this.tics = parseTics(t, context);
+    }
+
     /**
      * This protected constructor is used by the fromX and valueOf methods to actually assign the backing data.
      */
@@ -172,11 +177,35 @@ public class Time implements Comparable<Time>, ConvertableFromString {
 
     //<editor-fold desc="static methods that control behavior of overall class and return epoch times">
 
+    /**
+     * @return The context that every method not given one converts with, which starts out as TimeContext.defaults()
+     */
+    public static TimeContext getDefaultContext(){
+        return defaultContext;
+    }
+
+    /**
+     * Replaces every setting the static setters of this class control at once, for example with a context built for
+     * the mission being processed. Methods that are given a context ignore this one.
+     * @param context The new default context
+     */
+    public static synchronized void setDefaultContext(TimeContext context){
+        if(context == null){
+            throw new RuntimeException("The default TimeContext cannot be null");
+        }
+        defaultContext = context;
+    }
+
+    // applies a change to the default context without losing changes other threads make at the same time
+    static synchronized void updateDefaultContext(UnaryOperator<TimeContext> update){
+        defaultContext = update.apply(defaultContext);
+    }
+
     /**
      * call this before you start making Time objects if you want Java datetime to do the conversion to and from strings instead of SPICE
      */
     public static void setUseSpiceForMath(boolean shouldUseSpiceForMath){
-        useSpiceForMath = shouldUseSpiceForMath;
+        updateDefaultContext(context -> context.withUseSpiceForMath(shouldUseSpiceForMath));
     }
 
     /**
@@ -184,14 +213,105 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @param spacecraftId
      */
     public static void setDefaultSpacecraftId(Integer spacecraftId) {
-        DEFAULT_SPACECRAFT_ID = spacecraftId;
+        updateDefaultContext(context -> context.withDefaultSpacecraftId(spacecraftId));
     }
 
     /**
      * Call this before trying time frame conversions if you don't want to use SPICE for lighttime
      */
     public static void setLightTimeProvider(LightTimeProvider inProvider){
-        currentLightTimeProvider = inProvider;
+        updateDefaultContext(context -> context.withLightTimeProvider(inProvider));
+    }
+
+    /**
+     * Call this with a kernel read from the same LSK that is furnished to SPICE to have UTC parsing and formatting in
+     * SPICE mode, and TAI/ET conversion in both modes, done in Java, which avoids a JNI call per conversion.
+     * Pass null to go back to str2et, et2utc and unitim.
+     * @param kernel A LeapSecondsKernel, for example LeapSecondsKernel.read("naif0012.tls")
+     */
+    public static void setLeapSecondsKernel(LeapSecondsKernel kernel){
+        updateDefaultContext(context -> context.withLeapSecondsKernel(kernel));
+    }
+
+    /**
+     * In SPICE mode, TAI to ET conversions are served from polynomial fits of TDB-TDT that are within 0.1 nanoseconds
+     * of unitim, instead of a JNI call per conversion. Fits are made the first time a time in each segment is
+     * converted, so the coverage can be much larger than the times actually used. Times outside of the coverage go
+     * to unitim, or the LeapSecondsKernel if one was set. Off until this is called, since without a LeapSecondsKernel
+     * the fits come from the LSK in the kernel pool, and reloadSpiceLeapSeconds() has to be called after loading a
+     * different one. 1950 to 2100 in segments of 8 days is a reasonable coverage.
+     * @param startEt ET seconds past J2000 at the start of the coverage
+     * @param endEt ET seconds past J2000 at the end of the coverage
+     * @param segmentLength length of each fit - longer segments need higher degree polynomials
+     */
+    public static void setEphemerisTimeCacheCoverage(double startEt, double endEt, Duration segmentLength){
+        updateDefaultContext(context -> context.withEphemerisTimeCacheCoverage(startEt, endEt, segmentLength));
+    }
+
+    /**
+     * Goes back to converting every TAI and ET with unitim, or the LeapSecondsKernel if one was set
+     */
+    public static void disableEphemerisTimeCache(){
+        updateDefaultContext(TimeContext::withoutEphemerisTimeCache);
+    }
+
+    /**
+     * @return The leap second table used for SPICE-mode UTC conversions, or null if they are done by SPICE
+     */
+    public static LeapSecondsKernel getLeapSecondsKernel(){
+        return defaultContext.getLeapSecondsKernel();
+    }
+
+    /**
+     * Call this with a kernel read from the same SCLK that is furnished to SPICE to have toSCLK, fromSCLK, toSCLKD and
+     * fromSCLKD for that clock evaluated in Java instead of with sce2s and scs2e. Replaces any kernel previously added
+     * for the same clock.
+     * @param kernel A SclkKernel, for example SclkKernel.read("M2020_SCLKSCET.NOMNM.tsc", -168, lsk)
+     */
+    public static void addSclkKernel(SclkKernel kernel){
+        updateDefaultContext(context -> context.withSclkKernel(kernel));
+    }
+
+    /**
+     * Goes back to using SPICE for SCLK conversions for the given clock
+     * @param sc_id The NAIF ID of the clock
+     */
+    public static void removeSclkKernel(int sc_id){
+        updateDefaultContext(context -> context.withoutSclkKernel(sc_id));
+    }
+
+    /**
+     * @param sc_id The NAIF ID of the clock
+     * @return The SclkKernel added for that clock, or null if its conversions are done by SPICE
+     */
+    public static SclkKernel getSclkKernel(int sc_id){
+        return defaultContext.getSclkKernel(sc_id);
+    }
+
+    /**
+     * Call this with a kernel read from the same LMST SCLK that is furnished to SPICE to have toLMST, fromLMST,
+     * toSolNumber, toFractionalSols and toLmstAmPm for that spacecraft evaluated in Java. Replaces any kernel
+     * previously added for the same spacecraft.
+     * @param kernel A LmstKernel, for example LmstKernel.read("m2020_lmst_dev00_v3.tsc", -168, lsk)
+     */
+    public static void addLmstKernel(LmstKernel kernel){
+        updateDefaultContext(context -> context.withLmstKernel(kernel));
+    }
+
+    /**
+     * Goes back to using SPICE for LMST conversions for the given spacecraft
+     * @param sc_id The NAIF ID of the spacecraft, not the LMST clock
+     */
+    public static void removeLmstKernel(int sc_id){
+        updateDefaultContext(context -> context.withoutLmstKernel(sc_id));
+    }
+
+    /**
+     * @param sc_id The NAIF ID of the spacecraft, not the LMST clock
+     * @return The LmstKernel added for that spacecraft, or null if its LMST conversions are done by SPICE
+     */
+    public static LmstKernel getLmstKernel(int sc_id){
+        return defaultContext.getLmstKernel(sc_id);
     }
 
     /**
@@ -200,11 +320,7 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return
      */
     public static int getDefaultSpacecraftId() {
-        if (DEFAULT_SPACECRAFT_ID == null) {
-            throw new RuntimeException("Error getting default spacecraft id. Current value is null but must be an integer." +
-                    " Set this with the setDefaultSpacecraftId method.");
-        }
-        return DEFAULT_SPACECRAFT_ID;
+        return defaultContext.getDefaultSpacecraftId();
     }
 
     /**
@@ -213,7 +329,7 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @param bodyId
      */
     public static void setDefaultLstBodyId(Integer bodyId) {
-        DEFAULT_LST_BODY_ID = bodyId;
+        updateDefaultContext(context -> context.withDefaultLstBodyId(bodyId));
     }
 
     /**
@@ -222,11 +338,7 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return
      */
     public static Integer getDefaultLstBodyId() {
-        if (DEFAULT_LST_BODY_ID == null) {
-            throw new RuntimeException("Error getting default LST body id. Current value is null but must be an integer. " +
-                    "Set this with the setDefaultLstBodyId method.");
-        }
-        return DEFAULT_LST_BODY_ID;
+        return defaultContext.getDefaultLstBodyId();
     }
 
     /**
@@ -234,7 +346,7 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @param defaultLstBodyFrame
      */
     public static void setDefaultLstBodyFrame(String defaultLstBodyFrame) {
-        DEFAULT_LST_BODY_FRAME = defaultLstBodyFrame;
+        updateDefaultContext(context -> context.withDefaultLstBodyFrame(defaultLstBodyFrame));
     }
 
     /**
@@ -242,11 +354,7 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return
      */
     public static String getDefaultLstBodyFrame() {
-        if (DEFAULT_LST_BODY_FRAME == null) {
-            throw new RuntimeException("Error getting default LST body frame. Current value is null but must be a string. " +
-                    "Set this with the setDefaultLstBodyFrame method.");
-        }
-        return DEFAULT_LST_BODY_FRAME;
+        return defaultContext.getDefaultLstBodyFrame();
     }
 
     /**
@@ -254,7 +362,7 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @param defaultOutputPrecision
      */
     public static void setDefaultOutputPrecision(int defaultOutputPrecision) {
-        DEFAULT_OUTPUT_PRECISION = defaultOutputPrecision;
+        updateDefaultContext(context -> context.withDefaultOutputPrecision(defaultOutputPrecision));
     }
 
     /**
@@ -262,37 +370,52 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return
      */
     public static int getDefaultOutputPrecision() {
-        return DEFAULT_OUTPUT_PRECISION;
+        return defaultContext.getDefaultOutputPrecision();
     }
 
     /**
      * @return A Time object representing the Unix 0 time
      */
     public static Time getUnixEpoch(){
-        if(UNIX_EPOCH == null){
-            UNIX_EPOCH = new Time("1970-001T00:00:00");
-        }
-        return UNIX_EPOCH;
+        return getUnixEpoch(defaultContext);
+    }
+
+    /**
+     * @param context The settings to make the time with
+     * @return A Time object representing the Unix 0 time
+     */
+    public static Time getUnixEpoch(TimeContext context){
+        return context.getUseSpiceForMath() ? new Time("1970-001T00:00:00", context) : UNIX_EPOCH;
     }
 
     /**
      * @return A Time object representing the GPS epoch
      */
     public static Time getGPSEpoch(){
-        if(GPS_EPOCH == null){
-            GPS_EPOCH = new Time("1980-006T00:00:00");
-        }
-        return GPS_EPOCH;
+        return getGPSEpoch(defaultContext);
+    }
+
+    /**
+     * @param context The settings to make the time with
+     * @return A Time object representing the GPS epoch
+     */
+    public static Time getGPSEpoch(TimeContext context){
+        return context.getUseSpiceForMath() ? new Time("1980-006T00:00:00", context) : GPS_EPOCH;
     }
 
     /**
      * @return A time object representing Jan 1 2000 00:00:00, to give a reference for time rounding up or down
      */
     public static Time getDefaultReferenceTime(){
-        if(DEFAULT_REFERENCE_TIME == null){
-            DEFAULT_REFERENCE_TIME = new Time("2000-001T00:00:00");
-        }
-        return DEFAULT_REFERENCE_TIME;
+        return getDefaultReferenceTime(defaultContext);
+    }
+
+    /**
+     * @param context The settings to make the time with
+     * @return A time object representing Jan 1 2000 00:00:00, to give a reference for time rounding up or down
+     */
+    public static Time getDefaultReferenceTime(TimeContext context){
+        return context.getUseSpiceForMath() ? new Time("2000-001T00:00:00", context) : DEFAULT_REFERENCE_TIME;
     }
 
     /**
@@ -510,20 +633,59 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A Time object that equals midnight on the current day UTC
      */
     public Time getMidnightUTC(){
-        Matcher timeMatch = TIME_PATTERN.matcher(toUTC());
-        if(timeMatch.find()){
-            return new Time(timeMatch.group("year") + "-" + timeMatch.group("DOY") + "T00:00:00");
-        }
-        else{
-            throw new RuntimeException("Could not create midnight UTC time - something went really wrong inside the Time class");
-        }
+        return new Time(getMidnightUTCTics(tics, defaultContext));
+    }
+
+    /**
+     * @param context The settings this time was made with
+     * @return A Time object that equals midnight on the current day UTC
+     */
+    public Time getMidnightUTC(TimeContext context){
+        return new Time(getMidnightUTCTics(tics, context));
     }
 
     /**
      * @return A duration representing the elapsed duration since midnight UTC for this Time
      */
     public Duration getTimeOfDay(){
-        return this.subtract(getMidnightUTC());
+        return new Duration(tics - getMidnightUTCTics(tics, defaultContext));
+    }
+
+    // days are all the same length without SPICE, otherwise the leap second table says where each UTC day starts
+    private static long getMidnightUTCTics(long tics, TimeContext context){
+        if(context.getUseSpiceForMath()){
+            LeapSecondsKernel dayBoundaries = getLeapSecondsKernelInUse(context);
+            return dayBoundaries.getTaiAtStartOfDay(dayBoundaries.getUtcDayNumber(tics));
+        }
+        return Math.floorDiv(tics + ONE_DAY / 2, ONE_DAY) * ONE_DAY - ONE_DAY / 2;
+    }
+
+    // the LSK of the context, or else the one furnished to SPICE
+    private static LeapSecondsKernel getLeapSecondsKernelInUse(TimeContext context){
+        LeapSecondsKernel kernel = context.getLeapSecondsKernel();
+        return kernel != null ? kernel : getSpiceLeapSecondsKernel();
+    }
+
+    /**
+     * Forgets the leap seconds read from the SPICE kernel pool, and the ET fits made from them, so conversions use an
+     * LSK loaded or unloaded with furnsh or unload since. Contexts with their own LeapSecondsKernel are unaffected.
+     */
+    public static void reloadSpiceLeapSeconds(){
+        spiceLeapSecondsKernel = null;
+    }
+
+    // the LSK furnished to SPICE, read from the kernel pool once until reloadSpiceLeapSeconds is called
+    static LeapSecondsKernel getSpiceLeapSecondsKernel(){
+        LeapSecondsKernel kernel = spiceLeapSecondsKernel;
+        if(kernel == null){
+            try {
+                kernel = LeapSecondsKernel.fromKernelPool();
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Could not read the leap seconds from the kernel pool - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
+            }
+            spiceLeapSecondsKernel = kernel;
+        }
+        return kernel;
     }
     //</editor-fold>
 
@@ -547,9 +709,19 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      */
     @Override
     public void valueOf(String utcFormattedString) {
-        if(useSpiceForMath){
+        tics = parseTics(utcFormattedString, defaultContext);
+    }
+
+    private static long parseTics(String utcFormattedString, TimeContext context) {
+        // the common DOY and ISO forms are scanned directly, anything else goes to str2et or LocalDateTime
+        long parsedTics = parseUTCInJava(utcFormattedString, context);
+        if(parsedTics != UTCParser.NOT_PARSED){
+            return parsedTics;
+        }
+
+        if(context.getUseSpiceForMath()){
             try {
-                tics = et2tai(CSPICE.str2et(utcFormattedString));
+                return et2tai(CSPICE.str2et(utcFormattedString), context);
             } catch (SpiceErrorException e) {
                 throw new RuntimeException("Cannot turn String " + utcFormattedString + " into a valid time - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
             }
@@ -558,8 +730,88 @@ public class Time implements Comparable<Time>, ConvertableFromString {
             // THIS WILL NOT MATCH SPICE LEAP SECOND FILES BUT IS A GOOD APPROXIMATION, gets leap seconds from java version updates
             // this is also significantly less flexible with allowable input time formats than str2et
             LocalDateTime localDT = LocalDateTime.parse(utcFormattedString, inputUtcFormat);
-            tics = java.time.Duration.between(EPOCH, localDT).toNanos() / NANOSECONDS_PER_TIC;
+            return java.time.Duration.between(EPOCH, localDT).toNanos() / NANOSECONDS_PER_TIC;
+        }
+    }
+
+    /**
+     * Parses a UTC string into tics, which is the same as new Time(utc).getTics() but does not allocate for the
+     * yyyy-DDDThh:mm:ss.ffffff and yyyy-MM-ddThh:mm:ss.ffffff forms
+     * @param utc A UTC string in any format accepted by the Time constructor
+     * @return The tics that back the equivalent Time
+     */
+    public static long parseUTC(CharSequence utc) {
+        return parseUTC(utc, defaultContext);
+    }
+
+    /**
+     * Parses a UTC string into tics the way the given context says to
+     * @param utc A UTC string in any format accepted by the Time constructor
+     * @param context The settings to parse with
+     * @return The tics that back the equivalent Time
+     */
+    public static long parseUTC(CharSequence utc, TimeContext context) {
+        long parsedTics = parseUTCInJava(utc, context);
+        return parsedTics != UTCParser.NOT_PARSED ? parsedTics : parseTics(utc.toString(), context);
+    }
+
+    /**
+     * Parses a UTC string stored in part of a char array into tics, without copying it out for the common forms
+     * @param utc The array holding the string
+     * @param offset Index of the first char of the time
+     * @param length Number of chars in the time
+     * @return The tics that back the equivalent Time
+     */
+    public static long parseUTC(char[] utc, int offset, int length) {
+        return parseUTC(utc, offset, length, defaultContext);
+    }
+
+    /**
+     * Parses a UTC string stored in part of a char array into tics the way the given context says to
+     * @param utc The array holding the string
+     * @param offset Index of the first char of the time
+     * @param length Number of chars in the time
+     * @param context The settings to parse with
+     * @return The tics that back the equivalent Time
+     */
+    public static long parseUTC(char[] utc, int offset, int length, TimeContext context) {
+        if(!context.getUseSpiceForMath() || context.getLeapSecondsKernel() != null){
+            long parsedTics = UTCParser.parse(utc, offset, length, context.getUseSpiceForMath() ? context.getLeapSecondsKernel() : null);
+            if(parsedTics != UTCParser.NOT_PARSED){
+                return parsedTics;
+            }
+        }
+        return parseTics(new String(utc, offset, length), context);
+    }
+
+    /**
+     * Parses a UTC string stored as ASCII in part of a byte array, like a line of a telemetry file, into tics
+     * without decoding it to a String for the common forms
+     * @param utc The array holding the string
+     * @param offset Index of the first byte of the time
+     * @param length Number of bytes in the time
+     * @return The tics that back the equivalent Time
+     */
+    public static long parseUTC(byte[] utc, int offset, int length) {
+        return parseUTC(utc, offset, length, defaultContext);
+    }
+
+    /**
+     * Parses a UTC string stored as ASCII in part of a byte array into tics the way the given context says to
+     * @param utc The array holding the string
+     * @param offset Index of the first byte of the time
+     * @param length Number of bytes in the time
+     * @param context The settings to parse with
+     * @return The tics that back the equivalent Time
+     */
+    public static long parseUTC(byte[] utc, int offset, int length, TimeContext context) {
+        if(!context.getUseSpiceForMath() || context.getLeapSecondsKernel() != null){
+            long parsedTics = UTCParser.parse(utc, offset, length, context.getUseSpiceForMath() ? context.getLeapSecondsKernel() : null);
+            if(parsedTics != UTCParser.NOT_PARSED){
+                return parsedTics;
+            }
         }
+        return parseTics(new String(utc, offset, length, StandardCharsets.US_ASCII), context);
     }
 
     /**
@@ -567,7 +819,8 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return
      */
     public String toUTC() {
-        return toUTC(getDefaultOutputPrecision());
+        TimeContext context = defaultContext;
+        return toUTC(context.getDefaultOutputPrecision(), context);
     }
 
     /**
@@ -576,28 +829,117 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A string representing the time in UTC DOY format
      */
     public String toUTC(int precision) {
-        if(useSpiceForMath){
-            try {
-                return CSPICE.et2utc(tai2et(tics), "ISOD", precision);
-            } catch (SpiceErrorException e) {
-                throw new RuntimeException("Cannot turn time with TAI = " + tics + " into a string - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
-            }
+        return toUTC(precision, defaultContext);
+    }
+
+    /**
+     * Returns a utc string with the default precision of the given context
+     * @param context The settings this time was made with
+     * @return A string representing the time in UTC DOY format
+     */
+    public String toUTC(TimeContext context) {
+        return toUTC(context.getDefaultOutputPrecision(), context);
+    }
+
+    /**
+     * Outputs a string representing a time with the given number of decimal precision, the way the given context says to
+     * @param precision An integer, the number of decimal places put out by the function
+     * @param context The settings this time was made with
+     * @return A string representing the time in UTC DOY format
+     */
+    public String toUTC(int precision, TimeContext context) {
+        char[] buffer = getUTCFormatBuffer(precision);
+        int length = formatUTC(precision, buffer, 0, context);
+        if(length >= 0){
+            return new String(buffer, 0, length);
         }
-        else{
-            // bound decimal places between 0 and max precision supported by backing data structure
-            int numDecimalPlaces = precision > numberDecimalDigits ? numberDecimalDigits : precision < 0 ? 0 : precision;
 
-            long ticsRounder = 1;
-            for(int i = 0; i<(numberDecimalDigits-numDecimalPlaces); i++){
-                ticsRounder *= 10;
-            }
-            long roundedTics = Math.round(((double)tics)/ticsRounder)*ticsRounder;
+        try {
+            return CSPICE.et2utc(tai2et(tics, context), "ISOD", precision);
+        } catch (SpiceErrorException e) {
+            throw new RuntimeException("Cannot turn time with TAI = " + tics + " into a string - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the same string as toUTC(precision) to the builder without any intermediate objects
+     * @param sb The builder to append to
+     * @param precision An integer, the number of decimal places put out by the function
+     * @return sb
+     */
+    public StringBuilder appendUTC(StringBuilder sb, int precision) {
+        return appendUTC(sb, precision, defaultContext);
+    }
 
-            // since Java DateTime only gets new leap seconds from version updates, we will not get the correct time adding across leap seconds
-            LocalDateTime localDT = EPOCH.plusNanos(roundedTics*NANOSECONDS_PER_TIC);
+    /**
+     * Appends the same string as toUTC(precision, context) to the builder without any intermediate objects
+     * @param sb The builder to append to
+     * @param precision An integer, the number of decimal places put out by the function
+     * @param context The settings this time was made with
+     * @return sb
+     */
+    public StringBuilder appendUTC(StringBuilder sb, int precision, TimeContext context) {
+        char[] buffer = getUTCFormatBuffer(precision);
+        int length = formatUTC(precision, buffer, 0, context);
+        return length >= 0 ? sb.append(buffer, 0, length) : sb.append(toUTC(precision, context));
+    }
 
-            return localDT.format(outputUTCFormatters[numDecimalPlaces]);
+    /**
+     * Writes the same string as toUTC(precision) into a char array. For years 0-9999 this writes 17 chars, plus a
+     * decimal point and precision digits, at most 8, if precision is positive.
+     * @param dest The array to write into, which must have room for the whole string
+     * @param offset Where in dest to write the first char
+     * @param precision An integer, the number of decimal places put out by the function
+     * @return The number of chars written
+     */
+    public int writeUTC(char[] dest, int offset, int precision) {
+        return writeUTC(dest, offset, precision, defaultContext);
+    }
+
+    /**
+     * Writes the same string as toUTC(precision, context) into a char array
+     * @param dest The array to write into, which must have room for the whole string
+     * @param offset Where in dest to write the first char
+     * @param precision An integer, the number of decimal places put out by the function
+     * @param context The settings this time was made with
+     * @return The number of chars written
+     */
+    public int writeUTC(char[] dest, int offset, int precision, TimeContext context) {
+        int end = formatUTC(precision, dest, offset, context);
+        if(end >= 0){
+            return end - offset;
         }
+
+        String utc = toUTC(precision, context);
+        utc.getChars(0, utc.length(), dest, offset);
+        return utc.length();
+    }
+
+    /**
+     * Writes the same string as toUTC(precision) into a byte buffer as ASCII, starting at and advancing its position
+     * @param dest The buffer to write into, which must have room for the whole string
+     * @param precision An integer, the number of decimal places put out by the function
+     * @return The number of bytes written
+     */
+    public int writeUTC(ByteBuffer dest, int precision) {
+        return writeUTC(dest, precision, defaultContext);
+    }
+
+    /**
+     * Writes the same string as toUTC(precision, context) into a byte buffer as ASCII, starting at and advancing its
+     * position
+     * @param dest The buffer to write into, which must have room for the whole string
+     * @param precision An integer, the number of decimal places put out by the function
+     * @param context The settings this time was made with
+     * @return The number of bytes written
+     */
+    public int writeUTC(ByteBuffer dest, int precision, TimeContext context) {
+        char[] buffer = getUTCFormatBuffer(precision);
+        int length = writeUTC(buffer, 0, precision, context);
+        for(int i = 0; i < length; i++){
+            dest.put((byte) buffer[i]);
+        }
+        return length;
     }
 
     /**
@@ -605,14 +947,27 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A double, SPICE TAI of the instant of this object
      */
     public double toTAI() {
-        if(useSpiceForMath){
+        return toTAI(defaultContext);
+    }
+
+    /**
+     * Outputs a double representing the time in SPICE TAI
+     * @param context The settings this time was made with
+     * @return A double, SPICE TAI of the instant of this object
+     */
+    public double toTAI(TimeContext context) {
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(context.getUseSpiceForMath()){
             return tics/(double)ONE_SECOND;
         }
+        else if(leapSecondsKernel != null){
+            return leapSecondsKernel.utcTicsToTai(tics)/(double)ONE_SECOND;
+        }
         else{
             try {
-                return et2tai(toET())/(double)ONE_SECOND;
+                return et2tai(toET(context), context)/(double)ONE_SECOND;
             } catch (SpiceErrorException e) {
-                throw new RuntimeException("Cannot convert Time " + toString() + " to tai - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
+                throw new RuntimeException("Cannot convert Time " + toUTC(context) + " to tai - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
             }
         }
     }
@@ -623,12 +978,26 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A new Time object
      */
     public static Time fromTAI(double TAI) {
-        if(useSpiceForMath) {
+        return fromTAI(TAI, defaultContext);
+    }
+
+    /**
+     * Creates a Time object from Spice TAI seconds
+     * @param TAI Spice TAI seconds
+     * @param context The settings to make the time with
+     * @return A new Time object
+     */
+    public static Time fromTAI(double TAI, TimeContext context) {
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(context.getUseSpiceForMath()) {
             return new Time(Math.round(TAI * ONE_SECOND));
         }
+        else if(leapSecondsKernel != null){
+            return new Time(leapSecondsKernel.taiToUtcTics(Math.round(TAI * ONE_SECOND)));
+        }
         else{
             try {
-                return fromET(tai2et(Math.round(TAI * ONE_SECOND)));
+                return fromET(tai2et(Math.round(TAI * ONE_SECOND), context), context);
             } catch (SpiceErrorException e) {
                 throw new RuntimeException("Cannot convert create time from TAI " + TAI + " - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
             }
@@ -640,18 +1009,31 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A double of the Spice ET equivalent to the calling object
      */
     public double toET() {
-        if(useSpiceForMath) {
+        return toET(defaultContext);
+    }
+
+    /**
+     * Converts the calling Time object to Spice ephemeris time
+     * @param context The settings this time was made with
+     * @return A double of the Spice ET equivalent to the calling object
+     */
+    public double toET(TimeContext context) {
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(context.getUseSpiceForMath()) {
             try {
-                return tai2et(tics);
+                return tai2et(tics, context);
             } catch (SpiceErrorException e) {
                 throw new RuntimeException("Cannot convert TAI " + tics + " to et - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
             }
         }
+        else if(leapSecondsKernel != null){
+            return leapSecondsKernel.taiToEt(leapSecondsKernel.utcTicsToTai(tics)/(double)ONE_SECOND);
+        }
         else{
             try{
-                return CSPICE.str2et(toUTC());
+                return CSPICE.str2et(toUTC(context));
             } catch (SpiceErrorException e) {
-                throw new RuntimeException("Cannot convert Time " + toString() + " to et - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
+                throw new RuntimeException("Cannot convert Time " + toUTC(context) + " to et - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
             }
         }
     }
@@ -662,21 +1044,33 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A new Time object
      */
     public static Time fromET(double ephemerisTime) {
-        if(useSpiceForMath) {
+        return fromET(ephemerisTime, defaultContext);
+    }
+
+    /**
+     * Creates a Time object from Spice ET seconds
+     * @param ephemerisTime Spice ET seconds
+     * @param context The settings to make the time with
+     * @return A new Time object
+     */
+    public static Time fromET(double ephemerisTime, TimeContext context) {
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(context.getUseSpiceForMath()) {
             try {
-                return new Time(et2tai(ephemerisTime));
+                return new Time(et2tai(ephemerisTime, context));
             } catch (SpiceErrorException e) {
                 throw new RuntimeException("Cannot convert create time from ET " + ephemerisTime + " - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
             }
         }
+        else if(leapSecondsKernel != null){
+            return new Time(leapSecondsKernel.taiToUtcTics(Math.round(leapSecondsKernel.etToTai(ephemerisTime)*ONE_SECOND)));
+        }
         else{
-            Time t = new Time();
             try {
-                t.valueOf(CSPICE.et2utc(ephemerisTime, "D", numberDecimalDigits).replace(" // ", "T"));
+                return new Time(parseTics(CSPICE.et2utc(ephemerisTime, "D", numberDecimalDigits).replace(" // ", "T"), context));
             } catch (SpiceErrorException e) {
                 throw new RuntimeException("Cannot convert create time from ET " + ephemerisTime + " - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
             }
-            return t;
         }
     }
 
@@ -708,8 +1102,27 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A string representing the time in ISOC format
      */
     public String toISOC(int precision) {
+        return toISOC(precision, defaultContext);
+    }
+
+    /**
+     * Outputs a string representing a time with the context's default number of decimal precision
+     * @param context The settings this time was made with
+     * @return A string representing the time in ISOC format
+     */
+    public String toISOC(TimeContext context) {
+        return toISOC(context.getDefaultOutputPrecision(), context);
+    }
+
+    /**
+     * Outputs a string representing a time with the given number of decimal precision
+     * @param precision An integer, the number of decimal places put out by the function
+     * @param context The settings this time was made with
+     * @return A string representing the time in ISOC format
+     */
+    public String toISOC(int precision, TimeContext context) {
         try {
-            return CSPICE.et2utc(toET(), "ISOC", precision);
+            return CSPICE.et2utc(toET(context), "ISOC", precision);
         } catch (SpiceErrorException e) {
             throw new RuntimeException("Cannot turn time with TAI = " + tics + " into a string - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
         }
@@ -729,8 +1142,27 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A string representing the time in Julian date format
      */
     public String toJulian(int precision) {
+        return toJulian(precision, defaultContext);
+    }
+
+    /**
+     * Outputs a string representing a time with the context's default number of decimal precision
+     * @param context The settings this time was made with
+     * @return A string representing the time in Julian date format
+     */
+    public String toJulian(TimeContext context) {
+        return toJulian(context.getDefaultOutputPrecision(), context);
+    }
+
+    /**
+     * Outputs a string representing a time with the given number of decimal precision
+     * @param precision An integer, the number of decimal places put out by the function
+     * @param context The settings this time was made with
+     * @return A string representing the time in Julian date format
+     */
+    public String toJulian(int precision, TimeContext context) {
         try {
-            return CSPICE.et2utc(toET(), "J", precision);
+            return CSPICE.et2utc(toET(context), "J", precision);
         } catch (SpiceErrorException e) {
             throw new RuntimeException("Cannot turn time with TAI = " + tics + " into a string - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
         }
@@ -750,8 +1182,27 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A string representing the time in UTC calendar format
      */
     public String toCalendar(int precision) {
+        return toCalendar(precision, defaultContext);
+    }
+
+    /**
+     * Outputs a string representing a time with the context's default number of decimal precision
+     * @param context The settings this time was made with
+     * @return A string representing the time in UTC calendar format
+     */
+    public String toCalendar(TimeContext context) {
+        return toCalendar(context.getDefaultOutputPrecision(), context);
+    }
+
+    /**
+     * Outputs a string representing a time with the given number of decimal precision
+     * @param precision An integer, the number of decimal places put out by the function
+     * @param context The settings this time was made with
+     * @return A string representing the time in UTC calendar format
+     */
+    public String toCalendar(int precision, TimeContext context) {
         try {
-            return CSPICE.et2utc(toET(), "C", precision);
+            return CSPICE.et2utc(toET(context), "C", precision);
         } catch (SpiceErrorException e) {
             throw new RuntimeException("Cannot turn time with TAI = " + tics + " into a string - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
         }
@@ -762,7 +1213,16 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return
      */
     public AM_PM toUtcAmPm() {
-        String utcString = toUTC(getDefaultOutputPrecision());
+        return toUtcAmPm(defaultContext);
+    }
+
+    /**
+     * Returns whether or not the UTC time is before noon as an AM_PM enum object.
+     * @param context The settings this time was made with
+     * @return
+     */
+    public AM_PM toUtcAmPm(TimeContext context) {
+        String utcString = toUTC(context.getDefaultOutputPrecision(), context);
         Matcher utcMatcher = TIME_PATTERN.matcher(utcString);
         if (utcMatcher.find()) {
             if (Integer.valueOf(utcMatcher.group("hours")) < 12) {
@@ -787,98 +1247,303 @@ public class Time implements Comparable<Time>, ConvertableFromString {
     }
 
     /**
-     * Outputs the SCLK string that is equivalent to the calling object. Uses Spice sce2s
+     * Outputs the SCLK string that is equivalent to the calling object. Uses Spice sce2s
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @return This time's SCLK string
+     */
+    public String toSCLK(int sc_id){
+        return toSCLK(sc_id, defaultContext);
+    }
+
+    /**
+     * Outputs the SCLK string that is equivalent to the calling object, using the SCLK kernels of the given context
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @param context The settings this time was made with
+     * @return This time's SCLK string
+     */
+    public String toSCLK(int sc_id, TimeContext context){
+        SclkKernel kernel = context.getSclkKernel(sc_id);
+        if(kernel != null){
+            return kernel.format(kernel.taiToRoundedTicks(toTai(tics, kernel.getLeapSecondsKernel(), context)));
+        }
+        try {
+            return CSPICE.sce2s(sc_id, toET(context));
+        } catch (SpiceErrorException e) {
+            throw new RuntimeException("Cannot convert time with TAI = " + tics + " to SCLK - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns a Time object that is equivalent to a given SCLK string.
+     * Uses default spacecraft id.
+     * @param sclk_string The SCLK string itself - must be in a format that Spice scs2e can understand
+     * @return A new Time object
+     */
+    public static Time fromSCLK(String sclk_string){
+        return fromSCLK(sclk_string, getDefaultSpacecraftId());
+    }
+
+    /**
+     * Returns a Time object that is equivalent to a given SCLK string
+     * @param sclk_string The SCLK string itself - must be in a format that Spice scs2e can understand
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @return A new Time object
+     */
+    public static Time fromSCLK(String sclk_string, int sc_id){
+        return fromSCLK(sclk_string, sc_id, defaultContext);
+    }
+
+    /**
+     * Returns a Time object that is equivalent to a given SCLK string, using the SCLK kernels of the given context
+     * @param sclk_string The SCLK string itself - must be in a format that Spice scs2e can understand
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @param context The settings to make the time with
+     * @return A new Time object
+     */
+    public static Time fromSCLK(String sclk_string, int sc_id, TimeContext context){
+        SclkKernel kernel = context.getSclkKernel(sc_id);
+        if(kernel != null){
+            return new Time(fromTai(kernel.ticksToTai(kernel.parse(sclk_string)), kernel.getLeapSecondsKernel(), context));
+        }
+        try {
+            return Time.fromET(CSPICE.scs2e(sc_id, sclk_string), context);
+        } catch (SpiceErrorException e) {
+            throw new RuntimeException("Could not convert SCLK string " + sclk_string + " for spacecraft " + sc_id + " into a Time object, for more info see:\n" + e.getMessage());
+        }
+    }
+
+    /**
+     * Outputs the SCLK decimal that is equivalent to the calling object, which is the seconds field of toSCLK() plus
+     * the subseconds field divided by its modulus. The moduli and partitions are read once per clock, from the
+     * SclkKernel if one was added or else by calling gdpool on the SCLK kernel.
+     * Uses default spacecraft id.
+     * @return This time's SCLK decimal
+     */
+    public double toSCLKD(){
+        return toSCLKD(getDefaultSpacecraftId());
+    }
+
+    /**
+     * Outputs the SCLK decimal that is equivalent to the calling object, which is the seconds field of toSCLK() plus
+     * the subseconds field divided by its modulus. The moduli and partitions are read once per clock, from the
+     * SclkKernel if one was added or else by calling gdpool on the SCLK kernel.
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @return This time's SCLK decimal
+     */
+    public double toSCLKD(int sc_id){
+        return toSCLKD(sc_id, defaultContext);
+    }
+
+    /**
+     * Outputs the SCLK decimal that is equivalent to the calling object, using the SCLK kernels of the given context
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @param context The settings this time was made with
+     * @return This time's SCLK decimal
+     */
+    public double toSCLKD(int sc_id, TimeContext context){
+        return context.getSclkdLayout(sc_id).ticksToSclkd(ticsToSclkTicks(tics, sc_id, context));
+    }
+
+    /**
+     * Outputs the SCLK decimal that is equivalent to the calling object in fixed point, counted in subseconds of the
+     * clock, so for a clock with a subsecond modulus of 65536 it is toSCLKD() * 65536 but without floating point error
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @return This time's SCLK in subseconds
+     */
+    public long toFixedPointSCLKD(int sc_id){
+        return toFixedPointSCLKD(sc_id, defaultContext);
+    }
+
+    /**
+     * Outputs the SCLK decimal that is equivalent to the calling object in fixed point, using the SCLK kernels of the
+     * given context
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @param context The settings this time was made with
+     * @return This time's SCLK in subseconds
+     */
+    public long toFixedPointSCLKD(int sc_id, TimeContext context){
+        return context.getSclkdLayout(sc_id).ticksToFixedPointSclkd(ticsToSclkTicks(tics, sc_id, context));
+    }
+
+    /**
+     * Creates a time object given a SCLK decimal. Uses default spacecraft id.
+     * @param sclkd The SCLK decimal itself - a float number of seconds
+     * @return A new Time object
+     */
+    public static Time fromSCLKD(double sclkd){
+        return fromSCLKD(sclkd, getDefaultSpacecraftId());
+    }
+
+
+    /**
+     * Creates a time object given a SCLK decimal and a SC NAIF id. The fractional part is rounded to the nearest
+     * subsecond of the clock and the result is taken to be in the first partition.
+     * @param sclkd The SCLK decimal itself - a float number of seconds
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @return A new Time object
+     */
+    public static Time fromSCLKD(double sclkd, int sc_id){
+        return fromSCLKD(sclkd, sc_id, defaultContext);
+    }
+
+    /**
+     * Creates a time object given a SCLK decimal and a SC NAIF id, using the SCLK kernels of the given context
+     * @param sclkd The SCLK decimal itself - a float number of seconds
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @param context The settings to make the time with
+     * @return A new Time object
+     */
+    public static Time fromSCLKD(double sclkd, int sc_id, TimeContext context){
+        return new Time(sclkTicksToTics(context.getSclkdLayout(sc_id).sclkdToTicks(sclkd), sc_id, context));
+    }
+
+    /**
+     * Creates a time object given a SCLK decimal in fixed point, like toFixedPointSCLKD returns
+     * @param fixedPointSclkd The SCLK counted in subseconds of the clock, for example 65536ths of a second
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @return A new Time object
+     */
+    public static Time fromFixedPointSCLKD(long fixedPointSclkd, int sc_id){
+        return fromFixedPointSCLKD(fixedPointSclkd, sc_id, defaultContext);
+    }
+
+    /**
+     * Creates a time object given a SCLK decimal in fixed point, using the SCLK kernels of the given context
+     * @param fixedPointSclkd The SCLK counted in subseconds of the clock, for example 65536ths of a second
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @param context The settings to make the time with
+     * @return A new Time object
+     */
+    public static Time fromFixedPointSCLKD(long fixedPointSclkd, int sc_id, TimeContext context){
+        return new Time(sclkTicksToTics(context.getSclkdLayout(sc_id).fixedPointSclkdToTicks(fixedPointSclkd), sc_id, context));
+    }
+
+    /**
+     * Converts many times to SCLK decimals at once, without creating Time objects
+     * @param tics Times, as returned by getTics()
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @return The SCLK decimal of each time, the same as toSCLKD(sc_id) would return
+     */
+    public static double[] toSCLKD(long[] tics, int sc_id){
+        return toSCLKD(tics, sc_id, defaultContext);
+    }
+
+    /**
+     * Converts many times to SCLK decimals at once, using the SCLK kernels of the given context
+     * @param tics Times, as returned by getTics()
      * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
-     * @return This time's SCLK string
-     */
-    public String toSCLK(int sc_id){
-        try {
-            return CSPICE.sce2s(sc_id, toET());
-        } catch (SpiceErrorException e) {
-            throw new RuntimeException("Cannot convert time with TAI = " + tics + " to SCLK - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
+     * @param context The settings the times were made with
+     * @return The SCLK decimal of each time, the same as toSCLKD(sc_id, context) would return
+     */
+    public static double[] toSCLKD(long[] tics, int sc_id, TimeContext context){
+        SclkKernel layout = context.getSclkdLayout(sc_id);
+        double[] sclkds = new double[tics.length];
+        for(int i = 0; i < tics.length; i++){
+            sclkds[i] = layout.ticksToSclkd(ticsToSclkTicks(tics[i], sc_id, context));
         }
+        return sclkds;
     }
 
     /**
-     * Returns a Time object that is equivalent to a given SCLK string.
-     * Uses default spacecraft id.
-     * @param sclk_string The SCLK string itself - must be in a format that Spice scs2e can understand
-     * @return A new Time object
+     * Converts many SCLK decimals to times at once, without creating Time objects
+     * @param sclkds SCLK decimals, float numbers of seconds
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @return The tics of each time, the same as fromSCLKD(sclkd, sc_id).getTics() would return
      */
-    public static Time fromSCLK(String sclk_string){
-        return fromSCLK(sclk_string, getDefaultSpacecraftId());
+    public static long[] fromSCLKD(double[] sclkds, int sc_id){
+        return fromSCLKD(sclkds, sc_id, defaultContext);
     }
 
     /**
-     * Returns a Time object that is equivalent to a given SCLK string
-     * @param sclk_string The SCLK string itself - must be in a format that Spice scs2e can understand
+     * Converts many SCLK decimals to times at once, using the SCLK kernels of the given context
+     * @param sclkds SCLK decimals, float numbers of seconds
      * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
-     * @return A new Time object
-     */
-    public static Time fromSCLK(String sclk_string, int sc_id){
-        try {
-            return Time.fromET(CSPICE.scs2e(sc_id, sclk_string));
-        } catch (SpiceErrorException e) {
-            throw new RuntimeException("Could not convert SCLK string " + sclk_string + " for spacecraft " + sc_id + " into a Time object, for more info see:\n" + e.getMessage());
+     * @param context The settings to make the times with
+     * @return The tics of each time, the same as fromSCLKD(sclkd, sc_id, context).getTics() would return
+     */
+    public static long[] fromSCLKD(double[] sclkds, int sc_id, TimeContext context){
+        SclkKernel layout = context.getSclkdLayout(sc_id);
+        long[] tics = new long[sclkds.length];
+        for(int i = 0; i < sclkds.length; i++){
+            tics[i] = sclkTicksToTics(layout.sclkdToTicks(sclkds[i]), sc_id, context);
         }
+        return tics;
     }
 
     /**
-     * Outputs the SCLK decimal that is equivalent to the calling object. Uses sce2s then converts to a decimal.
-     * Automatically figures out the SCLK sub-second modulus by calling gdpool on the SCLK kernel.
-     * Uses default spacecraft id.
-     * @return This time's SCLK decimal
+     * Converts many times to fixed point SCLK decimals at once, without creating Time objects
+     * @param tics Times, as returned by getTics()
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @return The SCLK of each time in subseconds of the clock, the same as toFixedPointSCLKD(sc_id) would return
      */
-    public double toSCLKD(){
-        return toSCLKD(getDefaultSpacecraftId());
+    public static long[] toFixedPointSCLKD(long[] tics, int sc_id){
+        return toFixedPointSCLKD(tics, sc_id, defaultContext);
     }
 
     /**
-     * Outputs the SCLK decimal that is equivalent to the calling object. Uses sce2s then converts to a decimal.
-     * Automatically figures out the SCLK sub-second modulus by calling gdpool on the SCLK kernel
+     * Converts many times to fixed point SCLK decimals at once, using the SCLK kernels of the given context
+     * @param tics Times, as returned by getTics()
      * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
-     * @return This time's SCLK decimal
-     */
-    public double toSCLKD(int sc_id){
-        String sclk_string = toSCLK(sc_id);
-        Matcher sclkMatcher = SCLK_PATTERN.matcher(sclk_string);
-        if(sclkMatcher.find()){
-            double subseconds = Integer.valueOf(sclkMatcher.group("fraction"))/getSclkFractionalPart(sc_id);
-            return Integer.valueOf(sclkMatcher.group("seconds")) + subseconds;
-        }
-        else{
-            throw new RuntimeException("Error parsing SCLK string: " + sclk_string);
+     * @param context The settings the times were made with
+     * @return The SCLK of each time in subseconds of the clock, the same as toFixedPointSCLKD(sc_id, context) would return
+     */
+    public static long[] toFixedPointSCLKD(long[] tics, int sc_id, TimeContext context){
+        SclkKernel layout = context.getSclkdLayout(sc_id);
+        long[] sclkds = new long[tics.length];
+        for(int i = 0; i < tics.length; i++){
+            sclkds[i] = layout.ticksToFixedPointSclkd(ticsToSclkTicks(tics[i], sc_id, context));
         }
+        return sclkds;
     }
 
     /**
-     * Creates a time object given a SCLK decimal. Uses default spacecraft id.
-     * @param sclkd The SCLK decimal itself - a float number of seconds
-     * @return A new Time object
+     * Converts many fixed point SCLK decimals to times at once, without creating Time objects
+     * @param fixedPointSclkds SCLKs counted in subseconds of the clock
+     * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
+     * @return The tics of each time, the same as fromFixedPointSCLKD(sclkd, sc_id).getTics() would return
      */
-    public static Time fromSCLKD(double sclkd){
-        return fromSCLKD(sclkd, getDefaultSpacecraftId());
+    public static long[] fromFixedPointSCLKD(long[] fixedPointSclkds, int sc_id){
+        return fromFixedPointSCLKD(fixedPointSclkds, sc_id, defaultContext);
     }
 
-
     /**
-     * Creates a time object given a SCLK decimal and a SC NAIF id
-     * @param sclkd The SCLK decimal itself - a float number of seconds
+     * Converts many fixed point SCLK decimals to times at once, using the SCLK kernels of the given context
+     * @param fixedPointSclkds SCLKs counted in subseconds of the clock
      * @param sc_id The NAIF ID of the spacecraft whose SCLK it is. This is typically a negative 3 digit number.
-     * @return A new Time object
-     */
-    public static Time fromSCLKD(double sclkd, int sc_id){
-        // we need the %f formatter to make sure to get the full decimal as expected, not scientific notation
-        Matcher sclkdMatcher = SCLKD_PATTERN.matcher(String.format("%f",sclkd));
-        if(sclkdMatcher.find()) {
-            long seconds = Long.valueOf(sclkdMatcher.group("seconds"));
-            double subseconds = Double.valueOf("0." + sclkdMatcher.group("subsec"));
-            long correctedSubseconds = Math.round(subseconds * getSclkFractionalPart(sc_id));
-            String sclk_string = String.format("1/%s-%s", seconds, correctedSubseconds);
-            return fromSCLK(sclk_string, sc_id);
+     * @param context The settings to make the times with
+     * @return The tics of each time, the same as fromFixedPointSCLKD(sclkd, sc_id, context).getTics() would return
+     */
+    public static long[] fromFixedPointSCLKD(long[] fixedPointSclkds, int sc_id, TimeContext context){
+        SclkKernel layout = context.getSclkdLayout(sc_id);
+        long[] tics = new long[fixedPointSclkds.length];
+        for(int i = 0; i < fixedPointSclkds.length; i++){
+            tics[i] = sclkTicksToTics(layout.fixedPointSclkdToTicks(fixedPointSclkds[i]), sc_id, context);
         }
-        else{
-            throw new RuntimeException("Cannot convert SCLKD " + sclkd + " to a Time object - it does not fit the expected format of SSSSSS.ssss (any number of each digits for each field are acceptable)");
+        return tics;
+    }
+
+    // encoded SCLK ticks rounded to the nearest tick like sce2s does, from the SclkKernel if one was added or else sce2c
+    private static long ticsToSclkTicks(long tics, int sc_id, TimeContext context){
+        SclkKernel kernel = context.getSclkKernel(sc_id);
+        if(kernel != null){
+            return kernel.taiToRoundedTicks(toTai(tics, kernel.getLeapSecondsKernel(), context));
+        }
+        try {
+            return (long) Math.floor(CSPICE.sce2c(sc_id, new Time(tics).toET(context)) + 0.5);
+        } catch (SpiceErrorException e) {
+            throw new RuntimeException("Cannot convert time with TAI = " + tics + " to SCLK - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
+        }
+    }
+
+    private static long sclkTicksToTics(double sclkTicks, int sc_id, TimeContext context){
+        SclkKernel kernel = context.getSclkKernel(sc_id);
+        if(kernel != null){
+            return fromTai(kernel.ticksToTai(sclkTicks), kernel.getLeapSecondsKernel(), context);
+        }
+        try {
+            return Time.fromET(CSPICE.sct2e(sc_id, sclkTicks), context).tics;
+        } catch (SpiceErrorException e) {
+            throw new RuntimeException("Could not convert SCLK ticks " + sclkTicks + " for spacecraft " + sc_id + " into a Time object, for more info see:\n" + e.getMessage());
         }
     }
 
@@ -892,28 +1557,6 @@ public class Time implements Comparable<Time>, ConvertableFromString {
         return new Time(tics);
     }
 
-    /**
-     * Checks if the SCLK fractional part has already been calculated before
-     * returning or calculating the correct value.
-     * @param sc_id
-     * @return
-     */
-    private static double getSclkFractionalPart(int sc_id) {
-        if (SCLK_FRACTIONAL_PART_MAP.containsKey(sc_id)) {
-            return SCLK_FRACTIONAL_PART_MAP.get(sc_id);
-        }
-        else {
-            try {
-                String quantityNeeded = "SCLK01_MODULI_" + Math.abs(sc_id);
-                double[] moduli = CSPICE.gdpool(quantityNeeded, 0, 2);
-                SCLK_FRACTIONAL_PART_MAP.put(sc_id, moduli[1]);
-                return moduli[1];
-            } catch (SpiceErrorException | KernelVarNotFoundException e) {
-                throw new RuntimeException("Could not find the SCLK fractional part - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
-            }
-        }
-    }
-
     /**
      * Wraps toLMST but uses default spacecraft id and precision
      * @return LMST string
@@ -939,14 +1582,31 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return The calling object represented as an LMST string
      */
     public String toLMST(int sc_id, int precision){
+        return toLMST(sc_id, precision, defaultContext);
+    }
+
+    /**
+     * Outputs a string that represents this instant in LMST, using the LMST kernels of the given context
+     * @param sc_id The NAIF ID of the spacecraft. This is typically a negative 3 digit number.
+     * @param precision The number of decimal places that should be included in the output
+     * @param context The settings this time was made with
+     * @return The calling object represented as an LMST string
+     */
+    public String toLMST(int sc_id, int precision, TimeContext context){
+        LmstKernel kernel = context.getLmstKernel(sc_id);
+        if(kernel != null){
+            long lmstTics = kernel.taiToLmstTics(toTai(tics, kernel.getSclkKernel().getLeapSecondsKernel(), context));
+            return formatLMST(lmstTics / ONE_DAY, new Duration(lmstTics % ONE_DAY), precision);
+        }
+
         int LMST_ID = (sc_id*1000) - 900;
         try {
-            return reformatSPICELMST(CSPICE.sce2s(LMST_ID, toET()), precision);
+            return reformatSPICELMST(CSPICE.sce2s(LMST_ID, toET(context)), precision);
         } catch (SpiceErrorException e) {
             // check to make sure that they are not failing because the time is before sol 0
-            Time lmstSol0 = Time.fromLMST("Sol-0000M00:00:00", sc_id);
+            Time lmstSol0 = Time.fromLMST("Sol-0000M00:00:00", sc_id, context);
             if (tics < lmstSol0.tics) {
-                throw new RuntimeException("Error converting " + toUTC() + " to LMST. Time is before LMST epoch " + lmstSol0.toUTC() + ".");
+                throw new RuntimeException("Error converting " + toUTC(context) + " to LMST. Time is before LMST epoch " + lmstSol0.toUTC(context) + ".");
             }
 
             // if not then throw the spice error which is probably from kernels missing
@@ -972,6 +1632,17 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A new Time object
      */
     public static Time fromLMST(String lmst, int sc_id){
+        return fromLMST(lmst, sc_id, defaultContext);
+    }
+
+    /**
+     * Returns a Time object equivalent to the input LMST string, using the LMST kernels of the given context
+     * @param lmst The LMST string - many different formats are accepted (the standard is Sol-####M##:##:##.###)
+     * @param sc_id The NAIF ID of the spacecraft. This is typically a negative 3 digit number.
+     * @param context The settings to make the time with
+     * @return A new Time object
+     */
+    public static Time fromLMST(String lmst, int sc_id, TimeContext context){
         Matcher lmstMatcher = LMST_STANDARD_REGEX_PATTERN.matcher(lmst);
         int LMST_ID = (sc_id*1000) - 900;
 
@@ -986,7 +1657,18 @@ public class Time implements Comparable<Time>, ConvertableFromString {
             }
 
             // convert the decimal to a fraction of the LMST modulus
-            String correctedDecimal = String.valueOf(Math.round(decimalPart*LMST_TICS_PER_SECOND));
+            long lmstClockTicks = Math.round(decimalPart*LMST_TICS_PER_SECOND);
+
+            LmstKernel kernel = context.getLmstKernel(sc_id);
+            if(kernel != null){
+                long ticsOfSol = Integer.valueOf(lmstMatcher.group("hours")) * ONE_HOUR
+                        + Integer.valueOf(lmstMatcher.group("minutes")) * ONE_MINUTE
+                        + Integer.valueOf(lmstMatcher.group("seconds")) * ONE_SECOND
+                        + lmstClockTicks * (ONE_SECOND / LMST_TICS_PER_SECOND);
+                long tai = kernel.lmstToTai(Long.valueOf(lmstMatcher.group("sol")), ticsOfSol);
+                return new Time(fromTai(tai, kernel.getSclkKernel().getLeapSecondsKernel(), context));
+            }
+            String correctedDecimal = String.valueOf(lmstClockTicks);
 
             // SPICE LMST is formatted differently than typical mars missions expect
             String spiceLMST = String.format("%s:%s:%s:%s:%s", lmstMatcher.group("sol"), lmstMatcher.group("hours"), lmstMatcher.group("minutes"), lmstMatcher.group("seconds"), correctedDecimal);
@@ -998,7 +1680,7 @@ public class Time implements Comparable<Time>, ConvertableFromString {
                 throw new RuntimeException("Could not convert " + spiceLMST + " to et using SPICE: " + e.getMessage());
             }
 
-            return Time.fromET(et);
+            return Time.fromET(et, context);
         }
         else{
             throw new RuntimeException("Error parsing LMST string: " + lmst + ". String did not match expected regex: " + LMST_STANDARD_REGEX);
@@ -1021,7 +1703,23 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return
      */
     public AM_PM toLmstAmPm(int sc_id) {
-        String lmstString = toLMST(sc_id, getDefaultOutputPrecision());
+        return toLmstAmPm(sc_id, defaultContext);
+    }
+
+    /**
+     * Returns whether or not the LMST time is before noon as an AM_PM enum object, using the LMST kernels of the
+     * given context
+     * @param sc_id The NAIF ID of the spacecraft. This is typically a negative 3 digit number.
+     * @param context The settings this time was made with
+     * @return AM or PM
+     */
+    public AM_PM toLmstAmPm(int sc_id, TimeContext context) {
+        LmstKernel kernel = context.getLmstKernel(sc_id);
+        if(kernel != null){
+            return kernel.isAM(toTai(tics, kernel.getSclkKernel().getLeapSecondsKernel(), context)) ? AM_PM.AM : AM_PM.PM;
+        }
+
+        String lmstString = toLMST(sc_id, context.getDefaultOutputPrecision(), context);
         Matcher lmstMatcher = LMST_STANDARD_REGEX_PATTERN.matcher(lmstString);
         if (lmstMatcher.find()) {
             if (Integer.valueOf(lmstMatcher.group("hours")) < 12) {
@@ -1052,7 +1750,22 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return An integer of the sol number at the Time queried
      */
     public int toSolNumber(int sc_id){
-        String LMST = toLMST(sc_id, getDefaultOutputPrecision());
+        return toSolNumber(sc_id, defaultContext);
+    }
+
+    /**
+     * The integer sol number at the calling object Time, using the LMST kernels of the given context
+     * @param sc_id The NAIF ID of the spacecraft. This is typically a negative 3 digit number.
+     * @param context The settings this time was made with
+     * @return An integer of the sol number at the Time queried
+     */
+    public int toSolNumber(int sc_id, TimeContext context){
+        LmstKernel kernel = context.getLmstKernel(sc_id);
+        if(kernel != null){
+            return kernel.toSolNumber(toTai(tics, kernel.getSclkKernel().getLeapSecondsKernel(), context));
+        }
+
+        String LMST = toLMST(sc_id, context.getDefaultOutputPrecision(), context);
         Matcher lmstMatcher = LMST_STANDARD_REGEX_PATTERN.matcher(LMST);
         String solNum;
         if(lmstMatcher.find()){
@@ -1082,7 +1795,23 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A double of the fractional sols elapsed since the LMST epoch
      */
     public double toFractionalSols(int sc_id){
-        String LMST = toLMST(sc_id, getDefaultOutputPrecision());
+        return toFractionalSols(sc_id, defaultContext);
+    }
+
+    /**
+     * The calling object Time expressed as a sol-fraction since the LMST epoch, using the LMST kernels of the given
+     * context
+     * @param sc_id The NAIF ID of the spacecraft. This is typically a negative 3 digit number.
+     * @param context The settings this time was made with
+     * @return A double of the fractional sols elapsed since the LMST epoch
+     */
+    public double toFractionalSols(int sc_id, TimeContext context){
+        LmstKernel kernel = context.getLmstKernel(sc_id);
+        if(kernel != null){
+            return kernel.toFractionalSols(toTai(tics, kernel.getSclkKernel().getLeapSecondsKernel(), context));
+        }
+
+        String LMST = toLMST(sc_id, context.getDefaultOutputPrecision(), context);
         Matcher lmstMatcher = LMST_STANDARD_REGEX_PATTERN.matcher(LMST);
         String solNum;
         String timeOfSol;
@@ -1102,7 +1831,16 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return LST duration (time of day)
      */
     public Duration toLST() {
-        return toLST(getDefaultSpacecraftId());
+        return toLST(defaultContext);
+    }
+
+    /**
+     * Wraps toLST but uses the spacecraft id, body id and frame the context defaults to.
+     * @param context The settings this time was made with
+     * @return LST duration (time of day)
+     */
+    public Duration toLST(TimeContext context) {
+        return toLST(context.getDefaultSpacecraftId(), context);
     }
 
     /**
@@ -1111,7 +1849,17 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return LST duration (time of day)
      */
     public Duration toLST(int sc_id) {
-        return toLST(sc_id, getDefaultLstBodyId(), getDefaultLstBodyFrame());
+        return toLST(sc_id, defaultContext);
+    }
+
+    /**
+     * Wraps toLST but uses the body id and frame the context defaults to.
+     * @param sc_id naif id of spacecraft
+     * @param context The settings this time was made with
+     * @return LST duration (time of day)
+     */
+    public Duration toLST(int sc_id, TimeContext context) {
+        return toLST(sc_id, context.getDefaultLstBodyId(), context.getDefaultLstBodyFrame(), context);
     }
 
     /**
@@ -1125,6 +1873,19 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A duration object between 0 and 24 hours in magnitude that contains the local solar time of the point on the given body
      */
     public Duration toLST(int sc_id, int body_id, String body_frame){
+        return toLST(sc_id, body_id, body_frame, defaultContext);
+    }
+
+    /**
+     * Gets the local solar time at a SC's location given that body ID and body frame, the same as
+     * toLST(sc_id, body_id, body_frame) for a time made with the given context
+     * @param sc_id The SC at whose position you want to know the local solar time
+     * @param body_id The NAIF ID of the body that the spacecraft is on or orbiting
+     * @param body_frame The NAIF frame string for the body the spacecraft is on or orbiting
+     * @param context The settings this time was made with
+     * @return A duration object between 0 and 24 hours in magnitude that contains the local solar time of the point on the given body
+     */
+    public Duration toLST(int sc_id, int body_id, String body_frame, TimeContext context){
         // variables needed to call spkez
         double[] state = new double[6];
         double[] lt = new double[1];
@@ -1139,9 +1900,10 @@ public class Time implements Comparable<Time>, ConvertableFromString {
 
         try {
             // position vector in xyz -> latlonrad -> et2lst takes a longitude
-            CSPICE.spkezr(String.valueOf(sc_id), toET(), body_frame, "None", String.valueOf(body_id), state, lt);
+            double et = toET(context);
+            CSPICE.spkezr(String.valueOf(sc_id), et, body_frame, "None", String.valueOf(body_id), state, lt);
             longitude_radians = CSPICE.reclat(Arrays.copyOfRange(state, 0, 3))[1];
-            CSPICE.et2lst(toET(), body_id, longitude_radians, "PLANETOCENTRIC", hr, min, sec, time, ampm);
+            CSPICE.et2lst(et, body_id, longitude_radians, "PLANETOCENTRIC", hr, min, sec, time, ampm);
         } catch (SpiceErrorException e) {
             throw new RuntimeException("Cannot convert time with TAI = " + tics + " to LST - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
         }
@@ -1154,7 +1916,16 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return LTST string
      */
     public String toLTST() {
-        return toLTST(getDefaultSpacecraftId(), getDefaultLstBodyId(), getDefaultLstBodyFrame());
+        return toLTST(defaultContext);
+    }
+
+    /**
+     * Wraps toLTST but uses the spacecraft id, body id and body frame the context defaults to.
+     * @param context The settings this time was made with
+     * @return LTST string
+     */
+    public String toLTST(TimeContext context) {
+        return toLTST(context.getDefaultSpacecraftId(), context);
     }
 
     /**
@@ -1163,7 +1934,17 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return LTST string
      */
     public String toLTST(int sc_id) {
-        return toLTST(sc_id, getDefaultLstBodyId(), getDefaultLstBodyFrame());
+        return toLTST(sc_id, defaultContext);
+    }
+
+    /**
+     * Wraps toLTST but uses the body id and frame the context defaults to.
+     * @param sc_id naif spacecraft id
+     * @param context The settings this time was made with
+     * @return LTST string
+     */
+    public String toLTST(int sc_id, TimeContext context) {
+        return toLTST(sc_id, context.getDefaultLstBodyId(), context.getDefaultLstBodyFrame(), context);
     }
 
     /**
@@ -1176,8 +1957,21 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return The calling object represented as an LTST string
      */
     public String toLTST(int sc_id, int body_id, String body_frame){
+        return toLTST(sc_id, body_id, body_frame, defaultContext);
+    }
+
+    /**
+     * Calculates the LMST-assisted LTST the same as toLTST(sc_id, body_id, body_frame), for a time made with the given
+     * context and with its LMST kernels
+     * @param sc_id The SC at whose position you want to know the local true solar time
+     * @param body_id The NAIF ID of the body that the spacecraft is on or orbiting
+     * @param body_frame The NAIF frame string for the body the spacecraft is on or orbiting
+     * @param context The settings this time was made with
+     * @return The calling object represented as an LTST string
+     */
+    public String toLTST(int sc_id, int body_id, String body_frame, TimeContext context){
         //the LST string doesn't have a sol number associated with it, so calculate it using LMST
-        String LMST = toLMST(sc_id, getDefaultOutputPrecision());
+        String LMST = toLMST(sc_id, context.getDefaultOutputPrecision(), context);
         Matcher lmstMatcher = LMST_STANDARD_REGEX_PATTERN.matcher(LMST);
         String lmstTOD = "";
         if(lmstMatcher.find()){
@@ -1189,7 +1983,7 @@ public class Time implements Comparable<Time>, ConvertableFromString {
 
         Duration LMSTTimeOfDay = new Duration(lmstTOD);
 
-        Duration LSTTimeOfDay = toLST(sc_id, body_id, body_frame);
+        Duration LSTTimeOfDay = toLST(sc_id, body_id, body_frame, context);
 
         // assume that LMST is within 12 hours of LTST
         Duration offset = new Duration("12:00:00");
@@ -1220,7 +2014,7 @@ public class Time implements Comparable<Time>, ConvertableFromString {
             parsedValue = LocalDateTime.parse(toUTC(), inputUtcFormat);
         }
         catch(DateTimeParseException e){
-            if(useSpiceForMath && e.getMessage().contains("Invalid value for SecondOfMinute (valid values 0 - 59): 60")){
+            if(defaultContext.getUseSpiceForMath() && e.getMessage().contains("Invalid value for SecondOfMinute (valid values 0 - 59): 60")){
                 // with use spice for math on, date time zones don't go to :60 for leap seconds
                 parsedValue = LocalDateTime.parse(this.subtract(SECOND_DURATION).toUTC(), inputUtcFormat);
             }
@@ -1276,27 +2070,51 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A double of the GPS seconds equivalent to the calling object
      */
     public double toGPSSeconds(){
-        return toTAI() - getGPSEpoch().toTAI();
+        return toGPSSeconds(defaultContext);
+    }
+
+    /**
+     * @param context The settings this time was made with
+     * @return A double of the GPS seconds equivalent to the calling object
+     */
+    public double toGPSSeconds(TimeContext context){
+        return toTAI(context) - getGPSEpoch(context).toTAI(context);
     }
 
     /**
      * @return A Time equivalent to the input gps time as seconds
      */
     public static Time fromGPSSeconds(double gpsSeconds){
-        return Time.fromTAI(getGPSEpoch().toTAI() + gpsSeconds);
+        return fromGPSSeconds(gpsSeconds, defaultContext);
+    }
+
+    /**
+     * @param context The settings to make the time with
+     * @return A Time equivalent to the input gps time as seconds
+     */
+    public static Time fromGPSSeconds(double gpsSeconds, TimeContext context){
+        return Time.fromTAI(getGPSEpoch(context).toTAI(context) + gpsSeconds, context);
     }
 
     /**
      * @return The time represented as a GPS string
      */
     public String toGPS(int precision){
-        double gpsSeconds = toGPSSeconds();
+        return toGPS(precision, defaultContext);
+    }
+
+    /**
+     * @param context The settings this time was made with
+     * @return The time represented as a GPS string
+     */
+    public String toGPS(int precision, TimeContext context){
+        double gpsSeconds = toGPSSeconds(context);
         long gpsSecondsOnly = (long) Math.floor(gpsSeconds);
         double gpsSubseconds = gpsSeconds - gpsSecondsOnly;
 
-        Instant currentTime = Instant.ofEpochSecond(LocalDateTime.parse(getGPSEpoch().toUTC(), inputUtcFormat).toInstant(ZoneOffset.UTC).getEpochSecond() + gpsSecondsOnly).plusNanos(Math.round(gpsSubseconds*1000000000L));
+        Instant currentTime = Instant.ofEpochSecond(LocalDateTime.parse(getGPSEpoch(context).toUTC(context), inputUtcFormat).toInstant(ZoneOffset.UTC).getEpochSecond() + gpsSecondsOnly).plusNanos(Math.round(gpsSubseconds*1000000000L));
 
-        return Time.fromTimezone(currentTime.atZone(ZoneOffset.UTC)).toUTC(precision);
+        return new Time(currentTime.atZone(ZoneOffset.UTC).format(outputUTCFormatters[context.getDefaultOutputPrecision()]), context).toUTC(precision, context);
     }
 
     /**
@@ -1304,13 +2122,23 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A time object equivalent to the input string
      */
     public static Time fromGPS(String gpsString){
+        return fromGPS(gpsString, defaultContext);
+    }
+
+    /**
+     * @param gpsString A time string in the GPS time system
+     * @param context The settings to make the time with
+     * @return A time object equivalent to the input string
+     */
+    public static Time fromGPS(String gpsString, TimeContext context){
         Matcher gpsMatcher = TIME_PATTERN.matcher(gpsString);
         double subseconds = 0;
         if(gpsMatcher.find()){
             subseconds = Double.valueOf("0." + gpsMatcher.group("subseconds"));
         }
 
-        return Time.fromTAI(getGPSEpoch().toTAI() + (LocalDateTime.parse(gpsString, inputUtcFormat).toInstant(ZoneOffset.UTC).getEpochSecond() - LocalDateTime.parse(getGPSEpoch().toUTC(), inputUtcFormat).toInstant(ZoneOffset.UTC).getEpochSecond()) + subseconds);
+        Time gpsEpoch = getGPSEpoch(context);
+        return Time.fromTAI(gpsEpoch.toTAI(context) + (LocalDateTime.parse(gpsString, inputUtcFormat).toInstant(ZoneOffset.UTC).getEpochSecond() - LocalDateTime.parse(gpsEpoch.toUTC(context), inputUtcFormat).toInstant(ZoneOffset.UTC).getEpochSecond()) + subseconds, context);
     }
 
     /**
@@ -1378,14 +2206,80 @@ public class Time implements Comparable<Time>, ConvertableFromString {
         return String.valueOf(((tics - getUnixEpoch().tics) / ONE_MILLISECOND));
     }
 
-    private static double tai2et(long tai) throws SpiceErrorException {
+    // TAI tics of a time in either mode, using the given kernel instead of SPICE to remove leap seconds if needed
+    static long toTai(long tics, LeapSecondsKernel lsk, TimeContext context){
+        return context.getUseSpiceForMath() ? tics : lsk.utcTicsToTai(tics);
+    }
+
+    static long fromTai(long tai, LeapSecondsKernel lsk, TimeContext context){
+        return context.getUseSpiceForMath() ? tai : lsk.taiToUtcTics(tai);
+    }
+
+    private static double tai2et(long tai, TimeContext context) throws SpiceErrorException {
+        EphemerisTimeCache cache = context.getEphemerisTimeCache();
+        if(cache != null && cache.covers(tai)){
+            return cache.taiToEt(tai);
+        }
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(leapSecondsKernel != null){
+            return leapSecondsKernel.taiToEt(tai/(double)ONE_SECOND);
+        }
         return CSPICE.unitim(tai/(double)ONE_SECOND, "TAI", "ET");
     }
 
-    private static long et2tai(double et) throws SpiceErrorException {
+    private static long et2tai(double et, TimeContext context) throws SpiceErrorException {
+        EphemerisTimeCache cache = context.getEphemerisTimeCache();
+        if(cache != null && cache.coversEt(et)){
+            return Math.round(cache.etToTai(et)*ONE_SECOND);
+        }
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(leapSecondsKernel != null){
+            return Math.round(leapSecondsKernel.etToTai(et)*ONE_SECOND);
+        }
         return Math.round(CSPICE.unitim(et, "ET", "TAI")*ONE_SECOND);
     }
 
+    // returns UTCParser.NOT_PARSED if the string is not in one of the simple formats or SPICE has to be used for leap seconds
+    static long parseUTCInJava(CharSequence utc, TimeContext context){
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(context.getUseSpiceForMath() && leapSecondsKernel == null){
+            return UTCParser.NOT_PARSED;
+        }
+        return UTCParser.parse(utc, context.getUseSpiceForMath() ? leapSecondsKernel : null);
+    }
+
+    // writes this time in UTC DOY format into dest without SPICE, or returns -1 if SPICE has to do it
+    private int formatUTC(int precision, char[] dest, int offset, TimeContext context){
+        return formatUTC(tics, precision, dest, offset, context);
+    }
+
+    static int formatUTC(long tics, int precision, char[] dest, int offset, TimeContext context){
+        // bound decimal places to the max precision supported by backing data structure, with or without leap seconds
+        int numDecimalPlaces = precision > numberDecimalDigits ? numberDecimalDigits : precision;
+        if(context.getUseSpiceForMath()){
+            LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+            if(leapSecondsKernel == null){
+                return -1;
+            }
+            long day = leapSecondsKernel.getUtcDayNumber(tics);
+            return UTCFormatter.format(day, tics - leapSecondsKernel.getTaiAtStartOfDay(day), leapSecondsKernel.getDayLength(day), numDecimalPlaces, dest, offset);
+        }
+        else{
+            // since there are no leap seconds here we will not get the correct time adding across leap seconds
+            long day = Math.floorDiv(tics + ONE_DAY / 2, ONE_DAY);
+            return UTCFormatter.format(day, tics + ONE_DAY / 2 - day * ONE_DAY, ONE_DAY, numDecimalPlaces, dest, offset);
+        }
+    }
+
+    private static char[] getUTCFormatBuffer(int precision){
+        char[] buffer = UTC_FORMAT_BUFFER.get();
+        if(buffer.length < UTCFormatter.maxLength(precision)){
+            buffer = new char[UTCFormatter.maxLength(precision)];
+            UTC_FORMAT_BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+
     private static String reformatSPICELMST(String SPICELMST, int precision){
         Matcher spiceLMSTMatcher = LMST_SPICE_REGEX_PATTERN.matcher(SPICELMST);
         if(spiceLMSTMatcher.find()){
@@ -1396,26 +2290,19 @@ public class Time implements Comparable<Time>, ConvertableFromString {
                     spiceLMSTMatcher.group("sec"),
                     spiceLMSTMatcher.group("subsec")));
 
-            // we round the mars duration using the same function as rounding the earth duration
-            String roundedDuration = mars_duration.toString(precision);
-            Matcher durationMatcher = durationPattern.matcher(roundedDuration);
-
-            if(durationMatcher.find()) {
-                if (durationMatcher.group("days") != null) {
-                    sol_number += Integer.valueOf(durationMatcher.group("days"));
-                }
-
-                return String.format("Sol-%04dM%s", sol_number, durationMatcher.group("timeOfDay"));
-            }
-            else{
-                throw new RuntimeException("Could not convert SPICE LMST output: " + SPICELMST + " to normal formatted LMST");
-            }
+            return formatLMST(sol_number, mars_duration, precision);
         }
         else{
             throw new RuntimeException("Error parsing SPICE LMST string: " + SPICELMST);
         }
     }
 
+    private static String formatLMST(long sol_number, Duration mars_duration, int precision){
+        // we round the mars duration using the same function as rounding the earth duration
+        char[] buffer = DurationFormatter.getBuffer();
+        return new String(buffer, 0, DurationFormatter.formatLMST(sol_number, mars_duration.getTics(), precision, buffer, 0));
+    }
+
     /**
      * Return the current system time as a Time object.
      * @return
@@ -1446,7 +2333,18 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A new Time object shifted by OWLT
      */
     public static Time ETT2SCET(Time ETT, int sc_id) {
-        return ETT.add(currentLightTimeProvider.upleg(ETT, sc_id, EARTH_NAIF_ID, "ETT"));
+        return ETT2SCET(ETT, sc_id, defaultContext);
+    }
+
+    /**
+     * Returns the input earth transmit time + the upleg time to the spacecraft, using the light time provider of the given context.
+     * @param ETT A Time object in ETT
+     * @param sc_id The NAIF id of the spacecraft
+     * @param context The settings the time was made with
+     * @return A new Time object shifted by OWLT
+     */
+    public static Time ETT2SCET(Time ETT, int sc_id, TimeContext context) {
+        return ETT.add(context.getLightTimeProvider().upleg(ETT, sc_id, EARTH_NAIF_ID, "ETT", context));
     }
 
     // ett to ert
@@ -1469,7 +2367,18 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A new Time object shifted by RTLT
      */
     public static Time ETT2ERT(Time ETT, int sc_id) {
-        return SCET2ERT(ETT2SCET(ETT, sc_id), sc_id);
+        return ETT2ERT(ETT, sc_id, defaultContext);
+    }
+
+    /**
+     * Returns the input earth transmit time + the upleg time to the spacecraft + the downleg time from the spacecraft, using the light time provider of the given context.
+     * @param ETT A Time object in ETT
+     * @param sc_id The NAIF id of the spacecraft that light is traveling to and from
+     * @param context The settings the time was made with
+     * @return A new Time object shifted by RTLT
+     */
+    public static Time ETT2ERT(Time ETT, int sc_id, TimeContext context) {
+        return SCET2ERT(ETT2SCET(ETT, sc_id, context), sc_id, context);
     }
 
     // ert to ett
@@ -1492,7 +2401,18 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A new Time objected shifted by RTLT
      */
     public static Time ERT2ETT(Time ERT, int sc_id) {
-        return SCET2ETT(ERT2SCET(ERT, sc_id), sc_id);
+        return ERT2ETT(ERT, sc_id, defaultContext);
+    }
+
+    /**
+     * Returns the input earth receive time - the downleg time from the spacecraft - the upleg time to the spacecraft, using the light time provider of the given context.
+     * @param ERT A Time object in ERT
+     * @param sc_id The NAIF id of the spacecraft that light is traveling to and from
+     * @param context The settings the time was made with
+     * @return A new Time objected shifted by RTLT
+     */
+    public static Time ERT2ETT(Time ERT, int sc_id, TimeContext context) {
+        return SCET2ETT(ERT2SCET(ERT, sc_id, context), sc_id, context);
     }
 
     // scet to ert
@@ -1513,7 +2433,18 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A new Time object shifted by OWLT
      */
     public static Time SCET2ERT(Time SCET, int sc_id) {
-        return SCET.add(currentLightTimeProvider.downleg(SCET, sc_id, EARTH_NAIF_ID, "SCET"));
+        return SCET2ERT(SCET, sc_id, defaultContext);
+    }
+
+    /**
+     * Returns the input spacecraft event time + the downleg time from the spacecraft, using the light time provider of the given context.
+     * @param SCET A Time object in SCET
+     * @param sc_id The NAIF id of the spacecraft
+     * @param context The settings the time was made with
+     * @return A new Time object shifted by OWLT
+     */
+    public static Time SCET2ERT(Time SCET, int sc_id, TimeContext context) {
+        return SCET.add(context.getLightTimeProvider().downleg(SCET, sc_id, EARTH_NAIF_ID, "SCET", context));
     }
 
     // scet to ett
@@ -1534,7 +2465,18 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A new Time object shifted by OWLT
      */
     public static Time SCET2ETT(Time SCET, int sc_id) {
-        return SCET.subtract(currentLightTimeProvider.upleg(SCET, sc_id, EARTH_NAIF_ID, "SCET"));
+        return SCET2ETT(SCET, sc_id, defaultContext);
+    }
+
+    /**
+     * Returns the input spacecraft time - the upleg time to the spacecraft, using the light time provider of the given context.
+     * @param SCET A Time object in SCET
+     * @param sc_id The NAIF id of the spacecraft
+     * @param context The settings the time was made with
+     * @return A new Time object shifted by OWLT
+     */
+    public static Time SCET2ETT(Time SCET, int sc_id, TimeContext context) {
+        return SCET.subtract(context.getLightTimeProvider().upleg(SCET, sc_id, EARTH_NAIF_ID, "SCET", context));
     }
 
     // ert to scet
@@ -1555,7 +2497,18 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return A new Time objected shifted by OWLT
      */
     public static Time ERT2SCET(Time ERT, int sc_id) {
-        return ERT.subtract(currentLightTimeProvider.downleg(ERT, sc_id, EARTH_NAIF_ID, "ERT"));
+        return ERT2SCET(ERT, sc_id, defaultContext);
+    }
+
+    /**
+     * Returns the input earth receive time - the downleg time from the spacecraft, using the light time provider of the given context.
+     * @param ERT A Time object in ERT
+     * @param sc_id The NAIF id of the spacecraft
+     * @param context The settings the time was made with
+     * @return A new Time objected shifted by OWLT
+     */
+    public static Time ERT2SCET(Time ERT, int sc_id, TimeContext context) {
+        return ERT.subtract(context.getLightTimeProvider().downleg(ERT, sc_id, EARTH_NAIF_ID, "ERT", context));
     }
 
     // upleg
@@ -1587,7 +2540,19 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return
      */
     public static Duration upleg(Time t, int sc_id, int body_id){
-        return currentLightTimeProvider.upleg(t, sc_id, body_id, "SCET");
+        return upleg(t, sc_id, body_id, defaultContext);
+    }
+
+    /**
+     * Gets the upleg time to the spacecraft from the body, using the light time provider of the given context, with t in SCET
+     * @param t
+     * @param sc_id
+     * @param body_id
+     * @param context The settings t was made with
+     * @return
+     */
+    public static Duration upleg(Time t, int sc_id, int body_id, TimeContext context){
+        return context.getLightTimeProvider().upleg(t, sc_id, body_id, "SCET", context);
     }
 
     
@@ -1620,7 +2585,19 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return
      */
     public static Duration downleg(Time t, int sc_id, int body_id){
-        return currentLightTimeProvider.downleg(t, sc_id, body_id, "SCET");
+        return downleg(t, sc_id, body_id, defaultContext);
+    }
+
+    /**
+     * Gets the downleg time from the spacecraft to the body, using the light time provider of the given context, with t in SCET
+     * @param t
+     * @param sc_id
+     * @param body_id
+     * @param context The settings t was made with
+     * @return
+     */
+    public static Duration downleg(Time t, int sc_id, int body_id, TimeContext context){
+        return context.getLightTimeProvider().downleg(t, sc_id, body_id, "SCET", context);
     }
 
     /**
@@ -1628,25 +2605,35 @@ public class Time implements Comparable<Time>, ConvertableFromString {
      * @return
      */
     public Duration rtlt(Time t, int sc_id, int body_id, boolean forwardsInTime, String time_reference) {
+        return rtlt(t, sc_id, body_id, forwardsInTime, time_reference, defaultContext);
+    }
+
+    /**
+     * Returns the RTLT as a duration object, using the light time provider of the given context.
+     * @param context The settings t was made with
+     * @return
+     */
+    public Duration rtlt(Time t, int sc_id, int body_id, boolean forwardsInTime, String time_reference, TimeContext context) {
+        LightTimeProvider provider = context.getLightTimeProvider();
         if(time_reference.equals("SCET")){
             if(forwardsInTime) {
-                Duration downleg = currentLightTimeProvider.downleg(t, sc_id, body_id, time_reference);
-                return downleg.add(currentLightTimeProvider.upleg(t.add(downleg), sc_id, body_id, time_reference));
+                Duration downleg = provider.downleg(t, sc_id, body_id, time_reference, context);
+                return downleg.add(provider.upleg(t.add(downleg), sc_id, body_id, time_reference, context));
             }
             else{
-                Duration upleg = currentLightTimeProvider.upleg(t, sc_id, body_id, time_reference);
-                return upleg.add(currentLightTimeProvider.downleg(t.subtract(upleg), sc_id, body_id, time_reference));
+                Duration upleg = provider.upleg(t, sc_id, body_id, time_reference, context);
+                return upleg.add(provider.downleg(t.subtract(upleg), sc_id, body_id, time_reference, context));
 
             }
         }
         else if(time_reference.equals("ETT") || time_reference.equals("ERT")){
             if(forwardsInTime) {
-                Duration upleg = currentLightTimeProvider.upleg(t, sc_id, body_id, time_reference);
-                return upleg.add(currentLightTimeProvider.downleg(t.add(upleg), sc_id, body_id, time_reference));
+                Duration upleg = provider.upleg(t, sc_id, body_id, time_reference, context);
+                return upleg.add(provider.downleg(t.add(upleg), sc_id, body_id, time_reference, context));
             }
             else{
-                Duration downleg = currentLightTimeProvider.downleg(t, sc_id, body_id, time_reference);
-                return downleg.add(currentLightTimeProvider.upleg(t.subtract(downleg), sc_id, body_id, time_reference));
+                Duration downleg = provider.downleg(t, sc_id, body_id, time_reference, context);
+                return downleg.add(provider.upleg(t.subtract(downleg), sc_id, body_id, time_reference, context));
             }
         }
         else{
@@ -0,0 +1,360 @@
+package gov.nasa.jpl.time;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static gov.nasa.jpl.time.DurationArray.*;
+
+/**
+ * A fixed-length column of Times stored as a long[] of tics. A List of Time objects spends a header and a reference
+ * on every 8-byte value and compares through compareTo(); this keeps just the tics, so fifty million times fit in
+ * 400 MB, and the bulk math, sorting and searching run over the primitive array. Times are only created when an
+ * element is read as one. Like a Java array it is mutable and not thread-safe; the bulk math methods return new
+ * arrays and leave this one alone, while set() and sort() change it in place.
+ */
+public final class TimeArray {
+    private final long[] tics;
+
+    /**
+     * Creates an array of the input length with every Time at the zero tic, J2000 TAI in SPICE mode.
+     * @param length
+     */
+    public TimeArray(int length) {
+        this(new long[length]);
+    }
+
+    private TimeArray(long[] tics) {
+        this.tics = tics;
+    }
+
+    //<editor-fold desc="views and copies">
+
+    /**
+     * Returns a TimeArray backed by the input tics without copying them, so changes to either show up in both.
+     * @param tics
+     * @return A TimeArray
+     */
+    public static TimeArray wrap(long[] tics) {
+        if(tics == null){
+            throw new RuntimeException("Can not wrap a null array of tics in a TimeArray");
+        }
+        return new TimeArray(tics);
+    }
+
+    /**
+     * Copies the input Times into a new TimeArray.
+     * @param times
+     * @return A TimeArray
+     */
+    public static TimeArray of(Time... times) {
+        long[] tics = new long[times.length];
+        for(int i = 0; i < tics.length; i++){
+            tics[i] = times[i].getTics();
+        }
+        return new TimeArray(tics);
+    }
+
+    /**
+     * Copies the input Times into a new TimeArray, in iteration order.
+     * @param times
+     * @return A TimeArray
+     */
+    public static TimeArray of(Collection<? extends Time> times) {
+        long[] tics = new long[times.size()];
+        int i = 0;
+        for(Time t : times){
+            tics[i++] = t.getTics();
+        }
+        return new TimeArray(tics);
+    }
+
+    /**
+     * Returns the backing array of tics, not a copy.
+     * @return A long[]
+     */
+    public long[] ticsArray() {
+        return tics;
+    }
+
+    /**
+     * Returns a List view of the array, which can be handed to code that takes a List of Times. Times are created as
+     * elements are read, and set() writes through.
+     * @return A List of Times
+     */
+    public List<Time> asList() {
+        return new TimeList();
+    }
+
+    /**
+     * Creates a Time object for every element.
+     * @return A new Time[]
+     */
+    public Time[] toTimes() {
+        Time[] times = new Time[tics.length];
+        for(int i = 0; i < tics.length; i++){
+            times[i] = Time.fromTics(tics[i]);
+        }
+        return times;
+    }
+
+    /**
+     * @return A new TimeArray with the same values
+     */
+    public TimeArray copy() {
+        return new TimeArray(tics.clone());
+    }
+
+    /**
+     * @param from inclusive
+     * @param to exclusive
+     * @return A new TimeArray with the values from index from up to to
+     */
+    public TimeArray copyOfRange(int from, int to) {
+        return new TimeArray(Arrays.copyOfRange(tics, from, to));
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="element access">
+
+    public int length() {
+        return tics.length;
+    }
+
+    public Time get(int index) {
+        return Time.fromTics(tics[index]);
+    }
+
+    public long getTics(int index) {
+        return tics[index];
+    }
+
+    public void set(int index, Time t) {
+        tics[index] = t.getTics();
+    }
+
+    public void setTics(int index, long value) {
+        tics[index] = value;
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="math">
+
+    /**
+     * @param d
+     * @return A new TimeArray with every element moved later by d
+     */
+    public TimeArray add(Duration d) {
+        long offset = d.getTics();
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = tics[i] + offset;
+        }
+        return new TimeArray(result);
+    }
+
+    /**
+     * @param durations the same length as this array
+     * @return A new TimeArray with each element moved by the Duration at the same index
+     */
+    public TimeArray add(DurationArray durations) {
+        long[] offsets = durations.ticsArray();
+        checkLength(tics.length, offsets.length);
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = tics[i] + offsets[i];
+        }
+        return new TimeArray(result);
+    }
+
+    /**
+     * @param d
+     * @return A new TimeArray with every element moved earlier by d
+     */
+    public TimeArray subtract(Duration d) {
+        return add(Duration.fromTics(-d.getTics()));
+    }
+
+    /**
+     * @param durations the same length as this array
+     * @return A new TimeArray with each element moved back by the Duration at the same index
+     */
+    public TimeArray subtract(DurationArray durations) {
+        long[] offsets = durations.ticsArray();
+        checkLength(tics.length, offsets.length);
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = tics[i] - offsets[i];
+        }
+        return new TimeArray(result);
+    }
+
+    /**
+     * @param t
+     * @return A new DurationArray of how far each element is after t
+     */
+    public DurationArray subtract(Time t) {
+        long reference = t.getTics();
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = tics[i] - reference;
+        }
+        return DurationArray.wrap(result);
+    }
+
+    /**
+     * @param other the same length as this array
+     * @return A new DurationArray with the elementwise differences this - other
+     */
+    public DurationArray subtract(TimeArray other) {
+        checkLength(tics.length, other.tics.length);
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = tics[i] - other.tics[i];
+        }
+        return DurationArray.wrap(result);
+    }
+
+    /**
+     * Returns the gaps between neighboring elements, which for a sorted array are all non-negative.
+     * @return A new DurationArray one shorter than this array, or empty if this one is
+     */
+    public DurationArray differences() {
+        long[] result = new long[Math.max(0, tics.length - 1)];
+        for(int i = 0; i < result.length; i++){
+            result[i] = tics[i + 1] - tics[i];
+        }
+        return DurationArray.wrap(result);
+    }
+
+    /**
+     * @return The earliest element
+     */
+    public Time min() {
+        return Time.fromTics(minTics(tics, "TimeArray"));
+    }
+
+    /**
+     * @return The latest element
+     */
+    public Time max() {
+        return Time.fromTics(maxTics(tics, "TimeArray"));
+    }
+
+    /**
+     * Rounds every element to the grid of the resolution that passes through the reference time, like
+     * Time.round(Duration, Time). Unlike Time.round(Duration) there is no default of each element's UTC midnight,
+     * since that would take a UTC conversion per element.
+     * @param resolution
+     * @param referenceTime
+     * @return A new TimeArray
+     */
+    public TimeArray round(Duration resolution, Time referenceTime) {
+        long res = checkResolution(resolution);
+        long reference = referenceTime.getTics();
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = reference + roundTics(tics[i] - reference, res);
+        }
+        return new TimeArray(result);
+    }
+
+    /**
+     * Rounds every element up to the grid of the resolution that passes through the reference time.
+     * @param resolution
+     * @param referenceTime
+     * @return A new TimeArray
+     */
+    public TimeArray ceil(Duration resolution, Time referenceTime) {
+        long res = checkResolution(resolution);
+        long reference = referenceTime.getTics();
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = reference + ceilTics(tics[i] - reference, res);
+        }
+        return new TimeArray(result);
+    }
+
+    /**
+     * Rounds every element down to the grid of the resolution that passes through the reference time.
+     * @param resolution
+     * @param referenceTime
+     * @return A new TimeArray
+     */
+    public TimeArray floor(Duration resolution, Time referenceTime) {
+        long res = checkResolution(resolution);
+        long reference = referenceTime.getTics();
+        long[] result = new long[tics.length];
+        for(int i = 0; i < result.length; i++){
+            result[i] = reference + floorTics(tics[i] - reference, res);
+        }
+        return new TimeArray(result);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="ordering">
+
+    /**
+     * Sorts the array in place, earliest first. Large arrays are sorted in parallel.
+     */
+    public void sort() {
+        Arrays.parallelSort(tics);
+    }
+
+    /**
+     * @return true if no element is earlier than the one before it
+     */
+    public boolean isSorted() {
+        return DurationArray.isSorted(tics);
+    }
+
+    /**
+     * Searches a sorted array for the input Time, with the same return value as Arrays.binarySearch().
+     * @param t
+     * @return The index of t if it is in the array, otherwise (-(insertion point) - 1)
+     */
+    public int binarySearch(Time t) {
+        return Arrays.binarySearch(tics, t.getTics());
+    }
+
+    //</editor-fold>
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof TimeArray)) {
+            return false;
+        }
+        else {
+            return Arrays.equals(tics, ((TimeArray) other).tics);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(tics);
+    }
+
+    private class TimeList extends AbstractList<Time> implements RandomAccess {
+        @Override
+        public Time get(int index) {
+            return TimeArray.this.get(index);
+        }
+
+        @Override
+        public Time set(int index, Time t) {
+            Time previous = TimeArray.this.get(index);
+            TimeArray.this.set(index, t);
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return tics.length;
+        }
+    }
+}
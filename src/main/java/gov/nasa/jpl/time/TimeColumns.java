@@ -0,0 +1,723 @@
+package gov.nasa.jpl.time;
+
+import gov.nasa.jpl.lighttime.LightTimeProvider;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * Converts whole columns of times at once, for reading and writing files with millions of rows and handing samples
+ * to other tools. A column is a primitive array of tics on one side and an array of strings, a delimited buffer, an
+ * array of ET, TAI or GPS seconds, or tics in another light time frame on the other, so rows are converted without
+ * creating a Time or a String each. Columns of at least PARALLEL_THRESHOLD rows are split across the common
+ * ForkJoinPool. Rows that need SPICE, like UTC strings in unusual forms in SPICE mode, are converted afterwards on the
+ * calling thread, since CSPICE can't be called from several threads at once. Light time frame conversions run on the
+ * calling thread too, as one bulk call to the provider: the default SPKLightTimeProvider calls CSPICE, the
+ * LightTimeProvider interface doesn't say which others can be shared between threads, and the providers that look
+ * light times up walk a sorted column from each row to the next, which splitting it would undo.
+ */
+public final class TimeColumns {
+    /**
+     * Columns with at least this many rows are converted on several cores
+     */
+    public static final int PARALLEL_THRESHOLD = 8192;
+
+    // rows formatted into each separately allocated piece of output, which are then copied to the destination in order
+    private static final int FORMAT_CHUNK_SIZE = 4096;
+
+    // marks a row the parallel pass left for the calling thread to convert with SPICE
+    private static final long NOT_CONVERTED = Long.MIN_VALUE;
+
+    private TimeColumns(){
+    }
+
+    //<editor-fold desc="UTC parsing">
+
+    /**
+     * Parses every string like Time.parseUTC() with the default context
+     * @param utcs UTC strings in any format accepted by the Time constructor
+     * @return The tics of each, in the same order
+     */
+    public static long[] parseUTC(CharSequence[] utcs) {
+        return parseUTC(utcs, Time.getDefaultContext());
+    }
+
+    /**
+     * Parses every string like Time.parseUTC() with the given context
+     * @param utcs UTC strings in any format accepted by the Time constructor
+     * @param context The settings to parse with
+     * @return The tics of each, in the same order
+     */
+    public static long[] parseUTC(CharSequence[] utcs, TimeContext context) {
+        long[] tics = new long[utcs.length];
+        forEachRow(utcs.length, isParallel(utcs.length), i -> tics[i] = Time.parseUTCInJava(utcs[i], context));
+        for(int i = 0; i < tics.length; i++){
+            if(tics[i] == UTCParser.NOT_PARSED){
+                tics[i] = parseRow(utcs[i].toString(), i, context);
+            }
+        }
+        return tics;
+    }
+
+    /**
+     * Parses the chars from the buffer's position to its limit as UTC strings separated by the delimiter, with the
+     * default context
+     * @param column The buffer to read, whose position is moved to its limit
+     * @param delimiter The char between times, like '\n' or ','
+     * @return The tics of each time, in the same order
+     */
+    public static long[] parseUTC(CharBuffer column, char delimiter) {
+        return parseUTC(column, delimiter, Time.getDefaultContext());
+    }
+
+    /**
+     * Parses the chars from the buffer's position to its limit as UTC strings separated by the delimiter, like a
+     * column of a file. Whitespace around each time, like the carriage return of a CRLF line, is ignored, as is an
+     * empty last entry so that a trailing delimiter doesn't add a row. Any other empty entry fails to parse.
+     * @param column The buffer to read, whose position is moved to its limit
+     * @param delimiter The char between times, like '\n' or ','
+     * @param context The settings to parse with
+     * @return The tics of each time, in the same order
+     */
+    public static long[] parseUTC(CharBuffer column, char delimiter, TimeContext context) {
+        int[] bounds = split(UTCParser.Chars.CHAR_BUFFER, column, column.position(), column.limit(), delimiter);
+        int rows = bounds.length / 2;
+        long[] tics = new long[rows];
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(!context.getUseSpiceForMath() || leapSecondsKernel != null){
+            LeapSecondsKernel parseKernel = context.getUseSpiceForMath() ? leapSecondsKernel : null;
+            forEachRow(rows, isParallel(rows), i -> tics[i] = UTCParser.parse(column, bounds[2*i], bounds[2*i + 1] - bounds[2*i], parseKernel));
+        }
+        else{
+            Arrays.fill(tics, UTCParser.NOT_PARSED);
+        }
+
+        for(int i = 0; i < rows; i++){
+            if(tics[i] == UTCParser.NOT_PARSED){
+                char[] chars = new char[bounds[2*i + 1] - bounds[2*i]];
+                for(int j = 0; j < chars.length; j++){
+                    chars[j] = column.get(bounds[2*i] + j);
+                }
+                tics[i] = parseRow(new String(chars), i, context);
+            }
+        }
+        column.position(column.limit());
+        return tics;
+    }
+
+    /**
+     * Parses the ASCII bytes from the buffer's position to its limit as UTC strings separated by the delimiter, with
+     * the default context
+     * @param column The buffer to read, whose position is moved to its limit
+     * @param delimiter The ASCII char between times, like '\n' or ','
+     * @return The tics of each time, in the same order
+     */
+    public static long[] parseUTC(ByteBuffer column, char delimiter) {
+        return parseUTC(column, delimiter, Time.getDefaultContext());
+    }
+
+    /**
+     * Parses the ASCII bytes from the buffer's position to its limit as UTC strings separated by the delimiter, like
+     * a column of a memory-mapped file. Whitespace and empty entries are treated as by parseUTC(CharBuffer, char).
+     * @param column The buffer to read, whose position is moved to its limit
+     * @param delimiter The ASCII char between times, like '\n' or ','
+     * @param context The settings to parse with
+     * @return The tics of each time, in the same order
+     */
+    public static long[] parseUTC(ByteBuffer column, char delimiter, TimeContext context) {
+        if(delimiter > 0x7f){
+            throw new RuntimeException("Delimiter " + delimiter + " is not an ASCII char, so it can't separate times in a column of bytes");
+        }
+        int[] bounds = split(UTCParser.Chars.BYTE_BUFFER, column, column.position(), column.limit(), delimiter);
+        int rows = bounds.length / 2;
+        long[] tics = new long[rows];
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(!context.getUseSpiceForMath() || leapSecondsKernel != null){
+            LeapSecondsKernel parseKernel = context.getUseSpiceForMath() ? leapSecondsKernel : null;
+            forEachRow(rows, isParallel(rows), i -> tics[i] = UTCParser.parse(column, bounds[2*i], bounds[2*i + 1] - bounds[2*i], parseKernel));
+        }
+        else{
+            Arrays.fill(tics, UTCParser.NOT_PARSED);
+        }
+
+        for(int i = 0; i < rows; i++){
+            if(tics[i] == UTCParser.NOT_PARSED){
+                byte[] bytes = new byte[bounds[2*i + 1] - bounds[2*i]];
+                for(int j = 0; j < bytes.length; j++){
+                    bytes[j] = column.get(bounds[2*i] + j);
+                }
+                tics[i] = parseRow(new String(bytes, StandardCharsets.US_ASCII), i, context);
+            }
+        }
+        column.position(column.limit());
+        return tics;
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="UTC formatting">
+
+    /**
+     * Writes every time as toUTC(precision) would with the default context, each followed by the delimiter
+     * @param tics The times to write
+     * @param precision An integer, the number of decimal places written
+     * @param delimiter The char written after each time, like '\n' or ','
+     * @param dest The buffer to write into at its position
+     */
+    public static void writeUTC(long[] tics, int precision, char delimiter, CharBuffer dest) {
+        writeUTC(tics, precision, delimiter, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Writes every time as toUTC(precision, context) would, each followed by the delimiter, so the output reads back
+     * with parseUTC(CharBuffer, char). Nothing is written if the buffer doesn't have room for all of it.
+     * @param tics The times to write
+     * @param precision An integer, the number of decimal places written
+     * @param delimiter The char written after each time, like '\n' or ','
+     * @param dest The buffer to write into at its position
+     * @param context The settings the times were made with
+     * @throws BufferOverflowException if dest doesn't have room for every time
+     */
+    public static void writeUTC(long[] tics, int precision, char delimiter, CharBuffer dest, TimeContext context) {
+        char[][] chunks = formatUTC(tics, precision, delimiter, context);
+        if(dest.remaining() < totalLength(chunks)){
+            throw new BufferOverflowException();
+        }
+        for(char[] chunk : chunks){
+            dest.put(chunk);
+        }
+    }
+
+    /**
+     * Writes every time as ASCII as toUTC(precision) would with the default context, each followed by the delimiter
+     * @param tics The times to write
+     * @param precision An integer, the number of decimal places written
+     * @param delimiter The ASCII char written after each time, like '\n' or ','
+     * @param dest The buffer to write into at its position
+     */
+    public static void writeUTC(long[] tics, int precision, char delimiter, ByteBuffer dest) {
+        writeUTC(tics, precision, delimiter, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Writes every time as ASCII as toUTC(precision, context) would, each followed by the delimiter, so the output
+     * reads back with parseUTC(ByteBuffer, char). Nothing is written if the buffer doesn't have room for all of it.
+     * @param tics The times to write
+     * @param precision An integer, the number of decimal places written
+     * @param delimiter The ASCII char written after each time, like '\n' or ','
+     * @param dest The buffer to write into at its position
+     * @param context The settings the times were made with
+     * @throws BufferOverflowException if dest doesn't have room for every time
+     */
+    public static void writeUTC(long[] tics, int precision, char delimiter, ByteBuffer dest, TimeContext context) {
+        if(delimiter > 0x7f){
+            throw new RuntimeException("Delimiter " + delimiter + " is not an ASCII char, so it can't separate times in a column of bytes");
+        }
+        char[][] chunks = formatUTC(tics, precision, delimiter, context);
+        if(dest.remaining() < totalLength(chunks)){
+            throw new BufferOverflowException();
+        }
+        for(char[] chunk : chunks){
+            // UTC strings are all ASCII
+            byte[] bytes = new byte[chunk.length];
+            for(int i = 0; i < bytes.length; i++){
+                bytes[i] = (byte) chunk[i];
+            }
+            dest.put(bytes);
+        }
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="ET, TAI and GPS seconds">
+
+    /**
+     * Converts every time to SPICE TAI seconds like toTAI() with the default context
+     * @param tics The times to convert
+     * @param dest Where to write the TAI of each, which must be the same length as tics
+     * @return dest
+     */
+    public static double[] toTAI(long[] tics, double[] dest) {
+        return toTAI(tics, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts every time to SPICE TAI seconds like toTAI(context)
+     * @param tics The times to convert
+     * @param dest Where to write the TAI of each, which must be the same length as tics
+     * @param context The settings the times were made with
+     * @return dest
+     */
+    public static double[] toTAI(long[] tics, double[] dest, TimeContext context) {
+        checkOutput(tics.length, dest.length);
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(context.getUseSpiceForMath()){
+            forEachRow(tics.length, isParallel(tics.length), i -> dest[i] = tics[i]/(double)ONE_SECOND);
+        }
+        else if(leapSecondsKernel != null){
+            forEachRow(tics.length, isParallel(tics.length), i -> dest[i] = leapSecondsKernel.utcTicsToTai(tics[i])/(double)ONE_SECOND);
+        }
+        else{
+            for(int i = 0; i < tics.length; i++){
+                dest[i] = Time.fromTics(tics[i]).toTAI(context);
+            }
+        }
+        return dest;
+    }
+
+    /**
+     * Converts SPICE TAI seconds to tics like fromTAI() with the default context
+     * @param tai The TAI seconds to convert
+     * @param dest Where to write the tics of each, which must be the same length as tai
+     * @return dest
+     */
+    public static long[] fromTAI(double[] tai, long[] dest) {
+        return fromTAI(tai, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts SPICE TAI seconds to tics like fromTAI(double, context)
+     * @param tai The TAI seconds to convert
+     * @param dest Where to write the tics of each, which must be the same length as tai
+     * @param context The settings to make the times with
+     * @return dest
+     */
+    public static long[] fromTAI(double[] tai, long[] dest, TimeContext context) {
+        checkOutput(tai.length, dest.length);
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(context.getUseSpiceForMath()){
+            forEachRow(tai.length, isParallel(tai.length), i -> dest[i] = Math.round(tai[i] * ONE_SECOND));
+        }
+        else if(leapSecondsKernel != null){
+            forEachRow(tai.length, isParallel(tai.length), i -> dest[i] = leapSecondsKernel.taiToUtcTics(Math.round(tai[i] * ONE_SECOND)));
+        }
+        else{
+            for(int i = 0; i < tai.length; i++){
+                dest[i] = Time.fromTAI(tai[i], context).getTics();
+            }
+        }
+        return dest;
+    }
+
+    /**
+     * Converts every time to SPICE ephemeris time like toET() with the default context
+     * @param tics The times to convert
+     * @param dest Where to write the ET of each, which must be the same length as tics
+     * @return dest
+     */
+    public static double[] toET(long[] tics, double[] dest) {
+        return toET(tics, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts every time to SPICE ephemeris time like toET(context). In SPICE mode without a leap second table in
+     * the context, only the rows the ephemeris time cache covers are converted in parallel.
+     * @param tics The times to convert
+     * @param dest Where to write the ET of each, which must be the same length as tics
+     * @param context The settings the times were made with
+     * @return dest
+     */
+    public static double[] toET(long[] tics, double[] dest, TimeContext context) {
+        checkOutput(tics.length, dest.length);
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(context.getUseSpiceForMath()){
+            // built here so no pool thread has to read the SPICE kernel pool for it
+            EphemerisTimeCache cache = context.getEphemerisTimeCache();
+            forEachRow(tics.length, isParallel(tics.length), i -> {
+                if(cache != null && cache.covers(tics[i])){
+                    dest[i] = cache.taiToEt(tics[i]);
+                }
+                else{
+                    dest[i] = leapSecondsKernel != null ? leapSecondsKernel.taiToEt(tics[i]/(double)ONE_SECOND) : Double.NaN;
+                }
+            });
+            for(int i = 0; i < tics.length; i++){
+                if(Double.isNaN(dest[i])){
+                    dest[i] = Time.fromTics(tics[i]).toET(context);
+                }
+            }
+        }
+        else if(leapSecondsKernel != null){
+            forEachRow(tics.length, isParallel(tics.length), i -> dest[i] = leapSecondsKernel.taiToEt(leapSecondsKernel.utcTicsToTai(tics[i])/(double)ONE_SECOND));
+        }
+        else{
+            for(int i = 0; i < tics.length; i++){
+                dest[i] = Time.fromTics(tics[i]).toET(context);
+            }
+        }
+        return dest;
+    }
+
+    /**
+     * Converts SPICE ephemeris times to tics like fromET() with the default context
+     * @param ets The ET seconds to convert
+     * @param dest Where to write the tics of each, which must be the same length as ets
+     * @return dest
+     */
+    public static long[] fromET(double[] ets, long[] dest) {
+        return fromET(ets, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts SPICE ephemeris times to tics like fromET(double, context). In SPICE mode without a leap second table
+     * in the context, only the rows the ephemeris time cache covers are converted in parallel.
+     * @param ets The ET seconds to convert
+     * @param dest Where to write the tics of each, which must be the same length as ets
+     * @param context The settings to make the times with
+     * @return dest
+     */
+    public static long[] fromET(double[] ets, long[] dest, TimeContext context) {
+        checkOutput(ets.length, dest.length);
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel();
+        if(context.getUseSpiceForMath()){
+            EphemerisTimeCache cache = context.getEphemerisTimeCache();
+            forEachRow(ets.length, isParallel(ets.length), i -> {
+                if(cache != null && cache.coversEt(ets[i])){
+                    dest[i] = Math.round(cache.etToTai(ets[i])*ONE_SECOND);
+                }
+                else{
+                    dest[i] = leapSecondsKernel != null ? Math.round(leapSecondsKernel.etToTai(ets[i])*ONE_SECOND) : NOT_CONVERTED;
+                }
+            });
+            for(int i = 0; i < ets.length; i++){
+                if(dest[i] == NOT_CONVERTED){
+                    dest[i] = Time.fromET(ets[i], context).getTics();
+                }
+            }
+        }
+        else if(leapSecondsKernel != null){
+            forEachRow(ets.length, isParallel(ets.length), i -> dest[i] = leapSecondsKernel.taiToUtcTics(Math.round(leapSecondsKernel.etToTai(ets[i])*ONE_SECOND)));
+        }
+        else{
+            for(int i = 0; i < ets.length; i++){
+                dest[i] = Time.fromET(ets[i], context).getTics();
+            }
+        }
+        return dest;
+    }
+
+    /**
+     * Converts every time to seconds since the GPS epoch like toGPSSeconds() with the default context
+     * @param tics The times to convert
+     * @param dest Where to write the GPS seconds of each, which must be the same length as tics
+     * @return dest
+     */
+    public static double[] toGPSSeconds(long[] tics, double[] dest) {
+        return toGPSSeconds(tics, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts every time to seconds since the GPS epoch, 1980-006T00:00:00 UTC, finding the epoch's TAI only once
+     * @param tics The times to convert
+     * @param dest Where to write the GPS seconds of each, which must be the same length as tics
+     * @param context The settings the times were made with
+     * @return dest
+     */
+    public static double[] toGPSSeconds(long[] tics, double[] dest, TimeContext context) {
+        double gpsEpochTai = Time.getGPSEpoch(context).toTAI(context);
+        toTAI(tics, dest, context);
+        forEachRow(dest.length, isParallel(dest.length), i -> dest[i] -= gpsEpochTai);
+        return dest;
+    }
+
+    /**
+     * Converts seconds since the GPS epoch to tics like fromGPSSeconds() with the default context
+     * @param gpsSeconds The GPS seconds to convert
+     * @param dest Where to write the tics of each, which must be the same length as gpsSeconds
+     * @return dest
+     */
+    public static long[] fromGPSSeconds(double[] gpsSeconds, long[] dest) {
+        return fromGPSSeconds(gpsSeconds, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts seconds since the GPS epoch, 1980-006T00:00:00 UTC, to tics, finding the epoch's TAI only once
+     * @param gpsSeconds The GPS seconds to convert
+     * @param dest Where to write the tics of each, which must be the same length as gpsSeconds
+     * @param context The settings to make the times with
+     * @return dest
+     */
+    public static long[] fromGPSSeconds(double[] gpsSeconds, long[] dest, TimeContext context) {
+        double gpsEpochTai = Time.getGPSEpoch(context).toTAI(context);
+        double[] tai = new double[gpsSeconds.length];
+        forEachRow(tai.length, isParallel(tai.length), i -> tai[i] = gpsEpochTai + gpsSeconds[i]);
+        return fromTAI(tai, dest, context);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="light time frame conversions">
+
+    /**
+     * Converts earth transmit times to spacecraft event times like Time.ETT2SCET(), with the default context
+     * @param tics The earth transmit times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the spacecraft event times, the same length as tics, which may be tics itself
+     * @return dest
+     */
+    public static long[] ETT2SCET(long[] tics, int sc_id, int body_id, long[] dest) {
+        return ETT2SCET(tics, sc_id, body_id, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts earth transmit times to spacecraft event times: each time plus the upleg to the spacecraft, from the light time provider of the context
+     * @param tics The earth transmit times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the spacecraft event times, the same length as tics, which may be tics itself
+     * @param context The settings the times were made with
+     * @return dest
+     */
+    public static long[] ETT2SCET(long[] tics, int sc_id, int body_id, long[] dest, TimeContext context) {
+        return shiftByLightTime(tics, sc_id, body_id, "ETT", true, true, dest, context);
+    }
+
+    /**
+     * Converts spacecraft event times to earth receive times like Time.SCET2ERT(), with the default context
+     * @param tics The spacecraft event times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the earth receive times, the same length as tics, which may be tics itself
+     * @return dest
+     */
+    public static long[] SCET2ERT(long[] tics, int sc_id, int body_id, long[] dest) {
+        return SCET2ERT(tics, sc_id, body_id, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts spacecraft event times to earth receive times: each time plus the downleg from the spacecraft, from the light time provider of the context
+     * @param tics The spacecraft event times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the earth receive times, the same length as tics, which may be tics itself
+     * @param context The settings the times were made with
+     * @return dest
+     */
+    public static long[] SCET2ERT(long[] tics, int sc_id, int body_id, long[] dest, TimeContext context) {
+        return shiftByLightTime(tics, sc_id, body_id, "SCET", false, true, dest, context);
+    }
+
+    /**
+     * Converts spacecraft event times to earth transmit times like Time.SCET2ETT(), with the default context
+     * @param tics The spacecraft event times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the earth transmit times, the same length as tics, which may be tics itself
+     * @return dest
+     */
+    public static long[] SCET2ETT(long[] tics, int sc_id, int body_id, long[] dest) {
+        return SCET2ETT(tics, sc_id, body_id, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts spacecraft event times to earth transmit times: each time minus the upleg to the spacecraft, from the light time provider of the context
+     * @param tics The spacecraft event times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the earth transmit times, the same length as tics, which may be tics itself
+     * @param context The settings the times were made with
+     * @return dest
+     */
+    public static long[] SCET2ETT(long[] tics, int sc_id, int body_id, long[] dest, TimeContext context) {
+        return shiftByLightTime(tics, sc_id, body_id, "SCET", true, false, dest, context);
+    }
+
+    /**
+     * Converts earth receive times to spacecraft event times like Time.ERT2SCET(), with the default context
+     * @param tics The earth receive times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the spacecraft event times, the same length as tics, which may be tics itself
+     * @return dest
+     */
+    public static long[] ERT2SCET(long[] tics, int sc_id, int body_id, long[] dest) {
+        return ERT2SCET(tics, sc_id, body_id, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts earth receive times to spacecraft event times: each time minus the downleg from the spacecraft, from the light time provider of the context
+     * @param tics The earth receive times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the spacecraft event times, the same length as tics, which may be tics itself
+     * @param context The settings the times were made with
+     * @return dest
+     */
+    public static long[] ERT2SCET(long[] tics, int sc_id, int body_id, long[] dest, TimeContext context) {
+        return shiftByLightTime(tics, sc_id, body_id, "ERT", false, false, dest, context);
+    }
+
+    /**
+     * Converts earth transmit times to earth receive times like Time.ETT2ERT(), with the default context
+     * @param tics The earth transmit times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the earth receive times, the same length as tics, which may be tics itself
+     * @return dest
+     */
+    public static long[] ETT2ERT(long[] tics, int sc_id, int body_id, long[] dest) {
+        return ETT2ERT(tics, sc_id, body_id, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts earth transmit times to earth receive times by way of the spacecraft event times, which stay sorted
+     * if the input is
+     * @param tics The earth transmit times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the earth receive times, the same length as tics, which may be tics itself
+     * @param context The settings the times were made with
+     * @return dest
+     */
+    public static long[] ETT2ERT(long[] tics, int sc_id, int body_id, long[] dest, TimeContext context) {
+        return SCET2ERT(ETT2SCET(tics, sc_id, body_id, dest, context), sc_id, body_id, dest, context);
+    }
+
+    /**
+     * Converts earth receive times to earth transmit times like Time.ERT2ETT(), with the default context
+     * @param tics The earth receive times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the earth transmit times, the same length as tics, which may be tics itself
+     * @return dest
+     */
+    public static long[] ERT2ETT(long[] tics, int sc_id, int body_id, long[] dest) {
+        return ERT2ETT(tics, sc_id, body_id, dest, Time.getDefaultContext());
+    }
+
+    /**
+     * Converts earth receive times to earth transmit times by way of the spacecraft event times, which stay sorted
+     * if the input is
+     * @param tics The earth receive times, fastest if sorted
+     * @param sc_id The NAIF id of the spacecraft
+     * @param body_id The NAIF id of the other end of the light path, usually 399 for Earth
+     * @param dest Where to write the earth transmit times, the same length as tics, which may be tics itself
+     * @param context The settings the times were made with
+     * @return dest
+     */
+    public static long[] ERT2ETT(long[] tics, int sc_id, int body_id, long[] dest, TimeContext context) {
+        return SCET2ETT(ERT2SCET(tics, sc_id, body_id, dest, context), sc_id, body_id, dest, context);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="helpers">
+
+    static boolean isParallel(int rows){
+        return rows >= PARALLEL_THRESHOLD;
+    }
+
+    static void forEachRow(int rows, boolean parallel, IntConsumer action){
+        IntStream indices = IntStream.range(0, rows);
+        (parallel ? indices.parallel() : indices).forEach(action);
+    }
+
+    private static void checkOutput(int inputs, int outputs){
+        if(inputs != outputs){
+            throw new RuntimeException("Output array has length " + outputs + " but there are " + inputs + " times to convert");
+        }
+    }
+
+    // light times are all looked up before any time is shifted, so dest can be tics
+    private static long[] shiftByLightTime(long[] tics, int sc_id, int body_id, String time_reference, boolean upleg, boolean add, long[] dest, TimeContext context){
+        checkOutput(tics.length, dest.length);
+        long[] lightTimes = new long[tics.length];
+        LightTimeProvider provider = context.getLightTimeProvider();
+        if(upleg){
+            provider.getUplegTics(tics, sc_id, body_id, time_reference, lightTimes, context);
+        }
+        else{
+            provider.getDownlegTics(tics, sc_id, body_id, time_reference, lightTimes, context);
+        }
+        for(int i = 0; i < tics.length; i++){
+            dest[i] = add ? tics[i] + lightTimes[i] : tics[i] - lightTimes[i];
+        }
+        return dest;
+    }
+
+    private static long parseRow(String utc, int row, TimeContext context){
+        try {
+            return Time.parseUTC(utc, context);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Could not parse the UTC time in row " + row + " of the column:\n" + e.getMessage(), e);
+        }
+    }
+
+    // returns the start and end of each trimmed entry between start and end, two ints per entry, reading the column
+    // with chars, which the caller picks for its type
+    private static int[] split(UTCParser.Chars chars, Object column, int start, int end, char delimiter){
+        int[] bounds = new int[64];
+        int count = 0;
+        int entryStart = start;
+        for(int i = start; i <= end; i++){
+            if(i == end || chars.charAt(column, i) == delimiter){
+                int from = entryStart;
+                int to = i;
+                while(from < to && chars.charAt(column, from) <= ' '){
+                    from++;
+                }
+                while(to > from && chars.charAt(column, to - 1) <= ' '){
+                    to--;
+                }
+                // a trailing delimiter, or an empty column, ends without another entry
+                if(i < end || from < to){
+                    if(count + 2 > bounds.length){
+                        bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                    }
+                    bounds[count++] = from;
+                    bounds[count++] = to;
+                }
+                entryStart = i + 1;
+            }
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    // formats the times in pieces of FORMAT_CHUNK_SIZE rows, each exactly as long as what was written into it
+    private static char[][] formatUTC(long[] tics, int precision, char delimiter, TimeContext context){
+        int chunkCount = (tics.length + FORMAT_CHUNK_SIZE - 1) / FORMAT_CHUNK_SIZE;
+        char[][] chunks = new char[chunkCount][];
+        // SPICE mode without a leap second table has to call et2utc for every row
+        boolean inJava = !context.getUseSpiceForMath() || context.getLeapSecondsKernel() != null;
+        int rowLength = UTCFormatter.maxLength(precision) + 1;
+        forEachRow(chunkCount, inJava && isParallel(tics.length), chunk -> {
+            int from = chunk * FORMAT_CHUNK_SIZE;
+            int to = Math.min(tics.length, from + FORMAT_CHUNK_SIZE);
+            char[] out = new char[(to - from) * rowLength];
+            int end = 0;
+            for(int i = from; i < to; i++){
+                int next = inJava ? Time.formatUTC(tics[i], precision, out, end, context) : -1;
+                if(next < 0){
+                    String utc = Time.fromTics(tics[i]).toUTC(precision, context);
+                    if(end + utc.length() + 1 > out.length){
+                        out = Arrays.copyOf(out, end + utc.length() + 1 + (to - i - 1) * rowLength);
+                    }
+                    utc.getChars(0, utc.length(), out, end);
+                    next = end + utc.length();
+                }
+                out[next] = delimiter;
+                end = next + 1;
+            }
+            chunks[chunk] = Arrays.copyOf(out, end);
+        });
+        return chunks;
+    }
+
+    private static long totalLength(char[][] chunks){
+        long length = 0;
+        for(char[] chunk : chunks){
+            length += chunk.length;
+        }
+        return length;
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,544 @@
+package gov.nasa.jpl.time;
+
+import gov.nasa.jpl.lighttime.LightTimeProvider;
+import gov.nasa.jpl.lighttime.SPKLightTimeProvider;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * Everything that changes how Time converts and formats, bundled so that different missions can be processed in the
+ * same JVM at the same time: whether SPICE does the math, the default spacecraft, LST body and output precision,
+ * the light time provider, the kernels evaluated in Java, the coverage of the TAI/ET fits, and the epochs
+ * EpochRelativeTimes are relative to.
+ *
+ * A TimeContext never changes once made. The with/without methods return a modified copy, so a context can be
+ * shared by any number of threads without locking, and passing it to the methods of Time that take one keeps
+ * each thread's conversions independent of the others' and of the static setters of Time, which only replace the
+ * default context that the other methods use. The fits of TDB-TDT, and the SCLK layouts read from the kernel pool
+ * for SCLK decimals of clocks without a SclkKernel, are made the first time a context needs them and kept with it.
+ * Light time providers are passed the context along with each Time they convert.
+ */
+public final class TimeContext {
+    private static final TimeContext DEFAULTS = new Builder().build();
+
+    // every change to any context's epochs gets a new number, so equal versions mean the same epochs
+    private static final AtomicLong EPOCH_VERSIONS = new AtomicLong();
+
+    private final boolean useSpiceForMath;
+    private final LightTimeProvider lightTimeProvider;
+    private final Integer defaultSpacecraftId;
+    private final Integer defaultLstBodyId;
+    private final String defaultLstBodyFrame;
+    private final int defaultOutputPrecision;
+    private final LeapSecondsKernel leapSecondsKernel;
+    private final Map<Integer, SclkKernel> sclkKernels;
+    private final Map<Integer, LmstKernel> lmstKernels;
+    private final boolean ephemerisTimeCacheEnabled;
+    private final long ephemerisTimeCacheStart;
+    private final long ephemerisTimeCacheEnd;
+    private final long ephemerisTimeCacheSegmentLength;
+    private final Map<String, Time> epochs;
+    private final long epochVersion;
+
+    // derived from the fields above the first time it is needed, so racing threads at worst build it twice
+    private volatile EphemerisTimeCache ephemerisTimeCache;
+    private final Map<Integer, SclkKernel> sclkdLayouts = new ConcurrentHashMap<>();
+
+    // the fields of a context being made, starting from the defaults or from a copy of another context, so each
+    // with/without method only sets what it changes
+    private static final class Builder {
+        private boolean useSpiceForMath = false;
+        private LightTimeProvider lightTimeProvider = new SPKLightTimeProvider();
+        private Integer defaultSpacecraftId = null;
+        private Integer defaultLstBodyId = null;
+        private String defaultLstBodyFrame = null;
+        private int defaultOutputPrecision = 6;
+        private LeapSecondsKernel leapSecondsKernel = null;
+        private Map<Integer, SclkKernel> sclkKernels = Collections.emptyMap();
+        private Map<Integer, LmstKernel> lmstKernels = Collections.emptyMap();
+        private boolean ephemerisTimeCacheEnabled = false;
+        private long ephemerisTimeCacheStart = -1577880000L * ONE_SECOND;
+        private long ephemerisTimeCacheEnd = 3155716800L * ONE_SECOND;
+        private long ephemerisTimeCacheSegmentLength = 8 * ONE_DAY;
+        private Map<String, Time> epochs = Collections.emptyMap();
+        private long epochVersion = 0;
+
+        private Builder(){
+        }
+
+        private Builder(TimeContext context){
+            useSpiceForMath = context.useSpiceForMath;
+            lightTimeProvider = context.lightTimeProvider;
+            defaultSpacecraftId = context.defaultSpacecraftId;
+            defaultLstBodyId = context.defaultLstBodyId;
+            defaultLstBodyFrame = context.defaultLstBodyFrame;
+            defaultOutputPrecision = context.defaultOutputPrecision;
+            leapSecondsKernel = context.leapSecondsKernel;
+            sclkKernels = context.sclkKernels;
+            lmstKernels = context.lmstKernels;
+            ephemerisTimeCacheEnabled = context.ephemerisTimeCacheEnabled;
+            ephemerisTimeCacheStart = context.ephemerisTimeCacheStart;
+            ephemerisTimeCacheEnd = context.ephemerisTimeCacheEnd;
+            ephemerisTimeCacheSegmentLength = context.ephemerisTimeCacheSegmentLength;
+            epochs = context.epochs;
+            epochVersion = context.epochVersion;
+        }
+
+        private TimeContext build(){
+            return new TimeContext(this);
+        }
+    }
+
+    private TimeContext(Builder builder){
+        this.useSpiceForMath = builder.useSpiceForMath;
+        this.lightTimeProvider = builder.lightTimeProvider;
+        this.defaultSpacecraftId = builder.defaultSpacecraftId;
+        this.defaultLstBodyId = builder.defaultLstBodyId;
+        this.defaultLstBodyFrame = builder.defaultLstBodyFrame;
+        this.defaultOutputPrecision = builder.defaultOutputPrecision;
+        this.leapSecondsKernel = builder.leapSecondsKernel;
+        this.sclkKernels = builder.sclkKernels;
+        this.lmstKernels = builder.lmstKernels;
+        this.ephemerisTimeCacheEnabled = builder.ephemerisTimeCacheEnabled;
+        this.ephemerisTimeCacheStart = builder.ephemerisTimeCacheStart;
+        this.ephemerisTimeCacheEnd = builder.ephemerisTimeCacheEnd;
+        this.ephemerisTimeCacheSegmentLength = builder.ephemerisTimeCacheSegmentLength;
+        this.epochs = builder.epochs;
+        this.epochVersion = builder.epochVersion;
+    }
+
+    /**
+     * @return The context Time starts out with: Java math without leap seconds, SPICE light times, 6 decimal places,
+     * no defaults for spacecraft or LST body, and no kernels or epochs
+     */
+    public static TimeContext defaults(){
+        return DEFAULTS;
+    }
+
+    //<editor-fold desc="modified copies">
+
+    /**
+     * @param shouldUseSpiceForMath true to have SPICE handle leap seconds and tics count TAI, false for leapsecond-free UTC tics
+     * @return A copy of this context with the given mode
+     */
+    public TimeContext withUseSpiceForMath(boolean shouldUseSpiceForMath){
+        Builder copy = new Builder(this);
+        copy.useSpiceForMath = shouldUseSpiceForMath;
+        return copy.build();
+    }
+
+    /**
+     * @param provider Where light times for frame conversions come from
+     * @return A copy of this context with the given light time provider
+     */
+    public TimeContext withLightTimeProvider(LightTimeProvider provider){
+        Builder copy = new Builder(this);
+        copy.lightTimeProvider = provider;
+        return copy.build();
+    }
+
+    /**
+     * @param spacecraftId The NAIF ID used by methods that don't take one, or null for none
+     * @return A copy of this context with the given default spacecraft
+     */
+    public TimeContext withDefaultSpacecraftId(Integer spacecraftId){
+        Builder copy = new Builder(this);
+        copy.defaultSpacecraftId = spacecraftId;
+        return copy.build();
+    }
+
+    /**
+     * @param bodyId The NAIF ID of the body LST methods use if not given one, like 499 for Mars, or null for none
+     * @return A copy of this context with the given default LST body
+     */
+    public TimeContext withDefaultLstBodyId(Integer bodyId){
+        Builder copy = new Builder(this);
+        copy.defaultLstBodyId = bodyId;
+        return copy.build();
+    }
+
+    /**
+     * @param bodyFrame The NAIF frame of the body LST methods use if not given one, like IAU_MARS, or null for none
+     * @return A copy of this context with the given default LST body frame
+     */
+    public TimeContext withDefaultLstBodyFrame(String bodyFrame){
+        Builder copy = new Builder(this);
+        copy.defaultLstBodyFrame = bodyFrame;
+        return copy.build();
+    }
+
+    /**
+     * @param precision The number of decimal places written by methods that aren't given one
+     * @return A copy of this context with the given default precision
+     */
+    public TimeContext withDefaultOutputPrecision(int precision){
+        Builder copy = new Builder(this);
+        copy.defaultOutputPrecision = precision;
+        return copy.build();
+    }
+
+    /**
+     * @param kernel A kernel read from the same LSK that is furnished to SPICE, to do UTC and ET conversions in Java, or null to use SPICE
+     * @return A copy of this context with the given leapseconds kernel
+     */
+    public TimeContext withLeapSecondsKernel(LeapSecondsKernel kernel){
+        Builder copy = new Builder(this);
+        copy.leapSecondsKernel = kernel;
+        return copy.build();
+    }
+
+    /**
+     * @param kernel A kernel read from the same SCLK that is furnished to SPICE, replacing any for the same clock
+     * @return A copy of this context that evaluates that clock in Java
+     */
+    public TimeContext withSclkKernel(SclkKernel kernel){
+        Map<Integer, SclkKernel> newSclkKernels = new HashMap<>(sclkKernels);
+        newSclkKernels.put(kernel.getSpacecraftId(), kernel);
+        Builder copy = new Builder(this);
+        copy.sclkKernels = Collections.unmodifiableMap(newSclkKernels);
+        return copy.build();
+    }
+
+    /**
+     * @param sc_id The NAIF ID of the clock
+     * @return A copy of this context that uses SPICE for that clock
+     */
+    public TimeContext withoutSclkKernel(int sc_id){
+        Map<Integer, SclkKernel> newSclkKernels = new HashMap<>(sclkKernels);
+        newSclkKernels.remove(sc_id);
+        Builder copy = new Builder(this);
+        copy.sclkKernels = Collections.unmodifiableMap(newSclkKernels);
+        return copy.build();
+    }
+
+    /**
+     * @param kernel A kernel read from the same LMST SCLK that is furnished to SPICE, replacing any for the same spacecraft
+     * @return A copy of this context that evaluates that spacecraft's LMST in Java
+     */
+    public TimeContext withLmstKernel(LmstKernel kernel){
+        Map<Integer, LmstKernel> newLmstKernels = new HashMap<>(lmstKernels);
+        newLmstKernels.put(kernel.getSpacecraftId(), kernel);
+        Builder copy = new Builder(this);
+        copy.lmstKernels = Collections.unmodifiableMap(newLmstKernels);
+        return copy.build();
+    }
+
+    /**
+     * @param sc_id The NAIF ID of the spacecraft, not the LMST clock
+     * @return A copy of this context that uses SPICE for that spacecraft's LMST
+     */
+    public TimeContext withoutLmstKernel(int sc_id){
+        Map<Integer, LmstKernel> newLmstKernels = new HashMap<>(lmstKernels);
+        newLmstKernels.remove(sc_id);
+        Builder copy = new Builder(this);
+        copy.lmstKernels = Collections.unmodifiableMap(newLmstKernels);
+        return copy.build();
+    }
+
+    /**
+     * @param startEt ET seconds past J2000 at the start of the coverage
+     * @param endEt ET seconds past J2000 at the end of the coverage
+     * @param segmentLength length of each fit - longer segments need higher degree polynomials
+     * @return A copy of this context whose SPICE-mode TAI/ET conversions are served from fits over the given coverage
+     */
+    public TimeContext withEphemerisTimeCacheCoverage(double startEt, double endEt, Duration segmentLength){
+        Builder copy = new Builder(this);
+        copy.ephemerisTimeCacheEnabled = true;
+        copy.ephemerisTimeCacheStart = Math.round(startEt * ONE_SECOND);
+        copy.ephemerisTimeCacheEnd = Math.round(endEt * ONE_SECOND);
+        copy.ephemerisTimeCacheSegmentLength = segmentLength.getTics();
+        return copy.build();
+    }
+
+    /**
+     * @return A copy of this context that converts every TAI and ET with unitim, or the leapseconds kernel if there is one
+     */
+    public TimeContext withoutEphemerisTimeCache(){
+        Builder copy = new Builder(this);
+        copy.ephemerisTimeCacheEnabled = false;
+        return copy.build();
+    }
+
+    /**
+     * @param newEpochs Epoch names and the absolute times they stand for, which are copied
+     * @return A copy of this context with exactly these epochs
+     */
+    public TimeContext withEpochs(Map<String, Time> newEpochs){
+        Builder copy = new Builder(this);
+        copy.epochs = Collections.unmodifiableMap(new HashMap<>(newEpochs));
+        copy.epochVersion = EPOCH_VERSIONS.incrementAndGet();
+        return copy.build();
+    }
+
+    /**
+     * @param epochName Name of epoch, cannot contain spaces
+     * @param epoch Absolute time
+     * @return A copy of this context with the epoch added or replaced
+     */
+    public TimeContext withEpoch(String epochName, Time epoch){
+        Map<String, Time> newEpochs = new HashMap<>(epochs);
+        newEpochs.put(epochName, epoch);
+        return withEpochs(newEpochs);
+    }
+
+    /**
+     * @param epochName Name of epoch
+     * @return A copy of this context without the epoch
+     */
+    public TimeContext withoutEpoch(String epochName){
+        Map<String, Time> newEpochs = new HashMap<>(epochs);
+        newEpochs.remove(epochName);
+        return withEpochs(newEpochs);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="getters">
+
+    /**
+     * @return true if tics count TAI and SPICE handles leap seconds, false if tics are leapsecond-free UTC
+     */
+    public boolean getUseSpiceForMath(){
+        return useSpiceForMath;
+    }
+
+    /**
+     * @return Where light times for frame conversions come from
+     */
+    public LightTimeProvider getLightTimeProvider(){
+        return lightTimeProvider;
+    }
+
+    /**
+     * @return The default spacecraft NAIF ID, which must have been set
+     */
+    public int getDefaultSpacecraftId(){
+        if(defaultSpacecraftId == null){
+            throw new RuntimeException("Error getting default spacecraft id. Current value is null but must be an integer." +
+                    " Set this with the setDefaultSpacecraftId method.");
+        }
+        return defaultSpacecraftId;
+    }
+
+    /**
+     * @return The default LST body NAIF ID, which must have been set
+     */
+    public Integer getDefaultLstBodyId(){
+        if(defaultLstBodyId == null){
+            throw new RuntimeException("Error getting default LST body id. Current value is null but must be an integer. " +
+                    "Set this with the setDefaultLstBodyId method.");
+        }
+        return defaultLstBodyId;
+    }
+
+    /**
+     * @return The default LST body frame, which must have been set
+     */
+    public String getDefaultLstBodyFrame(){
+        if(defaultLstBodyFrame == null){
+            throw new RuntimeException("Error getting default LST body frame. Current value is null but must be a string. " +
+                    "Set this with the setDefaultLstBodyFrame method.");
+        }
+        return defaultLstBodyFrame;
+    }
+
+    /**
+     * @return The number of decimal places written by methods that aren't given one
+     */
+    public int getDefaultOutputPrecision(){
+        return defaultOutputPrecision;
+    }
+
+    /**
+     * @return The leap second table used for SPICE-mode UTC conversions, or null if they are done by SPICE
+     */
+    public LeapSecondsKernel getLeapSecondsKernel(){
+        return leapSecondsKernel;
+    }
+
+    /**
+     * @param sc_id The NAIF ID of the clock
+     * @return The SclkKernel for that clock, or null if its conversions are done by SPICE
+     */
+    public SclkKernel getSclkKernel(int sc_id){
+        return sclkKernels.get(sc_id);
+    }
+
+    /**
+     * @param sc_id The NAIF ID of the spacecraft, not the LMST clock
+     * @return The LmstKernel for that spacecraft, or null if its LMST conversions are done by SPICE
+     */
+    public LmstKernel getLmstKernel(int sc_id){
+        return lmstKernels.get(sc_id);
+    }
+
+    /**
+     * @return The epochs of this context, which can't be modified
+     */
+    public Map<String, Time> getEpochs(){
+        return epochs;
+    }
+
+    /**
+     * @param epochName Name of epoch
+     * @return The absolute time of the epoch, or null if this context doesn't define it
+     */
+    public Time getEpoch(String epochName){
+        return epochs.get(epochName);
+    }
+
+    /**
+     * @return A number that changes whenever the epochs do, so a job that pinned a context can tell whether the
+     * epochs it parsed with are still the current ones
+     */
+    public long getEpochVersion(){
+        return epochVersion;
+    }
+
+    // null if the cache is disabled or there is no leapseconds kernel to fit, in which case unitim reports the problem
+    EphemerisTimeCache getEphemerisTimeCache(){
+        if(!ephemerisTimeCacheEnabled){
+            return null;
+        }
+        LeapSecondsKernel model;
+        try {
+            model = leapSecondsKernel != null ? leapSecondsKernel : Time.getSpiceLeapSecondsKernel();
+        } catch (RuntimeException e) {
+            return null;
+        }
+        EphemerisTimeCache cache = ephemerisTimeCache;
+        // fits of the kernel pool's LSK are made again once Time.reloadSpiceLeapSeconds() has read a new one
+        if(cache == null || cache.getModel() != model){
+            // ET and TAI are less than a minute apart, which is plenty close for where the coverage starts and ends
+            cache = new EphemerisTimeCache(model, ephemerisTimeCacheStart, ephemerisTimeCacheEnd, ephemerisTimeCacheSegmentLength);
+            ephemerisTimeCache = cache;
+        }
+        return cache;
+    }
+
+    // the SclkKernel whose moduli and partitions SCLK decimals are read with, which is the one in this context, or else
+    // one read from the SPICE kernel pool the first time it is needed
+    SclkKernel getSclkdLayout(int sc_id){
+        SclkKernel kernel = sclkKernels.get(sc_id);
+        if(kernel != null){
+            return kernel;
+        }
+        return sclkdLayouts.computeIfAbsent(sc_id, id -> {
+            try {
+                return SclkKernel.fromKernelPool(id);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Could not find the SCLK moduli and partitions - SPICE must be loaded to do this or there may be another error:\n" + e.getMessage());
+            }
+        });
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="sending to SpiceWorkers">
+
+    /**
+     * Writes everything but the light time provider, which the caller has to check, in the form readFrom takes.
+     * Java kernels are written as which of them there are, not their contents.
+     * @param out The stream to a SpiceWorker
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeBoolean(useSpiceForMath);
+        writeNullableInt(out, defaultSpacecraftId);
+        writeNullableInt(out, defaultLstBodyId);
+        out.writeBoolean(defaultLstBodyFrame != null);
+        if(defaultLstBodyFrame != null){
+            out.writeUTF(defaultLstBodyFrame);
+        }
+        out.writeInt(defaultOutputPrecision);
+        out.writeBoolean(leapSecondsKernel != null);
+        writeIds(out, sclkKernels.keySet());
+        writeIds(out, lmstKernels.keySet());
+        out.writeBoolean(ephemerisTimeCacheEnabled);
+        out.writeLong(ephemerisTimeCacheStart);
+        out.writeLong(ephemerisTimeCacheEnd);
+        out.writeLong(ephemerisTimeCacheSegmentLength);
+        out.writeInt(epochs.size());
+        for(Map.Entry<String, Time> epoch : epochs.entrySet()){
+            out.writeUTF(epoch.getKey());
+            out.writeLong(epoch.getValue().getTics());
+        }
+    }
+
+    /**
+     * Reads a context written by writeTo, with the default light time provider. Its Java kernels are made again from
+     * the kernel pool, so the kernels they were read from have to have been furnished.
+     * @param in The stream from a SpiceWorkerPool
+     * @return The context
+     */
+    static TimeContext readFrom(DataInputStream in) throws IOException {
+        Builder builder = new Builder();
+        builder.useSpiceForMath = in.readBoolean();
+        builder.defaultSpacecraftId = readNullableInt(in);
+        builder.defaultLstBodyId = readNullableInt(in);
+        builder.defaultLstBodyFrame = in.readBoolean() ? in.readUTF() : null;
+        builder.defaultOutputPrecision = in.readInt();
+        if(in.readBoolean()){
+            builder.leapSecondsKernel = LeapSecondsKernel.fromKernelPool();
+        }
+        Map<Integer, SclkKernel> newSclkKernels = new HashMap<>();
+        for(int sc_id : readIds(in)){
+            newSclkKernels.put(sc_id, SclkKernel.fromKernelPool(sc_id));
+        }
+        builder.sclkKernels = Collections.unmodifiableMap(newSclkKernels);
+        Map<Integer, LmstKernel> newLmstKernels = new HashMap<>();
+        for(int sc_id : readIds(in)){
+            newLmstKernels.put(sc_id, LmstKernel.fromSclkKernel(sc_id, SclkKernel.fromKernelPool(LmstKernel.getLmstClockId(sc_id))));
+        }
+        builder.lmstKernels = Collections.unmodifiableMap(newLmstKernels);
+        builder.ephemerisTimeCacheEnabled = in.readBoolean();
+        builder.ephemerisTimeCacheStart = in.readLong();
+        builder.ephemerisTimeCacheEnd = in.readLong();
+        builder.ephemerisTimeCacheSegmentLength = in.readLong();
+        Map<String, Time> newEpochs = new HashMap<>();
+        int epochCount = in.readInt();
+        for(int i = 0; i < epochCount; i++){
+            newEpochs.put(in.readUTF(), Time.fromTics(in.readLong()));
+        }
+        builder.epochs = Collections.unmodifiableMap(newEpochs);
+        builder.epochVersion = EPOCH_VERSIONS.incrementAndGet();
+        return builder.build();
+    }
+
+    private static void writeNullableInt(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if(value != null){
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readNullableInt(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeIds(DataOutputStream out, Set<Integer> ids) throws IOException {
+        out.writeInt(ids.size());
+        for(int id : ids){
+            out.writeInt(id);
+        }
+    }
+
+    private static int[] readIds(DataInputStream in) throws IOException {
+        int[] ids = new int[in.readInt()];
+        for(int i = 0; i < ids.length; i++){
+            ids[i] = in.readInt();
+        }
+        return ids;
+    }
+
+    //</editor-fold>
+}
@@ -0,0 +1,336 @@
+package gov.nasa.jpl.time;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * An evenly spaced or calendar-aligned sequence of times that is never stored: the time at an index, and the index of
+ * a time, are computed from the grid's definition when asked for. That makes a grid of any length take a few fields,
+ * get() and indexOf() constant time, and its stream() split into ranges of indices for parallel consumption, instead
+ * of allocating a Time per step by looping t = t.add(step).
+ *
+ * Regular grids are a start, a step, and either an end or a count. Calendar-aligned grids hold every UTC midnight or
+ * every LMST sol start in a range, which are not evenly spaced in tics when a UTC day ends in a leap second or when
+ * the LMST clock drifts against TAI, so those are looked up from the leap second table or LMST kernel by day or sol
+ * number instead. Grids are immutable and can be shared between threads.
+ */
+public abstract class TimeGrid {
+
+    private TimeGrid(){
+    }
+
+    //<editor-fold desc="factories">
+
+    /**
+     * A grid from start through end, inclusive if end falls on the grid
+     * @param start The first time
+     * @param end No time in the grid is later than this
+     * @param step The positive distance between times
+     * @return A new TimeGrid, which is empty if end is before start
+     */
+    public static TimeGrid of(Time start, Time end, Duration step){
+        long stepTics = checkStep(step);
+        long span = end.getTics() - start.getTics();
+        return new Regular(start.getTics(), stepTics, span < 0 ? 0 : span / stepTics + 1);
+    }
+
+    /**
+     * A grid of count times from start
+     * @param start The first time
+     * @param count The number of times
+     * @param step The positive distance between times
+     * @return A new TimeGrid
+     */
+    public static TimeGrid of(Time start, long count, Duration step){
+        if(count < 0){
+            throw new RuntimeException("A time grid can not have a negative number of times, but " + count + " were asked for");
+        }
+        return new Regular(start.getTics(), checkStep(step), count);
+    }
+
+    /**
+     * Every UTC midnight from start through end, with the default context
+     * @param start No time in the grid is earlier than this
+     * @param end No time in the grid is later than this
+     * @return A new TimeGrid
+     */
+    public static TimeGrid utcMidnights(Time start, Time end){
+        return utcMidnights(start, end, Time.getDefaultContext());
+    }
+
+    /**
+     * Every UTC midnight from start through end. In SPICE mode a day ending in a leap second is a second longer, so
+     * midnights come from the context's leap second table, or the one in the SPICE kernel pool if there is none.
+     * @param start No time in the grid is earlier than this
+     * @param end No time in the grid is later than this
+     * @param context The settings the times were made with
+     * @return A new TimeGrid
+     */
+    public static TimeGrid utcMidnights(Time start, Time end, TimeContext context){
+        if(!context.getUseSpiceForMath()){
+            // without leap seconds every day is ONE_DAY long, and tics 0 is noon
+            long firstDay = -Math.floorDiv(-(start.getTics() + ONE_DAY / 2), ONE_DAY);
+            return of(Time.fromTics(firstDay * ONE_DAY - ONE_DAY / 2), end, DAY_DURATION);
+        }
+        LeapSecondsKernel leapSecondsKernel = context.getLeapSecondsKernel() != null ? context.getLeapSecondsKernel() : Time.getSpiceLeapSecondsKernel();
+        return new Periods(start.getTics(), end.getTics(), leapSecondsKernel::getTaiAtStartOfDay, leapSecondsKernel::getUtcDayNumber);
+    }
+
+    /**
+     * Every LMST midnight from start through end, with the default context
+     * @param start No time in the grid is earlier than this
+     * @param end No time in the grid is later than this
+     * @param sc_id The NAIF id of the lander
+     * @return A new TimeGrid
+     */
+    public static TimeGrid lmstSolStarts(Time start, Time end, int sc_id){
+        return lmstSolStarts(start, end, sc_id, Time.getDefaultContext());
+    }
+
+    /**
+     * Every LMST midnight from start through end, no earlier than the start of sol 0, computed from the LMST kernel
+     * the context has for the lander
+     * @param start No time in the grid is earlier than this
+     * @param end No time in the grid is later than this
+     * @param sc_id The NAIF id of the lander
+     * @param context The settings the times were made with
+     * @return A new TimeGrid
+     */
+    public static TimeGrid lmstSolStarts(Time start, Time end, int sc_id, TimeContext context){
+        LmstKernel kernel = context.getLmstKernel(sc_id);
+        if(kernel == null){
+            throw new RuntimeException("A grid of sol starts needs an LMST kernel for spacecraft " + sc_id + ", which can be added with Time.addLmstKernel");
+        }
+        LeapSecondsKernel leapSecondsKernel = kernel.getSclkKernel().getLeapSecondsKernel();
+        long solZero = Time.fromTai(kernel.getSolStartTai(0), leapSecondsKernel, context);
+        return new Periods(Math.max(start.getTics(), solZero), end.getTics(),
+                sol -> Time.fromTai(kernel.getSolStartTai(sol), leapSecondsKernel, context),
+                tics -> {
+                    // the LMST clock doesn't run before sol 0, so earlier times are in the sol before the first
+                    long tai = Time.toTai(tics, leapSecondsKernel, context);
+                    return tai < kernel.getEpochTai() ? -1 : kernel.toSolNumber(tai);
+                });
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="indexing">
+
+    /**
+     * @return The number of times in the grid
+     */
+    public abstract long size();
+
+    /**
+     * @param index From 0 to size() - 1
+     * @return The tics of the time at that index
+     */
+    public abstract long getTics(long index);
+
+    /**
+     * @param t
+     * @return The index of the last time in the grid at or before t, -1 if t is before the first or the grid is empty
+     */
+    public abstract long floorIndex(Time t);
+
+    /**
+     * @param index From 0 to size() - 1
+     * @return The time at that index
+     */
+    public Time get(long index){
+        return Time.fromTics(getTics(index));
+    }
+
+    /**
+     * @param t
+     * @return The index of t if it is in the grid, otherwise -1
+     */
+    public long indexOf(Time t){
+        long index = floorIndex(t);
+        return index >= 0 && getTics(index) == t.getTics() ? index : -1;
+    }
+
+    public boolean isEmpty(){
+        return size() == 0;
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="views">
+
+    /**
+     * Returns a Spliterator over the tics of the grid that splits by halving its range of indices, so a parallel
+     * stream divides the grid evenly without computing any times ahead of time
+     * @return A new Spliterator
+     */
+    public Spliterator.OfLong spliterator(){
+        return new GridSpliterator(this, 0, size());
+    }
+
+    /**
+     * @return A sequential stream of the tics of the grid, which can be made parallel
+     */
+    public LongStream stream(){
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    /**
+     * Computes every time in the grid into a TimeArray
+     * @return A new TimeArray
+     */
+    public TimeArray toTimeArray(){
+        if(size() > Integer.MAX_VALUE - 8){
+            throw new RuntimeException("Time grid of " + size() + " times is too long to put in an array");
+        }
+        long[] tics = new long[(int) size()];
+        for(int i = 0; i < tics.length; i++){
+            tics[i] = getTics(i);
+        }
+        return TimeArray.wrap(tics);
+    }
+
+    //</editor-fold>
+
+    void checkIndex(long index){
+        if(index < 0 || index >= size()){
+            throw new IndexOutOfBoundsException("Index " + index + " is outside of a time grid of " + size() + " times");
+        }
+    }
+
+    private static long checkStep(Duration step){
+        if(step.getTics() <= 0){
+            throw new RuntimeException("Time grid step must be positive, but was " + step);
+        }
+        return step.getTics();
+    }
+
+    private static final class Regular extends TimeGrid {
+        private final long start;
+        private final long step;
+        private final long count;
+
+        private Regular(long start, long step, long count){
+            this.start = start;
+            this.step = step;
+            this.count = count;
+        }
+
+        @Override
+        public long size(){
+            return count;
+        }
+
+        @Override
+        public long getTics(long index){
+            checkIndex(index);
+            return start + index * step;
+        }
+
+        @Override
+        public long floorIndex(Time t){
+            long offset = t.getTics() - start;
+            return offset < 0 || count == 0 ? -1 : Math.min(offset / step, count - 1);
+        }
+    }
+
+    // the starts of numbered periods like UTC days or sols, from the first one starting at or after start through
+    // the last one starting at or before end
+    private static final class Periods extends TimeGrid {
+        private final LongUnaryOperator startOfPeriod;
+        private final LongUnaryOperator periodContaining;
+        private final long firstPeriod;
+        private final long count;
+
+        private Periods(long start, long end, LongUnaryOperator startOfPeriod, LongUnaryOperator periodContaining){
+            this.startOfPeriod = startOfPeriod;
+            this.periodContaining = periodContaining;
+            long first = periodContaining.applyAsLong(start);
+            if(startOfPeriod.applyAsLong(first) < start){
+                first++;
+            }
+            this.firstPeriod = first;
+            this.count = end < start ? 0 : Math.max(0, periodContaining.applyAsLong(end) - first + 1);
+        }
+
+        @Override
+        public long size(){
+            return count;
+        }
+
+        @Override
+        public long getTics(long index){
+            checkIndex(index);
+            return startOfPeriod.applyAsLong(firstPeriod + index);
+        }
+
+        @Override
+        public long floorIndex(Time t){
+            if(count == 0){
+                return -1;
+            }
+            long index = periodContaining.applyAsLong(t.getTics()) - firstPeriod;
+            return index < 0 ? -1 : Math.min(index, count - 1);
+        }
+    }
+
+    private static final class GridSpliterator implements Spliterator.OfLong {
+        private final TimeGrid grid;
+        private long index;
+        private final long end;
+
+        private GridSpliterator(TimeGrid grid, long index, long end){
+            this.grid = grid;
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public OfLong trySplit(){
+            long mid = index + (end - index) / 2;
+            if(mid <= index){
+                return null;
+            }
+            GridSpliterator prefix = new GridSpliterator(grid, index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action){
+            if(index >= end){
+                return false;
+            }
+            action.accept(grid.getTics(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action){
+            for(; index < end; index++){
+                action.accept(grid.getTics(index));
+            }
+        }
+
+        @Override
+        public long estimateSize(){
+            return end - index;
+        }
+
+        @Override
+        public int characteristics(){
+            return ORDERED | SIZED | SUBSIZED | SORTED | DISTINCT | NONNULL | IMMUTABLE;
+        }
+
+        // sorted in natural order
+        @Override
+        public Comparator<? super Long> getComparator(){
+            return null;
+        }
+    }
+}
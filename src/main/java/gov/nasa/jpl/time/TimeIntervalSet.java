@@ -0,0 +1,439 @@
+package gov.nasa.jpl.time;
+
+import java.util.Arrays;
+
+/**
+ * A set of times made of disjoint closed intervals, modeled on SPICE windows: the intervals are stored in increasing
+ * order as a long[] of tics with the start and end of each next to each other, and intervals that overlap or touch
+ * are always merged. The set operations walk both sets once, so they take O(n + m), and lookups binary search the
+ * starts, so they take O(log n), with no boxing of times along the way.
+ *
+ * As with SPICE's wndifd and wncomd, differences and complements are closed, so the edges of what was removed stay
+ * in the result: [1, 5] minus [2, 3] is [1, 2] and [3, 5]. Sets are immutable, and every operation returns a new one.
+ */
+public final class TimeIntervalSet {
+    private static final TimeIntervalSet EMPTY = new TimeIntervalSet(new long[0]);
+
+    // start and end tics of each interval in order, two per interval
+    private final long[] endpoints;
+
+    private TimeIntervalSet(long[] endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    //<editor-fold desc="factories">
+
+    /**
+     * @return A set with no intervals
+     */
+    public static TimeIntervalSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param start
+     * @param end No earlier than start
+     * @return A set holding the one interval from start through end
+     */
+    public static TimeIntervalSet of(Time start, Time end) {
+        return fromTics(new long[]{start.getTics(), end.getTics()});
+    }
+
+    /**
+     * Makes a set from intervals in any order, which may overlap, like SPICE's wnvald
+     * @param endpoints The start and end tics of each interval, two per interval
+     * @return A new TimeIntervalSet, with overlapping and touching intervals merged
+     */
+    public static TimeIntervalSet fromTics(long[] endpoints) {
+        if(endpoints.length % 2 != 0){
+            throw new RuntimeException("Time interval endpoints must come in pairs, but there are " + endpoints.length);
+        }
+        int count = endpoints.length / 2;
+        long[] starts = new long[count];
+        long[] ends = new long[count];
+        for(int i = 0; i < count; i++){
+            starts[i] = endpoints[2*i];
+            ends[i] = endpoints[2*i + 1];
+            if(starts[i] > ends[i]){
+                throw new RuntimeException("Time interval starting at " + Time.fromTics(starts[i]) + " ends before it starts, at " + Time.fromTics(ends[i]));
+            }
+        }
+        // the union only depends on the sorted starts and sorted ends, not on which start goes with which end
+        Arrays.sort(starts);
+        Arrays.sort(ends);
+        return coalesce(starts, ends, count);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="intervals">
+
+    /**
+     * @return The number of intervals
+     */
+    public int size() {
+        return endpoints.length / 2;
+    }
+
+    public boolean isEmpty() {
+        return endpoints.length == 0;
+    }
+
+    public long getStartTics(int index) {
+        return endpoints[2*index];
+    }
+
+    public long getEndTics(int index) {
+        return endpoints[2*index + 1];
+    }
+
+    public Time getStart(int index) {
+        return Time.fromTics(getStartTics(index));
+    }
+
+    public Time getEnd(int index) {
+        return Time.fromTics(getEndTics(index));
+    }
+
+    /**
+     * @param index
+     * @return The length of that interval
+     */
+    public Duration getDuration(int index) {
+        return Duration.fromTics(getEndTics(index) - getStartTics(index));
+    }
+
+    /**
+     * @return The sum of the lengths of the intervals, like SPICE's wnsumd
+     */
+    public Duration totalDuration() {
+        long total = 0;
+        for(int i = 0; i < endpoints.length; i += 2){
+            total += endpoints[i + 1] - endpoints[i];
+        }
+        return Duration.fromTics(total);
+    }
+
+    /**
+     * @return A copy of the start and end tics of each interval, two per interval
+     */
+    public long[] toTics() {
+        return endpoints.clone();
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="lookups">
+
+    /**
+     * @param t
+     * @return The index of the interval containing t, or -1 if none does
+     */
+    public int indexOf(Time t) {
+        int index = lastStartingAtOrBefore(t.getTics());
+        return index >= 0 && getEndTics(index) >= t.getTics() ? index : -1;
+    }
+
+    /**
+     * @param t
+     * @return true if an interval contains t, like SPICE's wnelmd
+     */
+    public boolean contains(Time t) {
+        return indexOf(t) >= 0;
+    }
+
+    /**
+     * @param start
+     * @param end
+     * @return true if a single interval contains all of start through end, like SPICE's wnincd
+     */
+    public boolean contains(Time start, Time end) {
+        int index = indexOf(start);
+        return index >= 0 && getEndTics(index) >= end.getTics();
+    }
+
+    /**
+     * @param start
+     * @param end
+     * @return true if any time from start through end is in the set
+     */
+    public boolean intersects(Time start, Time end) {
+        // the last interval starting by end is the only one that could reach back to start
+        int index = lastStartingAtOrBefore(end.getTics());
+        return index >= 0 && getEndTics(index) >= start.getTics() && start.getTics() <= end.getTics();
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="set operations">
+
+    /**
+     * @param other
+     * @return The times in either set, like SPICE's wnunid
+     */
+    public TimeIntervalSet union(TimeIntervalSet other) {
+        int count = size() + other.size();
+        long[] starts = new long[count];
+        long[] ends = new long[count];
+        // the starts and ends of each set are already in order, so merging them keeps them in order
+        int i = 0;
+        int j = 0;
+        for(int k = 0; k < count; k++){
+            if(j >= other.size() || (i < size() && getStartTics(i) <= other.getStartTics(j))){
+                starts[k] = getStartTics(i++);
+            }
+            else{
+                starts[k] = other.getStartTics(j++);
+            }
+        }
+        i = 0;
+        j = 0;
+        for(int k = 0; k < count; k++){
+            if(j >= other.size() || (i < size() && getEndTics(i) <= other.getEndTics(j))){
+                ends[k] = getEndTics(i++);
+            }
+            else{
+                ends[k] = other.getEndTics(j++);
+            }
+        }
+        return coalesce(starts, ends, count);
+    }
+
+    /**
+     * @param other
+     * @return The times in both sets, like SPICE's wnintd
+     */
+    public TimeIntervalSet intersect(TimeIntervalSet other) {
+        long[] result = new long[2 * (size() + other.size())];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+        while(i < size() && j < other.size()){
+            long start = Math.max(getStartTics(i), other.getStartTics(j));
+            long end = Math.min(getEndTics(i), other.getEndTics(j));
+            if(start <= end){
+                result[length++] = start;
+                result[length++] = end;
+            }
+            // whichever ends first can't overlap anything else in the other set
+            if(getEndTics(i) < other.getEndTics(j)){
+                i++;
+            }
+            else{
+                j++;
+            }
+        }
+        return new TimeIntervalSet(Arrays.copyOf(result, length));
+    }
+
+    /**
+     * @param other
+     * @return The times in this set that are not inside the other, keeping the edges of the other's intervals like
+     *         SPICE's wndifd
+     */
+    public TimeIntervalSet difference(TimeIntervalSet other) {
+        long[] result = new long[2 * (size() + other.size())];
+        int length = 0;
+        int j = 0;
+        for(int i = 0; i < size(); i++){
+            long start = getStartTics(i);
+            long end = getEndTics(i);
+            // skip intervals of the other set that end before this one starts
+            while(j < other.size() && other.getEndTics(j) < start){
+                j++;
+            }
+            if(start == end){
+                // a single instant survives unless it is covered
+                if(j >= other.size() || other.getStartTics(j) > start){
+                    result[length++] = start;
+                    result[length++] = end;
+                }
+                continue;
+            }
+            long current = start;
+            int k = j;
+            while(k < other.size() && other.getStartTics(k) <= end){
+                if(other.getStartTics(k) > current){
+                    length = append(result, length, current, other.getStartTics(k));
+                }
+                current = Math.max(current, other.getEndTics(k));
+                k++;
+            }
+            if(current < end){
+                length = append(result, length, current, end);
+            }
+            // the last interval of the other set here may reach into this set's next interval too
+            j = Math.max(j, k - 1);
+        }
+        return new TimeIntervalSet(Arrays.copyOf(result, length));
+    }
+
+    /**
+     * @param start
+     * @param end
+     * @return The gaps of this set between start and end, including their edges like SPICE's wncomd
+     */
+    public TimeIntervalSet complement(Time start, Time end) {
+        return of(start, end).difference(this);
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="adjustments">
+
+    /**
+     * Moves each start earlier by before and each end later by after, merging intervals that then overlap, like
+     * SPICE's wnexpd. Negative durations shrink intervals, and intervals that shrink to less than nothing are removed.
+     * @param before
+     * @param after
+     * @return A new TimeIntervalSet
+     */
+    public TimeIntervalSet expand(Duration before, Duration after) {
+        int count = 0;
+        long[] starts = new long[size()];
+        long[] ends = new long[size()];
+        for(int i = 0; i < size(); i++){
+            long start = getStartTics(i) - before.getTics();
+            long end = getEndTics(i) + after.getTics();
+            if(start <= end){
+                starts[count] = start;
+                ends[count] = end;
+                count++;
+            }
+        }
+        // shifting every start or every end by the same amount keeps each in order
+        return coalesce(starts, ends, count);
+    }
+
+    /**
+     * Moves each start later by fromStart and each end earlier by fromEnd, removing intervals that end up ending
+     * before they start, like SPICE's wncond
+     * @param fromStart
+     * @param fromEnd
+     * @return A new TimeIntervalSet
+     */
+    public TimeIntervalSet contract(Duration fromStart, Duration fromEnd) {
+        return expand(Duration.fromTics(-fromStart.getTics()), Duration.fromTics(-fromEnd.getTics()));
+    }
+
+    /**
+     * Fills every gap no longer than maxGap, like SPICE's wnfild
+     * @param maxGap
+     * @return A new TimeIntervalSet
+     */
+    public TimeIntervalSet fillGaps(Duration maxGap) {
+        long[] result = new long[endpoints.length];
+        int length = 0;
+        for(int i = 0; i < size(); i++){
+            if(length > 0 && getStartTics(i) - result[length - 1] <= maxGap.getTics()){
+                result[length - 1] = getEndTics(i);
+            }
+            else{
+                result[length++] = getStartTics(i);
+                result[length++] = getEndTics(i);
+            }
+        }
+        return new TimeIntervalSet(Arrays.copyOf(result, length));
+    }
+
+    /**
+     * Removes every interval shorter than minimum
+     * @param minimum
+     * @return A new TimeIntervalSet
+     */
+    public TimeIntervalSet removeShorterThan(Duration minimum) {
+        long[] result = new long[endpoints.length];
+        int length = 0;
+        for(int i = 0; i < size(); i++){
+            if(getEndTics(i) - getStartTics(i) >= minimum.getTics()){
+                result[length++] = getStartTics(i);
+                result[length++] = getEndTics(i);
+            }
+        }
+        return new TimeIntervalSet(Arrays.copyOf(result, length));
+    }
+
+    //</editor-fold>
+
+    // adds start through end after the first length endpoints of result, extending the last interval instead if they
+    // touch, which happens when a single instant was taken out of the middle of an interval; returns the new length
+    private static int append(long[] result, int length, long start, long end) {
+        if(length > 0 && result[length - 1] == start){
+            result[length - 1] = end;
+            return length;
+        }
+        result[length++] = start;
+        result[length++] = end;
+        return length;
+    }
+
+    // the last interval whose start is at or before tics, or -1
+    private int lastStartingAtOrBefore(long tics) {
+        int low = 0;
+        int high = size() - 1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            if(getStartTics(mid) <= tics){
+                low = mid + 1;
+            }
+            else{
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    // merges intervals given by the first count sorted starts and sorted ends into disjoint ones, by counting how many
+    // intervals are open at each endpoint; starts are taken before equal ends so that touching intervals merge
+    private static TimeIntervalSet coalesce(long[] starts, long[] ends, int count) {
+        long[] result = new long[2 * count];
+        int length = 0;
+        int open = 0;
+        int i = 0;
+        int j = 0;
+        while(j < count){
+            if(i < count && starts[i] <= ends[j]){
+                if(open == 0){
+                    result[length++] = starts[i];
+                }
+                open++;
+                i++;
+            }
+            else{
+                open--;
+                if(open == 0){
+                    result[length++] = ends[j];
+                }
+                j++;
+            }
+        }
+        return length == 0 ? EMPTY : new TimeIntervalSet(Arrays.copyOf(result, length));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof TimeIntervalSet)) {
+            return false;
+        }
+        else {
+            return Arrays.equals(endpoints, ((TimeIntervalSet) other).endpoints);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(endpoints);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for(int i = 0; i < size(); i++){
+            if(i > 0){
+                sb.append(", ");
+            }
+            sb.append('[').append(getStart(i)).append(", ").append(getEnd(i)).append(']');
+        }
+        return sb.append(']').toString();
+    }
+}
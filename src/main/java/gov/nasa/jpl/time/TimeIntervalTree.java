@@ -0,0 +1,288 @@
+package gov.nasa.jpl.time;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * An index of values by closed time intervals, for asking which values are active at a time or overlap a span without
+ * scanning every one. It is a balanced (AVL) tree ordered by start then end tics, where each node also tracks the
+ * latest end in its subtree, so queries can skip any subtree that ends too early or starts too late. Adding and
+ * removing take O(log n), and a query returning k values takes O(log n + k). Times are kept as tics in the nodes, so
+ * nothing is boxed or allocated per interval besides the node itself.
+ *
+ * The same value can be added more than once, for the same or different intervals. Trees are not thread safe; share
+ * one between threads only with outside synchronization.
+ * @param <T> The type of the values
+ */
+public class TimeIntervalTree<T> {
+    private Node<T> root;
+    private int size;
+
+    //<editor-fold desc="changes">
+
+    /**
+     * @param start
+     * @param end No earlier than start
+     * @param value
+     */
+    public void add(Time start, Time end, T value) {
+        if(start.getTics() > end.getTics()){
+            throw new RuntimeException("Time interval starting at " + start + " ends before it starts, at " + end);
+        }
+        root = insert(root, new Node<>(start.getTics(), end.getTics(), value));
+        size++;
+    }
+
+    /**
+     * Removes one entry of value with exactly this interval
+     * @param start
+     * @param end
+     * @param value
+     * @return true if there was one to remove
+     */
+    public boolean remove(Time start, Time end, T value) {
+        int before = size;
+        root = delete(root, start.getTics(), end.getTics(), value);
+        return size < before;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    //</editor-fold>
+
+    //<editor-fold desc="queries">
+
+    /**
+     * @return The number of intervals in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Calls action with the value of every interval containing t, in order of start
+     * @param t
+     * @param action
+     */
+    public void forEachContaining(Time t, Consumer<? super T> action) {
+        forEachOverlapping(root, t.getTics(), t.getTics(), action);
+    }
+
+    /**
+     * Calls action with the value of every interval sharing at least one time with start through end, in order of start
+     * @param start
+     * @param end
+     * @param action
+     */
+    public void forEachOverlapping(Time start, Time end, Consumer<? super T> action) {
+        forEachOverlapping(root, start.getTics(), end.getTics(), action);
+    }
+
+    /**
+     * @param t
+     * @return The values of every interval containing t, in order of start
+     */
+    public List<T> getContaining(Time t) {
+        List<T> values = new ArrayList<>();
+        forEachContaining(t, values::add);
+        return values;
+    }
+
+    /**
+     * @param start
+     * @param end
+     * @return The values of every interval sharing at least one time with start through end, in order of start
+     */
+    public List<T> getOverlapping(Time start, Time end) {
+        List<T> values = new ArrayList<>();
+        forEachOverlapping(start, end, values::add);
+        return values;
+    }
+
+    /**
+     * @return The times covered by any interval in the tree
+     */
+    public TimeIntervalSet toTimeIntervalSet() {
+        long[] endpoints = new long[2 * size];
+        collectEndpoints(root, endpoints, 0);
+        return TimeIntervalSet.fromTics(endpoints);
+    }
+
+    //</editor-fold>
+
+    private static <T> void forEachOverlapping(Node<T> node, long start, long end, Consumer<? super T> action) {
+        // nothing under here reaches start
+        if(node == null || node.maxEnd < start){
+            return;
+        }
+        forEachOverlapping(node.left, start, end, action);
+        // everything to the right starts no earlier than this does
+        if(node.start > end){
+            return;
+        }
+        if(node.end >= start){
+            action.accept(node.value);
+        }
+        forEachOverlapping(node.right, start, end, action);
+    }
+
+    private static <T> int collectEndpoints(Node<T> node, long[] endpoints, int index) {
+        if(node == null){
+            return index;
+        }
+        index = collectEndpoints(node.left, endpoints, index);
+        endpoints[index++] = node.start;
+        endpoints[index++] = node.end;
+        return collectEndpoints(node.right, endpoints, index);
+    }
+
+    //<editor-fold desc="balancing">
+
+    private static int compare(long start, long end, Node<?> node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Long.compare(end, node.end);
+    }
+
+    private static <T> Node<T> insert(Node<T> node, Node<T> added) {
+        if(node == null){
+            return added;
+        }
+        // equal intervals go to the right, so entries added later are visited later
+        if(compare(added.start, added.end, node) < 0){
+            node.left = insert(node.left, added);
+        }
+        else{
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> delete(Node<T> node, long start, long end, T value) {
+        if(node == null){
+            return null;
+        }
+        int comparison = compare(start, end, node);
+        if(comparison < 0){
+            node.left = delete(node.left, start, end, value);
+        }
+        else if(comparison > 0){
+            node.right = delete(node.right, start, end, value);
+        }
+        else if(Objects.equals(node.value, value)){
+            size--;
+            if(node.left == null){
+                return node.right;
+            }
+            else if(node.right == null){
+                return node.left;
+            }
+            // replace this node with the first one after it
+            Node<T> next = node.right;
+            while(next.left != null){
+                next = next.left;
+            }
+            next.right = removeFirst(node.right);
+            next.left = node.left;
+            return rebalance(next);
+        }
+        else{
+            // entries with the same interval can be on either side after rotations
+            int before = size;
+            node.left = delete(node.left, start, end, value);
+            if(size == before){
+                node.right = delete(node.right, start, end, value);
+            }
+        }
+        return rebalance(node);
+    }
+
+    private static <T> Node<T> removeFirst(Node<T> node) {
+        if(node.left == null){
+            return node.right;
+        }
+        node.left = removeFirst(node.left);
+        return rebalance(node);
+    }
+
+    private static <T> Node<T> rebalance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if(balance > 1){
+            if(height(node.left.left) < height(node.left.right)){
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        else if(balance < -1){
+            if(height(node.right.right) < height(node.right.left)){
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> top = node.left;
+        node.left = top.right;
+        top.right = node;
+        update(node);
+        update(top);
+        return top;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> top = node.right;
+        node.right = top.left;
+        top.left = node;
+        update(node);
+        update(top);
+        return top;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node<?> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if(node.left != null){
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if(node.right != null){
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    //</editor-fold>
+
+    private static final class Node<T> {
+        private final long start;
+        private final long end;
+        private final T value;
+        // the latest end of any interval in this subtree
+        private long maxEnd;
+        private int height;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(long start, long end, T value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.maxEnd = end;
+            this.height = 1;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package gov.nasa.jpl.time;
+
+/**
+ * Proleptic Gregorian calendar arithmetic on integer day numbers, used by the pure-Java UTC conversions so they don't
+ * need to allocate LocalDate objects. Day 0 is 2000-001 (2000-01-01), which is the UTC day containing the J2000 epoch.
+ * All methods are exact integer math and work for negative day numbers (dates before 2000).
+ */
+final class UTCCalendar {
+    // day 0 of this class is 10957 days after 1970-01-01
+    private static final long DAYS_FROM_1970_TO_2000 = 10957;
+
+    // cumulative days before each month, index 0 is January, for non-leap and leap years
+    private static final int[] DAYS_BEFORE_MONTH = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334, 365};
+    private static final int[] DAYS_BEFORE_MONTH_LEAP = {0, 31, 60, 91, 121, 152, 182, 213, 244, 274, 305, 335, 366};
+
+    private UTCCalendar(){
+    }
+
+    static boolean isLeapYear(long year){
+        return (year % 4 == 0) && ((year % 100 != 0) || (year % 400 == 0));
+    }
+
+    static int daysInYear(long year){
+        return isLeapYear(year) ? 366 : 365;
+    }
+
+    static int daysInMonth(long year, int month){
+        int[] table = isLeapYear(year) ? DAYS_BEFORE_MONTH_LEAP : DAYS_BEFORE_MONTH;
+        return table[month] - table[month - 1];
+    }
+
+    /**
+     * @param year calendar year
+     * @param month 1-12
+     * @param dayOfMonth 1-31
+     * @return days since 2000-01-01
+     */
+    static long dayNumber(long year, int month, int dayOfMonth){
+        // Howard Hinnant's days_from_civil, shifted so March is the first month of the computational year
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long monthIndex = month > 2 ? month - 3 : month + 9;
+        long dayOfYear = (153 * monthIndex + 2) / 5 + dayOfMonth - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468 - DAYS_FROM_1970_TO_2000;
+    }
+
+    /**
+     * @param year calendar year
+     * @param dayOfYear 1-366
+     * @return days since 2000-01-01
+     */
+    static long dayNumber(long year, int dayOfYear){
+        return dayNumber(year, 1, 1) + dayOfYear - 1;
+    }
+
+    /**
+     * @param dayNumber days since 2000-01-01
+     * @return the calendar year containing that day
+     */
+    static long year(long dayNumber){
+        long z = dayNumber + DAYS_FROM_1970_TO_2000 + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfShiftedYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfShiftedYear + 2) / 153;
+        long year = yearOfEra + era * 400;
+        // months index 10 and 11 are January and February of the next calendar year
+        return monthIndex >= 10 ? year + 1 : year;
+    }
+
+    /**
+     * @param dayNumber days since 2000-01-01
+     * @param year the year containing the day, as returned by year(dayNumber)
+     * @return day of year 1-366
+     */
+    static int dayOfYear(long dayNumber, long year){
+        return (int) (dayNumber - dayNumber(year, 1, 1)) + 1;
+    }
+
+    /**
+     * @param year calendar year
+     * @param dayOfYear 1-366
+     * @return month of year 1-12
+     */
+    static int month(long year, int dayOfYear){
+        int[] table = isLeapYear(year) ? DAYS_BEFORE_MONTH_LEAP : DAYS_BEFORE_MONTH;
+        int month = 1;
+        while(table[month] < dayOfYear){
+            month++;
+        }
+        return month;
+    }
+
+    /**
+     * @param year calendar year
+     * @param dayOfYear 1-366
+     * @return day of month 1-31
+     */
+    static int dayOfMonth(long year, int dayOfYear){
+        int[] table = isLeapYear(year) ? DAYS_BEFORE_MONTH_LEAP : DAYS_BEFORE_MONTH;
+        return dayOfYear - table[month(year, dayOfYear) - 1];
+    }
+}
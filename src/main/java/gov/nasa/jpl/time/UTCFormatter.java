@@ -0,0 +1,110 @@
+package gov.nasa.jpl.time;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * Writes UTC day-of-year strings like 2019-119T21:04:38.987851 straight into a char array with integer math, so
+ * Time can format without rounding through a double, building a LocalDateTime, or allocating anything but the output.
+ * The caller supplies the UTC day and the tics elapsed in it, so the same code serves both the leapsecond-free
+ * non-SPICE representation and the leap second table in SPICE mode.
+ */
+final class UTCFormatter {
+    // yyyy-DDDThh:mm:ss, plus room for a sign and extra year digits
+    private static final int MAX_LENGTH_WITHOUT_DECIMALS = 24;
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L};
+
+    private UTCFormatter(){
+    }
+
+    /**
+     * @param precision requested number of decimal places
+     * @return An upper bound on the number of chars format will write for that precision
+     */
+    static int maxLength(int precision){
+        return MAX_LENGTH_WITHOUT_DECIMALS + 1 + Math.max(precision, 0);
+    }
+
+    /**
+     * Formats the instant, rounding half up to the requested precision and carrying into the next day if needed
+     * @param dayNumber UTC day, counted in days since 2000-001
+     * @param ticsOfDay tics elapsed since 00:00:00 UTC that day, which may go past 86400 seconds into a leap second
+     * @param dayLength tics in the UTC day, ONE_DAY unless it ends in a leap second
+     * @param precision number of decimal places to output, values past the resolution of tics are zero-filled
+     * @param dest where to write
+     * @param offset index in dest of the first char to write
+     * @return index in dest after the last char written
+     */
+    static int format(long dayNumber, long ticsOfDay, long dayLength, int precision, char[] dest, int offset){
+        int numDecimalPlaces = precision < 0 ? 0 : precision;
+        int roundedDecimalPlaces = numDecimalPlaces > numberDecimalDigits ? numberDecimalDigits : numDecimalPlaces;
+        long ticsRounder = POWERS_OF_TEN[numberDecimalDigits - roundedDecimalPlaces];
+
+        ticsOfDay = Math.floorDiv(ticsOfDay + ticsRounder / 2, ticsRounder) * ticsRounder;
+        if(ticsOfDay >= dayLength){
+            ticsOfDay -= dayLength;
+            dayNumber++;
+        }
+
+        long year = UTCCalendar.year(dayNumber);
+        int dayOfYear = UTCCalendar.dayOfYear(dayNumber, year);
+
+        // a leap second is the 61st second of the last minute of the day
+        int secondsOfDay = (int) (ticsOfDay / ONE_SECOND);
+        int hours = Math.min(secondsOfDay / 3600, 23);
+        int minutes = Math.min((secondsOfDay - hours * 3600) / 60, 59);
+        int seconds = secondsOfDay - hours * 3600 - minutes * 60;
+
+        int i = writeYear(year, dest, offset);
+        dest[i++] = '-';
+        dest[i++] = (char) ('0' + dayOfYear / 100);
+        i = writeTwoDigits(dayOfYear % 100, dest, i);
+        dest[i++] = 'T';
+        i = writeTwoDigits(hours, dest, i);
+        dest[i++] = ':';
+        i = writeTwoDigits(minutes, dest, i);
+        dest[i++] = ':';
+        i = writeTwoDigits(seconds, dest, i);
+
+        if(numDecimalPlaces > 0){
+            dest[i++] = '.';
+            long fraction = (ticsOfDay % ONE_SECOND) / ticsRounder;
+            for(int j = i + roundedDecimalPlaces - 1; j >= i; j--){
+                dest[j] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            i += roundedDecimalPlaces;
+            for(int j = roundedDecimalPlaces; j < numDecimalPlaces; j++){
+                dest[i++] = '0';
+            }
+        }
+        return i;
+    }
+
+    // four digit years like LocalDateTime's uuuu, which signs years outside 0-9999
+    private static int writeYear(long year, char[] dest, int i){
+        if(year < 0){
+            dest[i++] = '-';
+            year = -year;
+        }
+        else if(year > 9999){
+            dest[i++] = '+';
+        }
+
+        int digits = 4;
+        while(digits < POWERS_OF_TEN.length && year >= POWERS_OF_TEN[digits]){
+            digits++;
+        }
+        for(int j = i + digits - 1; j >= i; j--){
+            dest[j] = (char) ('0' + year % 10);
+            year /= 10;
+        }
+        return i + digits;
+    }
+
+    private static int writeTwoDigits(int value, char[] dest, int i){
+        dest[i] = (char) ('0' + value / 10);
+        dest[i + 1] = (char) ('0' + value % 10);
+        return i + 2;
+    }
+}
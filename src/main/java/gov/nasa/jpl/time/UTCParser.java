@@ -0,0 +1,238 @@
+package gov.nasa.jpl.time;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+import static gov.nasa.jpl.time.Duration.*;
+
+/**
+ * Scans the two UTC forms Time is usually given, yyyy-DDDThh:mm:ss[.fff] and yyyy-MM-ddThh:mm:ss[.fff], straight
+ * into tics without regular expressions, DateTimeFormatter, or allocating. Input can be a CharSequence or a range of a
+ * char[], ASCII byte[], or buffer, so columns of a file can be parsed in place. Anything that isn't exactly one of those forms
+ * with valid field values returns NOT_PARSED so the caller can fall back to str2et or LocalDateTime, which keeps error
+ * messages and the handling of unusual inputs the same as before.
+ */
+final class UTCParser {
+    /**
+     * Returned when the input isn't one of the simple forms, so it has to go through the general-purpose parsers
+     */
+    static final long NOT_PARSED = Long.MIN_VALUE;
+
+    private static final long NANOSECONDS_PER_SECOND = 1000000000L;
+    private static final int NANOSECONDS_PER_TIC = 10;
+    private static final int MAX_NANOSECOND_DIGITS = 9;
+    // past this many seconds from J2000, nanoseconds overflow a long and LocalDateTime would throw instead
+    private static final long MAX_LEAPSECOND_FREE_SECONDS = Long.MAX_VALUE / NANOSECONDS_PER_SECOND - 1;
+
+    private UTCParser(){
+    }
+
+    /**
+     * @param utc the string to parse
+     * @param leapSecondsKernel the table to convert to TAI tics with, like SPICE mode, or null for the
+     *                          leapsecond-free tics Time uses in non-SPICE mode
+     * @return tics, or NOT_PARSED
+     */
+    static long parse(CharSequence utc, LeapSecondsKernel leapSecondsKernel){
+        return parse(Chars.SEQUENCE, utc, 0, utc.length(), leapSecondsKernel);
+    }
+
+    /**
+     * @param utc the chars to parse
+     * @param offset index of the first char of the time
+     * @param length number of chars in the time
+     * @param leapSecondsKernel the table to convert to TAI tics with, or null for leapsecond-free tics
+     * @return tics, or NOT_PARSED
+     */
+    static long parse(char[] utc, int offset, int length, LeapSecondsKernel leapSecondsKernel){
+        return parse(Chars.CHARS, utc, offset, offset + length, leapSecondsKernel);
+    }
+
+    /**
+     * @param utc ASCII bytes to parse
+     * @param offset index of the first byte of the time
+     * @param length number of bytes in the time
+     * @param leapSecondsKernel the table to convert to TAI tics with, or null for leapsecond-free tics
+     * @return tics, or NOT_PARSED
+     */
+    static long parse(byte[] utc, int offset, int length, LeapSecondsKernel leapSecondsKernel){
+        return parse(Chars.BYTES, utc, offset, offset + length, leapSecondsKernel);
+    }
+
+    /**
+     * Reads the buffer with absolute gets, so its position is left alone and several threads can parse parts of it
+     * @param utc ASCII bytes to parse
+     * @param offset index in the buffer of the first byte of the time
+     * @param length number of bytes in the time
+     * @param leapSecondsKernel the table to convert to TAI tics with, or null for leapsecond-free tics
+     * @return tics, or NOT_PARSED
+     */
+    static long parse(ByteBuffer utc, int offset, int length, LeapSecondsKernel leapSecondsKernel){
+        return parse(Chars.BYTE_BUFFER, utc, offset, offset + length, leapSecondsKernel);
+    }
+
+    /**
+     * Reads the buffer with absolute gets, so its position is left alone and several threads can parse parts of it
+     * @param utc the chars to parse
+     * @param offset index in the buffer of the first char of the time
+     * @param length number of chars in the time
+     * @param leapSecondsKernel the table to convert to TAI tics with, or null for leapsecond-free tics
+     * @return tics, or NOT_PARSED
+     */
+    static long parse(CharBuffer utc, int offset, int length, LeapSecondsKernel leapSecondsKernel){
+        return parse(Chars.CHAR_BUFFER, utc, offset, offset + length, leapSecondsKernel);
+    }
+
+    // chars is picked once by the entry point for the type of source, so the loops below don't test its type per char
+    private static long parse(Chars chars, Object source, int start, int end, LeapSecondsKernel leapSecondsKernel){
+        // shortest input is yyyy-DDDThh:mm:ss
+        if(end - start < 17){
+            return NOT_PARSED;
+        }
+
+        int i = start;
+        int year = digits(chars, source, i, 4);
+        if(year < 0 || chars.charAt(source, i + 4) != '-'){
+            return NOT_PARSED;
+        }
+        i += 5;
+
+        long dayNumber;
+        if(chars.charAt(source, i + 3) == 'T'){
+            int dayOfYear = digits(chars, source, i, 3);
+            if(dayOfYear < 1 || dayOfYear > UTCCalendar.daysInYear(year)){
+                return NOT_PARSED;
+            }
+            dayNumber = UTCCalendar.dayNumber(year, dayOfYear);
+            i += 4;
+        }
+        else{
+            if(end - start < 19){
+                return NOT_PARSED;
+            }
+            int month = digits(chars, source, i, 2);
+            int dayOfMonth = digits(chars, source, i + 3, 2);
+            if(chars.charAt(source, i + 2) != '-' || chars.charAt(source, i + 5) != 'T'
+                    || month < 1 || month > 12 || dayOfMonth < 1 || dayOfMonth > UTCCalendar.daysInMonth(year, month)){
+                return NOT_PARSED;
+            }
+            dayNumber = UTCCalendar.dayNumber(year, month, dayOfMonth);
+            i += 6;
+        }
+
+        if(end - i < 8 || chars.charAt(source, i + 2) != ':' || chars.charAt(source, i + 5) != ':'){
+            return NOT_PARSED;
+        }
+        int hours = digits(chars, source, i, 2);
+        int minutes = digits(chars, source, i + 3, 2);
+        int seconds = digits(chars, source, i + 6, 2);
+        // only SPICE mode knows which days end in a leap second, LocalDateTime never accepts second 60
+        int maxSeconds = leapSecondsKernel == null ? 59 : 60;
+        if(hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > maxSeconds){
+            return NOT_PARSED;
+        }
+        i += 8;
+
+        // first nine digits of the fraction, and whether there were more
+        long nanoseconds = 0;
+        int fractionDigits = 0;
+        if(i < end){
+            if(chars.charAt(source, i) != '.' || i + 1 == end){
+                return NOT_PARSED;
+            }
+            for(i++; i < end; i++){
+                int digit = chars.charAt(source, i) - '0';
+                if(digit < 0 || digit > 9){
+                    return NOT_PARSED;
+                }
+                if(fractionDigits < MAX_NANOSECOND_DIGITS){
+                    nanoseconds = nanoseconds * 10 + digit;
+                }
+                fractionDigits++;
+            }
+            for(int j = fractionDigits; j < MAX_NANOSECOND_DIGITS; j++){
+                nanoseconds *= 10;
+            }
+        }
+
+        long secondsOfDay = hours * 3600L + minutes * 60L + seconds;
+        if(leapSecondsKernel != null){
+            // round anything past the tic resolution to the nearest tic like et2tai does
+            long ticsOfDay = secondsOfDay * ONE_SECOND + nanoseconds / NANOSECONDS_PER_TIC + (nanoseconds % NANOSECONDS_PER_TIC >= NANOSECONDS_PER_TIC / 2 ? 1 : 0);
+            // only days ending in a leap second have a 23:59:60
+            if(ticsOfDay >= leapSecondsKernel.getDayLength(dayNumber)){
+                return NOT_PARSED;
+            }
+            return leapSecondsKernel.utcToTai(dayNumber, ticsOfDay);
+        }
+        else{
+            if(fractionDigits > MAX_NANOSECOND_DIGITS){
+                return NOT_PARSED;
+            }
+            // same as java.time.Duration.between(EPOCH, localDT).toNanos() / NANOSECONDS_PER_TIC, which truncates toward zero
+            long secondsPastEpoch = dayNumber * 86400L + secondsOfDay - 43200L;
+            if(Math.abs(secondsPastEpoch) > MAX_LEAPSECOND_FREE_SECONDS){
+                return NOT_PARSED;
+            }
+            return (secondsPastEpoch * NANOSECONDS_PER_SECOND + nanoseconds) / NANOSECONDS_PER_TIC;
+        }
+    }
+
+    // parses count decimal digits starting at i, or returns -1 if any of them isn't a digit
+    private static int digits(Chars chars, Object source, int i, int count){
+        int value = 0;
+        for(int j = i; j < i + count; j++){
+            int digit = chars.charAt(source, j) - '0';
+            if(digit < 0 || digit > 9){
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Reads one char of each kind of input, as a stateless constant so choosing one doesn't allocate. Also used by
+     * TimeColumns to split columns with the same up-front dispatch.
+     */
+    enum Chars {
+        SEQUENCE {
+            @Override
+            int charAt(Object source, int i){
+                return ((CharSequence) source).charAt(i);
+            }
+        },
+        CHARS {
+            @Override
+            int charAt(Object source, int i){
+                return ((char[]) source)[i];
+            }
+        },
+        BYTES {
+            @Override
+            int charAt(Object source, int i){
+                return ((byte[]) source)[i] & 0xff;
+            }
+        },
+        BYTE_BUFFER {
+            @Override
+            int charAt(Object source, int i){
+                return ((ByteBuffer) source).get(i) & 0xff;
+            }
+        },
+        // CharBuffer.charAt() is relative to the position, get() is not
+        CHAR_BUFFER {
+            @Override
+            int charAt(Object source, int i){
+                return ((CharBuffer) source).get(i);
+            }
+        };
+
+        /**
+         * @param source the input, which must be of this constant's type
+         * @param i absolute index of the char
+         * @return the char, or the byte as an unsigned value
+         */
+        abstract int charAt(Object source, int i);
+    }
+}
@@ -0,0 +1,104 @@
+package gov.nasa.jpl.lighttime;
+
+import gov.nasa.jpl.time.Duration;
+import gov.nasa.jpl.time.Time;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static org.junit.Assert.*;
+
+public class InterpolatingLightTimeProviderTest {
+    // Earth-Mars-like light time: the synodic swing plus a daily term from Earth's rotation, and a step if asked for
+    private static class AnalyticLightTime implements LightTimeProvider {
+        private final long stepAt;
+        private int calls = 0;
+
+        private AnalyticLightTime(long stepAt){
+            this.stepAt = stepAt;
+        }
+
+        private double seconds(Time t, boolean upleg){
+            double days = t.getTics() / (double) ONE_DAY;
+            double lightTime = 750 + 500 * Math.sin(2 * Math.PI * days / 780) + 0.021 * Math.sin(2 * Math.PI * days);
+            return (upleg ? lightTime + 0.001 : lightTime) + (t.getTics() >= stepAt ? 1 : 0);
+        }
+
+        @Override
+        public Duration downleg(Time t, int sc_id, int body_id, String time_reference){
+            calls++;
+            return Duration.fromSeconds(seconds(t, false));
+        }
+
+        @Override
+        public Duration upleg(Time t, int sc_id, int body_id, String time_reference){
+            calls++;
+            return Duration.fromSeconds(seconds(t, true));
+        }
+    }
+
+    @Test
+    public void matchesWrappedProvider(){
+        AnalyticLightTime source = new AnalyticLightTime(Long.MAX_VALUE);
+        InterpolatingLightTimeProvider interpolated = new InterpolatingLightTimeProvider(source);
+        AnalyticLightTime reference = new AnalyticLightTime(Long.MAX_VALUE);
+
+        Random random = new Random(42);
+        Time start = new Time("2022-001T00:00:00");
+        for(int i = 0; i < 100000; i++){
+            Time t = start.add(Duration.fromTics((long) (random.nextDouble() * 30 * ONE_DAY)));
+            assertTrue(interpolated.downleg(t, -168, 399, "SCET").equalToWithin(reference.downleg(t, -168, 399, "SCET"), MICROSECOND_DURATION));
+            assertTrue(interpolated.upleg(t, -168, 399, "ERT").equalToWithin(reference.upleg(t, -168, 399, "ERT"), MICROSECOND_DURATION));
+        }
+        // 30 days of 2 legs, with a fit and its checks per day
+        assertTrue("called " + source.calls + " times", source.calls < 2000);
+    }
+
+    @Test
+    public void canBeSharedBetweenThreads(){
+        Time step = new Time("2022-010T06:00:00");
+        InterpolatingLightTimeProvider interpolated = new InterpolatingLightTimeProvider(new AnalyticLightTime(step.getTics()));
+        AnalyticLightTime reference = new AnalyticLightTime(step.getTics());
+        Time start = new Time("2022-001T00:00:00");
+
+        // threads fit the same segments and their halves at the same time, and bulk queries share curves with them
+        long[] tics = new long[20000];
+        for(int i = 0; i < tics.length; i++){
+            tics[i] = start.getTics() + (long) (new Random(i).nextDouble() * 20 * ONE_DAY);
+        }
+        IntStream.range(0, tics.length).parallel().forEach(i -> {
+            Time t = Time.fromTics(tics[i]);
+            assertTrue(t.toString(), interpolated.downleg(t, -168, 399, "SCET").equalToWithin(reference.downleg(t, -168, 399, "SCET"), MICROSECOND_DURATION));
+            if(i % 1000 == 0){
+                long[] block = new long[1000];
+                interpolated.getUplegTics(Arrays.copyOfRange(tics, i, i + 1000), -168, 399, "SCET", block, Time.getDefaultContext());
+                assertEquals(reference.upleg(t, -168, 399, "SCET").getTics(), block[0], ONE_MICROSECOND);
+            }
+        });
+    }
+
+    @Test
+    public void keepsLegsApart(){
+        InterpolatingLightTimeProvider interpolated = new InterpolatingLightTimeProvider(new AnalyticLightTime(Long.MAX_VALUE));
+        Time t = new Time("2022-001T00:00:00");
+        Duration downleg = interpolated.downleg(t, -168, 399, "SCET");
+        assertTrue(interpolated.upleg(t, -168, 399, "SCET").subtract(downleg).equalToWithin(Duration.fromMilliseconds(1), MICROSECOND_DURATION));
+        assertEquals(downleg, interpolated.downleg(t, -168, 399, "SCET"));
+    }
+
+    @Test
+    public void splitsAroundDiscontinuities(){
+        Time step = new Time("2022-010T06:00:00");
+        AnalyticLightTime source = new AnalyticLightTime(step.getTics());
+        InterpolatingLightTimeProvider interpolated = new InterpolatingLightTimeProvider(source);
+        AnalyticLightTime reference = new AnalyticLightTime(step.getTics());
+
+        for(long offset = -ONE_HOUR; offset <= ONE_HOUR; offset += ONE_MINUTE){
+            Time t = step.add(Duration.fromTics(offset));
+            assertTrue(t.toString(), interpolated.downleg(t, -168, 399, "SCET").equalToWithin(reference.downleg(t, -168, 399, "SCET"), MICROSECOND_DURATION));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package gov.nasa.jpl.lighttime;
+
+import gov.nasa.jpl.time.Duration;
+import gov.nasa.jpl.time.Time;
+import gov.nasa.jpl.time.TimeColumns;
+import gov.nasa.jpl.time.TimeContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static org.junit.Assert.*;
+
+public class LightTimeFileProviderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // hourly records of a downleg growing by a millisecond an hour, with the upleg a second longer
+    private LightTimeFileProvider writeTable(String time_reference) throws IOException {
+        File text = folder.newFile();
+        try (PrintWriter out = new PrintWriter(new FileWriter(text))) {
+            out.println("MISSION_NAME = TEST");
+            out.println("$$EOH");
+            out.println("# time, downleg, upleg");
+            Time start = new Time("2022-001T00:00:00");
+            for(int hour = 0; hour <= 48; hour++){
+                Time t = start.add(HOUR_DURATION.multiply(hour));
+                double downleg = 600 + 0.001 * hour;
+                if(hour % 2 == 0){
+                    out.println(t + "  " + downleg + "  " + (downleg + 1));
+                }
+                else{
+                    out.println(t + ", " + Duration.fromSeconds(downleg) + ", " + Duration.fromSeconds(downleg + 1));
+                }
+            }
+        }
+        File binary = folder.newFile();
+        LightTimeFileProvider.convert(text.getPath(), binary.getPath(), -168, 399, time_reference);
+        return LightTimeFileProvider.open(binary.getPath());
+    }
+
+    private static double expectedDownleg(Time recordTime){
+        return 600 + 0.001 * recordTime.subtract(new Time("2022-001T00:00:00")).totalSeconds() / 3600;
+    }
+
+    @Test
+    public void interpolatesRecords() throws IOException {
+        LightTimeFileProvider table = writeTable("SCET");
+        assertEquals(new Time("2022-001T00:00:00"), table.getStartTime());
+        assertEquals(new Time("2022-003T00:00:00"), table.getEndTime());
+
+        Time t = new Time("2022-002T05:30:00");
+        assertEquals(expectedDownleg(t), table.downleg(t, -168, 399, "SCET").totalSeconds(), 1e-8);
+        assertEquals(expectedDownleg(t) + 1, table.upleg(t, -168, 399, "SCET").totalSeconds(), 1e-8);
+        assertEquals(Math.round(expectedDownleg(t) * ONE_SECOND), table.getDownlegTics(t.getTics(), -168, 399, "SCET"), 1);
+        assertEquals(600.048, table.downleg(table.getEndTime(), -168, 399, "SCET").totalSeconds(), 1e-8);
+    }
+
+    @Test
+    public void solvesOtherFrame() throws IOException {
+        LightTimeFileProvider table = writeTable("SCET");
+
+        // light leaving the spacecraft at scet arrives at ert
+        Time scet = new Time("2022-001T12:00:00");
+        Duration downleg = table.downleg(scet, -168, 399, "SCET");
+        Time ert = scet.add(downleg);
+        assertEquals(downleg.getTics(), table.getDownlegTics(ert.getTics(), -168, 399, "ERT"), 1);
+
+        // light leaving Earth at ett arrives at the spacecraft at scet
+        Duration upleg = table.upleg(scet, -168, 399, "SCET");
+        Time ett = scet.subtract(upleg);
+        assertEquals(upleg.getTics(), table.getUplegTics(ett.getTics(), -168, 399, "ETT"), 1);
+    }
+
+    @Test
+    public void earthTimeTable() throws IOException {
+        LightTimeFileProvider table = writeTable("ERT");
+
+        Time ert = new Time("2022-001T12:00:00");
+        Duration downleg = table.downleg(ert, -168, 399, "ERT");
+        assertEquals(expectedDownleg(ert), downleg.totalSeconds(), 1e-8);
+        assertEquals(downleg.getTics(), table.getDownlegTics(ert.subtract(downleg).getTics(), -168, 399, "SCET"), 1);
+
+        Time ett = new Time("2022-001T12:00:00");
+        Duration upleg = table.upleg(ett, -168, 399, "ETT");
+        assertEquals(upleg.getTics(), table.getUplegTics(ett.add(upleg).getTics(), -168, 399, "SCET"), 1);
+    }
+
+    @Test
+    public void convertsSortedColumns() throws IOException {
+        LightTimeFileProvider table = writeTable("SCET");
+        TimeContext context = Time.getDefaultContext().withLightTimeProvider(table);
+        long[] tics = new long[5000];
+        long start = new Time("2022-001T01:00:00").getTics();
+        for(int i = 0; i < tics.length; i++){
+            tics[i] = start + i * 31 * ONE_SECOND + i % 7;
+        }
+
+        long[] scet = TimeColumns.ETT2SCET(tics, -168, 399, new long[tics.length], context);
+        long[] ert = TimeColumns.SCET2ERT(tics, -168, 399, new long[tics.length], context);
+        long[] ett = TimeColumns.SCET2ETT(tics, -168, 399, new long[tics.length], context);
+        long[] fromErt = TimeColumns.ERT2SCET(tics, -168, 399, new long[tics.length], context);
+        long[] roundTrip = TimeColumns.ERT2ETT(tics, -168, 399, new long[tics.length], context);
+        for(int i = 0; i < tics.length; i++){
+            Time t = Time.fromTics(tics[i]);
+            assertEquals(Time.ETT2SCET(t, -168, context).getTics(), scet[i]);
+            assertEquals(Time.SCET2ERT(t, -168, context).getTics(), ert[i]);
+            assertEquals(Time.SCET2ETT(t, -168, context).getTics(), ett[i]);
+            assertEquals(Time.ERT2SCET(t, -168, context).getTics(), fromErt[i]);
+            assertEquals(Time.ERT2ETT(t, -168, context).getTics(), roundTrip[i]);
+        }
+
+        // out of order gives the same light times, and the output can overwrite the input
+        long[] reversed = new long[tics.length];
+        for(int i = 0; i < tics.length; i++){
+            reversed[i] = tics[tics.length - 1 - i];
+        }
+        TimeColumns.ETT2ERT(reversed, -168, 399, reversed, context);
+        long[] forwards = TimeColumns.ETT2ERT(tics, -168, 399, new long[tics.length], context);
+        for(int i = 0; i < tics.length; i++){
+            assertEquals(forwards[tics.length - 1 - i], reversed[i]);
+        }
+
+        // shuffled times jump across the table and are binary searched instead of walked to
+        long[] shuffled = tics.clone();
+        Random random = new Random(22);
+        for(int i = shuffled.length - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            long swap = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = swap;
+        }
+        long[] downlegs = new long[shuffled.length];
+        table.getDownlegTics(shuffled, -168, 399, "ERT", downlegs, context);
+        for(int i = 0; i < shuffled.length; i++){
+            assertEquals(table.getDownlegTics(shuffled[i], -168, 399, "ERT", context), downlegs[i]);
+        }
+    }
+
+    @Test
+    public void rejectsBadQueries() throws IOException {
+        LightTimeFileProvider table = writeTable("SCET");
+        try {
+            table.downleg(new Time("2022-004T00:00:00"), -168, 399, "SCET");
+            fail("Expected an exception for a time past the end of the table");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("outside of light time table"));
+        }
+        try {
+            table.downleg(new Time("2022-002T00:00:00"), -189, 399, "SCET");
+            fail("Expected an exception for another spacecraft");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("is for spacecraft -168"));
+        }
+        // the caller's context is checked, not the default one
+        Time inside = new Time("2022-002T00:00:00");
+        try {
+            table.downleg(inside, -168, 399, "SCET", TimeContext.defaults().withUseSpiceForMath(true));
+            fail("Expected an exception for a table converted in the other mode");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("useSpiceForMath false"));
+        }
+        try {
+            table.getDownlegTics(new long[]{inside.getTics()}, -168, 399, "SCET", new long[1], TimeContext.defaults().withUseSpiceForMath(true));
+            fail("Expected an exception for a bulk query in the other mode");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("useSpiceForMath false"));
+        }
+    }
+
+    @Test
+    public void rejectsUnsortedFiles() throws IOException {
+        File text = folder.newFile();
+        try (PrintWriter out = new PrintWriter(new FileWriter(text))) {
+            out.println("2022-001T01:00:00 600.0");
+            out.println("2022-001T00:00:00 600.0");
+        }
+        try {
+            LightTimeFileProvider.convert(text.getPath(), folder.newFile().getPath(), -168, 399, "SCET");
+            fail("Expected an exception for records out of order");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("increasing time order"));
+        }
+    }
+}
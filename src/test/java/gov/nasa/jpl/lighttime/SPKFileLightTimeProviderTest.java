@@ -0,0 +1,254 @@
+package gov.nasa.jpl.lighttime;
+
+import gov.nasa.jpl.time.LeapSecondsKernel;
+import gov.nasa.jpl.time.Time;
+import gov.nasa.jpl.time.TimeColumns;
+import gov.nasa.jpl.time.TimeContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import spice.basic.CSPICE;
+import spice.basic.SpiceErrorException;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static org.junit.Assert.*;
+
+public class SPKFileLightTimeProviderTest {
+    private static final double START_ET = 7e8;
+    private static final double DAY = 86400;
+    private static final int DAYS = 10;
+    private static final int ORBITER = -900;
+    private static final int LANDER = -901;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String spk;
+    private String pck;
+
+    @Before
+    public void setUp() throws SpiceErrorException, IOException {
+        System.loadLibrary("JNISpice");
+        CSPICE.furnsh("kernels/naif0012.tls");
+        spk = new File(folder.getRoot(), "test.bsp").getPath();
+        pck = writePck();
+        writeSpk();
+        CSPICE.furnsh(spk);
+        CSPICE.furnsh(pck);
+    }
+
+    @After
+    public void tearDown() throws SpiceErrorException {
+        CSPICE.unload(spk);
+        CSPICE.unload(pck);
+    }
+
+    // Mars orientation from pck00010, plus made up nutation precession terms so they are exercised too
+    private String writePck() throws IOException {
+        File file = folder.newFile("test.tpc");
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println("KPL/PCK");
+            out.println("\\begindata");
+            out.println("BODY499_POLE_RA = ( 317.68143 -0.1061 0. )");
+            out.println("BODY499_POLE_DEC = ( 52.88650 -0.0609 0. )");
+            out.println("BODY499_PM = ( 176.630 350.89198226 0. )");
+            out.println("BODY4_NUT_PREC_ANGLES = ( 10.0 1200.0 200.0 -300.0 )");
+            out.println("BODY499_NUT_PREC_RA = ( 0.01 0.002 )");
+            out.println("BODY499_NUT_PREC_DEC = ( -0.004 0.003 )");
+            out.println("BODY499_NUT_PREC_PM = ( 0.02 -0.01 )");
+            out.println("\\begintext");
+        }
+        return file.getPath();
+    }
+
+    private void writeSpk() throws SpiceErrorException {
+        Random random = new Random(99);
+        int handle = CSPICE.spkopn(spk, "test", 0);
+        double end = START_ET + DAYS * DAY;
+
+        // Earth-Moon barycenter from the solar system barycenter, Chebyshev positions (type 2)
+        CSPICE.spkw02(handle, 3, 0, "J2000", START_ET, end, "EMB", DAY, DAYS, 12, fitOrbit(1.5e8, 365.25 * DAY, 12, false), START_ET);
+
+        // Earth from the barycenter in ecliptic coordinates, Chebyshev positions and velocities (type 3)
+        CSPICE.spkw03(handle, 399, 3, "ECLIPJ2000", START_ET, end, "EARTH", DAY, DAYS, 10, fitOrbit(4700, 27.3 * DAY, 10, true), START_ET);
+
+        // Mars barycenter and Mars, unequally spaced Lagrange (type 9) with even and odd windows
+        writeOrbit(handle, 9, 4, 0, 2.2e8, 687 * DAY, 3600, 7, random);
+        writeOrbit(handle, 9, 499, 4, 100, 0.3 * DAY, 600, 6, random);
+
+        // an orbiter of Mars with Hermite interpolation (type 13)
+        writeOrbit(handle, 13, ORBITER, 499, 4000, 7200, 60, 7, random);
+
+        // a landing site, the same state in Mars' body-fixed frame
+        double[] site = {1000, -3000, 1200, 0, 0, 0};
+        double[] states = new double[12];
+        System.arraycopy(site, 0, states, 0, 6);
+        System.arraycopy(site, 0, states, 6, 6);
+        CSPICE.spkw09(handle, LANDER, 499, "IAU_MARS", START_ET, end, "SITE", 1, 2, states, new double[]{START_ET, end});
+
+        CSPICE.spkcls(handle);
+    }
+
+    // the state on a slightly inclined circular orbit
+    private static double orbit(double radius, double period, double et, int component){
+        double angle = 2 * Math.PI * (et - START_ET) / period;
+        double rate = 2 * Math.PI / period;
+        switch(component){
+            case 0: return radius * Math.cos(angle);
+            case 1: return radius * Math.sin(angle);
+            case 2: return radius * 0.01 * Math.sin(angle);
+            case 3: return -radius * rate * Math.sin(angle);
+            case 4: return radius * rate * Math.cos(angle);
+            default: return radius * 0.01 * rate * Math.cos(angle);
+        }
+    }
+
+    // Chebyshev interpolation of an orbit over each day, as spkw02 or spkw03 (with velocities) take it
+    private static double[] fitOrbit(double radius, double period, int degree, boolean velocities){
+        int components = velocities ? 6 : 3;
+        int n = degree + 1;
+        double[] coefficients = new double[DAYS * components * n];
+        for(int record = 0; record < DAYS; record++){
+            double mid = START_ET + (record + 0.5) * DAY;
+            for(int component = 0; component < components; component++){
+                for(int j = 0; j < n; j++){
+                    double sum = 0;
+                    for(int k = 0; k < n; k++){
+                        double theta = Math.PI * (k + 0.5) / n;
+                        sum += orbit(radius, period, mid + DAY / 2 * Math.cos(theta), component) * Math.cos(j * theta);
+                    }
+                    coefficients[(record * components + component) * n + j] = (j == 0 ? 1.0 : 2.0) * sum / n;
+                }
+            }
+        }
+        return coefficients;
+    }
+
+    // a circular orbit sampled at jittered steps
+    private static void writeOrbit(int handle, int type, int body, int center, double radius, double period, double step, int degree, Random random) throws SpiceErrorException {
+        int n = (int) (DAYS * DAY / step) + 1;
+        double[] epochs = new double[n];
+        double[] states = new double[6 * n];
+        for(int i = 0; i < n; i++){
+            epochs[i] = START_ET + i * step + (i == 0 || i == n - 1 ? 0 : step * 0.3 * (random.nextDouble() - 0.5));
+            for(int component = 0; component < 6; component++){
+                states[6 * i + component] = orbit(radius, period, epochs[i], component);
+            }
+        }
+        if(type == 9){
+            CSPICE.spkw09(handle, body, center, "J2000", epochs[0], epochs[n - 1], "ORBIT", degree, n, states, epochs);
+        }
+        else{
+            CSPICE.spkw13(handle, body, center, "J2000", epochs[0], epochs[n - 1], "ORBIT", degree, n, states, epochs);
+        }
+    }
+
+    @Test
+    public void matchesLtime() throws IOException, SpiceErrorException {
+        SPKFileLightTimeProvider provider = new SPKFileLightTimeProvider(spk);
+        provider.loadPlanetaryConstants(pck);
+
+        Random random = new Random(7);
+        double[] ettarg = new double[1];
+        double[] elapsd = new double[1];
+        for(int i = 0; i < 2000; i++){
+            double et = START_ET + DAY + random.nextDouble() * (DAYS - 2) * DAY;
+            int sc_id = i % 2 == 0 ? ORBITER : LANDER;
+            String arrow = i % 4 < 2 ? "->" : "<-";
+            CSPICE.ltime(et, sc_id, arrow, 399, ettarg, elapsd);
+            assertEquals(elapsd[0], provider.getLightTime(et, sc_id, arrow, 399), 1e-10);
+            CSPICE.ltime(et, 399, arrow, sc_id, ettarg, elapsd);
+            assertEquals(elapsd[0], provider.getLightTime(et, 399, arrow, sc_id), 1e-10);
+        }
+    }
+
+    @Test
+    public void matchesSpkLightTimeProvider() throws IOException {
+        SPKFileLightTimeProvider provider = new SPKFileLightTimeProvider(spk);
+        provider.loadPlanetaryConstants(pck);
+        SPKLightTimeProvider spice = new SPKLightTimeProvider();
+
+        Time start = Time.fromET(START_ET + DAY);
+        for(String reference : new String[]{"SCET", "ERT", "ETT"}){
+            for(int hour = 0; hour < 24 * (DAYS - 2); hour += 7){
+                Time t = start.add(HOUR_DURATION.multiply(hour));
+                assertEquals(spice.downleg(t, ORBITER, 399, reference).getTics(), provider.downleg(t, ORBITER, 399, reference).getTics(), 1);
+                assertEquals(spice.upleg(t, LANDER, 399, reference).getTics(), provider.upleg(t, LANDER, 399, reference).getTics(), 1);
+            }
+        }
+    }
+
+    @Test
+    public void answersTheSameOnManyThreads() throws IOException {
+        SPKFileLightTimeProvider provider = new SPKFileLightTimeProvider(spk);
+        provider.loadPlanetaryConstants(pck);
+        double[] ets = new double[5000];
+        double[] expected = new double[ets.length];
+        Random random = new Random(3);
+        for(int i = 0; i < ets.length; i++){
+            ets[i] = START_ET + DAY + random.nextDouble() * (DAYS - 2) * DAY;
+            expected[i] = provider.getLightTime(ets[i], i % 2 == 0 ? ORBITER : LANDER, "->", 399);
+        }
+        // Mars and the orbiter are interpolated from states, so windows in shared scratch arrays would get mixed up
+        IntStream.range(0, ets.length).parallel().forEach(i ->
+                assertEquals(expected[i], provider.getLightTime(ets[i], i % 2 == 0 ? ORBITER : LANDER, "->", 399), 0));
+    }
+
+    @Test
+    public void usesTheCallersContext() throws IOException {
+        SPKFileLightTimeProvider provider = new SPKFileLightTimeProvider(spk);
+        provider.loadPlanetaryConstants(pck);
+        // tics are TAI here but leapsecond-free in the default context, so the same tics are a minute apart in ET
+        TimeContext context = TimeContext.defaults().withUseSpiceForMath(true)
+                .withLeapSecondsKernel(LeapSecondsKernel.read("kernels/naif0012.tls")).withLightTimeProvider(provider);
+        double et = START_ET + 2 * DAY;
+        Time t = Time.fromET(et, context);
+
+        long expected = Math.round(provider.getLightTime(et, ORBITER, "->", 399) * ONE_SECOND);
+        assertEquals(expected, provider.downleg(t, ORBITER, 399, "SCET", context).getTics(), 1);
+        assertNotEquals(expected, provider.downleg(t, ORBITER, 399, "SCET").getTics());
+
+        long[] tics = {t.getTics(), t.getTics() + ONE_HOUR};
+        long[] erts = TimeColumns.SCET2ERT(tics, ORBITER, 399, new long[2], context);
+        assertEquals(Time.SCET2ERT(t, ORBITER, context).getTics(), erts[0]);
+        assertEquals(Time.SCET2ERT(Time.fromTics(tics[1]), ORBITER, context).getTics(), erts[1]);
+    }
+
+    @Test
+    public void laterFilesTakePrecedence() throws IOException, SpiceErrorException {
+        String override = new File(folder.getRoot(), "override.bsp").getPath();
+        int handle = CSPICE.spkopn(override, "override", 0);
+        double[] site = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        CSPICE.spkw09(handle, LANDER, 399, "J2000", START_ET, START_ET + DAYS * DAY, "SITE", 1, 2, site, new double[]{START_ET, START_ET + DAYS * DAY});
+        CSPICE.spkcls(handle);
+
+        SPKFileLightTimeProvider provider = new SPKFileLightTimeProvider(spk, override);
+        assertEquals(0, provider.getLightTime(START_ET + DAY, LANDER, "->", 399), 0);
+    }
+
+    @Test
+    public void reportsMissingData() throws IOException {
+        SPKFileLightTimeProvider provider = new SPKFileLightTimeProvider(spk);
+        try {
+            provider.getLightTime(START_ET + DAY, -999, "->", 399);
+            fail("Expected an exception for a body with no segments");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("body -999"));
+        }
+        try {
+            provider.getLightTime(START_ET + DAY, LANDER, "->", 399);
+            fail("Expected an exception for a body-fixed frame without orientation constants");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("BODY499_POLE_RA"));
+        }
+    }
+}
@@ -5,7 +5,10 @@ import org.junit.Test;
 import spice.basic.CSPICE;
 import spice.basic.SpiceErrorException;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.regex.Matcher;
 
 import static gov.nasa.jpl.time.Duration.*;
@@ -237,6 +240,105 @@ public class DurationTest {
         assertEquals(2112, d1.getSeconds());
     }
 
+    @Test
+    public void parseMatchesRegex() {
+        String[] inputs = {"00:35:12", "-00:35:12.5", "T10:00:00", "-T1:2:3", "001T00:00:00", "123T4:05:06.789",
+                "offset 12:00:00 later", "12:00:00.5.3", "12:00:00.", "--12:00:00", "1T2T03:00:00", "5:6T1:2:3",
+                "00:00:01.123456789", "00:00:01.123456785", "999999T23:59:59.99999999", "-:1:2:3", "x-5T00:00:01"};
+        for(String input : inputs){
+            Matcher durationMatcher = durationPattern.matcher(input);
+            assertTrue(input, durationMatcher.find());
+            assertEquals(input, Duration.fromMatcher(durationMatcher).getTics(), Duration.parseTics(input));
+        }
+
+        Random random = new Random(7);
+        String alphabet = "0123456789:.-T x";
+        for(int i = 0; i < 100000; i++){
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(16);
+            for(int j = 0; j < length; j++){
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String input = sb.toString();
+            Matcher durationMatcher = durationPattern.matcher(input);
+            if(durationMatcher.find()){
+                assertEquals(input, Duration.fromMatcher(durationMatcher).getTics(), Duration.parseTics(input));
+            }
+            else{
+                try {
+                    Duration.parseTics(input);
+                    fail("Parsed " + input + " which the regex does not match");
+                }
+                catch(RuntimeException e){
+                    assertTrue(input + " " + e, e.getMessage().contains("does not match expected format"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parseSecondsExactly() {
+        // 0.1 and friends aren't representable as doubles, so these used to depend on Math.round luck
+        assertEquals(100000 * ONE_DAY + 10000000, Duration.parseTics("100000T00:00:00.1"));
+        assertEquals(ONE_SECOND + 12345679, Duration.parseTics("00:00:01.123456785"));
+        assertEquals(-(ONE_SECOND + 12345678), Duration.parseTics("-00:00:01.123456784999"));
+    }
+
+    @Test
+    public void formatMatchesStringFormat() throws IOException {
+        Random random = new Random(2718);
+        StringBuilder sb = new StringBuilder();
+        StringWriter writer = new StringWriter();
+        for(int i = 0; i < 100000; i++){
+            // small enough that the old double rounding was exact
+            long tics = i % 2 == 0 ? random.nextLong() >> 14 : random.nextInt() * 10L;
+            int precision = random.nextInt(10);
+            Duration d = new Duration(tics);
+
+            String expected = formatWithStringFormat(tics, precision);
+            assertEquals(expected, d.toString(precision));
+            sb.setLength(0);
+            assertEquals(expected, d.appendTo(sb, precision).toString());
+            writer.getBuffer().setLength(0);
+            assertEquals(expected, d.appendTo((Appendable) writer, precision).toString());
+            assertEquals(expected, d.appendTo((Appendable) new StringBuffer(), precision).toString());
+
+            String earthDurString = formatWithStringFormat(d.divide(MARS_TIME_SCALE).getTics(), precision);
+            String expectedMars = earthDurString.contains("T") ? earthDurString.replace("T", "M")
+                    : earthDurString.startsWith("-") ? "-M" + earthDurString.substring(1) : "M" + earthDurString;
+            assertEquals(expectedMars, d.toMarsDurString(precision));
+            sb.setLength(0);
+            assertEquals(expectedMars, d.appendMarsDurTo(sb, precision).toString());
+        }
+    }
+
+    @Test
+    public void formatExactly() {
+        // past 2^53 tics a double can't hold every tic, so the last digit used to come out wrong
+        long tics = (1L << 53) + 1;
+        assertEquals("1042T11:59:52.54740993", new Duration(tics).toString(8));
+        assertEquals("-1042T11:59:52.54740993", new Duration(-tics).toString(8));
+        assertEquals("00:00:01", new Duration(ONE_SECOND - 1).toString(-1));
+        assertEquals("-00:00:00.5", new Duration(-ONE_SECOND / 2 - 1).toString(1));
+        assertEquals("00:00:00.0", new Duration(-ONE_SECOND / 20).toString(1));
+    }
+
+    // Duration.toString as it was written with String.format
+    private static String formatWithStringFormat(long tics, int numDecimalPlaces){
+        numDecimalPlaces = Math.min(numDecimalPlaces, 8);
+        String formatForLessThanOneDay = numDecimalPlaces == 0 ? "%02d:%02d:%02d" : "%02d:%02d:%02d.%0" + numDecimalPlaces + "d";
+        long ticsRounder = (long) Math.pow(10, 8 - numDecimalPlaces);
+        long roundedTics = Math.round(((double) tics) / ticsRounder) * ticsRounder;
+        long remainder = Math.abs(roundedTics) % ONE_DAY;
+        String sign = roundedTics < 0 ? "-" : "";
+        String timeOfDay = String.format(formatForLessThanOneDay, remainder / ONE_HOUR, (remainder % ONE_HOUR) / ONE_MINUTE,
+                (remainder % ONE_MINUTE) / ONE_SECOND, (remainder % ONE_SECOND) / ticsRounder);
+        if(Math.abs(roundedTics) >= ONE_DAY){
+            return sign + (Math.abs(roundedTics) / ONE_DAY) + "T" + timeOfDay;
+        }
+        return sign + timeOfDay;
+    }
+
     @Test
     public void fromTics(){
         Duration d = Duration.fromTics(ONE_SECOND);
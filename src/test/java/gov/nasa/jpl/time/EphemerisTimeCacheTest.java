@@ -0,0 +1,93 @@
+package gov.nasa.jpl.time;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import spice.basic.CSPICE;
+import spice.basic.SpiceErrorException;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static org.junit.Assert.*;
+
+public class EphemerisTimeCacheTest {
+    private LeapSecondsKernel lsk;
+
+    @Before
+    public void setUp() throws IOException {
+        TimeTest.setupSpice();
+        lsk = LeapSecondsKernel.read("kernels/naif0012.tls");
+    }
+
+    @After
+    public void tearDown(){
+        Time.disableEphemerisTimeCache();
+        Time.setUseSpiceForMath(false);
+    }
+
+    @Test
+    public void matchesFormula(){
+        EphemerisTimeCache cache = new EphemerisTimeCache(lsk, -ONE_DAY * 36525, ONE_DAY * 36525, 8 * ONE_DAY);
+        Random random = new Random(1234);
+        for(int i = 0; i < 100000; i++){
+            long tai = (long) ((random.nextDouble() * 2 - 1) * ONE_DAY * 36500);
+            double et = lsk.taiToEt(tai / (double) ONE_SECOND);
+            assertTrue(cache.covers(tai));
+            assertEquals(et, cache.taiToEt(tai), EphemerisTimeCache.MAX_ERROR_SECONDS + Math.ulp(et));
+
+            double tai2 = lsk.etToTai(et);
+            assertTrue(cache.coversEt(et));
+            assertEquals(tai2, cache.etToTai(et), EphemerisTimeCache.MAX_ERROR_SECONDS + Math.ulp(tai2));
+        }
+        assertFalse(cache.covers(ONE_DAY * 36525 + 8 * ONE_DAY));
+        assertFalse(cache.covers(-ONE_DAY * 36525 - 1));
+    }
+
+    @Test
+    public void matchesUnitimInSpiceMode() throws SpiceErrorException {
+        Time.setUseSpiceForMath(true);
+        Time.setEphemerisTimeCacheCoverage(-1577880000, 3155716800.0, new Duration("8T00:00:00"));
+        Random random = new Random(5678);
+        for(int i = 0; i < 10000; i++){
+            Time t = Time.fromTics((long) ((random.nextDouble() * 2 - 1) * ONE_DAY * 36500));
+            double taiSeconds = t.getTics() / (double) ONE_SECOND;
+            double spiceEt = CSPICE.unitim(taiSeconds, "TAI", "ET");
+            assertEquals(spiceEt, t.toET(), 1e-9 + Math.ulp(spiceEt));
+            assertEquals(Math.round(CSPICE.unitim(spiceEt, "ET", "TAI") * ONE_SECOND), Time.fromET(spiceEt).getTics(), 1);
+        }
+    }
+
+    @Test
+    public void offUnlessAskedFor(){
+        assertNull(TimeContext.defaults().withUseSpiceForMath(true).getEphemerisTimeCache());
+    }
+
+    @Test
+    public void refitsAfterReloadingLeapSeconds(){
+        Time.setUseSpiceForMath(true);
+        Time.setEphemerisTimeCacheCoverage(-1577880000, 3155716800.0, new Duration("8T00:00:00"));
+        TimeContext context = Time.getDefaultContext();
+        EphemerisTimeCache cache = context.getEphemerisTimeCache();
+        assertSame(cache, context.getEphemerisTimeCache());
+
+        Time.reloadSpiceLeapSeconds();
+        EphemerisTimeCache reloaded = context.getEphemerisTimeCache();
+        assertNotSame(cache, reloaded);
+        assertNotSame(cache.getModel(), reloaded.getModel());
+        assertSame(reloaded, context.getEphemerisTimeCache());
+    }
+
+    @Test
+    public void fallsBackOutsideCoverage() throws SpiceErrorException {
+        Time.setUseSpiceForMath(true);
+        Time.setEphemerisTimeCacheCoverage(0, 86400, new Duration("1T00:00:00"));
+        Time outside = new Time("2022-001T00:00:00");
+        assertEquals(CSPICE.unitim(outside.getTics() / (double) ONE_SECOND, "TAI", "ET"), outside.toET(), 0.0);
+
+        Time.disableEphemerisTimeCache();
+        Time inside = Time.fromTics(ONE_HOUR);
+        assertEquals(CSPICE.unitim(ONE_HOUR / (double) ONE_SECOND, "TAI", "ET"), inside.toET(), 0.0);
+    }
+}
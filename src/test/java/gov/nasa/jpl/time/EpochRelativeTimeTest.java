@@ -3,8 +3,16 @@ package gov.nasa.jpl.time;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
@@ -74,6 +82,35 @@ public class EpochRelativeTimeTest {
         assertEquals("5T00:00:00", d.toString());
     }
 
+    @Test
+    public void mathFollowsRedefinedEpochs(){
+        EpochRelativeTime t = new EpochRelativeTime("Hello_there+00:05:00");
+        EpochRelativeTime.addEpoch("Hello_there", new Time("2020-002T00:00:00"));
+        assertEquals(new Time("2020-002T00:15:00"), new Time(t.add(new Duration("00:10:00"))));
+        assertEquals(new Time("2020-002T00:00:00"), new Time(t.subtract(new Duration("00:05:00"))));
+
+        // an epoch only the parsing context has is kept
+        TimeContext other = Time.getDefaultContext().withEpoch("elsewhere", new Time("2030-001T00:00:00"));
+        EpochRelativeTime elsewhere = new EpochRelativeTime("elsewhere+00:05:00", other);
+        assertEquals(new Time("2030-001T00:15:00"), new Time(elsewhere.add(new Duration("00:10:00"))));
+    }
+
+    @Test
+    public void epochMapWritesThrough(){
+        Map<String, Time> epochs = EpochRelativeTime.getEpochs();
+        assertNull(epochs.put("through_map", new Time("2024-001T00:00:00")));
+        assertTrue(EpochRelativeTime.isEpochDefined("through_map"));
+        assertEquals(new Time("2024-001T00:01:00"), new Time(new EpochRelativeTime("through_map+00:01:00")));
+        assertEquals(new Time("2024-001T00:00:00"), epochs.remove("through_map"));
+        assertFalse(EpochRelativeTime.isEpochDefined("through_map"));
+
+        // a snapshot doesn't change with the map
+        TimeContext pinned = EpochRelativeTime.snapshotEpochs();
+        epochs.put("after_snapshot", new Time("2024-001T00:00:00"));
+        assertNull(pinned.getEpoch("after_snapshot"));
+        assertTrue(epochs.containsKey("after_snapshot"));
+    }
+
     @Test
     public void otherTimeMethods(){
         Time absTime = new Time("2020-001T00:00:00");
@@ -145,4 +182,59 @@ public class EpochRelativeTimeTest {
             assertTrue(e.getMessage().contains("could not be parsed into either an absolute or relative time"));
         }
     }
+
+    @Test
+    public void snapshotsAndVersions() throws IOException {
+        TimeContext pinned = EpochRelativeTime.snapshotEpochs();
+        long version = EpochRelativeTime.getEpochVersion();
+        assertEquals(version, pinned.getEpochVersion());
+
+        EpochRelativeTime.addEpoch("Hello_there", new Time("2020-002T00:00:00"));
+        assertNotEquals(version, EpochRelativeTime.getEpochVersion());
+        assertEquals("2020-001T00:05:00", new EpochRelativeTime("Hello_there+00:05:00", pinned).toUTC(0));
+        assertEquals("2020-002T00:05:00", new EpochRelativeTime("Hello_there+00:05:00").toUTC(0));
+
+        // an update made from a stale version is refused instead of undoing the change above
+        Map<String, Time> stale = new HashMap<>(pinned.getEpochs());
+        stale.put("fourth", new Time("2023-001T00:00:00"));
+        assertFalse(EpochRelativeTime.replaceEpochs(version, stale));
+        assertFalse(EpochRelativeTime.isEpochDefined("fourth"));
+        assertTrue(EpochRelativeTime.replaceEpochs(EpochRelativeTime.getEpochVersion(), stale));
+        assertTrue(EpochRelativeTime.isEpochDefined("fourth"));
+
+        File cvf = File.createTempFile("epochs", ".cvf");
+        cvf.deleteOnExit();
+        EpochRelativeTime.writeEpochCVF(cvf.getPath(), Arrays.asList("third", "gps_test"));
+        EpochRelativeTime.reloadEpochCVF(cvf.getPath());
+        assertEquals(2, EpochRelativeTime.getEpochs().size());
+        assertEquals(new Time("2022-001T00:00:00"), new Time(new EpochRelativeTime("third", Duration.ZERO_DURATION)));
+        assertFalse(EpochRelativeTime.isEpochDefined("fourth"));
+    }
+
+    @Test
+    public void parsesWhileEpochsChange() throws Exception {
+        Time first = new Time("2020-001T00:00:00");
+        Time second = new Time("2021-001T00:00:00");
+        EpochRelativeTime.addEpoch("moving", first);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> parsers = new ArrayList<>();
+        for(int i = 0; i < 4; i++){
+            parsers.add(pool.submit(() -> {
+                for(int j = 0; j < 2000; j++){
+                    // the epoch moves between two values but a parse always sees one of them
+                    String utc = new EpochRelativeTime("moving+00:00:01").toUTC(0);
+                    assertTrue(utc, utc.equals("2020-001T00:00:01") || utc.equals("2021-001T00:00:01"));
+                }
+                return null;
+            }));
+        }
+        for(int i = 0; i < 2000; i++){
+            EpochRelativeTime.addEpoch("moving", i % 2 == 0 ? second : first);
+            EpochRelativeTime.addEpoch("other" + (i % 10), first);
+        }
+        pool.shutdown();
+        for(Future<?> parser : parsers){
+            parser.get();
+        }
+    }
 }
@@ -0,0 +1,141 @@
+package gov.nasa.jpl.time;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import spice.basic.CSPICE;
+import spice.basic.SpiceErrorException;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static org.junit.Assert.*;
+
+public class LeapSecondsKernelTest {
+    private LeapSecondsKernel lsk;
+
+    @Before
+    public void setUp() throws IOException {
+        TimeTest.setupSpice();
+        lsk = LeapSecondsKernel.read("kernels/naif0012.tls");
+    }
+
+    @After
+    public void tearDown(){
+        Time.setLeapSecondsKernel(null);
+        Time.setUseSpiceForMath(false);
+    }
+
+    @Test
+    public void getDeltaAt(){
+        assertEquals(9, lsk.getDeltaAt(UTCCalendar.dayNumber(1971, 365)));
+        assertEquals(10, lsk.getDeltaAt(UTCCalendar.dayNumber(1972, 1)));
+        assertEquals(32, lsk.getDeltaAt(0));
+        assertEquals(36, lsk.getDeltaAt(UTCCalendar.dayNumber(2016, 366)));
+        assertEquals(37, lsk.getDeltaAt(UTCCalendar.dayNumber(2017, 1)));
+        assertEquals(37, lsk.getDeltaAt(UTCCalendar.dayNumber(2030, 1)));
+
+        assertEquals(ONE_DAY + ONE_SECOND, lsk.getDayLength(UTCCalendar.dayNumber(2016, 366)));
+        assertEquals(ONE_DAY, lsk.getDayLength(UTCCalendar.dayNumber(2017, 1)));
+    }
+
+    @Test
+    public void utcToTai(){
+        // J2000 in UTC is 32 TAI seconds past the epoch
+        assertEquals(32 * ONE_SECOND, lsk.utcToTai(0, ONE_DAY / 2));
+        long leapDay = UTCCalendar.dayNumber(2016, 366);
+        long leapSecond = lsk.utcToTai(leapDay, ONE_DAY);
+        assertEquals(leapDay, lsk.getUtcDayNumber(leapSecond));
+        assertEquals(leapDay + 1, lsk.getUtcDayNumber(leapSecond + ONE_SECOND));
+        assertEquals(leapSecond + ONE_SECOND, lsk.getTaiAtStartOfDay(leapDay + 1));
+    }
+
+    @Test
+    public void matchesSpiceParsing() throws SpiceErrorException {
+        Time.setUseSpiceForMath(true);
+        String[] inputs = {"1900-060T12:45:21", "1971-365T23:59:59", "1972-001T00:00:00", "2000-001T12:00:00",
+                "2016-366T23:59:60.5", "2017-001T00:00:00", "2019-199T23:59:59.999999650", "2020-02-29T13:14:15.25"};
+        for(String input : inputs){
+            Time.setLeapSecondsKernel(null);
+            long spiceTics = new Time(input).getTics();
+            Time.setLeapSecondsKernel(lsk);
+            long javaTics = new Time(input).getTics();
+            // str2et goes through a double of ET so it is only good to about a tenth of a microsecond
+            assertEquals(input, spiceTics, javaTics, 10);
+        }
+
+        Time.setLeapSecondsKernel(lsk);
+        assertEquals(new Time("2016-12-31T23:59:60.5"), new Time("2016-366T23:59:60.5"));
+        // inputs the fast path can't handle still go to str2et
+        assertEquals(new Time("2019-150T00:00:00"), new Time("2019 MAY 30 00:00:00"));
+    }
+
+    @Test
+    public void matchesSpiceFormatting() throws SpiceErrorException {
+        Time.setUseSpiceForMath(true);
+        Time.setLeapSecondsKernel(lsk);
+        Random random = new Random(8675309);
+        for(int i = 0; i < 2000; i++){
+            // stay away from exact rounding ties since SPICE rounds from a double
+            long milliseconds = random.nextInt(1000);
+            if(milliseconds % 5 == 0){
+                milliseconds++;
+            }
+            long tai = (long) ((random.nextDouble() - 0.5) * 2.5e9) * ONE_SECOND + milliseconds * ONE_MILLISECOND;
+            Time t = Time.fromTics(tai);
+            for(int precision = 0; precision <= 6; precision++){
+                String expected = CSPICE.et2utc(CSPICE.unitim(tai / (double) ONE_SECOND, "TAI", "ET"), "ISOD", precision);
+                assertEquals(expected, t.toUTC(precision));
+            }
+        }
+    }
+
+    @Test
+    public void taiToEtMatchesUnitim() throws SpiceErrorException {
+        Random random = new Random(1138);
+        for(int i = 0; i < 100000; i++){
+            double tai = (random.nextDouble() - 0.5) * 6e9;
+            // the formula is evaluated in the same order as unitim so results should be identical, not just within 1 ns
+            assertEquals(CSPICE.unitim(tai, "TAI", "ET"), lsk.taiToEt(tai), 0.0);
+
+            double et = CSPICE.unitim(tai, "TAI", "ET");
+            assertEquals(CSPICE.unitim(et, "ET", "TAI"), lsk.etToTai(et), 0.0);
+        }
+    }
+
+    @Test
+    public void etConversionsWithoutSpice() throws SpiceErrorException {
+        Time t = new Time("2019-119T21:04:38.987851");
+        double spiceET = t.toET();
+        double spiceTAI = t.toTAI();
+        String spiceFromET = Time.fromET(634956425.895100).toUTC(6);
+
+        Time.setLeapSecondsKernel(lsk);
+        assertEquals(spiceET, t.toET(), 0.000001);
+        assertEquals(spiceTAI, t.toTAI(), 0.000001);
+        assertEquals(spiceFromET, Time.fromET(634956425.895100).toUTC(6));
+        // doubles of seconds this far from J2000 only resolve about a tenth of a microsecond
+        assertTrue(t.equalToWithin(Time.fromTAI(t.toTAI()), MICROSECOND_DURATION));
+        assertTrue(t.equalToWithin(Time.fromET(t.toET()), MICROSECOND_DURATION));
+
+        Time.setUseSpiceForMath(true);
+        Time spiceModeTime = new Time("2019-119T21:04:38.987851");
+        assertEquals(CSPICE.unitim(spiceModeTime.toTAI(), "TAI", "ET"), spiceModeTime.toET(), 0.0);
+        assertTrue(spiceModeTime.equalToWithin(Time.fromET(spiceModeTime.toET()), MICROSECOND_DURATION));
+    }
+
+    @Test
+    public void formatsLeapSeconds(){
+        Time.setUseSpiceForMath(true);
+        Time.setLeapSecondsKernel(lsk);
+
+        Time t = new Time("2016-366T23:59:59").add(SECOND_DURATION);
+        assertEquals("2016-366T23:59:60.000000", t.toUTC());
+        assertEquals("2016-366T23:59:60.500", t.add(new Duration("00:00:00.5")).toUTC(3));
+        assertEquals("2016-366T23:59:60.000000", new Time("2016-366T23:59:59.9999996").toUTC(6));
+        assertEquals("2017-001T00:00:00.000000", new Time("2016-366T23:59:60.9999996").toUTC(6));
+        assertEquals("2017-001T00:00:00", t.add(SECOND_DURATION).toUTC(0));
+        assertEquals("2016-366T23:59:60.00000000", t.toUTC(10));
+    }
+}
@@ -0,0 +1,101 @@
+package gov.nasa.jpl.time;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static gov.nasa.jpl.time.Time.AM_PM.AM;
+import static gov.nasa.jpl.time.Time.AM_PM.PM;
+import static org.junit.Assert.*;
+
+public class LmstKernelTest {
+    private LmstKernel m2020;
+
+    @Before
+    public void setUp() throws IOException {
+        TimeTest.setupSpice();
+        m2020 = LmstKernel.read("kernels/m2020_lmst_dev00_v3.tsc", -168, LeapSecondsKernel.read("kernels/naif0012.tls"));
+    }
+
+    @After
+    public void tearDown(){
+        Time.removeLmstKernel(-168);
+        Time.setUseSpiceForMath(false);
+    }
+
+    @Test
+    public void primitives(){
+        long tai = m2020.getSolStartTai(100);
+        assertEquals(100, m2020.toSolNumber(tai));
+        assertEquals(0, m2020.toTicsOfSol(tai));
+        assertTrue(m2020.isAM(tai));
+        assertEquals(99, m2020.toSolNumber(tai - ONE_SECOND));
+
+        long noon = m2020.lmstToTai(100, ONE_DAY / 2);
+        assertFalse(m2020.isAM(noon));
+        assertEquals(100.5, m2020.toFractionalSols(noon), 1e-9);
+        // a sol is 88775.244 TDB seconds, which differs from TAI by at most a few tens of microseconds
+        assertEquals(88775.244, (m2020.getSolStartTai(101) - tai) / (double) ONE_SECOND, 1e-4);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void rejectsTimesBeforeEpoch(){
+        m2020.toSolNumber(m2020.getEpochTai() - 1);
+    }
+
+    @Test
+    public void matchesSpice(){
+        Time.setDefaultSpacecraftId(-168);
+        Random random = new Random(3141);
+        Time start = Time.fromLMST("Sol-0000M00:00:01");
+        for(int i = 0; i < 1000; i++){
+            // whole microseconds so the str2et(toUTC()) SPICE path sees the exact time
+            long tics = start.add(new Duration((long) (random.nextDouble() * 2000 * ONE_DAY))).getTics();
+            Time t = Time.fromTics(tics - tics % ONE_MICROSECOND);
+
+            // and away from ties between LMST clock ticks, which the two paths can round differently
+            double clockTicks = m2020.getSclkKernel().etToTicks(t.toET());
+            if(Math.abs(clockTicks - Math.floor(clockTicks) - 0.5) < 0.05){
+                continue;
+            }
+
+            String spiceLMST = t.toLMST(5);
+            int spiceSol = t.toSolNumber();
+            double spiceFractionalSols = t.toFractionalSols();
+            Time.AM_PM spiceAmPm = t.toLmstAmPm();
+            Time spiceFromLMST = Time.fromLMST(spiceLMST);
+
+            Time.addLmstKernel(m2020);
+            assertEquals(spiceLMST, t.toLMST(5));
+            assertEquals(spiceSol, t.toSolNumber());
+            assertEquals(spiceFractionalSols, t.toFractionalSols(), 1e-9);
+            assertEquals(spiceAmPm, t.toLmstAmPm());
+            assertTrue(spiceFromLMST.equalToWithin(Time.fromLMST(spiceLMST), MICROSECOND_DURATION));
+            Time.removeLmstKernel(-168);
+        }
+    }
+
+    @Test
+    public void timeConversionsWithoutSpice(){
+        Time.setDefaultSpacecraftId(-168);
+        Time.addLmstKernel(m2020);
+
+        Time t = new Time("2022-001T00:00:00");
+        assertEquals("Sol-0308M02:59:38.698040", t.toLMST());
+        assertEquals("Sol-0308M02:59:39", t.toLMST(0));
+        assertEquals(308, t.toSolNumber());
+        assertEquals("2021-100T18:41:52.028", Time.fromLMST("Sol-050M00:00:00").toUTC(3));
+        assertEquals("2021-100T18:41:52.131", Time.fromLMST("Sol-050M00:00:00.1", -168).toUTC(3));
+        assertEquals(AM, Time.fromLMST("Sol-0100M11:59:59.999").toLmstAmPm());
+        assertEquals(PM, Time.fromLMST("Sol-0100M12:00:00").toLmstAmPm());
+
+        Time.setUseSpiceForMath(true);
+        Time spiceMode = new Time("2022-001T00:00:00");
+        assertEquals("Sol-0308M02:59:38.698040", spiceMode.toLMST());
+        assertEquals("2021-100T18:41:52.028", Time.fromLMST("Sol-050M00:00:00").toUTC(3));
+    }
+}
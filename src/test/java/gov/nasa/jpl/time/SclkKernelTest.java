@@ -0,0 +1,176 @@
+package gov.nasa.jpl.time;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import spice.basic.CSPICE;
+import spice.basic.SpiceErrorException;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static org.junit.Assert.*;
+
+public class SclkKernelTest {
+    private LeapSecondsKernel lsk;
+    private SclkKernel m2020;
+    private SclkKernel insight;
+    private SclkKernel psyche;
+    private SclkKernel m2020Lmst;
+
+    @Before
+    public void setUp() throws IOException {
+        TimeTest.setupSpice();
+        lsk = LeapSecondsKernel.read("kernels/naif0012.tls");
+        m2020 = SclkKernel.read("kernels/M2020_SCLKSCET.NOMNM.tsc", -168, lsk);
+        insight = SclkKernel.read("kernels/NSY_SCLKSCET.00013.tsc", -189, lsk);
+        psyche = SclkKernel.read("kernels/PSYC_69_SCLKSCET.00000.tsc", -69, lsk);
+        m2020Lmst = SclkKernel.read("kernels/m2020_lmst_dev00_v3.tsc", -168900, lsk);
+    }
+
+    @After
+    public void tearDown(){
+        Time.removeSclkKernel(-168);
+        Time.removeSclkKernel(-189);
+        Time.removeSclkKernel(-69);
+        Time.setUseSpiceForMath(false);
+    }
+
+    @Test
+    public void matchesSpiceEncoding() throws SpiceErrorException {
+        Random random = new Random(24601);
+        for(SclkKernel kernel : new SclkKernel[]{m2020, insight, psyche, m2020Lmst}){
+            int sc_id = kernel.getSpacecraftId();
+            double start = kernel.ticksToEt(0);
+            for(int i = 0; i < 2000; i++){
+                double et = start + random.nextDouble() * 1.5e9;
+                double spiceTicks = CSPICE.sce2c(sc_id, et);
+                assertEquals(spiceTicks, kernel.etToTicks(et), Math.max(1e-6, Math.abs(spiceTicks) * 1e-15));
+                assertEquals(et, kernel.ticksToEt(spiceTicks), 1e-6);
+
+                // stay away from half-tick ties since SPICE rounds from a double
+                if(Math.abs(spiceTicks - Math.floor(spiceTicks) - 0.5) > 1e-3){
+                    String spiceString = CSPICE.sce2s(sc_id, et);
+                    long roundedTicks = (long) Math.floor(spiceTicks + 0.5);
+                    assertEquals(spiceString, kernel.format(roundedTicks));
+                    assertEquals(CSPICE.scencd(sc_id, spiceString), kernel.parse(spiceString), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void matchesSpiceDecoding() throws SpiceErrorException {
+        assertEquals(CSPICE.scdecd(-168, 1.0), m2020.format(1));
+        assertEquals("1/00000:00:20:34:56789", m2020Lmst.format(123456789));
+        assertEquals(CSPICE.scdecd(-168900, 123456789.0), m2020Lmst.format(123456789));
+    }
+
+    @Test
+    public void parsesLikeScencd() throws SpiceErrorException {
+        String[] inputs = {"1/0694267269-12059", "694267269-12059", "  1/  694267269:12059", "1/694267269.5",
+                "1/694267269,12059", "1/694267269 12059", "1/694267269", "1/694267269-70000"};
+        for(String input : inputs){
+            assertEquals(input, CSPICE.scencd(-168, input), m2020.parse(input), 0.0);
+        }
+        assertEquals(CSPICE.scencd(-168900, "150:25:00:00:0"), m2020Lmst.parse("150:25:00:00:0"), 0.0);
+    }
+
+    @Test
+    public void sclkdMatchesStringPath() throws SpiceErrorException {
+        Random random = new Random(8675309);
+        for(SclkKernel kernel : new SclkKernel[]{m2020, insight, psyche}){
+            int sc_id = kernel.getSpacecraftId();
+            double start = kernel.ticksToEt(0);
+            long modulus = kernel.getModulus(1);
+            for(int i = 0; i < 500; i++){
+                // whole microseconds so the str2et(toUTC()) SPICE path sees the exact time, away from half-tick ties
+                long tics = Time.fromET(start + random.nextDouble() * 1.5e9).getTics();
+                Time t = Time.fromTics(tics - tics % ONE_MICROSECOND);
+                double spiceTicks = CSPICE.sce2c(sc_id, t.toET());
+                if(Math.abs(spiceTicks - Math.floor(spiceTicks) - 0.5) < 0.1){
+                    continue;
+                }
+
+                // how toSCLKD and fromSCLKD used to work, through sce2s and scs2e strings
+                String[] fields = CSPICE.sce2s(sc_id, t.toET()).split("/")[1].split("[-.:, ]");
+                double stringSclkd = Integer.valueOf(fields[0]) + Integer.valueOf(fields[1]) / (double) modulus;
+                long stringTics = Time.fromET(CSPICE.scs2e(sc_id, String.format("1/%s-%s", fields[0], fields[1]))).getTics();
+
+                assertEquals(stringSclkd, t.toSCLKD(sc_id), 0.0);
+                assertEquals(stringTics, Time.fromSCLKD(stringSclkd, sc_id).getTics());
+                long fixedPoint = t.toFixedPointSCLKD(sc_id);
+                assertEquals(Long.parseLong(fields[0]) * modulus + Long.parseLong(fields[1]), fixedPoint);
+                assertEquals(stringTics, Time.fromFixedPointSCLKD(fixedPoint, sc_id).getTics());
+
+                Time.addSclkKernel(kernel);
+                assertEquals(stringSclkd, t.toSCLKD(sc_id), 0.0);
+                assertEquals(fixedPoint, t.toFixedPointSCLKD(sc_id));
+                assertEquals(stringTics, Time.fromSCLKD(stringSclkd, sc_id).getTics(), ONE_MICROSECOND);
+                Time.removeSclkKernel(sc_id);
+            }
+        }
+    }
+
+    @Test
+    public void bulkSclkd(){
+        long[] tics = new long[100];
+        for(int i = 0; i < tics.length; i++){
+            tics[i] = new Time("2022-001T00:00:00").getTics() + i * 12345678901L;
+        }
+        for(boolean useKernel : new boolean[]{false, true}){
+            if(useKernel){
+                Time.addSclkKernel(m2020);
+            }
+            double[] sclkds = Time.toSCLKD(tics, -168);
+            long[] fixedPoint = Time.toFixedPointSCLKD(tics, -168);
+            long[] fromSclkds = Time.fromSCLKD(sclkds, -168);
+            long[] fromFixedPoint = Time.fromFixedPointSCLKD(fixedPoint, -168);
+            for(int i = 0; i < tics.length; i++){
+                Time t = Time.fromTics(tics[i]);
+                assertEquals(t.toSCLKD(-168), sclkds[i], 0.0);
+                assertEquals(t.toFixedPointSCLKD(-168), fixedPoint[i]);
+                assertEquals(sclkds[i], fixedPoint[i] / 65536.0, 0.0);
+                assertEquals(Time.fromSCLKD(sclkds[i], -168).getTics(), fromSclkds[i]);
+                assertEquals(fromSclkds[i], fromFixedPoint[i]);
+                // a SCLK subsecond is about 15 microseconds
+                assertEquals(tics[i], fromSclkds[i], 8 * ONE_MICROSECOND);
+            }
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void rejectsTooManyFields(){
+        m2020.parse("1/694267269-12059-1");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void rejectsTimesBeforeKernel(){
+        m2020.etToTicks(-3e8);
+    }
+
+    @Test
+    public void timeConversionsWithoutSpice(){
+        Time.addSclkKernel(m2020);
+        Time.addSclkKernel(psyche);
+        Time.addSclkKernel(insight);
+
+        Time t = new Time("2022-001T00:00:00");
+        assertEquals("1/0694267269-12059", t.toSCLK(-168));
+        assertEquals(694267269.1840057, t.toSCLKD(-168), 0.00000001);
+        assertEquals("1/0793195269:12059", new Time("2025-050T00:00:00").toSCLK(-69));
+        assertEquals("2025-050T00:00:00.000", Time.fromSCLK("1/0793195269 12059", -69).toUTC(3));
+        assertEquals("2025-050T00:00:00.000", Time.fromSCLKD(793195269 + (12059/65536.0), -69).toUTC(3));
+
+        Time.removeSclkKernel(-189);
+        Time spiceInsight = Time.fromSCLK("1/0694897269-12345", -189);
+        Time.addSclkKernel(insight);
+        assertTrue(spiceInsight.equalToWithin(Time.fromSCLK("1/0694897269-12345", -189), MICROSECOND_DURATION));
+
+        Time.setUseSpiceForMath(true);
+        Time spiceMode = new Time("2022-001T00:00:00");
+        assertEquals("1/0694267269-12059", spiceMode.toSCLK(-168));
+        assertTrue(spiceMode.equalToWithin(Time.fromSCLK("1/0694267269-12059", -168), new Duration("00:00:00.0001")));
+    }
+}
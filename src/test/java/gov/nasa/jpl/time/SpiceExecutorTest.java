@@ -0,0 +1,114 @@
+package gov.nasa.jpl.time;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SpiceExecutorTest {
+    private SpiceExecutor executor;
+
+    @Before
+    public void setUp(){
+        TimeTest.setupSpice();
+        executor = new SpiceExecutor();
+    }
+
+    @After
+    public void tearDown(){
+        executor.close();
+    }
+
+    @Test
+    public void matchesDirectCalls() throws ExecutionException, InterruptedException {
+        Time t = new Time("2022-100T12:34:56.789");
+        assertEquals(t.toUTC(3), executor.toUTC(t, 3).get());
+        assertEquals(t.toET(), executor.toET(t).get(), 0.0);
+        assertEquals(t.toSCLK(-168), executor.toSCLK(t, -168).get());
+        String sclk = t.toSCLK(-168);
+        assertEquals(Time.fromSCLK(sclk, -168), executor.fromSCLK(sclk, -168).get());
+        assertArrayEquals(new String[]{t.toUTC(0), t.add(Duration.SECOND_DURATION).toUTC(0)}, executor.toUTC(new Time[]{t, t.add(Duration.SECOND_DURATION)}, 0).get());
+    }
+
+    @Test
+    public void confinesCallsToOneThread() throws InterruptedException, ExecutionException {
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<>());
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<String>> futures = Collections.synchronizedList(new ArrayList<>());
+        for(int i = 0; i < 8; i++){
+            int offset = i;
+            callers.execute(() -> {
+                for(int j = 0; j < 200; j++){
+                    Time t = new Time("2022-001T00:00:00").add(Duration.fromSeconds(offset * 1000 + j));
+                    futures.add(executor.submit(() -> {
+                        threads.add(Thread.currentThread());
+                        return t.toSCLK(-168);
+                    }));
+                }
+            });
+        }
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(30, TimeUnit.SECONDS));
+        for(CompletableFuture<String> future : futures){
+            assertNotNull(future.get());
+        }
+        assertEquals(1, threads.size());
+        assertEquals(1600, executor.getRequestCount());
+    }
+
+    @Test
+    public void coalescesQueuedRequests() throws InterruptedException, ExecutionException {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> {
+            release.await();
+            return null;
+        });
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        Time t = new Time("2022-001T00:00:00");
+        for(int i = 0; i < 100; i++){
+            futures.add(executor.toUTC(t));
+        }
+        long batchesBefore = executor.getBatchCount();
+        release.countDown();
+        for(CompletableFuture<String> future : futures){
+            assertEquals(t.toUTC(), future.get());
+        }
+        assertTrue(executor.getBatchCount() - batchesBefore <= 2);
+    }
+
+    @Test
+    public void reportsErrorsAndNestedWork() throws InterruptedException, ExecutionException {
+        CompletableFuture<Time> bad = executor.fromSCLK("not a clock", -168);
+        try {
+            bad.get();
+            fail("Expected the bad SCLK string to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RuntimeException);
+        }
+
+        // work submitted from the owner thread runs inline instead of waiting behind itself
+        Time t = new Time("2022-001T00:00:00");
+        assertEquals(t.toUTC(), executor.submit(() -> executor.toUTC(t).get()).get());
+
+        executor.close();
+        try {
+            executor.toUTC(t);
+            fail("Expected a closed executor to refuse work");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("closed"));
+        }
+    }
+}
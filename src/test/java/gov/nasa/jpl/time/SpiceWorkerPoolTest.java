@@ -0,0 +1,270 @@
+package gov.nasa.jpl.time;
+
+import gov.nasa.jpl.lighttime.SPKLightTimeProvider;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import spice.basic.CSPICE;
+import spice.basic.SpiceErrorException;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static org.junit.Assert.*;
+
+public class SpiceWorkerPoolTest {
+    private static final String[] KERNELS = {"kernels/naif0012.tls", "kernels/M2020_SCLKSCET.NOMNM.tsc", "kernels/m2020_lmst_dev00_v3.tsc"};
+    private static final double START_ET = 7e8;
+    private static final double DAY = 86400;
+    private static final int LANDER = -901;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static SpiceWorkerPool pool;
+    private static String spk;
+    private static String pck;
+
+    @BeforeClass
+    public static void setUp() throws IOException, SpiceErrorException {
+        TimeTest.setupSpice();
+        pool = new SpiceWorkerPool(2, KERNELS);
+        spk = writeSpk();
+        pck = writePck();
+        CSPICE.furnsh(spk);
+        CSPICE.furnsh(pck);
+    }
+
+    @AfterClass
+    public static void tearDown() throws SpiceErrorException {
+        pool.close();
+        CSPICE.unload(spk);
+        CSPICE.unload(pck);
+    }
+
+    // Mars orientation from pck00010
+    private static String writePck() throws IOException {
+        File file = folder.newFile("pool.tpc");
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println("KPL/PCK");
+            out.println("\\begindata");
+            out.println("BODY499_POLE_RA = ( 317.68143 -0.1061 0. )");
+            out.println("BODY499_POLE_DEC = ( 52.88650 -0.0609 0. )");
+            out.println("BODY499_PM = ( 176.630 350.89198226 0. )");
+            out.println("\\begintext");
+        }
+        return file.getPath();
+    }
+
+    // the Sun, Earth and Mars standing still, and a lander on Mars
+    private static String writeSpk() throws SpiceErrorException {
+        String file = new File(folder.getRoot(), "pool.bsp").getPath();
+        int handle = CSPICE.spkopn(file, "pool", 0);
+        writeFixed(handle, 10, 0, "J2000", 0, 0, 0);
+        writeFixed(handle, 3, 0, "J2000", 1.5e8, 0, 0);
+        writeFixed(handle, 399, 3, "J2000", 0, 0, 0);
+        writeFixed(handle, 4, 0, "J2000", 0, 2.2e8, 0);
+        writeFixed(handle, 499, 4, "J2000", 0, 0, 0);
+        writeFixed(handle, LANDER, 499, "IAU_MARS", 1000, -3000, 1200);
+        CSPICE.spkcls(handle);
+        return file;
+    }
+
+    private static void writeFixed(int handle, int body, int center, String frame, double x, double y, double z) throws SpiceErrorException {
+        double end = START_ET + 10 * DAY;
+        double[] states = {x, y, z, 0, 0, 0, x, y, z, 0, 0, 0};
+        CSPICE.spkw09(handle, body, center, frame, START_ET, end, "FIXED", 1, 2, states, new double[]{START_ET, end});
+    }
+
+    private static long[] times(int count){
+        long[] tics = new long[count];
+        Time start = new Time("2021-060T00:00:00");
+        for(int i = 0; i < count; i++){
+            tics[i] = start.add(Duration.fromSeconds(i * 3607.25)).getTics();
+        }
+        return tics;
+    }
+
+    @Test
+    public void matchesConversionsInThisJvm(){
+        long[] tics = times(500);
+        String[] utcs = pool.toUTC(tics, 3);
+        String[] sclks = pool.toSCLK(tics, -168);
+        String[] lmsts = pool.toLMST(tics, -168, 4);
+        for(int i = 0; i < tics.length; i++){
+            Time t = Time.fromTics(tics[i]);
+            assertEquals(t.toUTC(3), utcs[i]);
+            assertEquals(t.toSCLK(-168), sclks[i]);
+            assertEquals(t.toLMST(-168, 4), lmsts[i]);
+        }
+
+        long[] parsed = pool.parseUTC(utcs);
+        long[] fromSclk = pool.fromSCLK(sclks, -168);
+        long[] fromLmst = pool.fromLMST(lmsts, -168);
+        for(int i = 0; i < tics.length; i++){
+            assertEquals(Time.parseUTC(utcs[i]), parsed[i]);
+            assertEquals(Time.fromSCLK(sclks[i], -168).getTics(), fromSclk[i]);
+            assertEquals(Time.fromLMST(lmsts[i], -168).getTics(), fromLmst[i]);
+        }
+
+        assertEquals(0, pool.toUTC(new long[0], 3).length);
+        assertArrayEquals(new String[]{utcs[7]}, pool.toUTC(new long[]{tics[7]}, 3));
+    }
+
+    @Test
+    public void reportsErrorsAndStaysUsable(){
+        String[] sclks = pool.toSCLK(times(300), -168);
+        sclks[250] = "not a clock";
+        try {
+            pool.fromSCLK(sclks, -168);
+            fail("Expected the bad SCLK string to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("not a clock"));
+        }
+        assertEquals(Time.fromTics(times(1)[0]).toUTC(3), pool.toUTC(times(1), 3)[0]);
+    }
+
+    @Test
+    public void sendsTheContext() throws IOException {
+        LeapSecondsKernel leapSecondsKernel = LeapSecondsKernel.read("kernels/naif0012.tls");
+        TimeContext javaKernels = TimeContext.defaults().withUseSpiceForMath(true).withLeapSecondsKernel(leapSecondsKernel)
+                .withSclkKernel(SclkKernel.read("kernels/M2020_SCLKSCET.NOMNM.tsc", -168, leapSecondsKernel))
+                .withLmstKernel(LmstKernel.read("kernels/m2020_lmst_dev00_v3.tsc", -168, leapSecondsKernel));
+        // the same tics are different times when there are no leap seconds
+        TimeContext leapFree = TimeContext.defaults();
+        for(TimeContext context : new TimeContext[]{javaKernels, leapFree}){
+            long[] tics = times(300);
+            try (SpiceWorkerPool contextPool = new SpiceWorkerPool(2, context, KERNELS)) {
+                String[] utcs = contextPool.toUTC(tics, 3);
+                long[] parsed = contextPool.parseUTC(utcs);
+                for(int i = 0; i < tics.length; i++){
+                    assertEquals(Time.fromTics(tics[i]).toUTC(3, context), utcs[i]);
+                    assertEquals(Time.parseUTC(utcs[i], context), parsed[i]);
+                }
+                if(context == javaKernels){
+                    String[] sclks = contextPool.toSCLK(tics, -168);
+                    String[] lmsts = contextPool.toLMST(tics, -168, 4);
+                    for(int i = 0; i < tics.length; i++){
+                        assertEquals(Time.fromTics(tics[i]).toSCLK(-168, context), sclks[i]);
+                        assertEquals(Time.fromTics(tics[i]).toLMST(-168, 4, context), lmsts[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void contextsSurviveTheTrip() throws IOException {
+        LeapSecondsKernel leapSecondsKernel = LeapSecondsKernel.read("kernels/naif0012.tls");
+        TimeContext context = TimeContext.defaults().withUseSpiceForMath(true).withLeapSecondsKernel(leapSecondsKernel)
+                .withSclkKernel(SclkKernel.read("kernels/M2020_SCLKSCET.NOMNM.tsc", -168, leapSecondsKernel))
+                .withLmstKernel(LmstKernel.read("kernels/m2020_lmst_dev00_v3.tsc", -168, leapSecondsKernel))
+                .withDefaultSpacecraftId(-168).withDefaultLstBodyId(499).withDefaultLstBodyFrame("IAU_MARS")
+                .withDefaultOutputPrecision(3).withEpoch("launch", Time.fromTics(12345));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            context.writeTo(out);
+        }
+        TimeContext copy = TimeContext.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertTrue(copy.getUseSpiceForMath());
+        assertEquals(-168, copy.getDefaultSpacecraftId());
+        assertEquals(Integer.valueOf(499), copy.getDefaultLstBodyId());
+        assertEquals("IAU_MARS", copy.getDefaultLstBodyFrame());
+        assertEquals(3, copy.getDefaultOutputPrecision());
+        assertEquals(context.getEpochs(), copy.getEpochs());
+        assertNotNull(copy.getLeapSecondsKernel());
+        assertEquals(-168, copy.getSclkKernel(-168).getSpacecraftId());
+        assertEquals(-168, copy.getLmstKernel(-168).getSpacecraftId());
+        assertNull(copy.getSclkKernel(-76));
+        Time t = Time.fromTics(times(1)[0]);
+        assertEquals(t.toLMST(-168, 4, context), t.toLMST(-168, 4, copy));
+    }
+
+    @Test
+    public void rejectsContextsItCantSend() throws IOException {
+        TimeContext context = TimeContext.defaults().withLightTimeProvider(new SPKLightTimeProvider(){});
+        try (SpiceWorkerPool ignored = new SpiceWorkerPool(1, context, KERNELS)) {
+            fail("Expected a light time provider the workers don't have to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("SPKLightTimeProvider"));
+        }
+    }
+
+    @Test
+    public void lightTimesAndLst() throws IOException {
+        TimeContext context = TimeContext.defaults().withUseSpiceForMath(true);
+        SPKLightTimeProvider provider = new SPKLightTimeProvider();
+        long[] tics = new long[200];
+        Time start = Time.fromET(START_ET + DAY, context);
+        for(int i = 0; i < tics.length; i++){
+            tics[i] = start.add(Duration.fromMinutes(37 * i)).getTics();
+        }
+        try (SpiceWorkerPool spkPool = new SpiceWorkerPool(2, context, "kernels/naif0012.tls", spk, pck)) {
+            long[] lsts = spkPool.toLST(tics, LANDER, 499, "IAU_MARS");
+            for(int i = 0; i < tics.length; i++){
+                assertEquals(Time.fromTics(tics[i]).toLST(LANDER, 499, "IAU_MARS", context).getTics(), lsts[i]);
+            }
+            for(String reference : new String[]{"SCET", "ERT", "ETT"}){
+                long[] downlegs = spkPool.downleg(tics, LANDER, 399, reference);
+                long[] uplegs = spkPool.upleg(tics, LANDER, 399, reference);
+                for(int i = 0; i < tics.length; i++){
+                    assertEquals(provider.downleg(Time.fromTics(tics[i]), LANDER, 399, reference, context).getTics(), downlegs[i]);
+                    assertEquals(provider.upleg(Time.fromTics(tics[i]), LANDER, 399, reference, context).getTics(), uplegs[i]);
+                }
+            }
+            // light takes about 888 seconds from Mars to Earth where they are standing
+            assertEquals(888 * ONE_SECOND, spkPool.downleg(tics, LANDER, 399, "SCET")[0], 5 * ONE_SECOND);
+        }
+    }
+
+    @Test
+    public void replacesWorkersThatExit() throws InterruptedException {
+        long[] tics = times(500);
+        String[] expected = pool.toUTC(tics, 3);
+        Process worker = pool.getWorkerProcess(0);
+        worker.destroyForcibly();
+        worker.waitFor();
+        try {
+            pool.toUTC(tics, 3);
+            fail("Expected the request to the worker that exited to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("Lost the connection"));
+        }
+        assertNotSame(worker, pool.getWorkerProcess(0));
+        assertArrayEquals(expected, pool.toUTC(tics, 3));
+    }
+
+    @Test
+    public void spreadsSmallCallsAcrossWorkers() throws Exception {
+        long[] before = new long[pool.getWorkerCount()];
+        for(int i = 0; i < before.length; i++){
+            before[i] = pool.getRequestCount(i);
+        }
+        long[] tics = times(10);
+        String[] expected = pool.toUTC(tics, 3);
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String[]>> results = new ArrayList<>();
+            for(int i = 0; i < 40; i++){
+                results.add(threads.submit(() -> pool.toUTC(tics, 3)));
+            }
+            for(Future<String[]> result : results){
+                assertArrayEquals(expected, result.get());
+            }
+        } finally {
+            threads.shutdown();
+        }
+        // every call is far below one shard per worker, so only where they start spreads them
+        for(int i = 0; i < before.length; i++){
+            assertTrue(pool.getRequestCount(i) - before[i] >= 20);
+        }
+    }
+}
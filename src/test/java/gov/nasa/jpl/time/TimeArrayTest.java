@@ -0,0 +1,95 @@
+package gov.nasa.jpl.time;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static org.junit.Assert.*;
+
+public class TimeArrayTest {
+
+    @Test
+    public void matchesScalarMath(){
+        List<Time> times = new ArrayList<>();
+        Time start = new Time("2019-001T00:00:00");
+        for(int i = 0; i < 1000; i++){
+            times.add(start.add(Duration.fromSeconds(i * 37.123457)));
+        }
+        Collections.shuffle(times, new Random(7));
+        TimeArray array = TimeArray.of(times);
+        Duration step = Duration.fromMinutes(5);
+
+        TimeArray later = array.add(HOUR_DURATION);
+        TimeArray rounded = array.round(step, start);
+        TimeArray floored = array.floor(step, start);
+        TimeArray ceiled = array.ceil(step, start);
+        DurationArray offsets = array.subtract(start);
+        for(int i = 0; i < times.size(); i++){
+            Time t = times.get(i);
+            assertEquals(t.add(HOUR_DURATION), later.get(i));
+            assertEquals(t.round(step, start), rounded.get(i));
+            assertEquals(t.floor(step, start), floored.get(i));
+            assertEquals(t.ceil(step, start), ceiled.get(i));
+            assertEquals(t.subtract(start), offsets.get(i));
+            assertEquals(t.subtract(start).round(SECOND_DURATION), offsets.round(SECOND_DURATION).get(i));
+        }
+        assertEquals(array, later.subtract(HOUR_DURATION));
+        assertEquals(array, array.add(offsets.subtract(offsets)));
+        assertEquals(Collections.min(times), array.min());
+        assertEquals(Collections.max(times), array.max());
+        assertEquals(Duration.fromTics(0), later.subtract(array).subtract(DurationArray.of(Collections.nCopies(times.size(), HOUR_DURATION))).max());
+    }
+
+    @Test
+    public void sortsAndSearches(){
+        TimeArray array = TimeArray.wrap(new long[]{50 * ONE_SECOND, -3, 7, 7 * ONE_HOUR, 0});
+        assertFalse(array.isSorted());
+        array.sort();
+        assertTrue(array.isSorted());
+        assertArrayEquals(new long[]{-3, 0, 7, 50 * ONE_SECOND, 7 * ONE_HOUR}, array.ticsArray());
+
+        assertEquals(3, array.binarySearch(Time.fromTics(50 * ONE_SECOND)));
+        assertEquals(-4, array.binarySearch(Time.fromTics(8)));
+
+        DurationArray gaps = array.differences();
+        assertEquals(4, gaps.length());
+        assertEquals(Duration.fromTics(3), gaps.get(0));
+        assertEquals(Duration.fromTics(7 * ONE_HOUR + 3), gaps.sum());
+        assertEquals(0, TimeArray.wrap(new long[0]).differences().length());
+        try {
+            new TimeArray(0).min();
+            fail("Expected an empty array to have no minimum");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("empty"));
+        }
+    }
+
+    @Test
+    public void viewsWriteThrough(){
+        long[] tics = new long[3];
+        TimeArray array = TimeArray.wrap(tics);
+        List<Time> view = array.asList();
+        Time t = new Time("2020-100T12:00:00");
+        view.set(1, t);
+        assertEquals(t.getTics(), tics[1]);
+        assertEquals(t, array.get(1));
+        assertEquals(3, view.size());
+        assertEquals(1, view.indexOf(t));
+        assertArrayEquals(view.toArray(), array.toTimes());
+
+        TimeArray copy = array.copy();
+        copy.setTics(0, 5);
+        assertEquals(0, tics[0]);
+        assertEquals(TimeArray.of(t, Time.fromTics(0)), array.copyOfRange(1, 3));
+        try {
+            array.add(new DurationArray(2));
+            fail("Expected arrays of different lengths not to combine");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("different lengths"));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package gov.nasa.jpl.time;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class TimeColumnsTest {
+    private TimeContext saved;
+    private TimeContext withLeapSeconds;
+
+    @Before
+    public void setUp() throws IOException {
+        TimeTest.setupSpice();
+        saved = Time.getDefaultContext();
+        withLeapSeconds = TimeContext.defaults().withUseSpiceForMath(true).withLeapSecondsKernel(LeapSecondsKernel.read("kernels/naif0012.tls"));
+    }
+
+    @After
+    public void tearDown(){
+        Time.setDefaultContext(saved);
+    }
+
+    // enough rows to be split across cores, on whole microseconds so they survive six decimal places
+    private static long[] times(TimeContext context){
+        long[] tics = new long[3 * TimeColumns.PARALLEL_THRESHOLD];
+        long start = Time.parseUTC("2016-366T23:00:00", context);
+        for(int i = 0; i < tics.length; i++){
+            tics[i] = start + i * 17123456000L;
+        }
+        return tics;
+    }
+
+    @Test
+    public void roundTripsColumns(){
+        for(TimeContext context : new TimeContext[]{TimeContext.defaults(), withLeapSeconds}){
+            long[] tics = times(context);
+            String[] utcs = new String[tics.length];
+            for(int i = 0; i < tics.length; i++){
+                utcs[i] = Time.fromTics(tics[i]).toUTC(6, context);
+            }
+            assertArrayEquals(tics, TimeColumns.parseUTC(utcs, context));
+
+            CharBuffer chars = CharBuffer.allocate(tics.length * 30);
+            TimeColumns.writeUTC(tics, 6, '\n', chars, context);
+            chars.flip();
+            assertEquals(String.join("\n", utcs) + "\n", chars.toString());
+            assertArrayEquals(tics, TimeColumns.parseUTC(chars, '\n', context));
+            assertFalse(chars.hasRemaining());
+
+            ByteBuffer bytes = ByteBuffer.allocateDirect(tics.length * 30);
+            TimeColumns.writeUTC(tics, 6, ',', bytes, context);
+            bytes.flip();
+            assertArrayEquals(tics, TimeColumns.parseUTC(bytes, ',', context));
+        }
+    }
+
+    @Test
+    public void trimsAndFallsBack(){
+        String column = "2020-001T00:00:00\r\n 2020-02-03T04:05:06.5 \r\n2020 JAN 01 00:00:00\r\n";
+        long[] expected = {
+                Time.parseUTC("2020-001T00:00:00"),
+                Time.parseUTC("2020-02-03T04:05:06.5"),
+                // not a form the Java scanner reads, so it goes to the general parser
+                Time.parseUTC("2020 JAN 01 00:00:00")
+        };
+        assertArrayEquals(expected, TimeColumns.parseUTC(CharBuffer.wrap(column), '\n'));
+        assertArrayEquals(expected, TimeColumns.parseUTC(ByteBuffer.wrap(column.getBytes(StandardCharsets.US_ASCII)), '\n'));
+        assertEquals(0, TimeColumns.parseUTC(CharBuffer.wrap(""), '\n').length);
+
+        try {
+            TimeColumns.parseUTC(CharBuffer.wrap("2020-001T00:00:00\n\n2020-002T00:00:00"), '\n');
+            fail("Expected an empty row in the middle of the column to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("row 1"));
+        }
+    }
+
+    @Test
+    public void writesNothingWithoutRoom(){
+        long[] tics = {0, Duration.ONE_DAY};
+        CharBuffer small = CharBuffer.allocate(20);
+        try {
+            TimeColumns.writeUTC(tics, 0, '\n', small);
+            fail("Expected two times not to fit in 20 chars");
+        } catch (BufferOverflowException e) {
+            assertEquals(0, small.position());
+        }
+    }
+
+    @Test
+    public void convertsSecondsLikeTimes(){
+        TimeContext cached = withLeapSeconds.withEphemerisTimeCacheCoverage(Time.parseUTC("2017-001T00:00:00", withLeapSeconds) / (double) Duration.ONE_SECOND, Time.parseUTC("2017-020T00:00:00", withLeapSeconds) / (double) Duration.ONE_SECOND, Duration.DAY_DURATION);
+        for(TimeContext context : new TimeContext[]{TimeContext.defaults().withLeapSecondsKernel(withLeapSeconds.getLeapSecondsKernel()), withLeapSeconds, cached}){
+            long[] tics = times(context);
+            double[] tai = TimeColumns.toTAI(tics, new double[tics.length], context);
+            double[] et = TimeColumns.toET(tics, new double[tics.length], context);
+            double[] gps = TimeColumns.toGPSSeconds(tics, new double[tics.length], context);
+            for(int i = 0; i < tics.length; i += 97){
+                Time t = Time.fromTics(tics[i]);
+                assertEquals(t.toTAI(context), tai[i], 0);
+                assertEquals(t.toET(context), et[i], 1e-7);
+                assertEquals(t.toTAI(context) - new Time("1980-006T00:00:00", context).toTAI(context), gps[i], 0);
+            }
+            double gpsEpochTai = new Time("1980-006T00:00:00", context).toTAI(context);
+            long[] fromTai = TimeColumns.fromTAI(tai, new long[tics.length], context);
+            long[] fromEt = TimeColumns.fromET(et, new long[tics.length], context);
+            long[] fromGps = TimeColumns.fromGPSSeconds(gps, new long[tics.length], context);
+            for(int i = 0; i < tics.length; i++){
+                assertEquals(Time.fromTAI(tai[i], context).getTics(), fromTai[i]);
+                assertEquals(Time.fromET(et[i], context).getTics(), fromEt[i]);
+                assertEquals(Time.fromTAI(gpsEpochTai + gps[i], context).getTics(), fromGps[i]);
+                // seconds since J2000 in a double are good to a few tics
+                assertEquals(tics[i], fromTai[i], 10);
+            }
+        }
+
+        try {
+            TimeColumns.toET(new long[3], new double[2]);
+            fail("Expected an output array of the wrong length to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("length 2"));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package gov.nasa.jpl.time;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static org.junit.Assert.*;
+
+public class TimeContextTest {
+    private TimeContext saved;
+    private TimeContext leapFree;
+    private TimeContext withLeapSeconds;
+
+    @Before
+    public void setUp() throws IOException {
+        TimeTest.setupSpice();
+        saved = Time.getDefaultContext();
+        leapFree = TimeContext.defaults();
+        withLeapSeconds = TimeContext.defaults().withUseSpiceForMath(true).withLeapSecondsKernel(LeapSecondsKernel.read("kernels/naif0012.tls"));
+    }
+
+    @After
+    public void tearDown(){
+        Time.setDefaultContext(saved);
+    }
+
+    @Test
+    public void withersCopy(){
+        TimeContext mission = leapFree.withDefaultSpacecraftId(-168).withDefaultOutputPrecision(3);
+        assertEquals(-168, mission.getDefaultSpacecraftId());
+        assertEquals(3, mission.getDefaultOutputPrecision());
+        assertEquals(6, leapFree.getDefaultOutputPrecision());
+        try {
+            leapFree.getDefaultSpacecraftId();
+            fail("Expected the defaults to have no spacecraft");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("default spacecraft id"));
+        }
+
+        TimeContext before = Time.getDefaultContext();
+        Time.setDefaultSpacecraftId(-76);
+        assertEquals(-76, Time.getDefaultSpacecraftId());
+        assertNotSame(before, Time.getDefaultContext());
+    }
+
+    @Test
+    public void contextsConvertIndependently(){
+        String utc = "2017-001T00:00:00.000";
+        Time leapFreeTime = new Time(utc, leapFree);
+        Time taiTime = new Time(utc, withLeapSeconds);
+
+        // tics in SPICE mode count TAI, 37 leap seconds ahead of the same UTC without them
+        assertEquals(37 * ONE_SECOND, taiTime.getTics() - leapFreeTime.getTics());
+        assertEquals(utc, leapFreeTime.toUTC(3, leapFree));
+        assertEquals(utc, taiTime.toUTC(3, withLeapSeconds));
+        assertEquals(Time.parseUTC(utc, withLeapSeconds), taiTime.getTics());
+
+        assertEquals(leapFreeTime.toTAI(leapFree), taiTime.toTAI(withLeapSeconds), 0);
+        assertEquals(leapFreeTime.toET(leapFree), taiTime.toET(withLeapSeconds), 1e-6);
+        assertEquals(taiTime, Time.fromET(taiTime.toET(withLeapSeconds), withLeapSeconds));
+
+        // the default context is whatever was set, not either of these
+        assertFalse(Time.getDefaultContext().getUseSpiceForMath());
+        assertEquals(leapFreeTime, new Time(utc));
+    }
+
+    @Test
+    public void precisionIsCappedTheSameInBothModes(){
+        String utc = "2019-199T23:59:59.12345678";
+        for(TimeContext context : new TimeContext[]{leapFree, withLeapSeconds}){
+            Time t = new Time(utc, context);
+            assertEquals(utc, t.toUTC(8, context));
+            assertEquals(utc, t.toUTC(12, context));
+            assertEquals(utc, t.appendUTC(new StringBuilder(), 12, context).toString());
+        }
+        assertEquals(new Time(utc, leapFree).toUTC(12, leapFree), new Time(utc, withLeapSeconds).toUTC(12, withLeapSeconds));
+    }
+
+    @Test
+    public void epochsBelongToContexts(){
+        TimeContext first = leapFree.withEpoch("LAUNCH", new Time("2020-001T00:00:00", leapFree));
+        TimeContext second = leapFree.withEpoch("LAUNCH", new Time("2021-001T00:00:00", leapFree));
+
+        assertEquals("2020-001T00:05:00.000", new EpochRelativeTime("LAUNCH+00:05:00", first).toUTC(3, first));
+        assertEquals("2021-001T00:05:00.000", new EpochRelativeTime("LAUNCH", MINUTE_DURATION.multiply(5), second).toUTC(3, second));
+        assertFalse(leapFree.getEpochs().containsKey("LAUNCH"));
+        try {
+            new EpochRelativeTime("LAUNCH+00:05:00", leapFree);
+            fail("Expected an epoch only other contexts define to be missing");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("LAUNCH"));
+        }
+
+        // adding to a relative time evaluates it against the epoch's current definition, as it always has
+        EpochRelativeTime.addEpoch("MOVING", new Time("2020-001T00:00:00"));
+        EpochRelativeTime early = new EpochRelativeTime("MOVING+00:00:00");
+        EpochRelativeTime.addEpoch("MOVING", new Time("2020-002T00:00:00"));
+        assertEquals(new Time("2020-002T01:00:00"), new Time(early.add(HOUR_DURATION)));
+        assertEquals("MOVING+01:00:00", early.add(HOUR_DURATION).toString(0));
+        EpochRelativeTime.removeEpoch("MOVING");
+        assertFalse(EpochRelativeTime.isEpochDefined("MOVING"));
+    }
+
+    @Test
+    public void missionMethodsTakeContexts() throws IOException {
+        LeapSecondsKernel leapSecondsKernel = withLeapSeconds.getLeapSecondsKernel();
+        TimeContext mission = withLeapSeconds
+                .withSclkKernel(SclkKernel.read("kernels/M2020_SCLKSCET.NOMNM.tsc", -168, leapSecondsKernel))
+                .withLmstKernel(LmstKernel.read("kernels/m2020_lmst_dev00_v3.tsc", -168, leapSecondsKernel));
+        // the default context has neither the mode nor the kernels
+        Time.setDefaultContext(leapFree);
+
+        String utc = "2021-100T12:34:56.789";
+        assertEquals(Time.parseUTC(utc, mission), Time.parseUTC(utc.toCharArray(), 0, utc.length(), mission));
+        assertEquals(Time.parseUTC(utc, mission), Time.parseUTC(utc.getBytes(), 0, utc.length(), mission));
+        assertNotEquals(Time.parseUTC(utc, mission), Time.parseUTC(utc.toCharArray(), 0, utc.length()));
+
+        Time t = new Time(utc, mission);
+        long fixedPoint = t.toFixedPointSCLKD(-168, mission);
+        assertEquals(t.toSCLKD(-168, mission) * 65536, fixedPoint, 1);
+        assertEquals(Time.fromFixedPointSCLKD(fixedPoint, -168, mission).getTics(), Time.fromFixedPointSCLKD(new long[]{fixedPoint}, -168, mission)[0]);
+        assertArrayEquals(new long[]{fixedPoint}, Time.toFixedPointSCLKD(new long[]{t.getTics()}, -168, mission));
+        assertArrayEquals(new double[]{t.toSCLKD(-168, mission)}, Time.toSCLKD(new long[]{t.getTics()}, -168, mission), 0);
+        assertEquals(Time.fromSCLKD(t.toSCLKD(-168, mission), -168, mission).getTics(), Time.fromSCLKD(new double[]{t.toSCLKD(-168, mission)}, -168, mission)[0]);
+
+        String lmst = t.toLMST(-168, 6, mission);
+        assertEquals(Integer.parseInt(lmst.substring(4, 8)), t.toSolNumber(-168, mission));
+        assertEquals(t.toSolNumber(-168, mission), (int) Math.floor(t.toFractionalSols(-168, mission)));
+        assertEquals(Integer.parseInt(lmst.substring(9, 11)) < 12 ? Time.AM_PM.AM : Time.AM_PM.PM, t.toLmstAmPm(-168, mission));
+    }
+
+    @Test
+    public void threadsKeepTheirContexts() throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for(int i = 0; i < 8; i++){
+            TimeContext context = i % 2 == 0 ? leapFree : withLeapSeconds;
+            results.add(pool.submit(() -> {
+                for(int day = 1; day <= 365; day++){
+                    String utc = String.format("2016-%03dT23:59:59.500", day);
+                    if(!new Time(utc, context).toUTC(3, context).equals(utc)){
+                        return false;
+                    }
+                }
+                return true;
+            }));
+        }
+        // flipping the default mode while they run changes nothing for them
+        for(int i = 0; i < 100; i++){
+            Time.setUseSpiceForMath(i % 2 == 0);
+        }
+        pool.shutdown();
+        for(Future<Boolean> result : results){
+            assertTrue(result.get());
+        }
+    }
+}
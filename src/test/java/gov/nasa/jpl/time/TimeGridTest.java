@@ -0,0 +1,102 @@
+package gov.nasa.jpl.time;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+import static gov.nasa.jpl.time.Duration.*;
+import static org.junit.Assert.*;
+
+public class TimeGridTest {
+
+    @Test
+    public void regularGrids(){
+        Time start = new Time("2021-001T00:00:00");
+        TimeGrid grid = TimeGrid.of(start, new Time("2021-002T00:00:00"), Duration.fromMinutes(7));
+        // 1440 minutes / 7 is 205.7, so the last time is 205 steps in
+        assertEquals(206, grid.size());
+        assertEquals(start, grid.get(0));
+        assertEquals(start.add(Duration.fromMinutes(7 * 205)), grid.get(205));
+        assertEquals(100, grid.indexOf(start.add(Duration.fromMinutes(700))));
+        assertEquals(-1, grid.indexOf(start.add(Duration.fromMinutes(701))));
+        assertEquals(100, grid.floorIndex(start.add(Duration.fromMinutes(701))));
+        assertEquals(-1, grid.floorIndex(start.subtract(SECOND_DURATION)));
+        assertEquals(205, grid.floorIndex(new Time("2022-001T00:00:00")));
+        assertTrue(TimeGrid.of(start, start.subtract(SECOND_DURATION), SECOND_DURATION).isEmpty());
+        try {
+            grid.get(206);
+            fail("Expected an index past the end to fail");
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(e.getMessage().contains("206"));
+        }
+
+        TimeGrid counted = TimeGrid.of(start, 206, Duration.fromMinutes(7));
+        assertEquals(grid.toTimeArray(), counted.toTimeArray());
+        assertEquals(grid.stream().boxed().collect(Collectors.toList()), counted.stream().parallel().boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void splitsForParallelStreams(){
+        TimeGrid grid = TimeGrid.of(Time.fromTics(0), 10000001, Duration.fromTics(3));
+        long expected = 0;
+        for(long i = 0; i < grid.size(); i++){
+            expected += 3 * i;
+        }
+        assertEquals(expected, grid.stream().parallel().sum());
+        assertEquals(grid.size(), grid.stream().parallel().count());
+        assertEquals(grid.getTics(grid.size() - 1), grid.stream().parallel().max().getAsLong());
+        assertEquals(grid.size(), grid.spliterator().getExactSizeIfKnown());
+    }
+
+    @Test
+    public void utcMidnights() throws IOException {
+        TimeContext leapFree = TimeContext.defaults();
+        TimeContext withLeapSeconds = TimeContext.defaults().withUseSpiceForMath(true).withLeapSecondsKernel(LeapSecondsKernel.read("kernels/naif0012.tls"));
+        for(TimeContext context : new TimeContext[]{leapFree, withLeapSeconds}){
+            TimeGrid midnights = TimeGrid.utcMidnights(new Time("2016-365T12:00:00", context), new Time("2017-003T00:00:00", context), context);
+            assertEquals(4, midnights.size());
+            assertEquals("2016-366T00:00:00", midnights.get(0).toUTC(0, context));
+            assertEquals("2017-001T00:00:00", midnights.get(1).toUTC(0, context));
+            assertEquals("2017-003T00:00:00", midnights.get(3).toUTC(0, context));
+            assertEquals(1, midnights.indexOf(new Time("2017-001T00:00:00", context)));
+            assertEquals(0, midnights.floorIndex(new Time("2016-366T23:59:59", context)));
+        }
+        // the day before 2017 is a second longer when there are leap seconds
+        TimeGrid leapDay = TimeGrid.utcMidnights(new Time("2016-366T00:00:00", withLeapSeconds), new Time("2017-001T00:00:00", withLeapSeconds), withLeapSeconds);
+        assertEquals(ONE_DAY + ONE_SECOND, leapDay.getTics(1) - leapDay.getTics(0));
+        assertEquals(0, leapDay.floorIndex(new Time("2016-366T23:59:60", withLeapSeconds)));
+    }
+
+    @Test
+    public void lmstSolStarts() throws IOException {
+        LeapSecondsKernel leapSecondsKernel = LeapSecondsKernel.read("kernels/naif0012.tls");
+        TimeContext context = TimeContext.defaults().withUseSpiceForMath(true).withLeapSecondsKernel(leapSecondsKernel)
+                .withLmstKernel(LmstKernel.read("kernels/m2020_lmst_dev00_v3.tsc", -168, leapSecondsKernel));
+        LmstKernel kernel = context.getLmstKernel(-168);
+        Time start = Time.fromTics(kernel.getSolStartTai(100) + 5);
+        TimeGrid sols = TimeGrid.lmstSolStarts(start, Time.fromTics(kernel.getSolStartTai(110)), -168, context);
+        assertEquals(10, sols.size());
+        for(int i = 0; i < sols.size(); i++){
+            assertEquals(kernel.getSolStartTai(101 + i), sols.getTics(i));
+            assertEquals(i, sols.indexOf(sols.get(i)));
+        }
+        assertEquals(3, sols.floorIndex(Time.fromTics(kernel.getSolStartTai(104) + HOUR_DURATION.getTics())));
+
+        // the grid starts at sol 0 no matter how early it is asked to, and nothing before that is in it
+        Time beforeSolZero = Time.fromTics(kernel.getSolStartTai(0) - 3 * ONE_DAY);
+        TimeGrid firstSols = TimeGrid.lmstSolStarts(beforeSolZero, Time.fromTics(kernel.getSolStartTai(2)), -168, context);
+        assertEquals(3, firstSols.size());
+        assertEquals(kernel.getSolStartTai(0), firstSols.getTics(0));
+        assertEquals(-1, firstSols.floorIndex(beforeSolZero));
+        assertEquals(-1, firstSols.floorIndex(Time.fromTics(kernel.getSolStartTai(0) - 1)));
+        assertEquals(0, firstSols.floorIndex(Time.fromTics(kernel.getSolStartTai(0))));
+        assertTrue(TimeGrid.lmstSolStarts(beforeSolZero, beforeSolZero.add(HOUR_DURATION), -168, context).isEmpty());
+        try {
+            TimeGrid.lmstSolStarts(start, start, -76, context);
+            fail("Expected a lander without an LMST kernel to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("-76"));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package gov.nasa.jpl.time;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeIntervalSetTest {
+
+    private static TimeIntervalSet set(long... endpoints){
+        return TimeIntervalSet.fromTics(endpoints);
+    }
+
+    private static Time t(long tics){
+        return Time.fromTics(tics);
+    }
+
+    @Test
+    public void normalizesLikeWindows(){
+        TimeIntervalSet s = set(23, 27, 1, 3, 2, 5, 5, 6, 9, 9);
+        assertArrayEquals(new long[]{1, 6, 9, 9, 23, 27}, s.toTics());
+        assertEquals(3, s.size());
+        assertEquals(Duration.fromTics(9), s.totalDuration());
+        assertTrue(TimeIntervalSet.fromTics(new long[0]).isEmpty());
+
+        try {
+            set(3, 1);
+            fail("Expected an interval ending before it starts to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("ends before it starts"));
+        }
+    }
+
+    // the examples from the SPICE window routines
+    @Test
+    public void setOperations(){
+        TimeIntervalSet a = set(1, 3, 7, 11, 23, 27);
+        TimeIntervalSet b = set(2, 4, 8, 10, 16, 18);
+        assertArrayEquals(new long[]{1, 4, 7, 11, 16, 18, 23, 27}, a.union(b).toTics());
+        assertArrayEquals(new long[]{2, 3, 8, 10}, a.intersect(b).toTics());
+        assertArrayEquals(new long[]{1, 2, 7, 8, 10, 11, 23, 27}, a.difference(b).toTics());
+        assertArrayEquals(new long[]{3, 7, 11, 20}, a.complement(t(2), t(20)).toTics());
+        assertEquals(a, a.union(TimeIntervalSet.empty()));
+        assertTrue(a.intersect(TimeIntervalSet.empty()).isEmpty());
+
+        // one interval of the other set covering the ends of two of these
+        assertArrayEquals(new long[]{1, 2, 12, 15}, set(1, 5, 8, 15).difference(set(2, 12)).toTics());
+        assertArrayEquals(new long[]{4, 4}, set(3, 3, 4, 4).difference(set(1, 3)).toTics());
+
+        // taking out single instants leaves their closures behind, so nothing is split
+        assertEquals(set(1, 5), set(1, 5).difference(set(2, 2)));
+        assertTrue(set(1, 5).difference(set(2, 2)).contains(t(1), t(3)));
+        assertArrayEquals(new long[]{0, 10}, set(0, 10).difference(set(3, 3, 6, 6)).toTics());
+        assertArrayEquals(new long[]{0, 4, 6, 10}, set(0, 10).difference(set(3, 3, 4, 6)).toTics());
+        assertArrayEquals(new long[]{0, 10}, set(3, 3, 6, 6).complement(t(0), t(10)).toTics());
+        assertArrayEquals(new long[]{0, 10}, set(0, 0, 5, 5, 10, 10).complement(t(0), t(10)).toTics());
+    }
+
+    @Test
+    public void adjustments(){
+        TimeIntervalSet a = set(1, 3, 7, 11, 23, 27);
+        assertArrayEquals(new long[]{-1, 14, 21, 30}, a.expand(Duration.fromTics(2), Duration.fromTics(3)).toTics());
+        assertArrayEquals(new long[]{9, 10, 25, 26}, a.contract(Duration.fromTics(2), Duration.fromTics(1)).toTics());
+        assertArrayEquals(new long[]{1, 11, 23, 27}, a.fillGaps(Duration.fromTics(4)).toTics());
+        assertArrayEquals(new long[]{7, 11, 23, 27}, a.removeShorterThan(Duration.fromTics(4)).toTics());
+    }
+
+    @Test
+    public void lookups(){
+        TimeIntervalSet a = set(1, 3, 7, 11, 23, 27);
+        assertEquals(1, a.indexOf(t(7)));
+        assertEquals(2, a.indexOf(t(27)));
+        assertEquals(-1, a.indexOf(t(0)));
+        assertEquals(-1, a.indexOf(t(5)));
+        assertEquals(-1, a.indexOf(t(28)));
+        assertTrue(a.contains(t(8), t(11)));
+        assertFalse(a.contains(t(2), t(8)));
+        assertTrue(a.intersects(t(4), t(7)));
+        assertFalse(a.intersects(t(12), t(22)));
+        assertEquals(TimeIntervalSet.of(t(7), t(11)), set(7, 9, 9, 11));
+    }
+}
@@ -0,0 +1,79 @@
+package gov.nasa.jpl.time;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TimeIntervalTreeTest {
+
+    private static Time t(long tics){
+        return Time.fromTics(tics);
+    }
+
+    @Test
+    public void findsContainingAndOverlapping(){
+        TimeIntervalTree<String> tree = new TimeIntervalTree<>();
+        tree.add(t(1), t(3), "a");
+        tree.add(t(7), t(11), "b");
+        tree.add(t(2), t(8), "c");
+        tree.add(t(9), t(9), "d");
+        tree.add(t(2), t(8), "c");
+
+        assertEquals(Arrays.asList("c", "c", "b"), tree.getContaining(t(8)));
+        assertEquals(Arrays.asList("b", "d"), tree.getContaining(t(9)));
+        assertEquals(Arrays.asList("a", "c", "c"), tree.getOverlapping(t(0), t(2)));
+        assertTrue(tree.getOverlapping(t(12), t(20)).isEmpty());
+        assertArrayEquals(new long[]{1, 11}, tree.toTimeIntervalSet().toTics());
+
+        assertTrue(tree.remove(t(2), t(8), "c"));
+        assertFalse(tree.remove(t(2), t(8), "a"));
+        assertEquals(Arrays.asList("c", "b"), tree.getContaining(t(8)));
+        assertEquals(4, tree.size());
+
+        try {
+            tree.add(t(3), t(1), "e");
+            fail("Expected an interval ending before it starts to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("ends before it starts"));
+        }
+    }
+
+    @Test
+    public void matchesScanning(){
+        Random random = new Random(25);
+        TimeIntervalTree<Integer> tree = new TimeIntervalTree<>();
+        List<long[]> intervals = new ArrayList<>();
+        for(int i = 0; i < 2000; i++){
+            long start = random.nextInt(100000);
+            long[] interval = {start, start + random.nextInt(500), i};
+            intervals.add(interval);
+            tree.add(t(interval[0]), t(interval[1]), i);
+        }
+        // take out every third one, in a different order than they went in
+        for(int i = intervals.size() - 1; i >= 0; i -= 3){
+            long[] interval = intervals.remove(i);
+            assertTrue(tree.remove(t(interval[0]), t(interval[1]), (int) interval[2]));
+        }
+        assertEquals(intervals.size(), tree.size());
+
+        for(int q = 0; q < 500; q++){
+            long start = random.nextInt(101000) - 500;
+            long end = start + random.nextInt(300);
+            List<Integer> expected = new ArrayList<>();
+            for(long[] interval : intervals){
+                if(interval[0] <= end && interval[1] >= start){
+                    expected.add((int) interval[2]);
+                }
+            }
+            List<Integer> found = tree.getOverlapping(t(start), t(end));
+            expected.sort(null);
+            found.sort(null);
+            assertEquals(expected, found);
+        }
+    }
+}
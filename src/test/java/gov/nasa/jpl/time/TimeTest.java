@@ -7,9 +7,14 @@ import org.junit.Test;
 import spice.basic.CSPICE;
 import spice.basic.SpiceErrorException;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.Random;
 
 import static gov.nasa.jpl.time.Time.AM_PM.AM;
 import static gov.nasa.jpl.time.Time.AM_PM.PM;
@@ -115,6 +120,77 @@ public class TimeTest {
         assertEquals("2020-001T00:00:00", t6.toUTC(0));
     }
 
+    @Test
+    public void writeUTC() {
+        Time t = new Time("2019-199T23:59:59.999999650");
+        StringBuilder sb = new StringBuilder("t=");
+        assertEquals("t=2019-200T00:00:00.000000", t.appendUTC(sb, 6).toString());
+
+        char[] chars = new char[32];
+        assertEquals(21, t.writeUTC(chars, 2, 3));
+        assertEquals("2019-200T00:00:00.000", new String(chars, 2, 21));
+
+        ByteBuffer bytes = ByteBuffer.allocate(32);
+        assertEquals(17, t.writeUTC(bytes, 0));
+        assertEquals("2019-200T00:00:00", new String(bytes.array(), 0, bytes.position(), StandardCharsets.US_ASCII));
+
+        // precision is capped at the resolution of tics
+        assertEquals("2019-199T23:59:59.99999965", t.toUTC(12));
+    }
+
+    @Test
+    public void toUTCMatchesLocalDateTime() {
+        Random random = new Random(42);
+        LocalDateTime epoch = LocalDateTime.of(2000, 1, 1, 12, 0);
+        for(int i = 0; i < 10000; i++){
+            // stay within the range where nanoseconds fit in a long, which is all LocalDateTime.plusNanos can do
+            long tics = (long) ((random.nextDouble() - 0.5) * 1.8e17);
+            for(int precision = 0; precision <= 8; precision++){
+                long rounder = (long) Math.pow(10, 8 - precision);
+                long roundedTics = Math.floorDiv(tics + rounder / 2, rounder) * rounder;
+                String pattern = precision == 0 ? "uuuu-DDD'T'HH:mm:ss" : "uuuu-DDD'T'HH:mm:ss." + "SSSSSSSS".substring(0, precision);
+                String expected = epoch.plusNanos(roundedTics * 10).format(DateTimeFormatter.ofPattern(pattern));
+                assertEquals(expected, Time.fromTics(tics).toUTC(precision));
+            }
+        }
+    }
+
+    @Test
+    public void parseUTC() {
+        assertEquals(new Time("2019-119T21:04:38.987851").getTics(), Time.parseUTC("2019-119T21:04:38.987851"));
+        assertEquals(new Time("2019-04-29T21:04:38.987851").getTics(), Time.parseUTC(new StringBuilder("2019-04-29T21:04:38.987851")));
+
+        char[] chars = "time=2019-119T21:04:38.987851,".toCharArray();
+        assertEquals(new Time("2019-119T21:04:38.987851").getTics(), Time.parseUTC(chars, 5, 24));
+        byte[] bytes = "time=2019-04-29T21:04:38,".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(new Time("2019-04-29T21:04:38").getTics(), Time.parseUTC(bytes, 5, 19));
+
+        // exotic inputs still go through the general-purpose parser
+        assertEquals(new Time("2019-150T00:00:00").getTics(), Time.parseUTC("2019 MAY 30 00:00:00"));
+        assertEquals(new Time("2019-059T00:00:00").getTics(), Time.parseUTC("2019-02-30T00:00:00"));
+    }
+
+    @Test
+    public void parseUTCMatchesLocalDateTime() {
+        Random random = new Random(99);
+        LocalDateTime epoch = LocalDateTime.of(2000, 1, 1, 12, 0);
+        DateTimeFormatter doy = DateTimeFormatter.ofPattern("uuuu-DDD'T'HH:mm:ss.SSSSSSSSS");
+        DateTimeFormatter iso = DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSSSSSSS");
+        for(int i = 0; i < 10000; i++){
+            LocalDateTime dateTime = epoch.plusNanos((long) ((random.nextDouble() - 0.5) * 1.8e18));
+            long expected = java.time.Duration.between(epoch, dateTime).toNanos() / 10;
+            String doyString = dateTime.format(doy);
+            assertEquals(expected, new Time(doyString).getTics());
+
+            // vary the number of decimal places, including none
+            int trim = random.nextInt(10);
+            String doyTrimmed = trim == 9 ? doyString.substring(0, 17) : doyString.substring(0, doyString.length() - trim);
+            int truncatedNanos = dateTime.getNano() - dateTime.getNano() % (int) Math.pow(10, trim);
+            assertEquals(java.time.Duration.between(epoch, dateTime.withNano(truncatedNanos)).toNanos() / 10, new Time(doyTrimmed).getTics());
+            assertEquals(expected, new Time(dateTime.format(iso)).getTics());
+        }
+    }
+
     @Test
     public void toUTCFormats(){
         Time t = new Time("2020-002T00:00:00");
@@ -235,6 +311,34 @@ public class TimeTest {
         assertEquals(new Time("2022-300T00:00:00"), t3.getMidnightUTC());
     }
 
+    @Test
+    public void toMidnightUTCWithLeapSeconds(){
+        Time.setUseSpiceForMath(true);
+        try {
+            Time leapSecond = new Time("2016-366T23:59:60.5");
+            assertEquals(new Time("2016-366T00:00:00"), leapSecond.getMidnightUTC());
+            assertEquals(new Duration("1T00:00:00.5"), leapSecond.getTimeOfDay());
+            assertEquals(new Time("2017-001T00:00:00"), new Time("2017-001T00:00:00").getMidnightUTC());
+            assertEquals(new Time("2017-001T00:01:00"), new Time("2017-001T00:00:31").round(Duration.MINUTE_DURATION));
+
+            // the day ending in a leap second is a second longer, so flooring to seconds counts from its midnight and keeps :60
+            assertEquals(new Time("2016-366T23:59:60"), leapSecond.floor(Duration.SECOND_DURATION));
+
+            Random random = new Random(1972);
+            for(int i = 0; i < 10000; i++){
+                Time t = new Time(new Time("1975-001T00:00:00").getTics() + (long) (random.nextDouble() * 50 * 365 * Duration.ONE_DAY));
+                // how getMidnightUTC used to work, staying clear of times that round up into the next day
+                if(t.getTimeOfDay().greaterThan(new Duration("23:59:59"))){
+                    continue;
+                }
+                assertEquals(new Time(t.toUTC().substring(0, 8) + "T00:00:00"), t.getMidnightUTC());
+            }
+        }
+        finally {
+            Time.setUseSpiceForMath(false);
+        }
+    }
+
     @Test
     public void getTimeOfDay(){
         Time t = new Time("1900-060T12:45:21");